@@ -18,6 +18,7 @@ package com.basho.riak.client;
 
 import com.basho.riak.client.core.RiakCluster;
 import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.SchedulingTag;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -32,6 +33,32 @@ import java.util.concurrent.ExecutionException;
  */
 public abstract class RiakCommand<T,S>
 {
+    private final SchedulingTag schedulingTag;
+    
+    protected RiakCommand()
+    {
+        this(SchedulingTag.DEFAULT);
+    }
+    
+    /**
+     * @param schedulingTag the scheduling class used when this command's 
+     * operations are executed; null for the default.
+     */
+    protected RiakCommand(SchedulingTag schedulingTag)
+    {
+        this.schedulingTag = schedulingTag == null ? SchedulingTag.DEFAULT : schedulingTag;
+    }
+    
+    /**
+     * Returns the scheduling class used when this command's operations are executed.
+     * @return the scheduling tag.
+     * @see RiakCluster#execute(com.basho.riak.client.core.FutureOperation, com.basho.riak.client.core.SchedulingTag) 
+     */
+    public SchedulingTag getSchedulingTag()
+    {
+        return schedulingTag;
+    }
+    
     protected final T execute(RiakCluster cluster) throws ExecutionException, InterruptedException
     {
         RiakFuture<T,S> future = executeAsync(cluster);
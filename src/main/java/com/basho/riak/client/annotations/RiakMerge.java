@@ -0,0 +1,66 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotates a method in a class that merges siblings of that class.
+ * <p>
+ * When no {@code ConflictResolver} is registered for a class with an annotated
+ * method, siblings are resolved using that method. It can be either a static
+ * method taking the list of siblings, or an instance method that merges another
+ * sibling into this one, which is applied to the siblings pairwise:
+ * </p>
+ * <pre>
+ * class ShoppingCart
+ * {
+ *     {@literal @}RiakMerge
+ *     public static ShoppingCart merge({@literal List<ShoppingCart>} siblings)
+ *     {
+ *         ...
+ *     }
+ * }
+ * 
+ * class ShoppingCart
+ * {
+ *     {@literal @}RiakMerge
+ *     public ShoppingCart merge(ShoppingCart other)
+ *     {
+ *         ...
+ *     }
+ * }
+ * </pre>
+ * <p>
+ * When the merged value is written back, its indexes, links and user metadata
+ * are taken from the newest sibling. Set {@link #mergeMetadata()} to merge 
+ * those of all the siblings instead.
+ * </p>
+ * 
+ * @since 2.0
+ * @see com.basho.riak.client.cap.ConflictResolverFactory
+ */
+@Retention(RetentionPolicy.RUNTIME) @Target({ElementType.METHOD}) public @interface RiakMerge
+{
+    /**
+     * Whether the metadata of all siblings is merged when written back.
+     * @see com.basho.riak.client.cap.SiblingMetadataMerger
+     */
+    boolean mergeMetadata() default false;
+}
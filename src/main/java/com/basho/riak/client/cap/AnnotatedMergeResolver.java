@@ -0,0 +1,114 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.cap;
+
+import com.basho.riak.client.annotations.RiakMerge;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+/**
+ * Resolves siblings using a method of the domain class annotated with 
+ * {@link RiakMerge}.
+ * 
+ * @param <T> the type being resolved
+ * @since 2.0
+ * @see RiakMerge
+ */
+public class AnnotatedMergeResolver<T> implements ConflictResolver<T>, SiblingMetadataMerger
+{
+    private final Method method;
+    private final boolean isStatic;
+    private final boolean mergeMetadata;
+    
+    private AnnotatedMergeResolver(Method method)
+    {
+        this.method = method;
+        this.isStatic = Modifier.isStatic(method.getModifiers());
+        this.mergeMetadata = method.getAnnotation(RiakMerge.class).mergeMetadata();
+        method.setAccessible(true);
+    }
+    
+    @Override
+    public boolean isMergingMetadata()
+    {
+        return mergeMetadata;
+    }
+    
+    /**
+     * Create a resolver for a class if it has a {@literal @RiakMerge} method.
+     * @param clazz the domain class.
+     * @return a resolver, or null if the class has no annotated method.
+     * @throws IllegalArgumentException if the annotated method has the wrong signature.
+     */
+    public static <T> AnnotatedMergeResolver<T> forClass(Class<T> clazz)
+    {
+        for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass())
+        {
+            for (Method m : c.getDeclaredMethods())
+            {
+                if (m.isAnnotationPresent(RiakMerge.class))
+                {
+                    Class<?>[] params = m.getParameterTypes();
+                    boolean isStatic = Modifier.isStatic(m.getModifiers());
+                    if (params.length != 1 
+                        || (isStatic && !List.class.isAssignableFrom(params[0]))
+                        || (!isStatic && !params[0].isAssignableFrom(clazz))
+                        || !clazz.isAssignableFrom(m.getReturnType()))
+                    {
+                        throw new IllegalArgumentException("@RiakMerge method " + m 
+                            + " must be static and take a List, or take a single " + clazz.getName());
+                    }
+                    return new AnnotatedMergeResolver<T>(m);
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T resolve(List<T> objectList) throws UnresolvedConflictException
+    {
+        if (objectList.size() <= 1)
+        {
+            return objectList.isEmpty() ? null : objectList.get(0);
+        }
+        
+        try
+        {
+            if (isStatic)
+            {
+                return (T) method.invoke(null, objectList);
+            }
+            T merged = objectList.get(0);
+            for (int i = 1; i < objectList.size(); i++)
+            {
+                merged = (T) method.invoke(merged, objectList.get(i));
+            }
+            return merged;
+        }
+        catch (IllegalAccessException ex)
+        {
+            throw new UnresolvedConflictException(ex, "Siblings could not be merged", objectList);
+        }
+        catch (InvocationTargetException ex)
+        {
+            throw new UnresolvedConflictException(ex.getCause(), "Siblings could not be merged", objectList);
+        }
+    }
+}
@@ -16,13 +16,29 @@
 
 package com.basho.riak.client.cap;
 
+import com.basho.riak.client.convert.ConverterFactory;
 import com.fasterxml.jackson.core.type.TypeReference;
+import java.lang.ref.SoftReference;
 import java.lang.reflect.Type;
+import java.util.Collections;
 import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
- *
+ * Holds the {@link ConflictResolver}s used to resolve siblings.
+ * <p>
+ * Resolvers are registered per type. For a type with no registered resolver
+ * an {@link AnnotatedMergeResolver} is used if the class has a method annotated
+ * with {@literal @RiakMerge}, otherwise a {@link DefaultResolver}. Built in 
+ * strategies are provided by {@link LastWriteWinsResolver} and 
+ * {@link JsonMergeResolver}.
+ * </p>
+ * <p>
+ * The resolvers chosen for unregistered types are cached. As with the 
+ * {@link ConverterFactory}, classes from other ClassLoaders are only weakly 
+ * keyed with softly held resolvers so they can still be unloaded.
+ * </p>
  * @author Brian Roach <roach at basho dot com>
  */
 public enum ConflictResolverFactory
@@ -31,6 +47,12 @@ public enum ConflictResolverFactory
     
     private final Map<Type, ConflictResolver<?>> resolverInstances =
         new ConcurrentHashMap<Type, ConflictResolver<?>>();
+    
+    private final Map<Type, ConflictResolver<?>> defaultResolvers =
+        new ConcurrentHashMap<Type, ConflictResolver<?>>();
+    
+    private final Map<Class<?>, SoftReference<ConflictResolver<?>>> foreignResolvers =
+        Collections.synchronizedMap(new WeakHashMap<Class<?>, SoftReference<ConflictResolver<?>>>());
 
     /**
      * Returns the instance of the ConflictResolverFactory.
@@ -80,13 +102,48 @@ public enum ConflictResolverFactory
         ConflictResolver<T> resolver = (ConflictResolver<T>) resolverInstances.get(type);
         if (resolver == null)
         {
-            // Cache this?
-            resolver = (ConflictResolver<T>) new DefaultResolver<T>();
+            resolver = getDefaultResolver(type);
         }
 
         return resolver;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <T> ConflictResolver<T> getDefaultResolver(Type type)
+    {
+        boolean cacheSafe = ConverterFactory.isCacheSafe(type);
+        ConflictResolver<T> resolver = null;
+        if (cacheSafe)
+        {
+            resolver = (ConflictResolver<T>) defaultResolvers.get(type);
+        }
+        else if (type instanceof Class)
+        {
+            SoftReference<ConflictResolver<?>> ref = foreignResolvers.get(type);
+            resolver = ref != null ? (ConflictResolver<T>) ref.get() : null;
+        }
+        
+        if (resolver == null)
+        {
+            if (type instanceof Class)
+            {
+                resolver = AnnotatedMergeResolver.forClass((Class<T>) type);
+            }
+            if (resolver == null)
+            {
+                resolver = new DefaultResolver<T>();
+            }
             
-
+            if (cacheSafe)
+            {
+                defaultResolvers.put(type, resolver);
+            }
+            else if (type instanceof Class)
+            {
+                foreignResolvers.put((Class<?>) type, new SoftReference<ConflictResolver<?>>(resolver));
+            }
+        }
+        return resolver;
     }
     
     /**
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.cap;
+
+import com.basho.riak.client.convert.JacksonConverter;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves siblings by merging their JSON representations field by field.
+ * <p>
+ * The siblings are folded together, oldest first:
+ * </p>
+ * <ul>
+ * <li>Objects are merged recursively; a field present in any sibling is kept.</li>
+ * <li>Arrays, and so collection fields, are the set union of their elements.</li>
+ * <li>Differing values of any other kind are taken from the newer sibling.</li>
+ * </ul>
+ * <p>
+ * Siblings in a response are presented to resolvers oldest first, by last 
+ * modified time. Since the union of collections can't represent removals, an
+ * element removed in one sibling but present in another is kept.
+ * </p>
+ * <p>
+ * The merged fields are written into the newest sibling, so fields populated
+ * from Riak metadata (e.g. {@literal @RiakKey}) are preserved. When written
+ * back, the indexes, links and user metadata are taken from the newest sibling
+ * unless the resolver was created to merge them.
+ * </p>
+ * @param <T> the type being resolved
+ * @since 2.0
+ */
+public class JsonMergeResolver<T> implements ConflictResolver<T>, SiblingMetadataMerger
+{
+    private final ObjectMapper mapper;
+    private final boolean mergeMetadata;
+    
+    /**
+     * Create a JsonMergeResolver using a JSON ObjectMapper.
+     */
+    public JsonMergeResolver()
+    {
+        this(JacksonConverter.newObjectMapper(new JsonFactory()));
+    }
+    
+    /**
+     * Create a JsonMergeResolver using the supplied ObjectMapper.
+     * @param mapper the ObjectMapper used to convert siblings to and from trees.
+     */
+    public JsonMergeResolver(ObjectMapper mapper)
+    {
+        this(mapper, false);
+    }
+    
+    /**
+     * Create a JsonMergeResolver using the supplied ObjectMapper.
+     * @param mapper the ObjectMapper used to convert siblings to and from trees.
+     * @param mergeMetadata whether the metadata of all siblings is merged 
+     * when written back.
+     * @see SiblingMetadataMerger
+     */
+    public JsonMergeResolver(ObjectMapper mapper, boolean mergeMetadata)
+    {
+        this.mapper = mapper;
+        this.mergeMetadata = mergeMetadata;
+    }
+    
+    @Override
+    public boolean isMergingMetadata()
+    {
+        return mergeMetadata;
+    }
+    
+    @Override
+    public T resolve(List<T> objectList) throws UnresolvedConflictException
+    {
+        if (objectList.size() <= 1)
+        {
+            return objectList.isEmpty() ? null : objectList.get(0);
+        }
+        
+        T newest = objectList.get(objectList.size() - 1);
+        try
+        {
+            JsonNode merged = null;
+            for (T sibling : objectList)
+            {
+                JsonNode tree = mapper.valueToTree(sibling);
+                merged = merged == null ? tree : merge(merged, tree);
+            }
+            return mapper.readerForUpdating(newest).readValue(merged);
+        }
+        catch (IllegalArgumentException ex)
+        {
+            throw new UnresolvedConflictException(ex, "Siblings could not be merged", objectList);
+        }
+        catch (IOException ex)
+        {
+            throw new UnresolvedConflictException(ex, "Siblings could not be merged", objectList);
+        }
+    }
+    
+    /**
+     * Merge two trees.
+     * @param older the older value.
+     * @param newer the newer value.
+     * @return the merged value.
+     */
+    static JsonNode merge(JsonNode older, JsonNode newer)
+    {
+        if (older.isObject() && newer.isObject())
+        {
+            ObjectNode result = ((ObjectNode) older).deepCopy();
+            Iterator<Map.Entry<String, JsonNode>> fields = newer.fields();
+            while (fields.hasNext())
+            {
+                Map.Entry<String, JsonNode> field = fields.next();
+                JsonNode existing = result.get(field.getKey());
+                result.set(field.getKey(), 
+                    existing == null ? field.getValue() : merge(existing, field.getValue()));
+            }
+            return result;
+        }
+        else if (older.isArray() && newer.isArray())
+        {
+            ArrayNode result = ((ArrayNode) older).deepCopy();
+            for (JsonNode element : newer)
+            {
+                if (!contains(result, element))
+                {
+                    result.add(element);
+                }
+            }
+            return result;
+        }
+        else if (newer.isNull() && !older.isNull())
+        {
+            // An unset field doesn't override a value
+            return older;
+        }
+        return newer;
+    }
+    
+    private static boolean contains(ArrayNode array, JsonNode element)
+    {
+        for (JsonNode e : array)
+        {
+            if (e.equals(element))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.cap;
+
+import com.basho.riak.client.query.RiakObject;
+import java.util.List;
+
+/**
+ * Resolves siblings by keeping the one most recently written.
+ * <p>
+ * The sibling with the greatest last modified time wins; ties are broken by
+ * vtag so every client picks the same sibling. Writes with clocks that are 
+ * close together may be lost, so this is best suited to data where that is 
+ * acceptable, e.g. caches or session state.
+ * </p>
+ * <pre>
+ * ConflictResolverFactory.getInstance()
+ *     .registerConflictResolver(Session.class, new {@literal LastWriteWinsResolver<Session>}());
+ * </pre>
+ * <p>
+ * The choice is made from the siblings' metadata, so it is only possible when 
+ * resolving the siblings in a response; {@link #resolve(List)} can only 
+ * resolve a single value.
+ * </p>
+ * @param <T> the type being resolved
+ * @since 2.0
+ */
+public class LastWriteWinsResolver<T> implements ConflictResolver<T>, SiblingSelector
+{
+    @Override
+    public RiakObject select(List<RiakObject> siblings)
+    {
+        RiakObject winner = null;
+        for (RiakObject sibling : siblings)
+        {
+            if (winner == null || newer(sibling, winner))
+            {
+                winner = sibling;
+            }
+        }
+        return winner;
+    }
+
+    @Override
+    public T resolve(List<T> objectList) throws UnresolvedConflictException
+    {
+        if (objectList.size() > 1)
+        {
+            throw new UnresolvedConflictException("Last modified time is not available for siblings", objectList);
+        }
+        return objectList.isEmpty() ? null : objectList.get(0);
+    }
+    
+    private static boolean newer(RiakObject a, RiakObject b)
+    {
+        if (a.getLastModified() != b.getLastModified())
+        {
+            return a.getLastModified() > b.getLastModified();
+        }
+        String aTag = a.getVTag() == null ? "" : a.getVTag();
+        String bTag = b.getVTag() == null ? "" : b.getVTag();
+        return aTag.compareTo(bTag) > 0;
+    }
+}
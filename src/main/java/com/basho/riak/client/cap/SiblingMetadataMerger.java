@@ -0,0 +1,40 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.cap;
+
+/**
+ * Implemented by a {@link ConflictResolver} that merges siblings and wants 
+ * their Riak metadata merged too.
+ * <p>
+ * When resolved siblings are written back, the stored object normally carries
+ * only the metadata of the newest sibling (or of the chosen one, for a 
+ * {@link SiblingSelector}). A merger can instead ask for the secondary 
+ * indexes and links of all the siblings to be added, along with any user 
+ * metadata the resolved value doesn't set. Since a union can't represent 
+ * removals, an entry removed in one sibling but present in another is kept.
+ * </p>
+ * @since 2.0
+ * @see com.basho.riak.client.operations.kv.SiblingWriteBack
+ */
+public interface SiblingMetadataMerger
+{
+    /**
+     * Whether the metadata of all siblings is merged when written back.
+     * @return true to merge the metadata of all siblings, false to use the 
+     * newest sibling's.
+     */
+    boolean isMergingMetadata();
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.cap;
+
+import com.basho.riak.client.query.RiakObject;
+import java.util.List;
+
+/**
+ * Implemented by a {@link ConflictResolver} that chooses between siblings 
+ * using their Riak metadata rather than their contents.
+ * <p>
+ * When resolving the siblings in a response with such a resolver, only the 
+ * chosen sibling is converted to the domain type.
+ * </p>
+ * @since 2.0
+ * @see LastWriteWinsResolver
+ */
+public interface SiblingSelector
+{
+    /**
+     * Choose one of the siblings.
+     * @param siblings the siblings, as returned from Riak.
+     * @return the chosen sibling, or null if there are none.
+     * @throws UnresolvedConflictException if a sibling can not be chosen.
+     */
+    RiakObject select(List<RiakObject> siblings) throws UnresolvedConflictException;
+}
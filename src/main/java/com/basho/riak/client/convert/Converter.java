@@ -15,8 +15,7 @@
  */
 package com.basho.riak.client.convert;
 
-import com.basho.riak.client.convert.reflection.AnnotationUtil;
-import com.basho.riak.client.cap.VClock;
+import com.basho.riak.client.convert.reflection.RiakMetadataBinder;
 import com.basho.riak.client.query.Location;
 import com.basho.riak.client.query.RiakObject;
 import com.basho.riak.client.util.BinaryValue;
@@ -40,6 +39,7 @@ import java.lang.reflect.Type;
 public abstract class Converter<T>
 {
     protected final Type type;
+    private volatile RiakMetadataBinder binder;
     
     public Converter(Type type)
     {
@@ -63,6 +63,22 @@ public abstract class Converter<T>
         }
     }
     
+    /**
+     * Returns the metadata binder for the class of a domain object. The last
+     * binder used is kept so that converting instances of the same class 
+     * doesn't need to look it up.
+     */
+    private RiakMetadataBinder binderFor(Object domainObject)
+    {
+        RiakMetadataBinder b = binder;
+        if (b == null || b.getType() != domainObject.getClass())
+        {
+            b = RiakMetadataBinder.forClass(domainObject.getClass());
+            binder = b;
+        }
+        return b;
+    }
+    
     /**
      * Converts from a RiakObject to a domain object.
      * 
@@ -80,23 +96,9 @@ public abstract class Converter<T>
         else
         {
             domainObject = toDomain(obj.getValue(), obj.getContentType());
-
-            AnnotationUtil.populateIndexes(obj.getIndexes(), domainObject);
-            AnnotationUtil.populateLinks(obj.getLinks(), domainObject);
-            AnnotationUtil.populateUsermeta(obj.getUserMeta(), domainObject);
-            AnnotationUtil.setContentType(domainObject, obj.getContentType());
-            AnnotationUtil.setVTag(domainObject, obj.getVTag());
         }
 
-        AnnotationUtil.setKey(domainObject, location.getKey());
-        AnnotationUtil.setBucketName(domainObject, location.getBucketName());
-        AnnotationUtil.setBucketType(domainObject, location.getBucketType());
-
-        AnnotationUtil.setVClock(domainObject, obj.getVClock());
-        AnnotationUtil.setTombstone(domainObject, obj.isDeleted());
-        AnnotationUtil.setLastModified(domainObject, obj.getLastModified());
-
-        return domainObject;
+        return binderFor(domainObject).bind(domainObject, obj, location);
     
     }
     
@@ -126,42 +128,15 @@ public abstract class Converter<T>
      */
     public OrmExtracted fromDomain(T domainObject, Location location)
     {        
-        BinaryValue key = location != null ? location.getKey() : null;
-        BinaryValue bucketName = location != null ? location.getBucketName() : null;
-        BinaryValue bucketType = location != null ? location.getBucketType() : null;
-        
-        key = AnnotationUtil.getKey(domainObject, key);
-        bucketName = AnnotationUtil.getBucketName(domainObject, bucketName);
-        bucketType = AnnotationUtil.getBucketType(domainObject, bucketType);
-        
-        if (bucketName == null)
-        {
-            throw new ConversionException("Bucket name not provided via location or domain object");
-        }
-        
-        VClock vclock = AnnotationUtil.getVClock(domainObject);
-        String contentType = 
-            AnnotationUtil.getContentType(domainObject, RiakObject.DEFAULT_CONTENT_TYPE);
-        
         RiakObject riakObject = new RiakObject();
-        
-        AnnotationUtil.getUsermetaData(riakObject.getUserMeta(), domainObject);
-        AnnotationUtil.getIndexes(riakObject.getIndexes(), domainObject);
-        AnnotationUtil.getLinks(riakObject.getLinks(), domainObject);
+        location = binderFor(domainObject).extract(domainObject, riakObject, location);
         
         ContentAndType cAndT = fromDomain(domainObject);
-        contentType = cAndT.contentType != null ? cAndT.contentType : contentType;
-        
-        riakObject.setContentType(contentType)
-                    .setValue(cAndT.content)
-                    .setVClock(vclock);
-        
-        location = new Location(bucketName).setKey(key);
-        
-        if (bucketType != null)
+        if (cAndT.contentType != null)
         {
-            location.setBucketType(bucketType);
+            riakObject.setContentType(cAndT.contentType);
         }
+        riakObject.setValue(cAndT.content);
         
         OrmExtracted extracted = new OrmExtracted(riakObject, location);
         return extracted;
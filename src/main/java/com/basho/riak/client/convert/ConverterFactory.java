@@ -17,9 +17,20 @@
 package com.basho.riak.client.convert;
 
 import com.basho.riak.client.query.RiakObject;
+import com.basho.riak.client.cap.ConflictResolverFactory;
+import com.basho.riak.client.convert.reflection.AnnotationHelper;
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.lang.ref.SoftReference;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -36,6 +47,18 @@ import java.util.concurrent.ConcurrentHashMap;
  * In the case you do need custom conversion, you would extend {@link Converter}
  * and then register it with the ConverterFactory for your classes.
  * </p>
+ * <p>
+ * The default converters are created once per type and cached. Types made 
+ * up only of classes visible to the client's own ClassLoader are kept in a
+ * bounded LRU cache. Classes from other loaders (e.g. a web application's)
+ * are only weakly keyed with softly held converters, so the cache never 
+ * prevents them from being unloaded.
+ * </p>
+ * <p>
+ * Converters, and everything else needed to convert a domain class, are 
+ * otherwise built on first use. Call {@link #preload(Class[])} at startup to
+ * build them ahead of time.
+ * </p>
  * 
  * @author Brian Roach <roach at basho dot com>
  * @since  2.0
@@ -52,6 +75,28 @@ public enum ConverterFactory
           put(String.class, new StringConverter());
         }};
     
+    /**
+     * The maximum number of default converters cached for types visible to
+     * the client's ClassLoader.
+     */
+    public static final int MAX_CACHED_CONVERTERS = 1024;
+    
+    private final Map<String, ObjectMapper> formats = new ConcurrentHashMap<String, ObjectMapper>();
+    private volatile String defaultFormat = JSONConverter.CONTENT_TYPE;
+    
+    // Keyed by Type, or by ProjectionKey for projection converters
+    private final Map<Object, Converter<?>> defaultConverters =
+        Collections.synchronizedMap(new LinkedHashMap<Object, Converter<?>>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Converter<?>> eldest)
+            {
+                return size() > MAX_CACHED_CONVERTERS;
+            }
+        });
+    
+    private final Map<Class<?>, SoftReference<Converter<?>>> foreignConverters =
+        Collections.synchronizedMap(new WeakHashMap<Class<?>, SoftReference<Converter<?>>>());
     
     
     /**
@@ -101,21 +146,169 @@ public enum ConverterFactory
         converter = (Converter<T>) converterInstances.get(type);
         if (converter == null)
         {
-            if (typeReference != null)
+            converter = getDefaultConverter(type, typeReference);
+        }
+
+        return converter;
+        
+    }
+    
+    
+    @SuppressWarnings("unchecked")
+    private <T> Converter<T> getDefaultConverter(Type type, TypeReference<T> typeReference)
+    {
+        boolean cacheSafe = isCacheSafe(type);
+        Converter<T> converter = null;
+        if (cacheSafe)
+        {
+            converter = (Converter<T>) defaultConverters.get(type);
+        }
+        else if (type instanceof Class)
+        {
+            SoftReference<Converter<?>> ref = foreignConverters.get(type);
+            converter = ref != null ? (Converter<T>) ref.get() : null;
+        }
+        
+        if (converter == null)
+        {
+            String format = defaultFormat;
+            ObjectMapper mapper = formats.get(format);
+            if (mapper == null)
             {
-                // Should we cache this?
-                converter = new JSONConverter<T>(typeReference);
+                converter = typeReference != null 
+                    ? new JSONConverter<T>(typeReference)
+                    : new JSONConverter<T>(type);
             }
             else
             {
-                converter = new JSONConverter<T>(type);
+                converter = typeReference != null 
+                    ? new JacksonConverter<T>(typeReference, mapper, format)
+                    : new JacksonConverter<T>(type, mapper, format);
+            }
+            
+            if (cacheSafe)
+            {
+                defaultConverters.put(type, converter);
+            }
+            else if (type instanceof Class)
+            {
+                foreignConverters.put((Class<?>) type, new SoftReference<Converter<?>>(converter));
             }
         }
-
         return converter;
+    }
+    
+    /**
+     * Build and cache everything needed to convert the supplied classes.
+     * <p>
+     * For each class this scans its Riak annotations, gets its converter, 
+     * binds the Jackson reader and writer (for Jackson based converters) and 
+     * gets its {@link com.basho.riak.client.cap.ConflictResolver}, so the 
+     * first fetch or store of each class doesn't pay for them. Converters and
+     * resolvers registered afterwards replace the preloaded ones as usual.
+     * </p>
+     * @param classes the domain classes to preload.
+     * @return the time taken by each step for each class.
+     * @throws IllegalArgumentException if a class has an invalid 
+     * {@literal @RiakMerge} method.
+     */
+    public PreloadReport preload(Class<?>... classes)
+    {
+        PreloadReport report = new PreloadReport();
+        for (Class<?> clazz : classes)
+        {
+            long start = System.nanoTime();
+            AnnotationHelper.getInstance().preload(clazz);
+            long scanned = System.nanoTime();
+            Converter<?> converter = getConverter(clazz);
+            long converted = System.nanoTime();
+            report.record(clazz, PreloadReport.Step.ANNOTATIONS, scanned - start);
+            report.record(clazz, PreloadReport.Step.CONVERTER, converted - scanned);
+            
+            if (converter instanceof JacksonConverter)
+            {
+                ((JacksonConverter<?>) converter).preload();
+                report.record(clazz, PreloadReport.Step.JACKSON, System.nanoTime() - converted);
+            }
+            
+            long resolving = System.nanoTime();
+            ConflictResolverFactory.getInstance().getConflictResolver(clazz);
+            report.record(clazz, PreloadReport.Step.RESOLVER, System.nanoTime() - resolving);
+        }
+        return report;
+    }
+    
+    /**
+     * Returns the ProjectionConverter for a projection class, cached along 
+     * with the default converters.
+     */
+    @SuppressWarnings("unchecked")
+    <T> ProjectionConverter<T> getProjectionConverter(Class<T> projectionClass)
+    {
+        // Projections of classes from other classloaders aren't cached
+        if (!isCacheSafe(projectionClass))
+        {
+            return new ProjectionConverter<T>(projectionClass);
+        }
         
+        ProjectionKey key = new ProjectionKey(projectionClass);
+        ProjectionConverter<T> converter = (ProjectionConverter<T>) defaultConverters.get(key);
+        if (converter == null)
+        {
+            converter = new ProjectionConverter<T>(projectionClass);
+            defaultConverters.put(key, converter);
+        }
+        return converter;
     }
     
+    /**
+     * Determine whether every class in a type is loaded by the client's 
+     * ClassLoader or one of its ancestors, in which case caching it can't 
+     * prevent it from being unloaded.
+     * @param type the type to check.
+     * @return true if the type can be strongly cached.
+     */
+    public static boolean isCacheSafe(Type type)
+    {
+        if (type instanceof Class)
+        {
+            ClassLoader target = ((Class<?>) type).getClassLoader();
+            if (target == null)
+            {
+                return true;
+            }
+            for (ClassLoader cl = ConverterFactory.class.getClassLoader(); cl != null; cl = cl.getParent())
+            {
+                if (cl == target)
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+        else if (type instanceof ParameterizedType)
+        {
+            ParameterizedType pType = (ParameterizedType) type;
+            if (!isCacheSafe(pType.getRawType()))
+            {
+                return false;
+            }
+            for (Type arg : pType.getActualTypeArguments())
+            {
+                if (!isCacheSafe(arg))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+        else if (type instanceof GenericArrayType)
+        {
+            return isCacheSafe(((GenericArrayType) type).getGenericComponentType());
+        }
+        // Wildcards and type variables aren't cached
+        return false;
+    }
     
     /**
      * Register a converter for the supplied class.
@@ -166,4 +359,118 @@ public enum ConverterFactory
         Type t = typeReference.getType();
         converterInstances.remove(t);
     }
+    
+    /**
+     * Register a Jackson format.
+     * <p>
+     * Values stored with this content type will be read using the supplied 
+     * mapper by the default and {@link JacksonConverter}s.
+     * </p>
+     * @param contentType the content type of the format.
+     * @param mapper the ObjectMapper for the format.
+     * @see JacksonConverter#newObjectMapper(JsonFactory) 
+     */
+    public void registerFormat(String contentType, ObjectMapper mapper)
+    {
+        formats.put(normalize(contentType), mapper);
+        clearDefaultConverters();
+    }
+    
+    /**
+     * Register a Jackson format.
+     * @param contentType the content type of the format.
+     * @param factory the JsonFactory for the format.
+     */
+    public void registerFormat(String contentType, JsonFactory factory)
+    {
+        registerFormat(contentType, JacksonConverter.newObjectMapper(factory));
+    }
+    
+    /**
+     * Unregister a Jackson format.
+     * @param contentType the content type of the format.
+     */
+    public void unregisterFormat(String contentType)
+    {
+        formats.remove(normalize(contentType));
+        clearDefaultConverters();
+    }
+    
+    /**
+     * Returns the ObjectMapper registered for a content type.
+     * @param contentType the content type, which may include parameters.
+     * @return the mapper, or null if no format is registered for the content type.
+     */
+    public ObjectMapper getFormat(String contentType)
+    {
+        if (contentType == null)
+        {
+            return null;
+        }
+        contentType = normalize(contentType);
+        ObjectMapper mapper = formats.get(contentType);
+        if (mapper == null && contentType.equals(JSONConverter.CONTENT_TYPE))
+        {
+            mapper = JSONConverter.getObjectMapper();
+        }
+        return mapper;
+    }
+    
+    /**
+     * Set the format the default converters write.
+     * <p>
+     * Defaults to JSON. The format must have been registered with 
+     * {@link #registerFormat(String, ObjectMapper)}.
+     * </p>
+     * @param contentType the content type of the format.
+     */
+    public void setDefaultFormat(String contentType)
+    {
+        contentType = normalize(contentType);
+        if (!contentType.equals(JSONConverter.CONTENT_TYPE) && !formats.containsKey(contentType))
+        {
+            throw new IllegalArgumentException("No format registered for " + contentType);
+        }
+        defaultFormat = contentType;
+        clearDefaultConverters();
+    }
+    
+    private void clearDefaultConverters()
+    {
+        defaultConverters.clear();
+        foreignConverters.clear();
+    }
+    
+    private static final class ProjectionKey
+    {
+        private final Class<?> projectionClass;
+        
+        ProjectionKey(Class<?> projectionClass)
+        {
+            this.projectionClass = projectionClass;
+        }
+        
+        @Override
+        public boolean equals(Object o)
+        {
+            return o instanceof ProjectionKey 
+                && ((ProjectionKey) o).projectionClass == projectionClass;
+        }
+        
+        @Override
+        public int hashCode()
+        {
+            return projectionClass.hashCode();
+        }
+    }
+    
+    private static String normalize(String contentType)
+    {
+        int params = contentType.indexOf(';');
+        if (params >= 0)
+        {
+            contentType = contentType.substring(0, params);
+        }
+        return contentType.trim().toLowerCase(Locale.ENGLISH);
+    }
 }
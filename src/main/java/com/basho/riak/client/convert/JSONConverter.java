@@ -16,16 +16,11 @@
 package com.basho.riak.client.convert;
 
 
-import java.io.IOException;
-
 import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.datatype.joda.JodaModule;
 
-import com.basho.riak.client.util.BinaryValue;
 import com.fasterxml.jackson.core.type.TypeReference;
-import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 
 /**
@@ -34,15 +29,30 @@ import java.lang.reflect.Type;
  * This uses the Jackson JSON library to serialize / deserialize objects to JSON.
  * The reulsting JSON is then stored in Riak. 
  * </p>
+ * <p>
+ * Each converter binds an {@code ObjectReader} (and, for final classes, an 
+ * {@code ObjectWriter}) for its type the first time it is used, so type 
+ * resolution and deserializer lookup happen once per converter rather than
+ * once per object. They are re-bound when the shared ObjectMapper is 
+ * reconfigured, including through a reference obtained earlier from 
+ * {@link #getObjectMapper()}, or has a module registered.
+ * </p>
+ * <p>
+ * Values stored with the content type of another format registered with the
+ * {@link ConverterFactory} are read using that format.
+ * </p>
  * @author Brian Roach <roach at basho dot com>
  * @param <T> type to convert to/from
- * 
+ * @see JacksonConverter
  */
-public class JSONConverter<T> extends Converter<T> {
+public class JSONConverter<T> extends JacksonConverter<T> {
 
+    public static final String CONTENT_TYPE = "application/json";
+    
     // Object mapper per domain class is expensive, a singleton (and ThreadSafe) will do.
     private static final ObjectMapper OBJECT_MAPPER= new ObjectMapper();
-    private final TypeReference<T> typeReference;
+    // Incremented after a module is registered
+    private static volatile int mapperGeneration;
     static {
         OBJECT_MAPPER.registerModule(new RiakJacksonModule());
         OBJECT_MAPPER.registerModule(new JodaModule());
@@ -56,14 +66,12 @@ public class JSONConverter<T> extends Converter<T> {
      * @param type
      */
     public JSONConverter(Type type) {
-        super(type);
-        typeReference = null;
+        super(type, OBJECT_MAPPER, CONTENT_TYPE);
     }
 
     public JSONConverter(TypeReference<T> typeReference)
     {
-        super(typeReference.getType());
-        this.typeReference = typeReference;
+        super(typeReference, OBJECT_MAPPER, CONTENT_TYPE);
     }
     
     /**
@@ -74,53 +82,20 @@ public class JSONConverter<T> extends Converter<T> {
     public static ObjectMapper getObjectMapper() {
         return OBJECT_MAPPER;
     }
-
+    
     /**
      * Convenient method to register a Jackson module into the singleton Object mapper used by domain objects.
      * @param jacksonModule Module to register.
      */
     public static void registerJacksonModule(final Module jacksonModule) {
         OBJECT_MAPPER.registerModule(jacksonModule);
+        mapperGeneration++;
     }
-
-    @SuppressWarnings("unchecked")
-    @Override
-    public T toDomain(BinaryValue value, String contentType)
-    {
-        try
-        {
-            if (typeReference != null)
-            {
-                return OBJECT_MAPPER.readValue(value.unsafeGetValue(), typeReference);
-            }
-            else
-            {
-                Class<?> rawType = type instanceof Class<?>
-                    ? (Class<?>) type
-                    : (Class<?>) ((ParameterizedType) type).getRawType();
-               return OBJECT_MAPPER.readValue(value.unsafeGetValue(), (Class<T>) rawType);
-                
-            }
-            
-        }
-        catch (IOException ex)
-        {
-            throw new ConversionException(ex);
-        }
-    }
-
+    
     @Override
-    public ContentAndType fromDomain(T domainObject)
+    protected int getMapperGeneration()
     {
-        try    
-        {
-            return new ContentAndType(BinaryValue.unsafeCreate(OBJECT_MAPPER.writeValueAsBytes(domainObject)),
-                                        "application/json");
-        }
-        catch (JsonProcessingException ex)
-        {
-            throw new ConversionException(ex);
-        }
+        return mapperGeneration;
     }
 
 }
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.convert;
+
+import com.basho.riak.client.util.BinaryValue;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.joda.JodaModule;
+import com.google.protobuf.ByteString;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A Converter that uses a Jackson ObjectMapper to serialize / deserialize 
+ * objects in any format Jackson has a {@link JsonFactory} for.
+ * <p>
+ * Besides JSON ({@link JSONConverter}) this allows compact binary formats 
+ * to be used by plugging in the factory from the corresponding Jackson 
+ * dataformat module, e.g. {@code SmileFactory} (jackson-dataformat-smile),
+ * {@code CBORFactory} (jackson-dataformat-cbor) or {@code MessagePackFactory}
+ * (jackson-dataformat-msgpack):
+ * </p>
+ * <pre>
+ * {@code
+ * ObjectMapper smile = JacksonConverter.newObjectMapper(new SmileFactory());
+ * ConverterFactory.getInstance().registerFormat(JacksonConverter.SMILE_CONTENT_TYPE, smile);
+ * ConverterFactory.getInstance().registerConverterForClass(MyPojo.class, 
+ *     new JacksonConverter<MyPojo>(MyPojo.class, smile, JacksonConverter.SMILE_CONTENT_TYPE));
+ * }
+ * </pre>
+ * <p>
+ * Objects are always written in this converter's format. When reading, the
+ * content type stored with the object selects the format: if a format is 
+ * registered with the {@link ConverterFactory} for it, that format's mapper 
+ * is used, so a bucket holding a mix of formats (e.g. while migrating from 
+ * JSON) can be read with one converter. Values with an unregistered content
+ * type are read in this converter's own format.
+ * </p>
+ * <p>
+ * An {@code ObjectReader} (and, for final classes, an {@code ObjectWriter})
+ * is bound for the converter's type on first use, so type resolution and 
+ * deserializer lookup happen once per converter rather than once per object.
+ * Readers and writers snapshot the mapper's configuration, so they are 
+ * checked against the mapper on each use and re-bound if it has been 
+ * reconfigured since.
+ * </p>
+ * <p>
+ * Values are parsed from a stream over the bytes received from Riak and 
+ * serialized into the {@code ByteString} that is sent to it, so a document 
+ * is not copied in full on either path.
+ * </p>
+ * @param <T> type to convert to/from
+ * @since 2.0
+ */
+public class JacksonConverter<T> extends Converter<T>
+{
+    public static final String SMILE_CONTENT_TYPE = "application/x-jackson-smile";
+    public static final String CBOR_CONTENT_TYPE = "application/cbor";
+    public static final String MSGPACK_CONTENT_TYPE = "application/x-msgpack";
+    
+    private static final int INITIAL_BUFFER_SIZE = 256;
+    
+    private final ObjectMapper mapper;
+    private final String contentType;
+    private final TypeReference<T> typeReference;
+    private volatile Bound bound;
+    
+    /**
+     * Create a converter for the supplied type.
+     * @param type the type to convert to/from.
+     * @param mapper the ObjectMapper for the format.
+     * @param contentType the content type objects are stored with.
+     */
+    public JacksonConverter(Type type, ObjectMapper mapper, String contentType)
+    {
+        super(type);
+        this.typeReference = null;
+        this.mapper = mapper;
+        this.contentType = contentType;
+    }
+    
+    /**
+     * Create a converter for the supplied type.
+     * @param typeReference the type to convert to/from.
+     * @param mapper the ObjectMapper for the format.
+     * @param contentType the content type objects are stored with.
+     */
+    public JacksonConverter(TypeReference<T> typeReference, ObjectMapper mapper, String contentType)
+    {
+        super(typeReference.getType());
+        this.typeReference = typeReference;
+        this.mapper = mapper;
+        this.contentType = contentType;
+    }
+    
+    /**
+     * Create an ObjectMapper for a format, with the modules the client 
+     * relies on (Riak annotation handling and Joda time) registered.
+     * @param factory the format's JsonFactory.
+     * @return a new ObjectMapper.
+     */
+    public static ObjectMapper newObjectMapper(JsonFactory factory)
+    {
+        ObjectMapper objectMapper = new ObjectMapper(factory);
+        objectMapper.registerModule(new RiakJacksonModule());
+        objectMapper.registerModule(new JodaModule());
+        return objectMapper;
+    }
+    
+    /**
+     * Returns the content type objects are stored with.
+     * @return the content type.
+     */
+    public String getContentType()
+    {
+        return contentType;
+    }
+    
+    /**
+     * Returns a number that changes whenever the mapper may have been 
+     * changed in a way that doesn't replace its configuration, causing the 
+     * bound readers and writers to be rebuilt.
+     * @return the generation of the mapper's configuration.
+     */
+    protected int getMapperGeneration()
+    {
+        return 0;
+    }
+    
+    /**
+     * Configure the readers bound for this converter's type.
+     * <p>
+     * The default implementation returns the reader unchanged.
+     * </p>
+     * @param reader a reader for this converter's type.
+     * @return the reader to use.
+     */
+    protected ObjectReader configureReader(ObjectReader reader)
+    {
+        return reader;
+    }
+    
+    private Bound bound()
+    {
+        Bound b = bound;
+        int generation = getMapperGeneration();
+        if (b == null || b.generation != generation || !b.state.isCurrent(mapper))
+        {
+            b = new Bound(generation);
+            bound = b;
+        }
+        return b;
+    }
+    
+    /**
+     * Bind the reader and writer for this converter's type and build the 
+     * Jackson serializer and deserializer ahead of first use.
+     */
+    void preload()
+    {
+        Bound b = bound();
+        mapper.canSerialize(b.javaType.getRawClass());
+    }
+    
+    @Override
+    public T toDomain(BinaryValue value, String contentType)
+    {
+        try
+        {
+            return bound().readerFor(contentType).<T>readValue(value.openStream());
+        }
+        catch (IOException ex)
+        {
+            throw new ConversionException(ex);
+        }
+    }
+
+    @Override
+    public ContentAndType fromDomain(T domainObject)
+    {
+        try    
+        {
+            // Serialized straight into the ByteString that becomes the PB value
+            ByteString.Output out = ByteString.newOutput(INITIAL_BUFFER_SIZE);
+            bound().writer.writeValue(out, domainObject);
+            return new ContentAndType(BinaryValue.create(out.toByteString()), contentType);
+        }
+        catch (IOException ex)
+        {
+            throw new ConversionException(ex);
+        }
+    }
+    
+    private class Bound
+    {
+        private final int generation;
+        private final MapperState state;
+        private final JavaType javaType;
+        private final ObjectReader reader;
+        private final ObjectWriter writer;
+        private final ConcurrentMap<ObjectMapper, Negotiated> negotiated = 
+            new ConcurrentHashMap<ObjectMapper, Negotiated>();
+        
+        Bound(int generation)
+        {
+            this.generation = generation;
+            // Captured first so a change made while binding is seen next time
+            this.state = new MapperState(mapper);
+            this.javaType = typeReference != null
+                ? mapper.getTypeFactory().constructType(typeReference)
+                : mapper.getTypeFactory().constructType(type);
+            this.reader = configureReader(mapper.reader(javaType));
+            // Subclass instances must be written with their own serializer
+            Class<?> rawType = javaType.getRawClass();
+            this.writer = Modifier.isFinal(rawType.getModifiers()) 
+                ? mapper.writerWithType(javaType)
+                : mapper.writer();
+        }
+        
+        ObjectReader readerFor(String storedContentType)
+        {
+            ObjectMapper format = ConverterFactory.getInstance().getFormat(storedContentType);
+            if (format == null || format == mapper)
+            {
+                return reader;
+            }
+            Negotiated n = negotiated.get(format);
+            if (n == null || !n.state.isCurrent(format))
+            {
+                MapperState formatState = new MapperState(format);
+                n = new Negotiated(formatState, configureReader(format.reader(javaType)));
+                negotiated.put(format, n);
+            }
+            return n.reader;
+        }
+    }
+    
+    private static class Negotiated
+    {
+        private final MapperState state;
+        private final ObjectReader reader;
+        
+        Negotiated(MapperState state, ObjectReader reader)
+        {
+            this.state = state;
+            this.reader = reader;
+        }
+    }
+    
+    /**
+     * The parts of an ObjectMapper that readers and writers take a snapshot 
+     * of. Jackson replaces rather than mutates them when the mapper is 
+     * reconfigured, so comparing identities detects a change.
+     */
+    private static class MapperState
+    {
+        private final Object serializationConfig;
+        private final Object deserializationConfig;
+        private final Object serializerFactory;
+        private final Object serializerProvider;
+        private final Object deserializationContext;
+        
+        MapperState(ObjectMapper mapper)
+        {
+            this.serializationConfig = mapper.getSerializationConfig();
+            this.deserializationConfig = mapper.getDeserializationConfig();
+            this.serializerFactory = mapper.getSerializerFactory();
+            this.serializerProvider = mapper.getSerializerProvider();
+            this.deserializationContext = mapper.getDeserializationContext();
+        }
+        
+        boolean isCurrent(ObjectMapper mapper)
+        {
+            return mapper.getSerializationConfig() == serializationConfig
+                && mapper.getDeserializationConfig() == deserializationConfig
+                && mapper.getSerializerFactory() == serializerFactory
+                && mapper.getSerializerProvider() == serializerProvider
+                && mapper.getDeserializationContext() == deserializationContext;
+        }
+    }
+}
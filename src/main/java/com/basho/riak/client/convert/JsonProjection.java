@@ -0,0 +1,261 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.convert;
+
+import com.basho.riak.client.query.RiakObject;
+import com.basho.riak.client.util.BinaryValue;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Extracts a set of values from a stored document, addressed by JSON pointer.
+ * <p>
+ * The document is streamed through a parser; only the subtrees the pointers 
+ * address are read into {@code JsonNode}s, everything else is skipped, and
+ * parsing stops as soon as every pointer has been found. 
+ * </p>
+ * <pre>
+ * JsonProjection projection = JsonProjection.of("/name", "/address/city", "/tags/0");
+ * Map&lt;String, JsonNode&gt; fields = projection.apply(riakObject);
+ * String city = fields.get("/address/city").asText();
+ * </pre>
+ * <p>
+ * Pointers follow RFC 6901; "~1" and "~0" escape '/' and '~', and the empty 
+ * pointer addresses the whole document. Values are read with the format
+ * registered with the {@link ConverterFactory} for the object's content type, 
+ * JSON otherwise.
+ * </p>
+ * @since 2.0
+ * @see ProjectionConverter
+ */
+public final class JsonProjection
+{
+    private final List<String> pointers;
+    private final Node root = new Node();
+    private final int leaves;
+    
+    private JsonProjection(List<String> pointers)
+    {
+        this.pointers = pointers;
+        int count = 0;
+        for (String pointer : pointers)
+        {
+            Node node = root;
+            for (String segment : parse(pointer))
+            {
+                node = node.child(segment);
+            }
+            if (node.pointer == null)
+            {
+                node.pointer = pointer;
+                count++;
+            }
+        }
+        this.leaves = count;
+    }
+    
+    /**
+     * Create a projection of the supplied pointers.
+     * @param pointers JSON pointers, e.g. "/address/city"
+     * @return a new JsonProjection
+     * @throws IllegalArgumentException if a pointer is not valid.
+     */
+    public static JsonProjection of(String... pointers)
+    {
+        return new JsonProjection(Collections.unmodifiableList(Arrays.asList(pointers.clone())));
+    }
+    
+    /**
+     * Returns the pointers in this projection.
+     * @return an unmodifiable list of JSON pointers.
+     */
+    public List<String> getPointers()
+    {
+        return pointers;
+    }
+    
+    /**
+     * Apply this projection to the value of a RiakObject.
+     * @param ro the RiakObject.
+     * @return a map of pointer to value for the pointers present in the document.
+     * @throws ConversionException if the value can not be parsed.
+     */
+    public Map<String, JsonNode> apply(RiakObject ro)
+    {
+        if (!ro.hasValue())
+        {
+            return Collections.emptyMap();
+        }
+        return apply(ro.getValue(), ro.getContentType());
+    }
+    
+    /**
+     * Apply this projection to a value.
+     * @param value the value.
+     * @param contentType the content type of the value, or null for JSON.
+     * @return a map of pointer to value for the pointers present in the document.
+     * @throws ConversionException if the value can not be parsed.
+     */
+    public Map<String, JsonNode> apply(BinaryValue value, String contentType)
+    {
+        ObjectMapper mapper = ConverterFactory.getInstance().getFormat(contentType);
+        if (mapper == null)
+        {
+            mapper = JSONConverter.getObjectMapper();
+        }
+        
+        Map<String, JsonNode> found = new LinkedHashMap<String, JsonNode>();
+        try
+        {
+            JsonParser parser = mapper.getFactory().createParser(value.openStream());
+            try
+            {
+                if (parser.nextToken() != null)
+                {
+                    visit(parser, root, found);
+                }
+            }
+            finally
+            {
+                parser.close();
+            }
+        }
+        catch (IOException ex)
+        {
+            throw new ConversionException(ex);
+        }
+        return found;
+    }
+    
+    // The parser is positioned on the first token of the node's value
+    private void visit(JsonParser parser, Node node, Map<String, JsonNode> found) throws IOException
+    {
+        if (node.pointer != null)
+        {
+            JsonNode tree = parser.readValueAsTree();
+            found.put(node.pointer, tree);
+            resolve(tree, node, found);
+            return;
+        }
+        
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.START_OBJECT)
+        {
+            while (found.size() < leaves && parser.nextToken() == JsonToken.FIELD_NAME)
+            {
+                Node child = node.children.get(parser.getCurrentName());
+                parser.nextToken();
+                if (child == null)
+                {
+                    parser.skipChildren();
+                }
+                else
+                {
+                    visit(parser, child, found);
+                }
+            }
+        }
+        else if (token == JsonToken.START_ARRAY)
+        {
+            int index = 0;
+            while (found.size() < leaves && parser.nextToken() != JsonToken.END_ARRAY)
+            {
+                Node child = node.children.get(Integer.toString(index++));
+                if (child == null)
+                {
+                    parser.skipChildren();
+                }
+                else
+                {
+                    visit(parser, child, found);
+                }
+            }
+        }
+    }
+    
+    // Pointers below one that has already been read are found in its tree
+    private void resolve(JsonNode tree, Node node, Map<String, JsonNode> found)
+    {
+        for (Map.Entry<String, Node> e : node.children.entrySet())
+        {
+            JsonNode child = tree.isArray() ? tree.get(index(e.getKey())) : tree.get(e.getKey());
+            if (child != null)
+            {
+                if (e.getValue().pointer != null)
+                {
+                    found.put(e.getValue().pointer, child);
+                }
+                resolve(child, e.getValue(), found);
+            }
+        }
+    }
+    
+    private static int index(String segment)
+    {
+        try
+        {
+            return Integer.parseInt(segment);
+        }
+        catch (NumberFormatException ex)
+        {
+            return -1;
+        }
+    }
+    
+    private static String[] parse(String pointer)
+    {
+        if (pointer.isEmpty())
+        {
+            return new String[0];
+        }
+        if (pointer.charAt(0) != '/')
+        {
+            throw new IllegalArgumentException("JSON pointer must start with '/': " + pointer);
+        }
+        String[] segments = pointer.substring(1).split("/", -1);
+        for (int i = 0; i < segments.length; i++)
+        {
+            segments[i] = segments[i].replace("~1", "/").replace("~0", "~");
+        }
+        return segments;
+    }
+    
+    private static final class Node
+    {
+        private final Map<String, Node> children = new HashMap<String, Node>();
+        private String pointer;
+        
+        Node child(String segment)
+        {
+            Node child = children.get(segment);
+            if (child == null)
+            {
+                child = new Node();
+                children.put(segment, child);
+            }
+            return child;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.convert;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time spent preloading each class, by step.
+ * <p>
+ * Returned by {@link ConverterFactory#preload(Class[])}.
+ * </p>
+ * @since 2.0
+ */
+public final class PreloadReport
+{
+    /**
+     * The steps performed when preloading a class.
+     */
+    public enum Step
+    {
+        /** Scanning the class for Riak annotations and building its metadata binder. */
+        ANNOTATIONS,
+        /** Looking up or creating the converter. */
+        CONVERTER,
+        /** Building the Jackson reader, writer, serializer and deserializer. */
+        JACKSON,
+        /** Looking up or creating the conflict resolver. */
+        RESOLVER
+    }
+    
+    private final Map<Class<?>, long[]> nanos = new LinkedHashMap<Class<?>, long[]>();
+    
+    PreloadReport() {}
+    
+    void record(Class<?> clazz, Step step, long elapsedNanos)
+    {
+        long[] times = nanos.get(clazz);
+        if (times == null)
+        {
+            times = new long[Step.values().length];
+            nanos.put(clazz, times);
+        }
+        times[step.ordinal()] += elapsedNanos;
+    }
+    
+    /**
+     * Return the classes that were preloaded.
+     * @return the classes, in the order they were preloaded.
+     */
+    public Set<Class<?>> getClasses()
+    {
+        return Collections.unmodifiableSet(nanos.keySet());
+    }
+    
+    /**
+     * Return the time spent on one step for one class.
+     * @param clazz the preloaded class.
+     * @param step the step.
+     * @param unit the unit to return the time in.
+     * @return the time spent, or 0 if the class wasn't preloaded.
+     */
+    public long getTime(Class<?> clazz, Step step, TimeUnit unit)
+    {
+        long[] times = nanos.get(clazz);
+        return times == null ? 0 : unit.convert(times[step.ordinal()], TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * Return the time spent on one step across all classes.
+     * @param step the step.
+     * @param unit the unit to return the time in.
+     * @return the time spent.
+     */
+    public long getTime(Step step, TimeUnit unit)
+    {
+        long total = 0;
+        for (long[] times : nanos.values())
+        {
+            total += times[step.ordinal()];
+        }
+        return unit.convert(total, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * Return the time spent preloading all classes.
+     * @param unit the unit to return the time in.
+     * @return the time spent.
+     */
+    public long getTotalTime(TimeUnit unit)
+    {
+        long total = 0;
+        for (long[] times : nanos.values())
+        {
+            for (long t : times)
+            {
+                total += t;
+            }
+        }
+        return unit.convert(total, TimeUnit.NANOSECONDS);
+    }
+    
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder("Preloaded ")
+            .append(nanos.size()).append(" classes in ")
+            .append(getTotalTime(TimeUnit.MICROSECONDS)).append("us");
+        for (Step step : Step.values())
+        {
+            sb.append(", ").append(step.name().toLowerCase(Locale.ENGLISH)).append(' ')
+              .append(getTime(step, TimeUnit.MICROSECONDS)).append("us");
+        }
+        for (Map.Entry<Class<?>, long[]> e : nanos.entrySet())
+        {
+            sb.append("\n  ").append(e.getKey().getName()).append(':');
+            for (Step step : Step.values())
+            {
+                sb.append(' ').append(step.name().toLowerCase(Locale.ENGLISH)).append(' ')
+                  .append(TimeUnit.NANOSECONDS.toMicros(e.getValue()[step.ordinal()])).append("us");
+            }
+        }
+        return sb.toString();
+    }
+}
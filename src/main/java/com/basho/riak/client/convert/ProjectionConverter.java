@@ -0,0 +1,67 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.convert;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Converts stored JSON into a projection class holding only some of its fields.
+ * <p>
+ * Properties in the document that the projection class doesn't declare are 
+ * skipped by the parser without being bound, so a small projection of a wide
+ * document costs little more than tokenizing it. Riak annotations 
+ * (e.g. {@literal @RiakKey}) on the projection class are populated as usual.
+ * </p>
+ * <p>
+ * Projections are read-only; storing one would replace the document with the 
+ * projected fields.
+ * </p>
+ * @param <T> the projection class
+ * @since 2.0
+ * @see JsonProjection
+ */
+public class ProjectionConverter<T> extends JSONConverter<T>
+{
+    /**
+     * Create a ProjectionConverter for the supplied class.
+     * @param projectionClass the projection class.
+     */
+    public ProjectionConverter(Class<T> projectionClass)
+    {
+        super(projectionClass);
+    }
+    
+    /**
+     * Returns a cached ProjectionConverter for the supplied class.
+     * <p>
+     * Converters are cached by the {@link ConverterFactory} along with its 
+     * default converters.
+     * </p>
+     * @param projectionClass the projection class.
+     * @return a ProjectionConverter
+     */
+    public static <T> ProjectionConverter<T> forClass(Class<T> projectionClass)
+    {
+        return ConverterFactory.getInstance().getProjectionConverter(projectionClass);
+    }
+
+    @Override
+    protected ObjectReader configureReader(ObjectReader reader)
+    {
+        return reader.without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+}
@@ -37,6 +37,23 @@ public class AnnotationHelper {
         return INSTANCE;
     }
 
+    /**
+     * Returns the metadata binder for a class.
+     * @param clazz the (possibly) annotated class.
+     * @return the RiakMetadataBinder for the class.
+     */
+    public <T> RiakMetadataBinder getBinder(Class<T> clazz) {
+        return annotationCache.get(clazz).getBinder(clazz);
+    }
+
+    /**
+     * Scans a class and builds its metadata binder ahead of first use.
+     * @param clazz the (possibly) annotated class.
+     */
+    public <T> void preload(Class<T> clazz) {
+        annotationCache.get(clazz).getBinder(clazz);
+    }
+
     public <T> BinaryValue getRiakKey(T obj) {
         final AnnotationInfo annotationInfo = annotationCache.get(obj.getClass());
         return annotationInfo.getRiakKey(obj);
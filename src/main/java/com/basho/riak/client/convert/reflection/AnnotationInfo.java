@@ -82,6 +82,7 @@ public class AnnotationInfo
     private final Field riakBucketTypeField;
     private final Method riakBucketTypeSetter;
     private final Method riakBucketTypeGetter;
+    private volatile RiakMetadataBinder binder;
 
     private AnnotationInfo(Builder builder)
     {
@@ -946,6 +947,77 @@ public class AnnotationInfo
 
     }
 
+    /**
+     * Returns the binder for the annotated class, creating it on first use.
+     * @param type the annotated class.
+     * @return the RiakMetadataBinder for the class.
+     */
+    RiakMetadataBinder getBinder(Class<?> type)
+    {
+        RiakMetadataBinder b = binder;
+        if (b == null)
+        {
+            b = new RiakMetadataBinder(type, this);
+            binder = b;
+        }
+        return b;
+    }
+    
+    boolean hasRiakKey()
+    {
+        return riakKeyField != null || riakKeyGetter != null || riakKeySetter != null;
+    }
+    
+    boolean hasRiakBucketName()
+    {
+        return riakBucketNameField != null || riakBucketNameGetter != null || riakBucketNameSetter != null;
+    }
+    
+    boolean hasRiakBucketType()
+    {
+        return riakBucketTypeField != null || riakBucketTypeGetter != null || riakBucketTypeSetter != null;
+    }
+    
+    boolean hasRiakVClockGetter()
+    {
+        return riakVClockField != null || riakVClockGetter != null;
+    }
+    
+    boolean hasRiakTombstone()
+    {
+        return riakTombstoneField != null || riakTombstoneSetter != null;
+    }
+    
+    boolean hasRiakContentType()
+    {
+        return riakContentTypeField != null || riakContentTypeGetter != null || riakContentTypeSetter != null;
+    }
+    
+    boolean hasRiakLastModified()
+    {
+        return riakLastModifiedField != null || riakLastModifiedSetter != null;
+    }
+    
+    boolean hasRiakVTag()
+    {
+        return riakVTagField != null || riakVTagSetter != null;
+    }
+    
+    boolean hasUsermeta()
+    {
+        return !usermetaFields.isEmpty() || !usermetaMethods.isEmpty();
+    }
+    
+    boolean hasIndexes()
+    {
+        return !indexFields.isEmpty() || !indexMethods.isEmpty();
+    }
+    
+    boolean hasLinks()
+    {
+        return riakLinksField != null || riakLinksGetter != null || riakLinksSetter != null;
+    }
+
     public static class Builder
     {
 
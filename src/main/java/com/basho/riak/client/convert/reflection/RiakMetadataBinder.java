@@ -0,0 +1,220 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.convert.reflection;
+
+import com.basho.riak.client.cap.VClock;
+import com.basho.riak.client.convert.ConversionException;
+import com.basho.riak.client.query.Location;
+import com.basho.riak.client.query.RiakObject;
+import com.basho.riak.client.util.BinaryValue;
+
+/**
+ * Binds the Riak metadata of a RiakObject to and from an annotated domain 
+ * class in a single call.
+ * <p>
+ * A binder is created once per class, the first time it's requested. It 
+ * records which Riak annotations the class actually has so that 
+ * {@link #bind} and {@link #extract} only touch those members, and it holds
+ * the class's {@link AnnotationInfo} directly rather than looking it up for
+ * each of the dozen or so metadata values as the {@link AnnotationUtil} 
+ * methods do.
+ * </p>
+ * @since 2.0
+ */
+public final class RiakMetadataBinder
+{
+    private final Class<?> type;
+    private final AnnotationInfo info;
+    private final boolean key;
+    private final boolean bucketName;
+    private final boolean bucketType;
+    private final boolean vclock;
+    private final boolean vclockGetter;
+    private final boolean tombstone;
+    private final boolean contentType;
+    private final boolean lastModified;
+    private final boolean vtag;
+    private final boolean usermeta;
+    private final boolean indexes;
+    private final boolean links;
+    
+    RiakMetadataBinder(Class<?> type, AnnotationInfo info)
+    {
+        this.type = type;
+        this.info = info;
+        this.key = info.hasRiakKey();
+        this.bucketName = info.hasRiakBucketName();
+        this.bucketType = info.hasRiakBucketType();
+        this.vclock = info.hasRiakVClock();
+        this.vclockGetter = info.hasRiakVClockGetter();
+        this.tombstone = info.hasRiakTombstone();
+        this.contentType = info.hasRiakContentType();
+        this.lastModified = info.hasRiakLastModified();
+        this.vtag = info.hasRiakVTag();
+        this.usermeta = info.hasUsermeta();
+        this.indexes = info.hasIndexes();
+        this.links = info.hasLinks();
+    }
+    
+    /**
+     * Returns the binder for a class.
+     * @param clazz the (possibly) annotated class.
+     * @return the binder.
+     */
+    public static RiakMetadataBinder forClass(Class<?> clazz)
+    {
+        return AnnotationHelper.getInstance().getBinder(clazz);
+    }
+    
+    /**
+     * Returns the class this binder is for.
+     * @return the domain class.
+     */
+    public Class<?> getType()
+    {
+        return type;
+    }
+    
+    /**
+     * Inject the metadata of a RiakObject into a domain object.
+     * <p>
+     * If the RiakObject is a tombstone only the location, vclock, tombstone
+     * flag and last modified time are injected.
+     * </p>
+     * @param <T> the domain type.
+     * @param domainObject the domain object.
+     * @param riakObject the RiakObject the domain object was converted from.
+     * @param location the location of the RiakObject.
+     * @return the domain object.
+     */
+    public <T> T bind(T domainObject, RiakObject riakObject, Location location)
+    {
+        if (!riakObject.isDeleted())
+        {
+            if (indexes)
+            {
+                info.setIndexes(riakObject.getIndexes(), domainObject);
+            }
+            if (links)
+            {
+                info.setLinks(riakObject.getLinks(), domainObject);
+            }
+            if (usermeta)
+            {
+                info.setUsermetaData(riakObject.getUserMeta(), domainObject);
+            }
+            if (contentType)
+            {
+                info.setRiakContentType(domainObject, riakObject.getContentType());
+            }
+            if (vtag)
+            {
+                info.setRiakVTag(domainObject, riakObject.getVTag());
+            }
+        }
+        if (key)
+        {
+            info.setRiakKey(domainObject, location.getKey());
+        }
+        if (bucketName)
+        {
+            info.setRiakBucketName(domainObject, location.getBucketName());
+        }
+        if (bucketType)
+        {
+            info.setRiakBucketType(domainObject, location.getBucketType());
+        }
+        if (vclock)
+        {
+            info.setRiakVClock(domainObject, riakObject.getVClock());
+        }
+        if (tombstone)
+        {
+            info.setRiakTombstone(domainObject, riakObject.isDeleted());
+        }
+        if (lastModified)
+        {
+            info.setRiakLastModified(domainObject, riakObject.getLastModified());
+        }
+        return domainObject;
+    }
+    
+    /**
+     * Extract the metadata of a domain object into a RiakObject.
+     * <p>
+     * The vclock, content type (defaulting to 
+     * {@link RiakObject#DEFAULT_CONTENT_TYPE}), user metadata, indexes and 
+     * links are set on the RiakObject. Annotated location members are 
+     * preferred over the supplied location.
+     * </p>
+     * @param domainObject the domain object.
+     * @param riakObject the RiakObject to populate.
+     * @param location the default location, may be null.
+     * @return the location to store the domain object at.
+     * @throws ConversionException if no bucket name is available.
+     */
+    public Location extract(Object domainObject, RiakObject riakObject, Location location)
+    {
+        BinaryValue k = location != null ? location.getKey() : null;
+        BinaryValue bn = location != null ? location.getBucketName() : null;
+        BinaryValue bt = location != null ? location.getBucketType() : null;
+        
+        if (key)
+        {
+            BinaryValue annotated = info.getRiakKey(domainObject);
+            k = annotated != null ? annotated : k;
+        }
+        if (bucketName)
+        {
+            BinaryValue annotated = info.getRiakBucketName(domainObject);
+            bn = annotated != null ? annotated : bn;
+        }
+        if (bucketType)
+        {
+            BinaryValue annotated = info.getRiakBucketType(domainObject);
+            bt = annotated != null ? annotated : bt;
+        }
+        if (bn == null)
+        {
+            throw new ConversionException("Bucket name not provided via location or domain object");
+        }
+        
+        VClock vc = vclockGetter ? info.getRiakVClock(domainObject) : null;
+        String ct = contentType ? info.getRiakContentType(domainObject) : null;
+        riakObject.setContentType(ct != null ? ct : RiakObject.DEFAULT_CONTENT_TYPE)
+                  .setVClock(vc);
+        
+        if (usermeta)
+        {
+            info.getUsermetaData(riakObject.getUserMeta(), domainObject);
+        }
+        if (indexes)
+        {
+            info.getIndexes(riakObject.getIndexes(), domainObject);
+        }
+        if (links)
+        {
+            info.getLinks(riakObject.getLinks(), domainObject);
+        }
+        
+        Location result = new Location(bn).setKey(k);
+        if (bt != null)
+        {
+            result.setBucketType(bt);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.core;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded queue of operations waiting for admission to the {@link RiakCluster}.
+ * <p>
+ * Operations are dispatched strictly by {@link Priority}. Within a priority each
+ * tenant has its own FIFO and tenants are served with weighted round-robin: 
+ * a tenant at the head of the rotation may dispatch up to its weight in 
+ * operations before moving to the back. The capacity bounds the total number 
+ * of queued operations across all classes. A class is only kept while it 
+ * has operations queued.
+ * </p>
+ * @since 2.0
+ */
+class AdmissionQueue
+{
+    private final EnumMap<Priority, ArrayDeque<ClassQueue>> rotations = 
+        new EnumMap<Priority, ArrayDeque<ClassQueue>>(Priority.class);
+    private final Map<SchedulingTag, ClassQueue> classes = 
+        new HashMap<SchedulingTag, ClassQueue>();
+    private final Map<String, Integer> tenantWeights;
+    private final int capacity;
+    private final long maxWaitNanos;
+    private int size;
+    
+    /**
+     * @param capacity the maximum number of queued operations. 
+     * @param maxWaitNanos the maximum time an operation may be queued, 0 for no limit.
+     * @param tenantWeights weights by tenant; tenants not present have a weight of 1.
+     */
+    AdmissionQueue(int capacity, long maxWaitNanos, Map<String, Integer> tenantWeights)
+    {
+        this.capacity = capacity;
+        this.maxWaitNanos = maxWaitNanos;
+        this.tenantWeights = new HashMap<String, Integer>(tenantWeights);
+        for (Priority p : Priority.values())
+        {
+            rotations.put(p, new ArrayDeque<ClassQueue>());
+        }
+    }
+    
+    /**
+     * Queue an operation.
+     * @return false if the queue is full.
+     */
+    synchronized boolean offer(FutureOperation operation, SchedulingTag tag)
+    {
+        if (size >= capacity)
+        {
+            return false;
+        }
+        ClassQueue cq = classes.get(tag);
+        if (cq == null)
+        {
+            Integer weight = tenantWeights.get(tag.getTenant());
+            cq = new ClassQueue(tag, weight == null ? 1 : weight);
+            classes.put(tag, cq);
+        }
+        cq.entries.addLast(new Entry(operation, tag, System.nanoTime()));
+        if (!cq.active)
+        {
+            cq.active = true;
+            cq.credits = cq.weight;
+            rotations.get(tag.getPriority()).addLast(cq);
+        }
+        size++;
+        return true;
+    }
+    
+    /**
+     * Remove the next operation to be dispatched.
+     * @return the entry or null if the queue is empty.
+     */
+    synchronized Entry poll()
+    {
+        for (ArrayDeque<ClassQueue> rotation : rotations.values())
+        {
+            while (!rotation.isEmpty())
+            {
+                ClassQueue cq = rotation.peekFirst();
+                Entry e = cq.entries.pollFirst();
+                if (e == null)
+                {
+                    // Emptied by expiration
+                    rotation.pollFirst();
+                    cq.active = false;
+                    classes.remove(cq.tag);
+                    continue;
+                }
+                size--;
+                if (--cq.credits <= 0 || cq.entries.isEmpty())
+                {
+                    rotation.pollFirst();
+                    if (cq.entries.isEmpty())
+                    {
+                        cq.active = false;
+                        classes.remove(cq.tag);
+                    }
+                    else
+                    {
+                        cq.credits = cq.weight;
+                        rotation.addLast(cq);
+                    }
+                }
+                return e;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Remove all operations that have been queued longer than the max wait time.
+     * @return the expired entries; never null.
+     */
+    synchronized List<Entry> removeExpired()
+    {
+        List<Entry> expired = new LinkedList<Entry>();
+        if (maxWaitNanos > 0)
+        {
+            long now = System.nanoTime();
+            Iterator<ClassQueue> i = classes.values().iterator();
+            while (i.hasNext())
+            {
+                ClassQueue cq = i.next();
+                // FIFO; once we find one that hasn't expired, none behind it have.
+                Entry e = cq.entries.peekFirst();
+                while (e != null && now - e.enqueued > maxWaitNanos)
+                {
+                    cq.entries.pollFirst();
+                    size--;
+                    expired.add(e);
+                    e = cq.entries.peekFirst();
+                }
+                if (cq.entries.isEmpty())
+                {
+                    i.remove();
+                    rotations.get(cq.tag.getPriority()).remove(cq);
+                    cq.active = false;
+                }
+            }
+        }
+        return expired;
+    }
+    
+    synchronized int size()
+    {
+        return size;
+    }
+    
+    synchronized int size(SchedulingTag tag)
+    {
+        ClassQueue cq = classes.get(tag);
+        return cq == null ? 0 : cq.entries.size();
+    }
+    
+    /**
+     * The number of scheduling classes with operations queued.
+     */
+    synchronized int classCount()
+    {
+        return classes.size();
+    }
+    
+    long getMaxWaitNanos()
+    {
+        return maxWaitNanos;
+    }
+    
+    static class Entry
+    {
+        final FutureOperation operation;
+        final SchedulingTag tag;
+        final long enqueued;
+        
+        Entry(FutureOperation operation, SchedulingTag tag, long enqueued)
+        {
+            this.operation = operation;
+            this.tag = tag;
+            this.enqueued = enqueued;
+        }
+    }
+    
+    private static class ClassQueue
+    {
+        private final ArrayDeque<Entry> entries = new ArrayDeque<Entry>();
+        private final SchedulingTag tag;
+        private final int weight;
+        private int credits;
+        private boolean active;
+        
+        ClassQueue(SchedulingTag tag, int weight)
+        {
+            this.tag = tag;
+            this.weight = weight;
+        }
+    }
+}
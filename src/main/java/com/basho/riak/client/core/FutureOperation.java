@@ -25,6 +25,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -51,6 +52,11 @@ public abstract class FutureOperation<T, U, S> implements RiakFuture<T,S>
     private volatile T converted;
     private volatile State state = State.CREATED;
     private volatile RiakNode lastNode;
+    // Set by the RiakCluster when the operation is dispatched
+    volatile SchedulingTag schedulingTag;
+    volatile long dispatchedAt;
+    private volatile RequestTracer tracer;
+    private volatile AtomicLongArray stageTimes;
 
     private final ReentrantLock listenersLock = new ReentrantLock();
     private final HashSet<RiakFutureListener<T,S>> listeners =
@@ -139,6 +145,61 @@ public abstract class FutureOperation<T, U, S> implements RiakFuture<T,S>
         this.remainingTries = numTries;
     }
 
+    final void setTracer(RequestTracer tracer)
+    {
+        this.stageTimes = new AtomicLongArray(RequestTracer.Stage.values().length);
+        this.tracer = tracer;
+    }
+    
+    /**
+     * Determine if this operation is being traced.
+     * @return true if a {@link RequestTracer} is registered with this operation.
+     */
+    public final boolean isTraced()
+    {
+        return tracer != null;
+    }
+    
+    /**
+     * Record that this operation has reached a stage.
+     * <p>
+     * This is a no-op unless the operation is being traced. The first byte of a
+     * response is only recorded once per request written.
+     * </p>
+     * @param stage the stage reached.
+     */
+    public final void trace(RequestTracer.Stage stage)
+    {
+        RequestTracer t = tracer;
+        if (t != null)
+        {
+            long now = System.nanoTime();
+            AtomicLongArray times = stageTimes;
+            if (stage == RequestTracer.Stage.FIRST_BYTE && 
+                times.get(stage.ordinal()) > times.get(RequestTracer.Stage.ENCODED.ordinal()))
+            {
+                return;
+            }
+            times.set(stage.ordinal(), now);
+            t.stageReached(this, stage, now);
+        }
+    }
+    
+    /**
+     * Returns the time this operation last reached a stage. 
+     * <p>
+     * Stages are recorded from several threads; this may be called from any.
+     * </p>
+     * @param stage the stage.
+     * @return the value of {@link System#nanoTime()} when the stage was reached,
+     * or 0 if it has not been or the operation is not being traced. 
+     */
+    public final long getStageTime(RequestTracer.Stage stage)
+    {
+        AtomicLongArray times = stageTimes;
+        return times == null ? 0 : times.get(stage.ordinal());
+    }
+
     final RiakNode getLastNode()
     {
         return lastNode;
@@ -154,10 +215,12 @@ public abstract class FutureOperation<T, U, S> implements RiakFuture<T,S>
     {
         stateCheck(State.CREATED, State.WRITTEN, State.RETRY);
         U decodedMessage = decode(rawResponse);
-        this.rawResponse.add(decodedMessage);
+        trace(RequestTracer.Stage.DECODED);
+        processMessage(decodedMessage);
         exception = null;
         if (done(decodedMessage))
         {
+            trace(RequestTracer.Stage.DONE);
             remainingTries--;
             if (retrier != null)
             {
@@ -169,6 +232,35 @@ public abstract class FutureOperation<T, U, S> implements RiakFuture<T,S>
         }
     }
 
+    /**
+     * Handle a decoded response message.
+     * <p>
+     * By default the message is retained and passed to {@link #convert(java.util.List)}
+     * once the operation completes. Streaming operations override this to 
+     * deliver messages as they arrive.
+     * </p>
+     * @param decodedMessage the decoded message.
+     */
+    protected void processMessage(U decodedMessage)
+    {
+        this.rawResponse.add(decodedMessage);
+    }
+    
+    /**
+     * Prevent this operation from being retried if it subsequently fails.
+     * <p>
+     * Used by streaming operations once results have been delivered, as 
+     * a retry would deliver them again.
+     * </p>
+     */
+    protected final synchronized void disableRetries()
+    {
+        if (remainingTries > 1)
+        {
+            remainingTries = 1;
+        }
+    }
+
     /**
      * Detect when the streaming operation is finished
      *
@@ -207,6 +299,7 @@ public abstract class FutureOperation<T, U, S> implements RiakFuture<T,S>
     public synchronized final Object channelMessage()
     {
         Object message = createChannelMessage();
+        trace(RequestTracer.Stage.ENCODED);
         state = State.WRITTEN;
         return message;
     }
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.core;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link RequestTracer} that keeps latency histograms in memory.
+ * <p>
+ * For each {@link RequestTracer.Stage} the time taken to reach it from the 
+ * previous stage the operation reached is recorded; e.g. the histogram for 
+ * {@code FIRST_BYTE} is the time spent waiting on Riak, and the histogram 
+ * for {@code CONNECTION_ACQUIRED} the time spent in admission and the 
+ * connection pool. The time from {@code EXECUTE} to {@code DONE} is 
+ * recorded separately as the total.
+ * </p>
+ * <p>
+ * Histograms use power-of-two buckets, so percentiles are accurate to 
+ * within a factor of two. Recording is lock free.
+ * </p>
+ * <pre>
+ * {@code
+ * HistogramRequestTracer tracer = new HistogramRequestTracer();
+ * RiakCluster cluster = new RiakCluster.Builder(nodes)
+ *                          .withRequestTracer(tracer)
+ *                          .build();
+ * ...
+ * long p99 = tracer.getSnapshot(Stage.FIRST_BYTE).getPercentile(0.99, TimeUnit.MICROSECONDS);
+ * }
+ * </pre>
+ * @since 2.0
+ */
+public class HistogramRequestTracer implements RequestTracer
+{
+    private static final Stage[] STAGES = Stage.values();
+    
+    private final Map<Stage, Histogram> histograms = new EnumMap<Stage, Histogram>(Stage.class);
+    private final Histogram total = new Histogram();
+    
+    public HistogramRequestTracer()
+    {
+        for (Stage stage : Stage.values())
+        {
+            histograms.put(stage, new Histogram());
+        }
+    }
+    
+    @Override
+    public void stageReached(FutureOperation<?,?,?> operation, Stage stage, long nanoTime)
+    {
+        long previous = 0;
+        for (int i = stage.ordinal() - 1; i >= 0; i--)
+        {
+            previous = Math.max(previous, operation.getStageTime(STAGES[i]));
+        }
+        
+        if (previous != 0)
+        {
+            histograms.get(stage).record(nanoTime - previous);
+        }
+        
+        if (stage == Stage.DONE)
+        {
+            long executed = operation.getStageTime(Stage.EXECUTE);
+            if (executed != 0)
+            {
+                total.record(nanoTime - executed);
+            }
+        }
+    }
+    
+    /**
+     * Returns the distribution of times taken to reach a stage from the one before it.
+     * @param stage the stage.
+     * @return a snapshot of the histogram for the stage.
+     */
+    public Snapshot getSnapshot(Stage stage)
+    {
+        return histograms.get(stage).snapshot();
+    }
+    
+    /**
+     * Returns the distribution of times from {@code EXECUTE} to {@code DONE}.
+     * @return a snapshot of the histogram.
+     */
+    public Snapshot getTotalSnapshot()
+    {
+        return total.snapshot();
+    }
+    
+    /**
+     * Discard everything recorded so far.
+     */
+    public void reset()
+    {
+        for (Histogram h : histograms.values())
+        {
+            h.reset();
+        }
+        total.reset();
+    }
+    
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        for (Stage stage : Stage.values())
+        {
+            sb.append(stage).append(": ").append(getSnapshot(stage)).append('\n');
+        }
+        sb.append("TOTAL: ").append(getTotalSnapshot());
+        return sb.toString();
+    }
+    
+    private static class Histogram
+    {
+        // Bucket i holds values in [2^(i-1), 2^i)
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+        
+        void record(long nanos)
+        {
+            if (nanos < 0)
+            {
+                nanos = 0;
+            }
+            buckets.incrementAndGet(Math.min(63, 64 - Long.numberOfLeadingZeros(nanos)));
+            count.incrementAndGet();
+            sum.addAndGet(nanos);
+            long m = max.get();
+            while (nanos > m && !max.compareAndSet(m, nanos))
+            {
+                m = max.get();
+            }
+        }
+        
+        void reset()
+        {
+            for (int i = 0; i < buckets.length(); i++)
+            {
+                buckets.set(i, 0);
+            }
+            count.set(0);
+            sum.set(0);
+            max.set(0);
+        }
+        
+        Snapshot snapshot()
+        {
+            long[] copy = new long[buckets.length()];
+            for (int i = 0; i < copy.length; i++)
+            {
+                copy[i] = buckets.get(i);
+            }
+            return new Snapshot(copy, count.get(), sum.get(), max.get());
+        }
+    }
+    
+    /**
+     * An immutable copy of a latency histogram.
+     */
+    public static final class Snapshot
+    {
+        private final long[] buckets;
+        private final long count;
+        private final long sum;
+        private final long max;
+        
+        Snapshot(long[] buckets, long count, long sum, long max)
+        {
+            this.buckets = buckets;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+        
+        /**
+         * Returns the number of values recorded.
+         * @return the count.
+         */
+        public long getCount()
+        {
+            return count;
+        }
+        
+        /**
+         * Returns the mean of the recorded values.
+         * @param unit the unit to return the value in.
+         * @return the mean, or 0 if nothing has been recorded.
+         */
+        public long getMean(TimeUnit unit)
+        {
+            return count == 0 ? 0 : unit.convert(sum / count, TimeUnit.NANOSECONDS);
+        }
+        
+        /**
+         * Returns the largest recorded value.
+         * @param unit the unit to return the value in.
+         * @return the max.
+         */
+        public long getMax(TimeUnit unit)
+        {
+            return unit.convert(max, TimeUnit.NANOSECONDS);
+        }
+        
+        /**
+         * Returns an upper bound for the given percentile of the recorded values.
+         * @param percentile the percentile, between 0 and 1 (e.g. 0.99).
+         * @param unit the unit to return the value in.
+         * @return the upper bound of the bucket containing the percentile.
+         */
+        public long getPercentile(double percentile, TimeUnit unit)
+        {
+            if (percentile < 0 || percentile > 1)
+            {
+                throw new IllegalArgumentException("percentile must be between 0 and 1");
+            }
+            if (count == 0)
+            {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile * count);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++)
+            {
+                seen += buckets[i];
+                if (seen >= rank && seen > 0)
+                {
+                    long upper = i == 0 ? 0 : (1L << i) - 1;
+                    return unit.convert(Math.min(upper, max), TimeUnit.NANOSECONDS);
+                }
+            }
+            return unit.convert(max, TimeUnit.NANOSECONDS);
+        }
+        
+        @Override
+        public String toString()
+        {
+            return "count=" + count 
+                + " mean=" + getMean(TimeUnit.MICROSECONDS) + "us"
+                + " p50=" + getPercentile(0.5, TimeUnit.MICROSECONDS) + "us"
+                + " p99=" + getPercentile(0.99, TimeUnit.MICROSECONDS) + "us"
+                + " max=" + getMax(TimeUnit.MICROSECONDS) + "us";
+        }
+    }
+}
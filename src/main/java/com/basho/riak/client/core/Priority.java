@@ -0,0 +1,37 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.core;
+
+/**
+ * The priority class of an operation submitted to a {@link RiakCluster}.
+ * <p>
+ * Priorities only come into play when the cluster has been built with an
+ * admission limit (see {@link RiakCluster.Builder#withMaxInFlight(int)}).
+ * Operations waiting for admission are dispatched highest priority first.
+ * </p>
+ * @since 2.0
+ */
+public enum Priority
+{
+    /**
+     * Latency sensitive, online traffic. This is the default.
+     */
+    INTERACTIVE,
+    /**
+     * Bulk / background traffic that may wait behind interactive operations.
+     */
+    BATCH
+}
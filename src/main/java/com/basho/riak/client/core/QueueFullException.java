@@ -0,0 +1,33 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.core;
+
+/**
+ * Thrown (set on the operation) when the {@link RiakCluster} admission queue 
+ * is full and the operation was rejected.
+ * 
+ * @since 2.0
+ * @see RiakCluster.Builder#withMaxQueueSize(int) 
+ */
+public class QueueFullException extends Exception
+{
+    private static final long serialVersionUID = -2170348526367405718L;
+    
+    public QueueFullException(String message)
+    {
+        super(message);
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.core;
+
+/**
+ * Thrown (set on the operation) when an operation waited in the 
+ * {@link RiakCluster} admission queue longer than the configured maximum.
+ * 
+ * @since 2.0
+ * @see RiakCluster.Builder#withMaxQueueWait(long, java.util.concurrent.TimeUnit) 
+ */
+public class QueueTimeoutException extends Exception
+{
+    private static final long serialVersionUID = 4530762187263919302L;
+    
+    public QueueTimeoutException(String message)
+    {
+        super(message);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.core;
+
+/**
+ * Receives timestamps as an operation passes through each stage of its 
+ * execution.
+ * <p>
+ * A tracer is registered with the {@link RiakCluster} via 
+ * {@link RiakCluster.Builder#withRequestTracer(RequestTracer)}. It is called 
+ * synchronously from whichever thread the stage occurs on, frequently a 
+ * Netty I/O thread, and so must be thread safe and must not block.
+ * </p>
+ * <p>
+ * Stages are reported in the order listed in {@link Stage}; a stage may be 
+ * skipped (e.g. when an operation fails) or repeated (when an operation is 
+ * retried or a streaming operation receives multiple responses).
+ * </p>
+ * @since 2.0
+ * @see HistogramRequestTracer
+ */
+public interface RequestTracer
+{
+    /**
+     * The stages of an operation's execution.
+     */
+    public enum Stage
+    {
+        /** Submitted to {@link RiakCluster#execute(FutureOperation)}. */
+        EXECUTE,
+        /** A connection was acquired from a node's pool. */
+        CONNECTION_ACQUIRED,
+        /** The request message was created. */
+        ENCODED,
+        /** The request was written to the socket. */
+        WRITTEN,
+        /** The first bytes of the response were read. */
+        FIRST_BYTE,
+        /** A response message was decoded. */
+        DECODED,
+        /** The final response message was received. */
+        DONE,
+        /** The response was converted to the user facing type. */
+        CONVERTED
+    }
+    
+    /**
+     * Called when an operation reaches a stage.
+     * @param operation the operation.
+     * @param stage the stage reached.
+     * @param nanoTime the value of {@link System#nanoTime()} when the stage was reached.
+     */
+    void stageReached(FutureOperation<?,?,?> operation, Stage stage, long nanoTime);
+}
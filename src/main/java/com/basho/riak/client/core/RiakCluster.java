@@ -17,6 +17,7 @@ package com.basho.riak.client.core;
 
 
 import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import org.slf4j.Logger;
@@ -25,7 +26,9 @@ import org.slf4j.LoggerFactory;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -45,19 +48,26 @@ public class  RiakCluster implements OperationRetrier, NodeStateListener
 {
     enum State { CREATED, RUNNING, SHUTTING_DOWN, SHUTDOWN }
     private final Logger logger = LoggerFactory.getLogger(RiakCluster.class);
+    // How long a scheduling class must be unused before its metrics are dropped
+    private static final long IDLE_CLASS_NANOS = TimeUnit.MINUTES.toNanos(5);
     private final int executionAttempts;
     private final NodeManager nodeManager;
     private final AtomicInteger inFlightCount = new AtomicInteger();
     private final ScheduledExecutorService executor;
     private final Bootstrap bootstrap;
+    private final boolean ownsEventLoopGroup;
     private final List<RiakNode> nodeList;
     private final ReentrantReadWriteLock nodeListLock = new ReentrantReadWriteLock();
     private final LinkedBlockingQueue<FutureOperation> retryQueue =
         new LinkedBlockingQueue<FutureOperation>();
-    
+    private final int maxInFlight;
+    private final AdmissionQueue admissionQueue;
+    private final SchedulingMetrics schedulingMetrics = new SchedulingMetrics();
+    private final RequestTracer requestTracer;
     
     private volatile ScheduledFuture<?> shutdownFuture;
     private volatile ScheduledFuture<?> retrierFuture;
+    private volatile ScheduledFuture<?> queueReaperFuture;
     
     private volatile State state;
     private final CountDownLatch shutdownLatch = new CountDownLatch(1);
@@ -65,6 +75,18 @@ public class  RiakCluster implements OperationRetrier, NodeStateListener
     private RiakCluster(Builder builder) throws UnknownHostException
     {
         this.executionAttempts = builder.executionAttempts;
+        this.maxInFlight = builder.maxInFlight;
+        this.requestTracer = builder.requestTracer;
+        
+        if (maxInFlight > 0)
+        {
+            admissionQueue = new AdmissionQueue(builder.maxQueueSize, builder.maxQueueWaitNanos,
+                                                builder.tenantWeights);
+        }
+        else
+        {
+            admissionQueue = null;
+        }
         
         if (null == builder.nodeManager)
         {
@@ -77,13 +99,26 @@ public class  RiakCluster implements OperationRetrier, NodeStateListener
             
         if (builder.bootstrap != null)
         {
+            if (builder.eventLoopGroup != null)
+            {
+                throw new IllegalArgumentException("Only one of a Bootstrap or an EventLoopGroup can be supplied");
+            }
             this.bootstrap = builder.bootstrap.clone();
+            ownsEventLoopGroup = true;
+        }
+        else if (builder.eventLoopGroup != null)
+        {
+            this.bootstrap = new Bootstrap()
+                .group(builder.eventLoopGroup)
+                .channel(NioSocketChannel.class);
+            ownsEventLoopGroup = false;
         }
         else
         {
             this.bootstrap = new Bootstrap()
                 .group(new NioEventLoopGroup())
                 .channel(NioSocketChannel.class);
+            ownsEventLoopGroup = true;
         }
         
         if (builder.executor != null)
@@ -135,6 +170,21 @@ public class  RiakCluster implements OperationRetrier, NodeStateListener
         }
         
         retrierFuture = executor.schedule(new RetryTask(), 0, TimeUnit.SECONDS);
+        if (admissionQueue != null)
+        {
+            // Check a few times per wait period, but no less than every 100ms.
+            // Without a wait limit the reaper only prunes idle metrics.
+            long period = TimeUnit.SECONDS.toNanos(1);
+            if (admissionQueue.getMaxWaitNanos() > 0)
+            {
+                period = Math.min(TimeUnit.MILLISECONDS.toNanos(100), 
+                                  admissionQueue.getMaxWaitNanos() / 4);
+                period = Math.max(period, TimeUnit.MILLISECONDS.toNanos(1));
+            }
+            queueReaperFuture = executor.scheduleWithFixedDelay(new QueueReaperTask(), 
+                                                                period, period,
+                                                                TimeUnit.NANOSECONDS);
+        }
         logger.info("RiakCluster is starting.");
         state = State.RUNNING;
     }
@@ -184,19 +234,189 @@ public class  RiakCluster implements OperationRetrier, NodeStateListener
     }
     
     public <V,S> RiakFuture<V,S> execute(FutureOperation<V, ?, S> operation)
+    {
+        return execute(operation, SchedulingTag.DEFAULT);
+    }
+    
+    /**
+     * Execute an operation with the given priority and no tenant.
+     * @param operation the operation to execute.
+     * @param priority the priority class of the operation.
+     * @return the operation, as a RiakFuture.
+     * @see #execute(com.basho.riak.client.core.FutureOperation, com.basho.riak.client.core.SchedulingTag) 
+     */
+    public <V,S> RiakFuture<V,S> execute(FutureOperation<V, ?, S> operation, Priority priority)
+    {
+        return execute(operation, new SchedulingTag(priority));
+    }
+    
+    /**
+     * Execute an operation in the given scheduling class.
+     * <p>
+     * If this cluster was built with an admission limit and that many operations
+     * are already in flight the operation is queued and dispatched as in-flight 
+     * operations complete; strictly by priority, then weighted round-robin 
+     * across tenants. If the queue is full the operation fails immediately with 
+     * a {@link QueueFullException}; if it waits longer than the configured 
+     * maximum it fails with a {@link QueueTimeoutException}.
+     * </p>
+     * <p>
+     * Without an admission limit the tag is ignored and the operation is 
+     * handed straight to the {@link NodeManager}.
+     * </p>
+     * @param operation the operation to execute.
+     * @param tag the scheduling class of the operation.
+     * @return the operation, as a RiakFuture.
+     * @see Builder#withMaxInFlight(int) 
+     * @see #getSchedulingStats() 
+     */
+    public <V,S> RiakFuture<V,S> execute(FutureOperation<V, ?, S> operation, SchedulingTag tag)
     {
         stateCheck(State.RUNNING);
-        operation.setRetrier(this, executionAttempts); 
-        inFlightCount.incrementAndGet();
-        this.execute(operation, null);
+        if (requestTracer != null)
+        {
+            operation.setTracer(requestTracer);
+            operation.trace(RequestTracer.Stage.EXECUTE);
+        }
+        if (admissionQueue == null)
+        {
+            inFlightCount.incrementAndGet();
+            dispatch(operation, tag, 0);
+        }
+        else if (admissionQueue.size() == 0 && tryAdmit())
+        {
+            dispatch(operation, tag, 0);
+        }
+        else if (admissionQueue.offer(operation, tag))
+        {
+            logger.debug("Operation queued for admission; {}", tag);
+            drainAdmissionQueue();
+        }
+        else
+        {
+            logger.debug("Admission queue full; rejecting operation; {}", tag);
+            schedulingMetrics.get(tag).rejected();
+            operation.setException(new QueueFullException("Admission queue full; "
+                + admissionQueue.size() + " operations waiting"));
+        }
         return operation;
     }
     
+    /**
+     * Returns the current metrics for each scheduling class that has been used.
+     * <p>
+     * Metrics are only kept when this cluster was built with an admission 
+     * limit. A class unused for five minutes is dropped.
+     * </p>
+     * @return a snapshot of the metrics keyed by scheduling class.
+     */
+    public Map<SchedulingTag, SchedulingStats> getSchedulingStats()
+    {
+        return schedulingMetrics.snapshot(admissionQueue);
+    }
+    
     private void execute(FutureOperation operation, RiakNode previousNode) 
     {
         nodeManager.executeOnNode(operation, previousNode);
     }
     
+    /**
+     * Reserve an in-flight slot if one is available.
+     */
+    private boolean tryAdmit()
+    {
+        while (true)
+        {
+            int current = inFlightCount.get();
+            if (current >= maxInFlight)
+            {
+                return false;
+            }
+            if (inFlightCount.compareAndSet(current, current + 1))
+            {
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * Executes an operation that has been given an in-flight slot.
+     */
+    private void dispatch(FutureOperation operation, SchedulingTag tag, long queueWaitNanos)
+    {
+        if (admissionQueue != null)
+        {
+            operation.schedulingTag = tag;
+            operation.dispatchedAt = System.nanoTime();
+            schedulingMetrics.get(tag).admitted(queueWaitNanos);
+        }
+        operation.setRetrier(this, executionAttempts);
+        nodeManager.executeOnNode(operation, null);
+    }
+    
+    private void recordFinished(FutureOperation operation, boolean success)
+    {
+        SchedulingTag tag = operation.schedulingTag;
+        if (tag != null)
+        {
+            schedulingMetrics.get(tag).finished(System.nanoTime() - operation.dispatchedAt, success);
+        }
+    }
+    
+    private void drainAdmissionQueue()
+    {
+        while (tryAdmit())
+        {
+            AdmissionQueue.Entry entry = admissionQueue.poll();
+            if (entry != null)
+            {
+                dispatch(entry.operation, entry.tag, System.nanoTime() - entry.enqueued);
+            }
+            else
+            {
+                inFlightCount.decrementAndGet();
+                // Something may have been queued while we held the slot and 
+                // failed to get one itself.
+                if (admissionQueue.size() == 0)
+                {
+                    break;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Called when an in-flight slot is released. 
+     * 
+     * The queue is drained on an event loop rather than the shared executor.
+     * A node executing from an event loop never waits for a connection (see 
+     * {@link RiakNode#execute(FutureOperation)}), so dispatching can't hold up
+     * the executor's tasks, such as expiring queued operations.
+     */
+    private void slotReleased()
+    {
+        if (admissionQueue != null && admissionQueue.size() > 0)
+        {
+            try
+            {
+                bootstrap.group().next().execute(drainTask);
+            }
+            catch (RejectedExecutionException ex)
+            {
+                logger.debug("Event loop shut down; admission queue not drained");
+            }
+        }
+    }
+    
+    private final Runnable drainTask = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            drainAdmissionQueue();
+        }
+    };
+    
     /**
      * Adds a {@link RiakNode} to this cluster. 
      * The node can not have been started nor have its Bootstrap or Executor
@@ -288,8 +508,11 @@ public class  RiakCluster implements OperationRetrier, NodeStateListener
                 {
                     this.state = State.SHUTDOWN;
                     executor.shutdown();
-                    bootstrap.group().shutdownGracefully();
-                    logger.debug("RiakCluster shut down bootstrap");
+                    if (ownsEventLoopGroup)
+                    {
+                        bootstrap.group().shutdownGracefully();
+                        logger.debug("RiakCluster shut down bootstrap");
+                    }
                     logger.info("RiakCluster has shut down");
                     shutdownLatch.countDown();
                 }
@@ -312,6 +535,8 @@ public class  RiakCluster implements OperationRetrier, NodeStateListener
         else
         {
             inFlightCount.decrementAndGet();
+            recordFinished(operation, false);
+            slotReleased();
         }
     }
 
@@ -320,6 +545,13 @@ public class  RiakCluster implements OperationRetrier, NodeStateListener
     {
         inFlightCount.decrementAndGet();
         logger.debug("operation complete; remaining retries: {}", remainingRetries);
+        recordFinished(operation, true);
+        slotReleased();
+    }
+    
+    int queuedCount()
+    {
+        return admissionQueue == null ? 0 : admissionQueue.size();
     }
 
     private void retryOperation() throws InterruptedException
@@ -350,16 +582,37 @@ public class  RiakCluster implements OperationRetrier, NodeStateListener
         
     }
     
+    private class QueueReaperTask implements Runnable
+    {
+        @Override
+        public void run()
+        {
+            for (AdmissionQueue.Entry entry : admissionQueue.removeExpired())
+            {
+                logger.debug("Operation expired in admission queue; {}", entry.tag);
+                schedulingMetrics.get(entry.tag).expired();
+                entry.operation.setException(new QueueTimeoutException("Operation waited longer than "
+                    + TimeUnit.NANOSECONDS.toMillis(admissionQueue.getMaxWaitNanos()) 
+                    + "ms for admission"));
+            }
+            schedulingMetrics.prune(admissionQueue, IDLE_CLASS_NANOS);
+        }
+    }
+    
     private class ShutdownTask implements Runnable
     {
         @Override
         public void run()
         {
-            if (inFlightCount.get() == 0)
+            if (inFlightCount.get() == 0 && queuedCount() == 0)
             {
                 logger.info("All operations have completed");
 
                 retrierFuture.cancel(true);
+                if (queueReaperFuture != null)
+                {
+                    queueReaperFuture.cancel(false);
+                }
                 
                 // Copying the list avoids any potential deadlocks on the callbacks.
                 for (RiakNode node : getNodes())
@@ -392,13 +645,29 @@ public class  RiakCluster implements OperationRetrier, NodeStateListener
     public static class Builder
     {
         public final static int DEFAULT_EXECUTION_ATTEMPTS = 3;
+        /**
+         * The default maximum number of in-flight operations: {@value #DEFAULT_MAX_IN_FLIGHT} (unlimited)
+         * @see #withMaxInFlight(int) 
+         */
+        public final static int DEFAULT_MAX_IN_FLIGHT = 0;
+        /**
+         * The default admission queue size: {@value #DEFAULT_MAX_QUEUE_SIZE}
+         * @see #withMaxQueueSize(int) 
+         */
+        public final static int DEFAULT_MAX_QUEUE_SIZE = 1000;
         
         private final List<RiakNode> riakNodes;
         
         private int executionAttempts = DEFAULT_EXECUTION_ATTEMPTS;
+        private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+        private int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+        private long maxQueueWaitNanos;
+        private final Map<String, Integer> tenantWeights = new HashMap<String, Integer>();
         private NodeManager nodeManager;
         private ScheduledExecutorService executor;
         private Bootstrap bootstrap;
+        private EventLoopGroup eventLoopGroup;
+        private RequestTracer requestTracer;
         
         /**
          * Instantiate a Builder containing the supplied {@link RiakNode}s
@@ -431,6 +700,107 @@ public class  RiakCluster implements OperationRetrier, NodeStateListener
             return this;
         }
         
+        /**
+         * Sets the maximum number of operations in flight across the cluster.
+         * <p>
+         * When set, operations submitted while this many are in progress
+         * wait in a bounded admission queue and are dispatched, 
+         * {@link Priority#INTERACTIVE} before {@link Priority#BATCH} and 
+         * weighted round-robin across tenants (see {@link SchedulingTag}), as 
+         * in-flight operations complete. Setting this at or below the total 
+         * number of connections available across all nodes means operations
+         * queue rather than fail with a {@link NoNodesAvailableException}.
+         * </p>
+         * <p>
+         * A value of 0 (the default) disables admission control.
+         * </p>
+         * @param maxInFlight the maximum number of in-flight operations.
+         * @return this
+         * @see #DEFAULT_MAX_IN_FLIGHT
+         */
+        public Builder withMaxInFlight(int maxInFlight)
+        {
+            if (maxInFlight < 0)
+            {
+                throw new IllegalArgumentException("Max in flight can not be negative");
+            }
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+        
+        /**
+         * Sets the maximum number of operations waiting for admission.
+         * <p>
+         * Operations submitted when the queue is full fail immediately with a 
+         * {@link QueueFullException}. Only used if {@link #withMaxInFlight(int)} 
+         * has been set.
+         * </p>
+         * @param maxQueueSize the maximum number of queued operations.
+         * @return this
+         * @see #DEFAULT_MAX_QUEUE_SIZE
+         */
+        public Builder withMaxQueueSize(int maxQueueSize)
+        {
+            if (maxQueueSize < 0)
+            {
+                throw new IllegalArgumentException("Max queue size can not be negative");
+            }
+            this.maxQueueSize = maxQueueSize;
+            return this;
+        }
+        
+        /**
+         * Sets the maximum time an operation may wait for admission.
+         * <p>
+         * Operations that wait longer fail with a {@link QueueTimeoutException}.
+         * By default there is no limit. Only used if {@link #withMaxInFlight(int)} 
+         * has been set.
+         * </p>
+         * @param maxWait the maximum wait; 0 for no limit.
+         * @param unit the unit of {@code maxWait}
+         * @return this
+         */
+        public Builder withMaxQueueWait(long maxWait, TimeUnit unit)
+        {
+            this.maxQueueWaitNanos = unit.toNanos(maxWait);
+            return this;
+        }
+        
+        /**
+         * Sets the scheduling weight of a tenant.
+         * <p>
+         * Within a priority, queued operations are dispatched round-robin across
+         * tenants; a tenant may dispatch up to its weight in operations per turn.
+         * Tenants without a weight have a weight of 1. Only used if 
+         * {@link #withMaxInFlight(int)} has been set.
+         * </p>
+         * @param tenant the tenant, as used in a {@link SchedulingTag}
+         * @param weight the weight; must be positive.
+         * @return this
+         */
+        public Builder withTenantWeight(String tenant, int weight)
+        {
+            if (weight < 1)
+            {
+                throw new IllegalArgumentException("Weight must be positive");
+            }
+            this.tenantWeights.put(tenant == null ? "" : tenant, weight);
+            return this;
+        }
+        
+        /**
+         * Sets a {@link RequestTracer} to be notified as every operation 
+         * executed by this cluster passes through each stage of its execution.
+         * @param tracer the tracer; null (the default) disables tracing.
+         * @return this
+         * @see HistogramRequestTracer
+         */
+        public Builder withRequestTracer(RequestTracer tracer)
+        {
+            this.requestTracer = tracer;
+            return this;
+        }
+        
         /**
          * Sets the {@link NodeManager} for this {@link RiakCluster}
          * 
@@ -477,6 +847,28 @@ public class  RiakCluster implements OperationRetrier, NodeStateListener
             return this;
         }
         
+        /**
+         * The Netty {@link EventLoopGroup} this cluster will use.
+         * <p>
+         * Applications that are themselves built on Netty can supply their own
+         * group so that operations executed from one of its event loops 
+         * use connections registered with that same loop; the request, 
+         * the response and any listeners then all run on the caller's thread.
+         * The group must support {@link NioSocketChannel}. 
+         * </p>
+         * <p>
+         * A group supplied this way is not shut down when the cluster is.
+         * This can not be combined with {@link #withBootstrap(io.netty.bootstrap.Bootstrap)}.
+         * </p>
+         * @param group the event loop group to use.
+         * @return this
+         */
+        public Builder withEventLoopGroup(EventLoopGroup group)
+        {
+            this.eventLoopGroup = group;
+            return this;
+        }
+        
         /**
          * Instantiates the {@link RiakCluster}
          * @return a new RiakCluster
@@ -18,6 +18,7 @@ package com.basho.riak.client.core;
 import com.basho.riak.client.core.netty.HealthCheckDecoder;
 import com.basho.riak.client.core.netty.PingHealthCheck;
 import com.basho.riak.client.core.netty.RiakChannelInitializer;
+import com.basho.riak.client.core.netty.RiakMessageCodec;
 import com.basho.riak.client.core.netty.RiakResponseException;
 import com.basho.riak.client.core.netty.RiakSecurityDecoder;
 import com.basho.riak.client.util.Constants;
@@ -26,9 +27,13 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.util.concurrent.DefaultPromise;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.FutureListener;
 import io.netty.util.concurrent.Promise;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,6 +61,8 @@ public class RiakNode implements RiakResponseListener
     }
 
     private final Logger logger = LoggerFactory.getLogger(RiakNode.class);
+    // How often a deferred operation checks for a free connection
+    private static final long DEFERRED_RETRY_MILLIS = 10;
 
     private final LinkedBlockingDeque<ChannelWithIdleTime> available =
         new LinkedBlockingDeque<ChannelWithIdleTime>();
@@ -77,6 +84,7 @@ public class RiakNode implements RiakResponseListener
     
     private volatile Bootstrap bootstrap;
     private volatile boolean ownsBootstrap;
+    private volatile boolean tracing;
     private volatile ScheduledExecutorService executor;
     private volatile boolean ownsExecutor;
     private volatile State state;
@@ -86,6 +94,14 @@ public class RiakNode implements RiakResponseListener
     private volatile long idleTimeoutInNanos;
     private volatile int connectionTimeout;
     private volatile boolean blockOnMaxConnections;
+    
+    private final ThreadLocal<Boolean> onEventLoop = new ThreadLocal<Boolean>();
+    // Bootstraps connecting channels registered with a given event loop,
+    // configured like the channels made by the bootstrap. See bootstrapFor()
+    private final ConcurrentMap<EventLoop, Bootstrap> loopBootstraps = 
+        new ConcurrentHashMap<EventLoop, Bootstrap>();
+    private volatile Class<? extends Channel> channelClass;
+    private volatile Map<ChannelOption<?>, Object> channelOptions;
 
     private HealthCheckFactory healthCheckFactory;
     
@@ -115,6 +131,14 @@ public class RiakNode implements RiakResponseListener
                 }
                 else
                 {
+                    if (tracing)
+                    {
+                        FutureOperation inProgress = inProgressMap.get(future.channel());
+                        if (inProgress != null)
+                        {
+                            inProgress.trace(RequestTracer.Stage.WRITTEN);
+                        }
+                    }
                     // On a successful write we add the in-progress close listener 
                     // and let it handle a disco during an op.
                     future.channel().closeFuture().addListener(inProgressCloseListener);
@@ -502,6 +526,7 @@ public class RiakNode implements RiakResponseListener
         stateCheck(State.CREATED, State.RUNNING, State.HEALTH_CHECKING);
         this.connectionTimeout = connectionTimeoutInMillis;
         bootstrap.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectionTimeout);
+        loopBootstraps.clear();
         return this;
     }
 
@@ -567,13 +592,26 @@ public class RiakNode implements RiakResponseListener
         stateCheck(State.RUNNING, State.HEALTH_CHECKING);
 
         operation.setLastNode(this);
-        Channel channel = getConnection();
+        Channel channel;
+        if (inEventLoop())
+        {
+            // Never block an event loop waiting for a permit or a new 
+            // connection; if no idle connection is at hand, hand off.
+            channel = getIdleConnection();
+            if (channel == null)
+            {
+                executor.execute(new DeferredExecuteTask(operation, currentEventLoop()));
+                return true;
+            }
+        }
+        else
+        {
+            channel = getConnection();
+        }
+        
         if (channel != null)
         {
-            inProgressMap.put(channel, operation);
-            ChannelFuture writeFuture = channel.writeAndFlush(operation);
-            writeFuture.addListener(writeListener);
-            logger.debug("Operation being executed on RiakNode {}:{}", remoteAddress, port);
+            write(channel, operation);
             return true;
         }
         else
@@ -586,27 +624,33 @@ public class RiakNode implements RiakResponseListener
 
     // ConnectionPool Stuff
 
+    private Channel getConnection()
+    {
+        return getConnection(blockOnMaxConnections);
+    }
+    
     /**
      * Get a Netty channel from the pool.
      * <p>
      * The first thing this method does is attempt to acquire a permit from the 
-     * Semaphore that controls the pool's behavior. Depending on whether 
-     * {@code blockOnMaxConnections} is set, this will either block until one
-     * becomes available or return null.
+     * Semaphore that controls the pool's behavior. Depending on 
+     * {@code block}, this will either block until one becomes available or 
+     * return null.
      * </p>
      * <p>
      * Once a permit has been acquired, a channel from the pool or a newly 
      * created one will be returned. If an attempt to create a new connection
      * fails, null will then be returned. 
      * </p>
+     * @param block whether to wait for a permit
      * @return a connected channel or {@code null} 
      * @see Builder#withBlockOnMaxConnections(boolean) 
      */
-    private Channel getConnection()
+    private Channel getConnection(boolean block)
     {
         stateCheck(State.RUNNING, State.HEALTH_CHECKING);
         boolean acquired = false;
-        if (blockOnMaxConnections)
+        if (block)
         {
             try
             {
@@ -644,6 +688,287 @@ public class RiakNode implements RiakResponseListener
         return channel;
     }
 
+    private void write(Channel channel, FutureOperation operation)
+    {
+        if (operation.isTraced() || tracing)
+        {
+            // Once any traced operation has been seen the attribute is kept
+            // current on every write so stale operations are never traced.
+            tracing = true;
+            operation.trace(RequestTracer.Stage.CONNECTION_ACQUIRED);
+            channel.attr(RiakMessageCodec.TRACED_OPERATION)
+                .set(operation.isTraced() ? operation : null);
+        }
+        if (operation instanceof StreamingFutureOperation)
+        {
+            ((StreamingFutureOperation) operation).setChannel(channel);
+        }
+        inProgressMap.put(channel, operation);
+        ChannelFuture writeFuture = channel.writeAndFlush(operation);
+        writeFuture.addListener(writeListener);
+        logger.debug("Operation being executed on RiakNode {}:{}", remoteAddress, port);
+    }
+    
+    /**
+     * Determine if the calling thread is one of our EventLoopGroup's event loops.
+     * <p>
+     * A thread's answer never changes once the node is running, so it is 
+     * worked out once per thread rather than on every execute.
+     * </p>
+     */
+    private boolean inEventLoop()
+    {
+        Boolean cached = onEventLoop.get();
+        if (cached == null)
+        {
+            cached = false;
+            EventLoopGroup group = bootstrap.group();
+            if (group != null)
+            {
+                for (EventExecutor e : group)
+                {
+                    if (e.inEventLoop())
+                    {
+                        cached = true;
+                        break;
+                    }
+                }
+            }
+            onEventLoop.set(cached);
+        }
+        return cached;
+    }
+    
+    /**
+     * Find the calling thread's event loop.
+     * @return the event loop, or {@code null} if not called from one of ours.
+     */
+    private EventLoop currentEventLoop()
+    {
+        EventLoopGroup group = bootstrap.group();
+        if (group != null)
+        {
+            for (EventExecutor e : group)
+            {
+                if (e.inEventLoop() && e instanceof EventLoop)
+                {
+                    return (EventLoop) e;
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Get an idle channel from the pool without blocking.
+     * <p>
+     * Channels registered with the calling thread's event loop are preferred 
+     * so that the write, the response and any listeners all run on the 
+     * caller's thread.
+     * </p>
+     * @return an idle channel or {@code null} if none are available.
+     */
+    private Channel getIdleConnection()
+    {
+        stateCheck(State.RUNNING, State.HEALTH_CHECKING);
+        if (!permits.tryAcquire())
+        {
+            return null;
+        }
+        
+        Channel channel = pollAvailable(null);
+        if (channel == null)
+        {
+            permits.release();
+        }
+        return channel;
+    }
+    
+    /**
+     * Take an open channel from the pool without blocking.
+     * <p>
+     * The caller must hold a permit. Channels registered with the given event
+     * loop, or the calling thread's if {@code null}, are preferred.
+     * </p>
+     * @param preferred the event loop to prefer channels from.
+     * @return an idle channel or {@code null} if none are available.
+     */
+    private Channel pollAvailable(EventLoop preferred)
+    {
+        Channel channel = null;
+        for (ChannelWithIdleTime cwi : available)
+        {
+            Channel c = cwi.getChannel();
+            boolean local = preferred == null 
+                ? c.eventLoop().inEventLoop() 
+                : c.eventLoop() == preferred;
+            if (c.isOpen() && local && available.remove(cwi))
+            {
+                channel = c;
+                break;
+            }
+        }
+        
+        if (channel == null)
+        {
+            ChannelWithIdleTime cwi;
+            while ((cwi = available.poll()) != null)
+            {
+                if (cwi.getChannel().isOpen())
+                {
+                    channel = cwi.getChannel();
+                    break;
+                }
+            }
+        }
+        
+        if (channel != null)
+        {
+            channel.closeFuture().removeListener(inAvailableCloseListener);
+        }
+        return channel;
+    }
+    
+    /**
+     * Open a new connection for an operation without waiting for it.
+     * <p>
+     * The channel is registered with the given event loop where possible and
+     * the operation is written from the connect (or auth) listener, so no 
+     * thread waits on the connection. The caller must hold a permit, which is
+     * released if the connection fails.
+     * </p>
+     * @param loop the event loop to register the channel with, or {@code null}
+     * @param operation the operation to write once connected
+     */
+    private void connectAsync(EventLoop loop, final FutureOperation operation)
+    {
+        bootstrapFor(loop).connect().addListener(new ChannelFutureListener()
+        {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception
+            {
+                if (!future.isSuccess())
+                {
+                    logger.error("Connection attempt failed: {}:{}; {}",
+                        remoteAddress, port, future.cause());
+                    consecutiveFailedConnectionAttempts.incrementAndGet();
+                    permits.release();
+                    operation.setException(future.cause());
+                    return;
+                }
+                
+                consecutiveFailedConnectionAttempts.set(0);
+                final Channel c = future.channel();
+                if (trustStore == null)
+                {
+                    writeConnected(c, operation);
+                    return;
+                }
+                
+                Promise<Void> promise;
+                try
+                {
+                    promise = startSecurity(c);
+                }
+                catch (ConnectionFailedException ex)
+                {
+                    permits.release();
+                    operation.setException(ex.getCause());
+                    return;
+                }
+                promise.addListener(new FutureListener<Void>()
+                {
+                    @Override
+                    public void operationComplete(io.netty.util.concurrent.Future<Void> auth) throws Exception
+                    {
+                        if (auth.isSuccess())
+                        {
+                            logger.debug("Auth succeeded; {}:{}", remoteAddress, port);
+                            writeConnected(c, operation);
+                        }
+                        else
+                        {
+                            c.close();
+                            logger.error("Failure during Auth; {}:{} {}",remoteAddress, port, auth.cause());
+                            permits.release();
+                            operation.setException(auth.cause());
+                        }
+                    }
+                });
+            }
+        });
+    }
+    
+    private void writeConnected(Channel channel, FutureOperation operation)
+    {
+        if (operation.isDone())
+        {
+            // Timed out or cancelled while connecting; keep the connection
+            returnConnection(channel);
+        }
+        else
+        {
+            write(channel, operation);
+        }
+    }
+    
+    /**
+     * Get a bootstrap that registers new channels with an event loop.
+     * <p>
+     * A Bootstrap's group can't be changed, so one is built per event loop 
+     * for the channel type and options of our existing connections. Until 
+     * there are any, or without an event loop, the node's bootstrap is used.
+     * </p>
+     */
+    private Bootstrap bootstrapFor(EventLoop loop)
+    {
+        if (loop == null)
+        {
+            return bootstrap;
+        }
+        if (channelClass == null)
+        {
+            Iterator<Channel> inProgress = inProgressMap.keySet().iterator();
+            if (!inProgress.hasNext())
+            {
+                return bootstrap;
+            }
+            Channel c = inProgress.next();
+            channelOptions = c.config().getOptions();
+            channelClass = c.getClass();
+        }
+        
+        Bootstrap b = loopBootstraps.get(loop);
+        if (b == null)
+        {
+            b = new Bootstrap()
+                .group(loop)
+                .channel(channelClass)
+                .handler(new RiakChannelInitializer(this))
+                .remoteAddress(new InetSocketAddress(remoteAddress, port));
+            for (Map.Entry<ChannelOption<?>, Object> option : channelOptions.entrySet())
+            {
+                setOption(b, option.getKey(), option.getValue());
+            }
+            if (connectionTimeout > 0)
+            {
+                b.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectionTimeout);
+            }
+            Bootstrap existing = loopBootstraps.putIfAbsent(loop, b);
+            if (existing != null)
+            {
+                b = existing;
+            }
+        }
+        return b;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <T> void setOption(Bootstrap b, ChannelOption<T> option, Object value)
+    {
+        b.option(option, (T) value);
+    }
+    
     private Channel doGetConnection() throws ConnectionFailedException
     {
         ChannelWithIdleTime cwi;
@@ -687,46 +1012,9 @@ public class RiakNode implements RiakResponseListener
         
         if (trustStore != null) 
         {
-            SSLContext context;
-            try 
-            {
-                context = SSLContext.getInstance("TLS");
-                TrustManagerFactory tmf =
-                    TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
-                tmf.init(trustStore);
-
-                context.init(null, tmf.getTrustManagers(), null);
-                
-            }
-            catch (Exception ex) 
-            {
-                c.close();
-                logger.error("Failure configuring SSL; {}:{} {}", remoteAddress, port, ex);
-                throw new ConnectionFailedException(ex);
-            }
-             
-            SSLEngine engine = context.createSSLEngine();
-
-            Set<String> protocols = new HashSet<String>(Arrays.asList(engine.getSupportedProtocols()));
-
-            if (protocols.contains("TLSv1.2"))
-            {
-                engine.setEnabledProtocols(new String[] {"TLSv1.2"});
-                logger.debug("Using TLSv1.2");
-            }
-            else if (protocols.contains("TLSv1.1"))
-            {
-                engine.setEnabledProtocols(new String[] {"TLSv1.1"});
-                logger.debug("Using TLSv1.1");
-            }
-
-            engine.setUseClientMode(true);
-            RiakSecurityDecoder decoder = new RiakSecurityDecoder(engine, username, password);
-            c.pipeline().addFirst(decoder);
-                
             try
             {
-                DefaultPromise<Void> promise = decoder.getPromise();
+                Promise<Void> promise = startSecurity(c);
                 promise.await();
                 
                 if (promise.isSuccess())
@@ -756,6 +1044,67 @@ public class RiakNode implements RiakResponseListener
         return c;
 
     }
+    
+    /**
+     * Start TLS and authentication on a newly connected channel.
+     * @param c the connected channel.
+     * @return a promise completed once authenticated.
+     * @throws ConnectionFailedException if TLS can't be configured; the
+     * channel is closed.
+     */
+    private Promise<Void> startSecurity(Channel c) throws ConnectionFailedException
+    {
+        SSLContext context;
+        try 
+        {
+            context = SSLContext.getInstance("TLS");
+            TrustManagerFactory tmf =
+                TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            tmf.init(trustStore);
+
+            context.init(null, tmf.getTrustManagers(), null);
+            
+        }
+        catch (Exception ex) 
+        {
+            c.close();
+            logger.error("Failure configuring SSL; {}:{} {}", remoteAddress, port, ex);
+            throw new ConnectionFailedException(ex);
+        }
+         
+        SSLEngine engine = context.createSSLEngine();
+
+        Set<String> protocols = new HashSet<String>(Arrays.asList(engine.getSupportedProtocols()));
+
+        if (protocols.contains("TLSv1.2"))
+        {
+            engine.setEnabledProtocols(new String[] {"TLSv1.2"});
+            logger.debug("Using TLSv1.2");
+        }
+        else if (protocols.contains("TLSv1.1"))
+        {
+            engine.setEnabledProtocols(new String[] {"TLSv1.1"});
+            logger.debug("Using TLSv1.1");
+        }
+
+        engine.setUseClientMode(true);
+        RiakSecurityDecoder decoder = new RiakSecurityDecoder(engine, username, password);
+        c.pipeline().addFirst(decoder);
+        
+        try
+        {
+            // Adding the decoder to a connected channel starts the handshake
+            return decoder.getPromise();
+        }
+        catch (InterruptedException e)
+        {
+            c.close();
+            logger.error("Thread interrupted during Auth; {}:{}",
+                remoteAddress, port);
+            Thread.currentThread().interrupt();
+            throw new ConnectionFailedException(e);
+        }
+    }
 
     /**
      * Return a Netty channel.
@@ -826,11 +1175,25 @@ public class RiakNode implements RiakResponseListener
             if (inProgress.isDone())
             {
                 inProgressMap.remove(channel);
+                resumeReads(channel, inProgress);
                 returnConnection(channel); // return permit
             }
         }
     }
 
+    /**
+     * A streaming operation may have paused reads and then received its final
+     * message from data already read; the channel must not go back in the 
+     * pool that way.
+     */
+    private void resumeReads(Channel channel, FutureOperation operation)
+    {
+        if (operation instanceof StreamingFutureOperation && !channel.config().isAutoRead())
+        {
+            channel.config().setAutoRead(true);
+        }
+    }
+
     @Override
     public void onRiakErrorResponse(Channel channel, RiakResponseException ex)
     {
@@ -840,6 +1203,7 @@ public class RiakNode implements RiakResponseListener
         if (inProgress != null)
         {
             inProgress.setException(ex);
+            resumeReads(channel, inProgress);
             returnConnection(channel); // release permit
         }
     }
@@ -892,6 +1256,89 @@ public class RiakNode implements RiakResponseListener
         return this.state;
     }
 
+    /**
+     * Executes an operation submitted from an event loop that could not be
+     * given an idle connection.
+     * <p>
+     * This runs on the shared executor, so it never waits for a permit or a
+     * connection. Given a permit but no idle channel, a new connection is 
+     * made on the submitting event loop and the operation is written once it
+     * is up. Without a permit and with {@code blockOnMaxConnections} set it is
+     * rescheduled until a connection is free; otherwise the operation fails 
+     * and is retried as usual. 
+     * </p>
+     */
+    private class DeferredExecuteTask implements Runnable
+    {
+        private final FutureOperation operation;
+        private final EventLoop loop;
+        
+        DeferredExecuteTask(FutureOperation operation, EventLoop loop)
+        {
+            this.operation = operation;
+            this.loop = loop;
+        }
+        
+        @Override
+        public void run()
+        {
+            if (operation.isDone())
+            {
+                return;
+            }
+            
+            boolean acquired = false;
+            boolean running = true;
+            try
+            {
+                stateCheck(State.RUNNING, State.HEALTH_CHECKING);
+                acquired = permits.tryAcquire();
+            }
+            catch (IllegalStateException ex)
+            {
+                logger.debug("RiakNode {}:{} no longer running", remoteAddress, port);
+                running = false;
+            }
+            
+            if (acquired)
+            {
+                Channel channel = pollAvailable(loop);
+                if (channel != null)
+                {
+                    write(channel, operation);
+                }
+                else
+                {
+                    connectAsync(loop, operation);
+                }
+            }
+            else if (running && blockOnMaxConnections && reschedule())
+            {
+                logger.debug("Deferred operation waiting for a connection on RiakNode {}:{}",
+                            remoteAddress, port);
+            }
+            else
+            {
+                logger.debug("Deferred operation not executed on RiakNode {}:{}; no connections available",
+                            remoteAddress, port);
+                operation.setException(new NoNodesAvailableException());
+            }
+        }
+        
+        private boolean reschedule()
+        {
+            try
+            {
+                executor.schedule(this, DEFERRED_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+                return true;
+            }
+            catch (RejectedExecutionException ex)
+            {
+                return false;
+            }
+        }
+    }
+    
     private class ChannelWithIdleTime
     {
         private Channel channel;
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.core;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per scheduling class counters maintained by the {@link RiakCluster}.
+ * <p>
+ * Tenants are arbitrary strings, so the counters of a class that has been 
+ * idle for a while are dropped; see {@link #prune(AdmissionQueue, long)}.
+ * </p>
+ * @since 2.0
+ */
+class SchedulingMetrics
+{
+    private final ConcurrentMap<SchedulingTag, Counters> counters = 
+        new ConcurrentHashMap<SchedulingTag, Counters>();
+    
+    Counters get(SchedulingTag tag)
+    {
+        Counters c = counters.get(tag);
+        if (c == null)
+        {
+            Counters newCounters = new Counters();
+            c = counters.putIfAbsent(tag, newCounters);
+            if (c == null)
+            {
+                c = newCounters;
+            }
+        }
+        return c;
+    }
+    
+    /**
+     * Drop the counters of classes that have been idle for a while.
+     * @param queue the admission queue; classes with operations queued are kept.
+     * @param idleNanos how long a class must have been unused to be dropped.
+     */
+    void prune(AdmissionQueue queue, long idleNanos)
+    {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<SchedulingTag, Counters>> i = counters.entrySet().iterator();
+        while (i.hasNext())
+        {
+            Map.Entry<SchedulingTag, Counters> e = i.next();
+            if (now - e.getValue().lastUsed > idleNanos && queue.size(e.getKey()) == 0)
+            {
+                i.remove();
+            }
+        }
+    }
+    
+    Map<SchedulingTag, SchedulingStats> snapshot(AdmissionQueue queue)
+    {
+        Map<SchedulingTag, SchedulingStats> stats = new HashMap<SchedulingTag, SchedulingStats>();
+        for (Map.Entry<SchedulingTag, Counters> e : counters.entrySet())
+        {
+            Counters c = e.getValue();
+            stats.put(e.getKey(), 
+                      new SchedulingStats(e.getKey(), 
+                                          queue == null ? 0 : queue.size(e.getKey()),
+                                          c.admitted.get(), c.rejected.get(), c.expired.get(),
+                                          c.completed.get(), c.failed.get(),
+                                          c.totalQueueWait.get(), c.maxQueueWait.get(),
+                                          c.totalService.get(), c.maxService.get()));
+        }
+        return stats;
+    }
+    
+    static class Counters
+    {
+        private final AtomicLong admitted = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong expired = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong totalQueueWait = new AtomicLong();
+        private final AtomicLong maxQueueWait = new AtomicLong();
+        private final AtomicLong totalService = new AtomicLong();
+        private final AtomicLong maxService = new AtomicLong();
+        private volatile long lastUsed = System.nanoTime();
+        
+        void admitted(long queueWaitNanos)
+        {
+            lastUsed = System.nanoTime();
+            admitted.incrementAndGet();
+            totalQueueWait.addAndGet(queueWaitNanos);
+            updateMax(maxQueueWait, queueWaitNanos);
+        }
+        
+        void rejected()
+        {
+            lastUsed = System.nanoTime();
+            rejected.incrementAndGet();
+        }
+        
+        void expired()
+        {
+            expired.incrementAndGet();
+        }
+        
+        void finished(long serviceNanos, boolean success)
+        {
+            lastUsed = System.nanoTime();
+            if (success)
+            {
+                completed.incrementAndGet();
+            }
+            else
+            {
+                failed.incrementAndGet();
+            }
+            totalService.addAndGet(serviceNanos);
+            updateMax(maxService, serviceNanos);
+        }
+        
+        private static void updateMax(AtomicLong max, long value)
+        {
+            long current = max.get();
+            while (value > current && !max.compareAndSet(current, value))
+            {
+                current = max.get();
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.core;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A point-in-time snapshot of the metrics for one scheduling class.
+ * <p>
+ * Queue wait is the time from submission to dispatch to a {@link NodeManager};
+ * service time is the time from dispatch to completion, including retries.
+ * </p>
+ * @since 2.0
+ * @see RiakCluster#getSchedulingStats() 
+ */
+public final class SchedulingStats
+{
+    private final SchedulingTag tag;
+    private final int queueDepth;
+    private final long admitted;
+    private final long rejected;
+    private final long expired;
+    private final long completed;
+    private final long failed;
+    private final long totalQueueWaitNanos;
+    private final long maxQueueWaitNanos;
+    private final long totalServiceNanos;
+    private final long maxServiceNanos;
+
+    SchedulingStats(SchedulingTag tag, int queueDepth, long admitted, long rejected,
+                    long expired, long completed, long failed, 
+                    long totalQueueWaitNanos, long maxQueueWaitNanos,
+                    long totalServiceNanos, long maxServiceNanos)
+    {
+        this.tag = tag;
+        this.queueDepth = queueDepth;
+        this.admitted = admitted;
+        this.rejected = rejected;
+        this.expired = expired;
+        this.completed = completed;
+        this.failed = failed;
+        this.totalQueueWaitNanos = totalQueueWaitNanos;
+        this.maxQueueWaitNanos = maxQueueWaitNanos;
+        this.totalServiceNanos = totalServiceNanos;
+        this.maxServiceNanos = maxServiceNanos;
+    }
+
+    /**
+     * @return the scheduling class these stats are for.
+     */
+    public SchedulingTag getTag()
+    {
+        return tag;
+    }
+
+    /**
+     * @return the number of operations currently waiting for admission.
+     */
+    public int getQueueDepth()
+    {
+        return queueDepth;
+    }
+
+    /**
+     * @return the number of operations dispatched.
+     */
+    public long getAdmitted()
+    {
+        return admitted;
+    }
+
+    /**
+     * @return the number of operations rejected because the queue was full.
+     */
+    public long getRejected()
+    {
+        return rejected;
+    }
+
+    /**
+     * @return the number of operations that timed out waiting for admission.
+     */
+    public long getExpired()
+    {
+        return expired;
+    }
+
+    /**
+     * @return the number of dispatched operations that completed successfully.
+     */
+    public long getCompleted()
+    {
+        return completed;
+    }
+
+    /**
+     * @return the number of dispatched operations that failed after all retries.
+     */
+    public long getFailed()
+    {
+        return failed;
+    }
+
+    /**
+     * @param unit the unit to return.
+     * @return the mean queue wait of dispatched operations.
+     */
+    public long getMeanQueueWait(TimeUnit unit)
+    {
+        return admitted == 0 ? 0 : unit.convert(totalQueueWaitNanos / admitted, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param unit the unit to return.
+     * @return the longest queue wait of a dispatched operation.
+     */
+    public long getMaxQueueWait(TimeUnit unit)
+    {
+        return unit.convert(maxQueueWaitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param unit the unit to return.
+     * @return the mean service time of finished operations.
+     */
+    public long getMeanServiceTime(TimeUnit unit)
+    {
+        long finished = completed + failed;
+        return finished == 0 ? 0 : unit.convert(totalServiceNanos / finished, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param unit the unit to return.
+     * @return the longest service time of a finished operation.
+     */
+    public long getMaxServiceTime(TimeUnit unit)
+    {
+        return unit.convert(maxServiceNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString()
+    {
+        return tag + " {queueDepth: " + queueDepth + ", admitted: " + admitted 
+            + ", rejected: " + rejected + ", expired: " + expired 
+            + ", completed: " + completed + ", failed: " + failed 
+            + ", meanQueueWaitUs: " + getMeanQueueWait(TimeUnit.MICROSECONDS)
+            + ", meanServiceTimeUs: " + getMeanServiceTime(TimeUnit.MICROSECONDS) + "}";
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.core;
+
+/**
+ * Identifies the scheduling class of an operation: its {@link Priority} and 
+ * an optional tenant.
+ * <p>
+ * When a {@link RiakCluster} is built with an admission limit, queued operations 
+ * are dispatched strictly by priority. Within a priority, tenants are served 
+ * round-robin in proportion to their weight, so one tenant's bulk work can't 
+ * monopolize the connections other tenants need. Per-class queue depth and 
+ * latency metrics are available from {@link RiakCluster#getSchedulingStats()}.
+ * </p>
+ * <pre>
+ * SchedulingTag export = new SchedulingTag(Priority.BATCH, "nightly-export");
+ * ListKeys lk = new ListKeys.Builder(location).withSchedulingTag(export).build();
+ * </pre>
+ * @since 2.0
+ * @see RiakCluster.Builder#withTenantWeight(java.lang.String, int) 
+ */
+public final class SchedulingTag
+{
+    /**
+     * The tag used for operations that don't specify one; interactive, no tenant.
+     */
+    public static final SchedulingTag DEFAULT = new SchedulingTag(Priority.INTERACTIVE, null);
+    
+    private final Priority priority;
+    private final String tenant;
+    
+    /**
+     * Create a tag with no tenant.
+     * @param priority the priority class.
+     */
+    public SchedulingTag(Priority priority)
+    {
+        this(priority, null);
+    }
+    
+    /**
+     * Create a tag.
+     * @param priority the priority class.
+     * @param tenant the tenant or null for none.
+     */
+    public SchedulingTag(Priority priority, String tenant)
+    {
+        if (null == priority)
+        {
+            throw new IllegalArgumentException("Priority can not be null");
+        }
+        this.priority = priority;
+        this.tenant = tenant == null ? "" : tenant;
+    }
+    
+    /**
+     * Returns the priority class.
+     * @return the priority.
+     */
+    public Priority getPriority()
+    {
+        return priority;
+    }
+    
+    /**
+     * Returns the tenant.
+     * @return the tenant, or an empty string if none was specified. 
+     */
+    public String getTenant()
+    {
+        return tenant;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * priority.hashCode() + tenant.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (!(obj instanceof SchedulingTag))
+        {
+            return false;
+        }
+        SchedulingTag other = (SchedulingTag) obj;
+        return priority == other.priority && tenant.equals(other.tenant);
+    }
+
+    @Override
+    public String toString()
+    {
+        return tenant.length() == 0 ? priority.toString() : priority + "/" + tenant;
+    }
+}
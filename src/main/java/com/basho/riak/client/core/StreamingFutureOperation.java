@@ -0,0 +1,329 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.core;
+
+import io.netty.channel.Channel;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Base class for operations whose results can be delivered incrementally.
+ * <p>
+ * When built for streaming, each response message is converted to a chunk 
+ * of results as it arrives and made available through {@link #iterator()} 
+ * instead of being retained until the operation completes. At most 
+ * {@code maxBufferedChunks} chunks are buffered; when the consumer falls 
+ * behind, reads on the connection are paused (Netty's {@code autoRead}) 
+ * until it catches up, pushing back on Riak via TCP flow control.
+ * </p>
+ * <p>
+ * Reads are only paused and resumed on the channel's event loop, and each 
+ * decision is made against the current number of buffered chunks, so a 
+ * consumer catching up while reads are being paused can't leave them 
+ * paused.
+ * </p>
+ * <p>
+ * Closing the iterator (or calling {@link #close()}) cancels a streaming 
+ * operation: retries are disabled and its connection is closed, failing 
+ * the operation if Riak hadn't finished sending.
+ * </p>
+ * <p>
+ * When not streaming, the operation behaves exactly like any other 
+ * {@link FutureOperation}.
+ * </p>
+ * @param <T> The type the operation returns
+ * @param <U> The protocol type returned
+ * @param <S> Query info type
+ * @param <E> The type of the streamed results
+ * @since 2.0
+ */
+public abstract class StreamingFutureOperation<T, U, S, E> extends FutureOperation<T, U, S>
+{
+    public static final int DEFAULT_MAX_BUFFERED_CHUNKS = 16;
+    
+    private static final Object END = new Object();
+    
+    private final boolean streaming;
+    private final int highWaterMark;
+    private final int lowWaterMark;
+    private final LinkedBlockingQueue<Object> chunks = new LinkedBlockingQueue<Object>();
+    private final AtomicInteger buffered = new AtomicInteger();
+    private volatile Channel channel;
+    private volatile boolean readsPaused;
+    private volatile boolean iteratorCreated;
+    private volatile boolean closed;
+    
+    /**
+     * @param streaming true to deliver results incrementally.
+     * @param maxBufferedChunks the number of chunks buffered before reads are paused.
+     */
+    protected StreamingFutureOperation(boolean streaming, int maxBufferedChunks)
+    {
+        if (maxBufferedChunks < 1)
+        {
+            throw new IllegalArgumentException("maxBufferedChunks must be at least 1");
+        }
+        this.streaming = streaming;
+        this.highWaterMark = maxBufferedChunks;
+        this.lowWaterMark = maxBufferedChunks / 2;
+        if (streaming)
+        {
+            addListener(new RiakFutureListener<T,S>()
+            {
+                @Override
+                public void handle(RiakFuture<T,S> f)
+                {
+                    channel = null;
+                    chunks.add(END);
+                }
+            });
+        }
+    }
+    
+    /**
+     * Convert a response message into the results it contains.
+     * @param message the decoded response message.
+     * @return the results; never null.
+     */
+    protected abstract List<E> processStreamingChunk(U message);
+    
+    /**
+     * Determine if this operation delivers its results incrementally.
+     * @return true if streaming.
+     */
+    public final boolean isStreaming()
+    {
+        return streaming;
+    }
+    
+    @Override
+    protected void processMessage(U decodedMessage)
+    {
+        if (!streaming)
+        {
+            super.processMessage(decodedMessage);
+            return;
+        }
+        
+        List<E> results = processStreamingChunk(decodedMessage);
+        if (!results.isEmpty())
+        {
+            disableRetries();
+            chunks.add(results);
+            if (buffered.incrementAndGet() >= highWaterMark)
+            {
+                updateAutoRead();
+            }
+        }
+    }
+    
+    /**
+     * Returns the streamed results.
+     * <p>
+     * The iterator blocks until results are available and returns false 
+     * from {@code hasNext()} when the operation completes. If the operation 
+     * fails, the cause is thrown from {@code hasNext()} wrapped in a
+     * {@link StreamingException}. It can only be obtained once, and is 
+     * not thread safe.
+     * </p>
+     * @return an iterator over the results.
+     * @throws IllegalStateException if the operation is not streaming or the
+     * iterator has already been obtained.
+     */
+    public final synchronized StreamingIterator<E> iterator()
+    {
+        if (!streaming)
+        {
+            throw new IllegalStateException("Operation is not streaming");
+        }
+        if (iteratorCreated)
+        {
+            throw new IllegalStateException("Iterator has already been obtained");
+        }
+        iteratorCreated = true;
+        return new ChunkIterator();
+    }
+    
+    /**
+     * Cancel this streaming operation.
+     * <p>
+     * Results not yet consumed are discarded and the iterator's 
+     * {@code hasNext()} returns false. If Riak is still sending, the 
+     * connection is closed, which fails the operation without a retry. 
+     * Does nothing if the operation is not streaming or has completed.
+     * </p>
+     */
+    public final void close()
+    {
+        if (!streaming || closed)
+        {
+            return;
+        }
+        closed = true;
+        disableRetries();
+        chunks.clear();
+        buffered.set(0);
+        chunks.add(END);
+        
+        Channel c = channel;
+        if (c != null && !isDone())
+        {
+            c.close();
+        }
+    }
+    
+    // Set by RiakNode when the operation is written.
+    final void setChannel(Channel channel)
+    {
+        this.channel = channel;
+        if (closed)
+        {
+            // Closed before it was written; the write fails the operation.
+            channel.close();
+        }
+    }
+    
+    /**
+     * Pause or resume reads according to the number of buffered chunks.
+     */
+    private void updateAutoRead()
+    {
+        final Channel c = channel;
+        if (c == null)
+        {
+            return;
+        }
+        
+        if (c.eventLoop().inEventLoop())
+        {
+            applyAutoRead(c);
+        }
+        else
+        {
+            c.eventLoop().execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    applyAutoRead(c);
+                }
+            });
+        }
+    }
+    
+    // Only ever run on the channel's event loop, so never concurrently.
+    private void applyAutoRead(Channel c)
+    {
+        if (!readsPaused)
+        {
+            if (buffered.get() >= highWaterMark)
+            {
+                // Flag first, then re-check: a consumer that drained the 
+                // buffer before seeing the flag has left nothing to resume it.
+                readsPaused = true;
+                if (buffered.get() >= highWaterMark)
+                {
+                    c.config().setAutoRead(false);
+                }
+                else
+                {
+                    readsPaused = false;
+                }
+            }
+        }
+        else if (buffered.get() <= lowWaterMark)
+        {
+            readsPaused = false;
+            c.config().setAutoRead(true);
+        }
+    }
+    
+    private class ChunkIterator implements StreamingIterator<E>
+    {
+        private Iterator<E> current = Collections.<E>emptyList().iterator();
+        private boolean finished;
+        
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean hasNext()
+        {
+            if (closed)
+            {
+                return false;
+            }
+            while (!current.hasNext())
+            {
+                if (finished || closed)
+                {
+                    return false;
+                }
+                Object next;
+                try
+                {
+                    next = chunks.take();
+                }
+                catch (InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new StreamingException(ex);
+                }
+                
+                if (next == END)
+                {
+                    finished = true;
+                    if (!closed && !isSuccess())
+                    {
+                        throw new StreamingException(cause());
+                    }
+                    return false;
+                }
+                
+                current = ((List<E>) next).iterator();
+                if (buffered.decrementAndGet() <= lowWaterMark && readsPaused)
+                {
+                    updateAutoRead();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public E next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public void close()
+        {
+            StreamingFutureOperation.this.close();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.core;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * An iterator over results that are streamed from Riak.
+ * <p>
+ * Closing the iterator before it is exhausted cancels the operation 
+ * delivering the results; the connection it was using is closed rather 
+ * than returned to the pool, as Riak would otherwise keep sending on it.
+ * </p>
+ * @param <E> The type of the streamed results
+ * @since 2.0
+ * @see StreamingFutureOperation#iterator()
+ */
+public interface StreamingIterator<E> extends Iterator<E>, Closeable
+{
+    /**
+     * Stop streaming and discard any results not yet consumed.
+     * <p>
+     * After this {@code hasNext()} returns false. Closing an exhausted or 
+     * already closed iterator does nothing.
+     * </p>
+     */
+    @Override
+    void close();
+}
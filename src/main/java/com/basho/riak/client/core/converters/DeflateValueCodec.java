@@ -0,0 +1,329 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.core.converters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A {@link ValueCodec} using the JDK's zlib Deflate implementation.
+ * <p>
+ * Without a dictionary the output is the zlib format used for the HTTP 
+ * {@code deflate} content encoding, so values can be read by any client.
+ * </p>
+ * <p>
+ * Small values that share a lot of structure (e.g. JSON documents of the same
+ * type) compress poorly on their own. A preset dictionary, built from sample
+ * values with {@link #trainDictionary(Iterable, int)}, can substantially 
+ * improve their ratio. The same dictionary is needed to decode them, so a codec
+ * with a dictionary should be given its own encoding name:
+ * </p>
+ * <pre>
+ * byte[] dict = DeflateValueCodec.trainDictionary(samples, 4096);
+ * ValueCodec codec = 
+ *     new DeflateValueCodec("deflate-users-v1", Deflater.DEFAULT_COMPRESSION, dict);
+ * ValueCodecFactory.getInstance().setCompression(codec, 256);
+ * </pre>
+ * <p>
+ * A Deflater and Inflater are kept per thread and reused. Decoded values are
+ * limited to {@value #DEFAULT_MAX_DECODED_SIZE} bytes by default, so a 
+ * hostile or corrupt value can't exhaust the heap.
+ * </p>
+ * @since 2.0
+ */
+public class DeflateValueCodec implements ValueCodec
+{
+    public static final String ENCODING = "deflate";
+    /**
+     * The default limit on the size of a decoded value; larger than the 
+     * largest object Riak will store.
+     */
+    public static final int DEFAULT_MAX_DECODED_SIZE = 64 * 1024 * 1024;
+    
+    private static final int NGRAM = 8;
+    
+    private final String encoding;
+    private final int level;
+    private final byte[] dictionary;
+    private final int maxDecodedSize;
+    
+    private final ThreadLocal<Deflater> deflaters = new ThreadLocal<Deflater>()
+    {
+        @Override
+        protected Deflater initialValue()
+        {
+            return new Deflater(level);
+        }
+    };
+    
+    private final ThreadLocal<Inflater> inflaters = new ThreadLocal<Inflater>()
+    {
+        @Override
+        protected Inflater initialValue()
+        {
+            return new Inflater();
+        }
+    };
+    
+    /**
+     * Create a codec using the default compression level.
+     */
+    public DeflateValueCodec()
+    {
+        this(Deflater.DEFAULT_COMPRESSION);
+    }
+    
+    /**
+     * Create a codec using the supplied compression level.
+     * @param level the compression level, 0-9
+     */
+    public DeflateValueCodec(int level)
+    {
+        this(ENCODING, level, null);
+    }
+    
+    /**
+     * Create a codec with a preset dictionary.
+     * @param encoding the content encoding to tag values with. 
+     * @param level the compression level, 0-9
+     * @param dictionary the preset dictionary, or null.
+     */
+    public DeflateValueCodec(String encoding, int level, byte[] dictionary)
+    {
+        this(encoding, level, dictionary, DEFAULT_MAX_DECODED_SIZE);
+    }
+    
+    /**
+     * Create a codec with a preset dictionary and a limit on decoded values.
+     * @param encoding the content encoding to tag values with. 
+     * @param level the compression level, 0-9
+     * @param dictionary the preset dictionary, or null.
+     * @param maxDecodedSize the size in bytes above which decoding fails.
+     */
+    public DeflateValueCodec(String encoding, int level, byte[] dictionary, int maxDecodedSize)
+    {
+        if (encoding == null || encoding.isEmpty())
+        {
+            throw new IllegalArgumentException("Encoding can not be null or empty");
+        }
+        if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION)
+        {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+        if (maxDecodedSize < 1)
+        {
+            throw new IllegalArgumentException("Max decoded size must be at least 1");
+        }
+        this.encoding = encoding;
+        this.level = level;
+        this.dictionary = dictionary == null ? null : Arrays.copyOf(dictionary, dictionary.length);
+        this.maxDecodedSize = maxDecodedSize;
+    }
+    
+    @Override
+    public String getEncoding()
+    {
+        return encoding;
+    }
+
+    @Override
+    public byte[] encode(byte[] value)
+    {
+        Deflater deflater = deflaters.get();
+        deflater.reset();
+        if (dictionary != null)
+        {
+            deflater.setDictionary(dictionary);
+        }
+        deflater.setInput(value);
+        deflater.finish();
+        
+        byte[] out = new byte[Math.max(64, value.length / 2)];
+        int len = 0;
+        while (!deflater.finished())
+        {
+            if (len == out.length)
+            {
+                out = Arrays.copyOf(out, out.length * 2);
+            }
+            len += deflater.deflate(out, len, out.length - len);
+        }
+        return len == out.length ? out : Arrays.copyOf(out, len);
+    }
+
+    @Override
+    public byte[] decode(byte[] value)
+    {
+        Inflater inflater = inflaters.get();
+        inflater.reset();
+        inflater.setInput(value);
+        
+        byte[] out = new byte[(int) Math.min(maxDecodedSize, Math.max(64L, value.length * 4L))];
+        int len = 0;
+        try
+        {
+            while (!inflater.finished())
+            {
+                if (len == out.length)
+                {
+                    if (len == maxDecodedSize)
+                    {
+                        throw new IllegalArgumentException("Decoded value exceeds " + maxDecodedSize + " bytes");
+                    }
+                    out = Arrays.copyOf(out, (int) Math.min(maxDecodedSize, out.length * 2L));
+                }
+                int n = inflater.inflate(out, len, out.length - len);
+                len += n;
+                if (n == 0 && !inflater.finished())
+                {
+                    if (inflater.needsDictionary())
+                    {
+                        if (dictionary == null)
+                        {
+                            throw new IllegalArgumentException("Value requires a preset dictionary");
+                        }
+                        inflater.setDictionary(dictionary);
+                    }
+                    else if (inflater.needsInput())
+                    {
+                        throw new IllegalArgumentException("Truncated deflate value");
+                    }
+                }
+            }
+        }
+        catch (DataFormatException ex)
+        {
+            throw new IllegalArgumentException("Invalid deflate value", ex);
+        }
+        return len == out.length ? out : Arrays.copyOf(out, len);
+    }
+    
+    /**
+     * Build a preset dictionary from sample values.
+     * <p>
+     * Byte sequences that occur in the most samples are chosen, with the most
+     * common placed last where Deflate can reach them most cheaply. The samples 
+     * should be representative of the values to be compressed.
+     * </p>
+     * @param samples the sample values.
+     * @param maxSize the maximum dictionary size; Deflate can use at most 32KB.
+     * @return the dictionary, which may be empty.
+     */
+    public static byte[] trainDictionary(Iterable<byte[]> samples, int maxSize)
+    {
+        if (maxSize <= 0)
+        {
+            throw new IllegalArgumentException("maxSize must be greater than zero");
+        }
+        
+        final Map<Gram, Integer> occurrences = new HashMap<Gram, Integer>();
+        Set<Gram> seen = new HashSet<Gram>();
+        for (byte[] sample : samples)
+        {
+            seen.clear();
+            for (int i = 0; i + NGRAM <= sample.length; i++)
+            {
+                Gram g = new Gram(sample, i);
+                if (seen.add(g))
+                {
+                    Integer count = occurrences.get(g);
+                    occurrences.put(g, count == null ? 1 : count + 1);
+                }
+            }
+        }
+        
+        List<Gram> grams = new ArrayList<Gram>();
+        for (Map.Entry<Gram, Integer> e : occurrences.entrySet())
+        {
+            // Sequences in only one sample don't help other values
+            if (e.getValue() > 1)
+            {
+                grams.add(e.getKey());
+            }
+        }
+        Collections.sort(grams, new Comparator<Gram>()
+        {
+            @Override
+            public int compare(Gram o1, Gram o2)
+            {
+                return occurrences.get(o2).compareTo(occurrences.get(o1));
+            }
+        });
+        
+        int count = Math.min(grams.size(), maxSize / NGRAM);
+        byte[] dict = new byte[count * NGRAM];
+        int pos = dict.length;
+        for (int i = 0; i < count; i++)
+        {
+            pos -= NGRAM;
+            System.arraycopy(grams.get(i).bytes, grams.get(i).offset, dict, pos, NGRAM);
+        }
+        return dict;
+    }
+    
+    private static final class Gram
+    {
+        private final byte[] bytes;
+        private final int offset;
+        private final int hash;
+        
+        Gram(byte[] bytes, int offset)
+        {
+            this.bytes = bytes;
+            this.offset = offset;
+            int h = 1;
+            for (int i = offset; i < offset + NGRAM; i++)
+            {
+                h = 31 * h + bytes[i];
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof Gram))
+            {
+                return false;
+            }
+            Gram other = (Gram) obj;
+            for (int i = 0; i < NGRAM; i++)
+            {
+                if (bytes[offset + i] != other.bytes[other.offset + i])
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
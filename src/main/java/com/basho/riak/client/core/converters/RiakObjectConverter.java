@@ -17,19 +17,14 @@ package com.basho.riak.client.core.converters;
 
 import com.basho.riak.client.cap.BasicVClock;
 import com.basho.riak.client.query.RiakObject;
-import com.basho.riak.client.query.UserMetadata.RiakUserMetadata;
-import com.basho.riak.client.query.indexes.IndexType;
-import com.basho.riak.client.query.indexes.RawIndex;
 import com.basho.riak.client.query.indexes.RiakIndex;
-import com.basho.riak.client.query.indexes.RiakIndexes;
 import com.basho.riak.client.query.links.RiakLink;
-import com.basho.riak.client.query.links.RiakLinks;
 import com.basho.riak.client.util.BinaryValue;
 import com.basho.riak.protobuf.RiakKvPB;
 import com.basho.riak.protobuf.RiakKvPB.RpbContent;
 import com.basho.riak.protobuf.RiakPB;
 import com.google.protobuf.ByteString;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import org.slf4j.Logger;
@@ -37,7 +32,10 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Utility class for converting to/from RiakKvPB.RpbContent and RiakObject
- * 
+ * <p>
+ * Values are encoded and decoded using the {@link ValueCodec}s registered with
+ * the {@link ValueCodecFactory}.
+ * </p>
  * 
  * @author Brian Roach <roach at basho dot com>
  * @since 2.0
@@ -50,7 +48,7 @@ public class RiakObjectConverter
     
     public static List<RiakObject> convert(List<RpbContent> contentList, ByteString contentVClock)
     {
-        List<RiakObject> roList = new LinkedList<RiakObject>();
+        List<RiakObject> roList = new ArrayList<RiakObject>(contentList.size());
         BasicVClock vclock = new BasicVClock(contentVClock.toByteArray());
         
         for (RpbContent content : contentList)
@@ -83,56 +81,27 @@ public class RiakObjectConverter
             
             if (content.hasValue() && !content.getValue().isEmpty())
             {
-                ro.setValue(BinaryValue.unsafeCreate(content.getValue().toByteArray()));
-            }
-            
-            if (content.hasVtag())
-            {
-                ro.setVTag(content.getVtag().toStringUtf8());
-            }
-            
-            if (content.getLinksCount() > 0)
-            {
-                List<RiakKvPB.RpbLink> pbLinkList = content.getLinksList();
-                RiakLinks riakLinks = ro.getLinks();
-                
-                for (RiakKvPB.RpbLink pbLink : pbLinkList)
+                if (content.hasContentEncoding())
+                {
+                    ro.setValue(decode(content.getContentEncoding().toStringUtf8(), content.getValue()));
+                }
+                else
                 {
-                    RiakLink link = new RiakLink(pbLink.getBucket().toStringUtf8(),
-                        pbLink.getKey().toStringUtf8(),
-                        pbLink.getTag().toStringUtf8());
-                    riakLinks.addLink(link);
+                    // Wrapped rather than copied
+                    ro.setValue(BinaryValue.create(content.getValue()));
                 }
             }
             
-            if (content.getIndexesCount() > 0)
+            if (content.hasVtag())
             {
-                RiakIndexes indexes = ro.getIndexes();
-                for (RiakPB.RpbPair p : content.getIndexesList())
-                {
-                    String name = p.getKey().toStringUtf8();
-                    try
-                    {
-                        IndexType type = IndexType.typeFromFullname(name);
-                        indexes.getIndex(RawIndex.named(name, type))
-                            .add(BinaryValue.unsafeCreate(p.getValue().toByteArray()));
-                    }
-                    catch (IllegalArgumentException e)
-                    {
-                        logger.error("Unknown index type during conversion: {};{}", name, e);
-                    }
-                }
+                ro.setVTag(content.getVtag().toStringUtf8());
             }
             
-            if (content.getUsermetaCount() > 0)
+            if (content.getLinksCount() > 0 || content.getIndexesCount() > 0
+                || content.getUsermetaCount() > 0)
             {
-                RiakUserMetadata userMeta = ro.getUserMeta();
-                for (int j = 0; j < content.getUsermetaCount(); j++)
-                {
-                    RiakPB.RpbPair pair = content.getUsermeta(j);
-                    userMeta.put(BinaryValue.unsafeCreate(pair.getKey().toByteArray()),
-                        BinaryValue.unsafeCreate(pair.getValue().toByteArray()));
-                }
+                // Decoded only if the caller asks for them
+                ro.setLazyMetadata(new RpbContentMetadata(content));
             }
              
             roList.add(ro);
@@ -154,7 +123,19 @@ public class RiakObjectConverter
         
         if (ro.hasValue())
         {
-            builder.setValue(ByteString.copyFrom(ro.getValue().unsafeGetValue()));
+            BinaryValue value = ro.getValue();
+            ValueCodec codec = ValueCodecFactory.getInstance().getCompressionCodec(value.length());
+            byte[] encoded = codec == null ? null : codec.encode(value.unsafeGetValue());
+            // Incompressible values are stored as-is
+            if (encoded != null && encoded.length < value.length())
+            {
+                builder.setContentEncoding(ByteString.copyFromUtf8(codec.getEncoding()));
+                builder.setValue(ByteString.copyFrom(encoded));
+            }
+            else
+            {
+                builder.setValue(value.toByteString());
+            }
         }
         
         if (ro.hasLinks())
@@ -197,4 +178,25 @@ public class RiakObjectConverter
         
         return builder.build();
     }
+    
+    private static BinaryValue decode(String encoding, ByteString value)
+    {
+        ValueCodec codec = ValueCodecFactory.getInstance().getCodec(encoding);
+        if (codec == null)
+        {
+            logger.debug("No codec registered for content encoding: {}", encoding);
+            return BinaryValue.create(value);
+        }
+        try
+        {
+            return BinaryValue.unsafeCreate(codec.decode(value.toByteArray()));
+        }
+        catch (RuntimeException ex)
+        {
+            // Possibly stored by another client; hand back what Riak returned
+            logger.warn("Value with content encoding {} could not be decoded; returning it as stored", 
+                        encoding, ex);
+            return BinaryValue.create(value);
+        }
+    }
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.core.converters;
+
+import com.basho.riak.client.query.RiakObject;
+import com.basho.riak.client.query.UserMetadata.RiakUserMetadata;
+import com.basho.riak.client.query.indexes.IndexType;
+import com.basho.riak.client.query.indexes.RawIndex;
+import com.basho.riak.client.query.indexes.RiakIndexes;
+import com.basho.riak.client.query.links.RiakLink;
+import com.basho.riak.client.query.links.RiakLinks;
+import com.basho.riak.client.util.BinaryValue;
+import com.basho.riak.protobuf.RiakKvPB;
+import com.basho.riak.protobuf.RiakKvPB.RpbContent;
+import com.basho.riak.protobuf.RiakPB;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decodes the links, indexes and user meta of an RpbContent into a
+ * RiakObject's containers when they are first accessed.
+ * 
+ * @since 2.0
+ */
+final class RpbContentMetadata implements RiakObject.LazyMetadata
+{
+    private final static Logger logger = LoggerFactory.getLogger(RpbContentMetadata.class);
+    
+    private final RpbContent content;
+    
+    RpbContentMetadata(RpbContent content)
+    {
+        this.content = content;
+    }
+
+    @Override
+    public boolean hasIndexes()
+    {
+        return content.getIndexesCount() > 0;
+    }
+
+    @Override
+    public boolean hasLinks()
+    {
+        return content.getLinksCount() > 0;
+    }
+
+    @Override
+    public boolean hasUserMeta()
+    {
+        return content.getUsermetaCount() > 0;
+    }
+
+    @Override
+    public void decodeIndexes(RiakIndexes indexes)
+    {
+        for (RiakPB.RpbPair p : content.getIndexesList())
+        {
+            String name = p.getKey().toStringUtf8();
+            try
+            {
+                IndexType type = IndexType.typeFromFullname(name);
+                indexes.getIndex(RawIndex.named(name, type))
+                    .add(BinaryValue.unsafeCreate(p.getValue().toByteArray()));
+            }
+            catch (IllegalArgumentException e)
+            {
+                logger.error("Unknown index type during conversion: {};{}", name, e);
+            }
+        }
+    }
+
+    @Override
+    public void decodeLinks(RiakLinks links)
+    {
+        for (RiakKvPB.RpbLink pbLink : content.getLinksList())
+        {
+            RiakLink link = new RiakLink(pbLink.getBucket().toStringUtf8(),
+                pbLink.getKey().toStringUtf8(),
+                pbLink.getTag().toStringUtf8());
+            links.addLink(link);
+        }
+    }
+
+    @Override
+    public void decodeUserMeta(RiakUserMetadata userMeta)
+    {
+        for (int j = 0; j < content.getUsermetaCount(); j++)
+        {
+            RiakPB.RpbPair pair = content.getUsermeta(j);
+            userMeta.put(BinaryValue.unsafeCreate(pair.getKey().toByteArray()),
+                BinaryValue.unsafeCreate(pair.getValue().toByteArray()));
+        }
+    }
+}
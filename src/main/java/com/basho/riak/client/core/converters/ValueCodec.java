@@ -0,0 +1,53 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.core.converters;
+
+/**
+ * Encodes and decodes object values on their way to and from Riak.
+ * <p>
+ * A codec is identified by its encoding, which is stored in the 
+ * {@code content_encoding} of objects it has encoded. Codecs are registered 
+ * with the {@link ValueCodecFactory}.
+ * </p>
+ * <p>
+ * Implementations must be thread safe.
+ * </p>
+ * @since 2.0
+ * @see DeflateValueCodec
+ */
+public interface ValueCodec
+{
+    /**
+     * Returns the content encoding this codec produces.
+     * @return the encoding, e.g. "deflate"
+     */
+    String getEncoding();
+    
+    /**
+     * Encode a value.
+     * @param value the value to encode.
+     * @return the encoded value.
+     */
+    byte[] encode(byte[] value);
+    
+    /**
+     * Decode a value.
+     * @param value a value previously produced by {@link #encode(byte[])}
+     * @return the decoded value.
+     * @throws IllegalArgumentException if the value can not be decoded.
+     */
+    byte[] decode(byte[] value);
+}
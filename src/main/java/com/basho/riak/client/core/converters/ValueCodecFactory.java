@@ -0,0 +1,145 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.core.converters;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the {@link ValueCodec}s used to encode and decode object values.
+ * <p>
+ * Values fetched from Riak with a {@code content_encoding} matching a 
+ * registered codec are decoded transparently; a {@link DeflateValueCodec} is 
+ * registered by default. 
+ * </p>
+ * <p>
+ * Compression of stored values is off by default. When enabled with 
+ * {@link #setCompression(ValueCodec, int)}, values at or above the threshold
+ * size that don't already have a content encoding are encoded, and kept only 
+ * if that makes them smaller. 
+ * </p>
+ * <pre>
+ * ValueCodecFactory.getInstance().setCompression(new DeflateValueCodec(), 1024);
+ * </pre>
+ * @since 2.0
+ */
+public enum ValueCodecFactory
+{
+    INSTANCE;
+    
+    private final Map<String, ValueCodec> codecs = new ConcurrentHashMap<String, ValueCodec>();
+    private volatile Compression compression;
+    
+    private ValueCodecFactory()
+    {
+        registerCodec(new DeflateValueCodec());
+    }
+    
+    /**
+     * Returns the instance of the ValueCodecFactory.
+     * @return The ValueCodecFactory
+     */
+    public static ValueCodecFactory getInstance()
+    {
+        return INSTANCE;
+    }
+    
+    /**
+     * Register a codec for decoding values.
+     * @param codec the codec.
+     */
+    public void registerCodec(ValueCodec codec)
+    {
+        codecs.put(normalize(codec.getEncoding()), codec);
+    }
+    
+    /**
+     * Unregister the codec for an encoding.
+     * @param encoding the content encoding.
+     */
+    public void unregisterCodec(String encoding)
+    {
+        codecs.remove(normalize(encoding));
+    }
+    
+    /**
+     * Returns the codec registered for an encoding.
+     * @param encoding the content encoding.
+     * @return the codec, or null if none is registered.
+     */
+    public ValueCodec getCodec(String encoding)
+    {
+        return encoding == null ? null : codecs.get(normalize(encoding));
+    }
+    
+    /**
+     * Compress stored values.
+     * <p>
+     * The codec is also registered for decoding.
+     * </p>
+     * @param codec the codec to compress values with.
+     * @param threshold the minimum value size, in bytes, to compress.
+     */
+    public void setCompression(ValueCodec codec, int threshold)
+    {
+        if (threshold < 0)
+        {
+            throw new IllegalArgumentException("Threshold can not be negative");
+        }
+        registerCodec(codec);
+        compression = new Compression(codec, threshold);
+    }
+    
+    /**
+     * Stop compressing stored values.
+     * <p>
+     * Registered codecs are still used to decode values.
+     * </p>
+     */
+    public void disableCompression()
+    {
+        compression = null;
+    }
+    
+    /**
+     * Returns the codec used for compressing a value.
+     * @param length the size of the value in bytes.
+     * @return the codec, or null if the value should not be compressed.
+     */
+    ValueCodec getCompressionCodec(int length)
+    {
+        Compression c = compression;
+        return c != null && length >= c.threshold ? c.codec : null;
+    }
+    
+    private static String normalize(String encoding)
+    {
+        return encoding.trim().toLowerCase(Locale.ENGLISH);
+    }
+    
+    private static final class Compression
+    {
+        private final ValueCodec codec;
+        private final int threshold;
+        
+        Compression(ValueCodec codec, int threshold)
+        {
+            this.codec = codec;
+            this.threshold = threshold;
+        }
+    }
+}
@@ -15,10 +15,14 @@
  */
 package com.basho.riak.client.core.netty;
 
+import com.basho.riak.client.core.FutureOperation;
+import com.basho.riak.client.core.RequestTracer;
 import com.basho.riak.client.core.RiakMessage;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageCodec;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
 import java.util.List;
 
 /**
@@ -27,6 +31,22 @@ import java.util.List;
  */
 public class RiakMessageCodec extends ByteToMessageCodec<RiakMessage>
 {
+    /**
+     * Set on a channel while it is executing a traced operation so the 
+     * first byte of the response can be recorded.
+     */
+    public static final AttributeKey<FutureOperation> TRACED_OPERATION =
+        AttributeKey.valueOf("riakTracedOperation");
+    
+    private Attribute<FutureOperation> tracedOperation;
+    
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception
+    {
+        super.handlerAdded(ctx);
+        tracedOperation = ctx.channel().attr(TRACED_OPERATION);
+    }
+    
     @Override
     protected void encode(ChannelHandlerContext ctx, RiakMessage msg, ByteBuf out) throws Exception
     {
@@ -39,6 +59,15 @@ public class RiakMessageCodec extends ByteToMessageCodec<RiakMessage>
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception
     {
+        if (tracedOperation != null)
+        {
+            FutureOperation traced = tracedOperation.get();
+            if (traced != null)
+            {
+                traced.trace(RequestTracer.Stage.FIRST_BYTE);
+            }
+        }
+        
         // Make sure we have 4 bytes
         if (in.readableBytes() >= 4)
         {
@@ -15,8 +15,8 @@
  */
 package com.basho.riak.client.core.operations;
 
-import com.basho.riak.client.core.FutureOperation;
 import com.basho.riak.client.core.RiakMessage;
+import com.basho.riak.client.core.StreamingFutureOperation;
 import com.basho.riak.client.query.Location;
 import com.basho.riak.client.util.BinaryValue;
 import com.basho.riak.protobuf.RiakMessageCodes;
@@ -27,13 +27,14 @@ import com.google.protobuf.InvalidProtocolBufferException;
 import java.util.ArrayList;
 import java.util.List;
 
-public class ListBucketsOperation extends FutureOperation<ListBucketsOperation.Response, RiakKvPB.RpbListBucketsResp, BinaryValue>
+public class ListBucketsOperation extends StreamingFutureOperation<ListBucketsOperation.Response, RiakKvPB.RpbListBucketsResp, BinaryValue, BinaryValue>
 {
     private final RiakKvPB.RpbListBucketsReq.Builder reqBuilder;
     private final BinaryValue bucketType;
     
     private ListBucketsOperation(Builder builder)
     {
+        super(builder.streaming, builder.maxBufferedChunks);
         this.reqBuilder = builder.reqBuilder;
         this.bucketType = builder.bucketType;
     }
@@ -57,6 +58,17 @@ public class ListBucketsOperation extends FutureOperation<ListBucketsOperation.R
         }
         return new Response(bucketType, buckets);
     }
+    
+    @Override
+    protected List<BinaryValue> processStreamingChunk(RiakKvPB.RpbListBucketsResp message)
+    {
+        List<BinaryValue> buckets = new ArrayList<BinaryValue>(message.getBucketsCount());
+        for (ByteString bucket : message.getBucketsList())
+        {
+            buckets.add(BinaryValue.unsafeCreate(bucket.toByteArray()));
+        }
+        return buckets;
+    }
 
     @Override
     protected RiakMessage createChannelMessage()
@@ -90,6 +102,8 @@ public class ListBucketsOperation extends FutureOperation<ListBucketsOperation.R
         private final RiakKvPB.RpbListBucketsReq.Builder reqBuilder = 
             RiakKvPB.RpbListBucketsReq.newBuilder().setStream(true);
         private BinaryValue bucketType = Location.DEFAULT_BUCKET_TYPE;
+        private boolean streaming;
+        private int maxBufferedChunks = DEFAULT_MAX_BUFFERED_CHUNKS;
         
         /**
          * Create a Builder for a ListBucketsOperation.
@@ -129,6 +143,34 @@ public class ListBucketsOperation extends FutureOperation<ListBucketsOperation.R
             return this;
         }
         
+        /**
+         * Deliver bucket names through {@link ListBucketsOperation#iterator()}
+         * as they arrive rather than in the response.
+         * @param streaming true to stream bucket names.
+         * @return a reference to this object.
+         */
+        public Builder withStreaming(boolean streaming)
+        {
+            this.streaming = streaming;
+            return this;
+        }
+        
+        /**
+         * Set the number of chunks of bucket names buffered before reads are 
+         * paused when streaming.
+         * @param maxBufferedChunks the max number of buffered chunks.
+         * @return a reference to this object.
+         */
+        public Builder withMaxBufferedChunks(int maxBufferedChunks)
+        {
+            if (maxBufferedChunks < 1)
+            {
+                throw new IllegalArgumentException("maxBufferedChunks must be at least 1");
+            }
+            this.maxBufferedChunks = maxBufferedChunks;
+            return this;
+        }
+        
         public ListBucketsOperation build()
         {
             return new ListBucketsOperation(this);
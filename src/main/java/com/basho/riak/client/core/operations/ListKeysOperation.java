@@ -15,7 +15,7 @@
  */
 package com.basho.riak.client.core.operations;
 
-import com.basho.riak.client.core.FutureOperation;
+import com.basho.riak.client.core.StreamingFutureOperation;
 import com.basho.riak.client.core.RiakMessage;
 import com.basho.riak.client.query.Location;
 import com.basho.riak.client.util.BinaryValue;
@@ -27,13 +27,14 @@ import com.google.protobuf.InvalidProtocolBufferException;
 import java.util.ArrayList;
 import java.util.List;
 
-public class ListKeysOperation extends FutureOperation<ListKeysOperation.Response, RiakKvPB.RpbListKeysResp, Location>
+public class ListKeysOperation extends StreamingFutureOperation<ListKeysOperation.Response, RiakKvPB.RpbListKeysResp, Location, BinaryValue>
 {
     private final Location location;
     private final RiakKvPB.RpbListKeysReq.Builder reqBuilder;
     
     private ListKeysOperation(Builder builder)
     {
+        super(builder.streaming, builder.maxBufferedChunks);
         this.reqBuilder = builder.reqBuilder;
         this.location = builder.location;
     }
@@ -52,6 +53,17 @@ public class ListKeysOperation extends FutureOperation<ListKeysOperation.Respons
         return builder.build();
     }
 
+    @Override
+    protected List<BinaryValue> processStreamingChunk(RiakKvPB.RpbListKeysResp message)
+    {
+        List<BinaryValue> keys = new ArrayList<BinaryValue>(message.getKeysCount());
+        for (ByteString key : message.getKeysList())
+        {
+            keys.add(BinaryValue.unsafeCreate(key.toByteArray()));
+        }
+        return keys;
+    }
+
     @Override
     protected RiakMessage createChannelMessage()
     {
@@ -89,6 +101,8 @@ public class ListKeysOperation extends FutureOperation<ListKeysOperation.Respons
         private final RiakKvPB.RpbListKeysReq.Builder reqBuilder =
             RiakKvPB.RpbListKeysReq.newBuilder();
         private final Location location;
+        private boolean streaming;
+        private int maxBufferedChunks = DEFAULT_MAX_BUFFERED_CHUNKS;
         
         /**
          * Construct a builder for a ListKeysOperaiton.
@@ -115,6 +129,34 @@ public class ListKeysOperation extends FutureOperation<ListKeysOperation.Respons
             return this;
         }
         
+        /**
+         * Deliver keys through {@link ListKeysOperation#iterator()} as they 
+         * arrive rather than in the response.
+         * @param streaming true to stream keys.
+         * @return a reference to this object.
+         */
+        public Builder withStreaming(boolean streaming)
+        {
+            this.streaming = streaming;
+            return this;
+        }
+        
+        /**
+         * Set the number of chunks of keys buffered before reads are paused
+         * when streaming.
+         * @param maxBufferedChunks the max number of buffered chunks.
+         * @return a reference to this object.
+         */
+        public Builder withMaxBufferedChunks(int maxBufferedChunks)
+        {
+            if (maxBufferedChunks < 1)
+            {
+                throw new IllegalArgumentException("maxBufferedChunks must be at least 1");
+            }
+            this.maxBufferedChunks = maxBufferedChunks;
+            return this;
+        }
+        
         public ListKeysOperation build()
         {
             return new ListKeysOperation(this);
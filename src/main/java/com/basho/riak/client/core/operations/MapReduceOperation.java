@@ -15,11 +15,16 @@
  */
 package com.basho.riak.client.core.operations;
 
-import com.basho.riak.client.core.FutureOperation;
+import com.basho.riak.client.convert.ConversionException;
 import com.basho.riak.client.core.RiakMessage;
+import com.basho.riak.client.core.StreamingFutureOperation;
 import com.basho.riak.client.util.BinaryValue;
 import com.basho.riak.protobuf.RiakMessageCodes;
 import com.basho.riak.protobuf.RiakKvPB;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
@@ -28,6 +33,9 @@ import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
 import java.io.IOException;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -37,17 +45,32 @@ import org.slf4j.LoggerFactory;
 /**
  * A Map/Reduce Operation on Riak. No error checking is done on the content type of the content itself
  * with the exception to making sure they are provided.
+ * <p>
+ * When streaming, the results of each phase are parsed as each message 
+ * arrives and delivered through {@link #iterator()}. Results for phases with
+ * a registered type are bound to that type when first read, so binding 
+ * happens on the reader's thread and a result that can't be bound doesn't 
+ * fail the job.
+ * </p>
  */
-public class MapReduceOperation extends FutureOperation<MapReduceOperation.Response, RiakKvPB.RpbMapRedResp, BinaryValue>
+public class MapReduceOperation extends StreamingFutureOperation<MapReduceOperation.Response, RiakKvPB.RpbMapRedResp, BinaryValue, MapReduceOperation.PhaseResult>
 {
+    // ObjectMapper (and its JsonFactory) are thread safe once configured
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonFactory JSON_FACTORY = MAPPER.getFactory();
+    
     private final RiakKvPB.RpbMapRedReq.Builder reqBuilder;
     private final BinaryValue mapReduce;
+    private final Map<Integer, JavaType> phaseTypes;
     private final Logger logger = LoggerFactory.getLogger(MapReduceOperation.class);
+    private volatile int streamedPhase;
     
     private MapReduceOperation(Builder builder)
     {
+        super(builder.streaming, builder.maxBufferedChunks);
         this.reqBuilder = builder.reqBuilder;
         this.mapReduce = builder.mapReduce;
+        this.phaseTypes = new HashMap<Integer, JavaType>(builder.phaseTypes);
     }
 
     @Override
@@ -58,7 +81,6 @@ public class MapReduceOperation extends FutureOperation<MapReduceOperation.Respo
         // can span multiple messages. Each result chunk is a JSON array.
         
         final JsonNodeFactory factory = JsonNodeFactory.instance;
-        final ObjectMapper mapper = new ObjectMapper();
         final Map<Integer, ArrayNode> resultMap = new LinkedHashMap<Integer, ArrayNode>();
         
         int phase = 0;
@@ -85,7 +107,7 @@ public class MapReduceOperation extends FutureOperation<MapReduceOperation.Respo
                 JsonNode responseJson;
                 try
                 {
-                    responseJson = mapper.readTree(response.getResponse().toStringUtf8());
+                    responseJson = MAPPER.readTree(response.getResponse().newInput());
                 }
                 catch (IOException ex)
                 {
@@ -105,6 +127,51 @@ public class MapReduceOperation extends FutureOperation<MapReduceOperation.Respo
         }
         return new Response(resultMap);
     }
+    
+    @Override
+    protected List<PhaseResult> processStreamingChunk(RiakKvPB.RpbMapRedResp response)
+    {
+        if (response.hasPhase())
+        {
+            streamedPhase = response.getPhase();
+        }
+        if (!response.hasResponse())
+        {
+            return Collections.emptyList();
+        }
+        
+        int phase = streamedPhase;
+        JavaType type = phaseTypes.get(phase);
+        List<PhaseResult> results = new ArrayList<PhaseResult>();
+        try
+        {
+            // Parse each element straight from the message bytes
+            JsonParser parser = JSON_FACTORY.createParser(response.getResponse().newInput());
+            try
+            {
+                if (parser.nextToken() != JsonToken.START_ARRAY)
+                {
+                    logger.error("Mapreduce job returned JSON that wasn't an array; {}", response.getResponse().toStringUtf8());
+                    return results;
+                }
+                while (parser.nextToken() != JsonToken.END_ARRAY)
+                {
+                    JsonNode json = MAPPER.readTree(parser);
+                    results.add(new PhaseResult(phase, json, type));
+                }
+            }
+            finally
+            {
+                parser.close();
+            }
+        }
+        catch (IOException ex)
+        {
+            logger.error("Mapreduce job returned non-JSON; {}",response.getResponse().toStringUtf8());
+            throw new RuntimeException("Non-JSON response from MR job", ex);
+        }
+        return results;
+    }
 
     @Override
     protected RiakMessage createChannelMessage()
@@ -144,6 +211,9 @@ public class MapReduceOperation extends FutureOperation<MapReduceOperation.Respo
         private final RiakKvPB.RpbMapRedReq.Builder reqBuilder =
             RiakKvPB.RpbMapRedReq.newBuilder();
         private final BinaryValue mapReduce;
+        private final Map<Integer, JavaType> phaseTypes = new HashMap<Integer, JavaType>();
+        private boolean streaming;
+        private int maxBufferedChunks = DEFAULT_MAX_BUFFERED_CHUNKS;
         
         /**
          * Create a MapReduce operation builder with the given function.
@@ -164,6 +234,50 @@ public class MapReduceOperation extends FutureOperation<MapReduceOperation.Respo
         
         }
         
+        /**
+         * Deliver phase results through {@link MapReduceOperation#iterator()}
+         * as they arrive rather than in the response.
+         * @param streaming true to stream results.
+         * @return a reference to this object.
+         */
+        public Builder withStreaming(boolean streaming)
+        {
+            this.streaming = streaming;
+            return this;
+        }
+        
+        /**
+         * Set the number of chunks of results buffered before reads are paused
+         * when streaming.
+         * @param maxBufferedChunks the max number of buffered chunks.
+         * @return a reference to this object.
+         */
+        public Builder withMaxBufferedChunks(int maxBufferedChunks)
+        {
+            if (maxBufferedChunks < 1)
+            {
+                throw new IllegalArgumentException("maxBufferedChunks must be at least 1");
+            }
+            this.maxBufferedChunks = maxBufferedChunks;
+            return this;
+        }
+        
+        /**
+         * Bind the streamed results of a phase to the given type.
+         * <p>
+         * Results of phases without a type are returned as {@link JsonNode}s.
+         * Only applies when streaming.
+         * </p>
+         * @param phase the phase.
+         * @param type the type to bind each result of the phase to.
+         * @return a reference to this object.
+         */
+        public Builder withPhaseType(int phase, Class<?> type)
+        {
+            phaseTypes.put(phase, MAPPER.getTypeFactory().constructType(type));
+            return this;
+        }
+        
         public MapReduceOperation build()
         {
             return new MapReduceOperation(this);
@@ -185,4 +299,108 @@ public class MapReduceOperation extends FutureOperation<MapReduceOperation.Respo
         }
         
     }
+    
+    /**
+     * A single result from a phase of a MapReduce job.
+     */
+    public static class PhaseResult
+    {
+        private final int phase;
+        private final JsonNode json;
+        private final JavaType type;
+        private volatile Object bound;
+        
+        /**
+         * Create a result that isn't bound to a type.
+         * @param phase the phase that produced the result.
+         * @param json the result.
+         */
+        public PhaseResult(int phase, JsonNode json)
+        {
+            this(phase, json, null);
+        }
+        
+        PhaseResult(int phase, JsonNode json, JavaType type)
+        {
+            this.phase = phase;
+            this.json = json;
+            this.type = type;
+        }
+        
+        /**
+         * Returns the phase that produced this result.
+         * @return the phase number.
+         */
+        public int getPhase()
+        {
+            return phase;
+        }
+        
+        /**
+         * Returns the result as JSON.
+         * @return the result as parsed from the response.
+         */
+        public JsonNode getJson()
+        {
+            return json;
+        }
+        
+        /**
+         * Returns the result.
+         * <p>
+         * If a type was registered for the phase the result is bound to it 
+         * the first time this is called.
+         * </p>
+         * @return the result bound to the type registered for its phase, 
+         * otherwise a {@link JsonNode}.
+         * @throws ConversionException if the result can't be bound to the 
+         * phase's type. 
+         */
+        public Object getResult()
+        {
+            if (type == null)
+            {
+                return json;
+            }
+            Object result = bound;
+            if (result == null)
+            {
+                result = bind(type);
+                bound = result;
+            }
+            return result;
+        }
+        
+        /**
+         * Returns the result as the given type.
+         * <p>
+         * If the phase's registered type is assignable to {@code type} the 
+         * bound result is returned, otherwise it is converted from JSON.
+         * </p>
+         * @param type the type to return.
+         * @return the result as {@code type}.
+         * @throws ConversionException if the result cannot be converted.
+         */
+        public <T> T getResult(Class<T> type)
+        {
+            if (this.type != null && type.isAssignableFrom(this.type.getRawClass()))
+            {
+                return type.cast(getResult());
+            }
+            return type.cast(bind(MAPPER.getTypeFactory().constructType(type)));
+        }
+        
+        private Object bind(JavaType type)
+        {
+            try
+            {
+                return MAPPER.readValue(MAPPER.treeAsTokens(json), type);
+            }
+            catch (IOException ex)
+            {
+                throw new ConversionException("Could not convert result of phase " + phase 
+                    + " to " + type.getRawClass().getName(), ex);
+            }
+        }
+    }
 }
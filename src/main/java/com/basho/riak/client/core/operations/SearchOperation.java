@@ -24,9 +24,10 @@ import com.basho.riak.protobuf.RiakSearchPB;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
 
+import com.basho.riak.client.query.search.SearchResult;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -61,17 +62,16 @@ public class SearchOperation extends FutureOperation<SearchOperation.Response, R
     {
         // This isn't a streaming op, there will only be one protobuf
         RiakSearchPB.RpbSearchQueryResp resp = rawResponse.get(0);
-        List<Map<String, String>> docList = new LinkedList<Map<String, String>>();
+        SearchResult.Builder builder = new SearchResult.Builder();
         for (RiakSearchPB.RpbSearchDoc pbDoc : resp.getDocsList())
         {
-            Map<String, String> map = new HashMap<String, String>();
+            builder.startDocument();
             for (RpbPair pair : pbDoc.getFieldsList())
             {
-                map.put(pair.getKey().toStringUtf8(), pair.getValue().toStringUtf8());
+                builder.addField(pair.getKey(), pair.getValue());
             }
-            docList.add(map);
         }
-        return new Response(docList, resp.getMaxScore(), resp.getNumFound());
+        return new Response(builder.build(), resp.getMaxScore(), resp.getNumFound());
 
     }
 
@@ -262,15 +262,16 @@ public class SearchOperation extends FutureOperation<SearchOperation.Response, R
         }
     }
 
-    public static class Response implements Iterable
+    public static class Response implements Iterable<Map<String, String>>
     {
-        private final List<Map<String, String>> results;
+        private final SearchResult documents;
         private final float maxScore;
         private final int numResults;
+        private List<Map<String, String>> results;
         
-        Response(List<Map<String,String>> results, float maxScore, int numResults)
+        Response(SearchResult documents, float maxScore, int numResults)
         {
-            this.results = results;
+            this.documents = documents;
             this.maxScore = maxScore;
             this.numResults = numResults;
         }
@@ -278,7 +279,17 @@ public class SearchOperation extends FutureOperation<SearchOperation.Response, R
         @Override
         public Iterator<Map<String,String>> iterator()
         {
-            return results.iterator();
+            return getAllResults().iterator();
+        }
+        
+        /**
+         * Returns the documents returned by the search query in their 
+         * compact form.
+         * @return the documents, in the order returned by Riak.
+         */
+        public SearchResult getDocuments()
+        {
+            return documents;
         }
 
         /**
@@ -301,13 +312,28 @@ public class SearchOperation extends FutureOperation<SearchOperation.Response, R
 
         /**
          * Returns the entire list of results from the search query.
+         * <p>
+         * The list and its maps are built from {@link #getDocuments()} on 
+         * first use and are mutable; the same list is returned by subsequent 
+         * calls. Use {@link #getDocuments()} to read the results without 
+         * copying them.
+         * </p>
          * @return a list containing all the result sets. 
          */
-        public List<Map<String,String>> getAllResults()
+        public synchronized List<Map<String,String>> getAllResults()
         {
+            if (results == null)
+            {
+                List<Map<String, String>> maps = 
+                    new ArrayList<Map<String, String>>(documents.size());
+                for (SearchResult.Document doc : documents)
+                {
+                    maps.add(new HashMap<String, String>(doc.asMap()));
+                }
+                results = maps;
+            }
             return results;
         }
         
     }
-    
 }
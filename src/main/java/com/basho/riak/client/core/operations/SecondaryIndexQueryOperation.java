@@ -15,7 +15,7 @@
  */
 package com.basho.riak.client.core.operations;
 
-import com.basho.riak.client.core.FutureOperation;
+import com.basho.riak.client.core.StreamingFutureOperation;
 import com.basho.riak.client.core.RiakMessage;
 import com.basho.riak.client.query.Location;
 import com.basho.riak.client.util.BinaryValue;
@@ -33,13 +33,15 @@ import java.util.List;
  * @author Alex Moore <amoore at basho dot com>
  * @since 2.0
  */
-public class SecondaryIndexQueryOperation extends FutureOperation<SecondaryIndexQueryOperation.Response, RiakKvPB.RpbIndexResp, SecondaryIndexQueryOperation.Query>
+public class SecondaryIndexQueryOperation extends StreamingFutureOperation<SecondaryIndexQueryOperation.Response, RiakKvPB.RpbIndexResp, SecondaryIndexQueryOperation.Query, SecondaryIndexQueryOperation.Response.Entry>
 {
     private final RiakKvPB.RpbIndexReq pbReq;
     private final Query query;
+    private volatile BinaryValue streamedContinuation;
     
     private SecondaryIndexQueryOperation(Builder builder)
     {
+        super(builder.streaming, builder.maxBufferedChunks);
         // Yo dawg, we don't ever not want to use streaming.
         builder.pbReqBuilder.setStream(true);
         this.query = builder.query;
@@ -54,50 +56,75 @@ public class SecondaryIndexQueryOperation extends FutureOperation<SecondaryIndex
         
         for (RiakKvPB.RpbIndexResp pbEntry : rawResponse)
         {
-            /**
-             * The 2i API is inconsistent on the Riak side. If it's not 
-             * a range query, return_terms is ignored it only returns the 
-             * list of object keys and you have to have
-             * preserved the index key if you want to return it to the user
-             * with the results. 
-             */
+            for (Response.Entry entry : convertEntries(pbEntry))
+            {
+                responseBuilder.addEntry(entry);
+            }
             
-            if (pbReq.getReturnTerms())
+            if (pbEntry.hasContinuation())
             {
-                if (pbReq.hasRangeMin())
-                {
-                    for (RpbPair pair : pbEntry.getResultsList())
-                    {
-                        responseBuilder.addEntry(new Response.Entry(BinaryValue.unsafeCreate(pair.getKey().toByteArray()), 
-                                                             BinaryValue.unsafeCreate(pair.getValue().toByteArray())));
-                    }
-                }
-                else
+                responseBuilder.withContinuation(BinaryValue.unsafeCreate(pbEntry.getContinuation().toByteArray()));
+            }
+        }
+        
+        if (streamedContinuation != null)
+        {
+            responseBuilder.withContinuation(streamedContinuation);
+        }
+        return responseBuilder.build();
+    }
+    
+    @Override
+    protected List<Response.Entry> processStreamingChunk(RiakKvPB.RpbIndexResp message)
+    {
+        if (message.hasContinuation())
+        {
+            streamedContinuation = BinaryValue.unsafeCreate(message.getContinuation().toByteArray());
+        }
+        return convertEntries(message);
+    }
+    
+    private List<Response.Entry> convertEntries(RiakKvPB.RpbIndexResp pbEntry)
+    {
+        List<Response.Entry> entries = 
+            new ArrayList<Response.Entry>(Math.max(pbEntry.getKeysCount(), pbEntry.getResultsCount()));
+        
+        /**
+         * The 2i API is inconsistent on the Riak side. If it's not 
+         * a range query, return_terms is ignored it only returns the 
+         * list of object keys and you have to have
+         * preserved the index key if you want to return it to the user
+         * with the results. 
+         */
+
+        if (pbReq.getReturnTerms())
+        {
+            if (pbReq.hasRangeMin())
+            {
+                for (RpbPair pair : pbEntry.getResultsList())
                 {
-                    for (ByteString objKey : pbEntry.getKeysList())
-                    {
-                        responseBuilder.addEntry(new Response.Entry(BinaryValue.unsafeCreate(pbReq.getKey().toByteArray()),
-                                                             BinaryValue.unsafeCreate(objKey.toByteArray())));
-                    }
+                    entries.add(new Response.Entry(pair.getKey(), pair.getValue()));
                 }
             }
             else
             {
-                /**
-                 * If return_terms wasn't specified only the object keys are returned
-                 */
                 for (ByteString objKey : pbEntry.getKeysList())
                 {
-                    responseBuilder.addEntry(new Response.Entry(BinaryValue.unsafeCreate(objKey.toByteArray())));
+                    entries.add(new Response.Entry(query.indexKey, objKey));
                 }
             }
-            
-            if (pbEntry.hasContinuation())
+        }
+        else
+        {
+            /**
+             * If return_terms wasn't specified only the object keys are returned
+             */
+            for (ByteString objKey : pbEntry.getKeysList())
             {
-                responseBuilder.withContinuation(BinaryValue.unsafeCreate(pbEntry.getContinuation().toByteArray()));
+                entries.add(new Response.Entry(objKey));
             }
         }
-        return responseBuilder.build();
+        return entries;
     }
 
     @Override
@@ -140,6 +167,8 @@ public class SecondaryIndexQueryOperation extends FutureOperation<SecondaryIndex
     {
         private final RiakKvPB.RpbIndexReq.Builder pbReqBuilder = RiakKvPB.RpbIndexReq.newBuilder();
         private final Query query;
+        private boolean streaming;
+        private int maxBufferedChunks = DEFAULT_MAX_BUFFERED_CHUNKS;
         
         /**
          * Constructs a builder for a QueryOperation. 
@@ -198,6 +227,37 @@ public class SecondaryIndexQueryOperation extends FutureOperation<SecondaryIndex
             }
         }
         
+        /**
+         * Deliver entries through {@link SecondaryIndexQueryOperation#iterator()} 
+         * as they arrive rather than in the response.
+         * <p>
+         * The response will contain only the continuation, if any.
+         * </p>
+         * @param streaming true to stream entries.
+         * @return a reference to this object.
+         */
+        public Builder withStreaming(boolean streaming)
+        {
+            this.streaming = streaming;
+            return this;
+        }
+        
+        /**
+         * Set the number of chunks of entries buffered before reads are paused
+         * when streaming.
+         * @param maxBufferedChunks the max number of buffered chunks.
+         * @return a reference to this object.
+         */
+        public Builder withMaxBufferedChunks(int maxBufferedChunks)
+        {
+            if (maxBufferedChunks < 1)
+            {
+                throw new IllegalArgumentException("maxBufferedChunks must be at least 1");
+            }
+            this.maxBufferedChunks = maxBufferedChunks;
+            return this;
+        }
+        
         /**
          * Construct a new QueryOperation.
          * @return a QueryOperation
@@ -535,35 +595,63 @@ public class SecondaryIndexQueryOperation extends FutureOperation<SecondaryIndex
             return entryList;
         }
         
+        /**
+         * A single 2i result.
+         * <p>
+         * Entries hold the protocol buffer fields they were received in and
+         * only copy them to BinaryValues when first accessed.
+         * </p>
+         */
         public static class Entry
         {
-            private final BinaryValue indexKey;
-            private final BinaryValue objectKey;
+            private final ByteString rawIndexKey;
+            private final ByteString rawObjectKey;
+            private volatile BinaryValue indexKey;
+            private volatile BinaryValue objectKey;
 
-            Entry(BinaryValue objectKey)
+            Entry(ByteString objectKey)
             {
-                this(null, objectKey);
+                this((ByteString) null, objectKey);
             }
 
-            Entry(BinaryValue indexKey, BinaryValue objectKey)
+            Entry(ByteString indexKey, ByteString objectKey)
             {
+                this.rawIndexKey = indexKey;
+                this.rawObjectKey = objectKey;
+            }
+            
+            Entry(BinaryValue indexKey, ByteString objectKey)
+            {
+                this.rawIndexKey = null;
                 this.indexKey = indexKey;
-                this.objectKey = objectKey;
+                this.rawObjectKey = objectKey;
             }
 
             public boolean hasIndexKey()
             {
-                return indexKey != null;
+                return rawIndexKey != null || indexKey != null;
             }
 
             public BinaryValue getIndexKey()
             {
-                return indexKey;
+                BinaryValue key = indexKey;
+                if (key == null && rawIndexKey != null)
+                {
+                    key = BinaryValue.unsafeCreate(rawIndexKey.toByteArray());
+                    indexKey = key;
+                }
+                return key;
             }
 
             public BinaryValue getObjectKey()
             {
-                return objectKey;
+                BinaryValue key = objectKey;
+                if (key == null)
+                {
+                    key = BinaryValue.unsafeCreate(rawObjectKey.toByteArray());
+                    objectKey = key;
+                }
+                return key;
             }
         }
         
@@ -0,0 +1,545 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.operations;
+
+import com.basho.riak.client.RiakClient;
+import com.basho.riak.client.RiakCommand;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.RiakFutureListener;
+import com.basho.riak.client.operations.kv.DeleteValue;
+import com.basho.riak.client.operations.kv.FetchValue;
+import com.basho.riak.client.operations.kv.StoreValue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Command used to execute a set of mixed KV and datatype commands as a single unit.
+ * <p>
+ * Riak does not support pipelining of requests on a connection. Batch keeps
+ * up to {@code maxInFlight} of the contained commands outstanding at any time,
+ * spread across the cluster's nodes, and starts the next as soon as one 
+ * completes. 
+ * </p>
+ * <p>
+ * The result of executing this command is a {@link Batch.Response} containing
+ * one {@link Batch.Result} per command, in the order the commands were added.
+ * The returned future completes when every contained command has finished; 
+ * the failure of an individual command does not fail the batch.
+ * </p>
+ * <pre>
+ * {@code
+ * Batch batch = new Batch.Builder()
+ *                  .add(new StoreValue.Builder(obj1).withLocation(loc1).build())
+ *                  .add(new DeleteValue.Builder(loc2).build())
+ *                  .build();
+ * Batch.Response response = client.execute(batch);
+ * for (Batch.Result<?> r : response)
+ * {
+ *     if (!r.isSuccess())
+ *     {
+ *         // log r.getCause(), retry, etc.
+ *     }
+ * }
+ * }
+ * </pre>
+ * <p>
+ * As with {@link com.basho.riak.client.operations.kv.MultiFetch} performance
+ * depends on the client's connection pool; {@code maxInFlight} should not 
+ * exceed the number of connections available.
+ * </p>
+ * @since 2.0
+ */
+public final class Batch extends RiakCommand<Batch.Response, List<RiakCommand<?,?>>>
+{
+    public static final int DEFAULT_MAX_IN_FLIGHT = 10;
+    
+    private final List<RiakCommand<?,?>> commands;
+    private final int maxInFlight;
+    
+    private Batch(Builder builder)
+    {
+        this.commands = Collections.unmodifiableList(new ArrayList<RiakCommand<?,?>>(builder.commands));
+        this.maxInFlight = builder.maxInFlight;
+    }
+    
+    @Override
+    protected RiakFuture<Response, List<RiakCommand<?,?>>> executeAsync(RiakCluster cluster)
+    {
+        BatchFuture future = new BatchFuture(commands);
+        if (commands.isEmpty())
+        {
+            future.setCompleted();
+        }
+        else
+        {
+            new Submitter(new RiakClient(cluster), future).submitAvailable();
+        }
+        return future;
+    }
+    
+    /**
+     * Used to construct a Batch command.
+     */
+    public static class Builder
+    {
+        private final List<RiakCommand<?,?>> commands = new ArrayList<RiakCommand<?,?>>();
+        private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+        
+        /**
+         * Add a fetch to this batch.
+         * @param command the command to add.
+         * @return a reference to this object.
+         */
+        public Builder add(FetchValue command)
+        {
+            commands.add(command);
+            return this;
+        }
+        
+        /**
+         * Add a store to this batch.
+         * @param command the command to add.
+         * @return a reference to this object.
+         */
+        public Builder add(StoreValue command)
+        {
+            commands.add(command);
+            return this;
+        }
+        
+        /**
+         * Add a delete to this batch.
+         * @param command the command to add.
+         * @return a reference to this object.
+         */
+        public Builder add(DeleteValue command)
+        {
+            commands.add(command);
+            return this;
+        }
+        
+        /**
+         * Add a datatype update to this batch.
+         * @param command the command to add.
+         * @return a reference to this object.
+         */
+        public Builder add(UpdateDatatype<?,?,?> command)
+        {
+            commands.add(command);
+            return this;
+        }
+        
+        /**
+         * Set the maximum number of commands to be in progress simultaneously.
+         * @param maxInFlight the max number of outstanding requests.
+         * @return a reference to this object.
+         */
+        public Builder withMaxInFlight(int maxInFlight)
+        {
+            if (maxInFlight < 1)
+            {
+                throw new IllegalArgumentException("maxInFlight must be at least 1");
+            }
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+        
+        /**
+         * Build a {@link Batch} command from this builder.
+         * @return an initialized {@link Batch} command.
+         */
+        public Batch build()
+        {
+            return new Batch(this);
+        }
+    }
+    
+    /**
+     * The outcome of a single command in a batch.
+     * @param <T> the response type of the command.
+     */
+    public static final class Result<T>
+    {
+        private final RiakCommand<T,?> command;
+        private final T response;
+        private final Throwable cause;
+        private final long serviceNanos;
+        
+        Result(RiakCommand<T,?> command, T response, Throwable cause, long serviceNanos)
+        {
+            this.command = command;
+            this.response = response;
+            this.cause = cause;
+            this.serviceNanos = serviceNanos;
+        }
+        
+        /**
+         * Returns the command this is the result of.
+         * @return the command.
+         */
+        public RiakCommand<T,?> getCommand()
+        {
+            return command;
+        }
+        
+        /**
+         * Determine if the command succeeded.
+         * @return true if the command succeeded, false otherwise.
+         */
+        public boolean isSuccess()
+        {
+            return cause == null;
+        }
+        
+        /**
+         * Returns the response of the command.
+         * @return the response, or null if the command failed.
+         */
+        public T getResponse()
+        {
+            return response;
+        }
+        
+        /**
+         * Returns the reason the command failed.
+         * @return the cause, or null if the command succeeded.
+         */
+        public Throwable getCause()
+        {
+            return cause;
+        }
+        
+        /**
+         * Returns the time from submitting the command to its completion.
+         * @param unit the unit to return the time in.
+         * @return the service time.
+         */
+        public long getServiceTime(TimeUnit unit)
+        {
+            return unit.convert(serviceNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    /**
+     * The response from Riak for a Batch command.
+     */
+    public static final class Response implements Iterable<Result<?>>
+    {
+        private final List<Result<?>> results;
+        private final long elapsedNanos;
+        
+        Response(List<Result<?>> results, long elapsedNanos)
+        {
+            this.results = Collections.unmodifiableList(results);
+            this.elapsedNanos = elapsedNanos;
+        }
+        
+        @Override
+        public Iterator<Result<?>> iterator()
+        {
+            return results.iterator();
+        }
+        
+        /**
+         * Returns the results in the order the commands were added.
+         * @return an unmodifiable list of results.
+         */
+        public List<Result<?>> getResults()
+        {
+            return results;
+        }
+        
+        /**
+         * Returns the number of commands that succeeded.
+         * @return the number of successful results.
+         */
+        public int getSuccessCount()
+        {
+            int count = 0;
+            for (Result<?> r : results)
+            {
+                if (r.isSuccess())
+                {
+                    count++;
+                }
+            }
+            return count;
+        }
+        
+        /**
+         * Returns the number of commands that failed.
+         * @return the number of failed results.
+         */
+        public int getFailureCount()
+        {
+            return results.size() - getSuccessCount();
+        }
+        
+        /**
+         * Returns the time from executing the batch to the completion of its last command.
+         * @param unit the unit to return the time in.
+         * @return the elapsed time.
+         */
+        public long getElapsedTime(TimeUnit unit)
+        {
+            return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+        
+        /**
+         * Returns the mean service time of the commands in this batch.
+         * @param unit the unit to return the time in.
+         * @return the mean service time.
+         */
+        public long getMeanServiceTime(TimeUnit unit)
+        {
+            if (results.isEmpty())
+            {
+                return 0;
+            }
+            long total = 0;
+            for (Result<?> r : results)
+            {
+                total += r.serviceNanos;
+            }
+            return unit.convert(total / results.size(), TimeUnit.NANOSECONDS);
+        }
+        
+        /**
+         * Returns the longest service time of the commands in this batch.
+         * @param unit the unit to return the time in.
+         * @return the max service time.
+         */
+        public long getMaxServiceTime(TimeUnit unit)
+        {
+            long max = 0;
+            for (Result<?> r : results)
+            {
+                max = Math.max(max, r.serviceNanos);
+            }
+            return unit.convert(max, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    /**
+     * Keeps the window of in-flight commands full.
+     * <p>
+     * No thread waits for a command to complete; each completion frees a slot
+     * and the next command is submitted from the completing thread. Only one
+     * thread submits at a time, so a command that completes as it is submitted
+     * leaves its slot to the loop rather than recursing.
+     * </p>
+     */
+    private class Submitter
+    {
+        private final RiakClient client;
+        private final BatchFuture batchFuture;
+        private final AtomicInteger freeSlots;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger received = new AtomicInteger();
+        private final AtomicBoolean submitting = new AtomicBoolean();
+        
+        Submitter(RiakClient client, BatchFuture batchFuture)
+        {
+            this.client = client;
+            this.batchFuture = batchFuture;
+            this.freeSlots = new AtomicInteger(maxInFlight);
+        }
+        
+        void submitAvailable()
+        {
+            while (freeSlots.get() > 0 && next.get() < commands.size() 
+                   && submitting.compareAndSet(false, true))
+            {
+                try
+                {
+                    while (freeSlots.get() > 0)
+                    {
+                        int index = next.getAndIncrement();
+                        if (index >= commands.size())
+                        {
+                            break;
+                        }
+                        freeSlots.decrementAndGet();
+                        submit(index, commands.get(index));
+                    }
+                }
+                finally
+                {
+                    submitting.set(false);
+                }
+            }
+        }
+        
+        private <T,S> void submit(final int index, final RiakCommand<T,S> command)
+        {
+            final long start = System.nanoTime();
+            RiakFuture<T,S> future;
+            try
+            {
+                future = client.executeAsync(command);
+            }
+            catch (RuntimeException ex)
+            {
+                completed(index, new Result<T>(command, null, ex, System.nanoTime() - start));
+                return;
+            }
+            
+            future.addListener(new RiakFutureListener<T,S>()
+            {
+                @Override
+                public void handle(RiakFuture<T,S> f)
+                {
+                    long serviceNanos = System.nanoTime() - start;
+                    Result<T> result;
+                    if (f.isSuccess())
+                    {
+                        T response = null;
+                        try
+                        {
+                            response = f.get();
+                        }
+                        catch (Exception ex)
+                        {
+                            // Unreachable; the future is done and successful.
+                        }
+                        result = new Result<T>(command, response, null, serviceNanos);
+                    }
+                    else
+                    {
+                        result = new Result<T>(command, null, f.cause(), serviceNanos);
+                    }
+                    completed(index, result);
+                }
+            });
+        }
+        
+        private void completed(int index, Result<?> result)
+        {
+            batchFuture.setResult(index, result);
+            if (received.incrementAndGet() == commands.size())
+            {
+                batchFuture.setCompleted();
+            }
+            else
+            {
+                freeSlots.incrementAndGet();
+                submitAvailable();
+            }
+        }
+    }
+    
+    private class BatchFuture extends ListenableFuture<Response, List<RiakCommand<?,?>>>
+    {
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private final List<RiakCommand<?,?>> commands;
+        private final AtomicReferenceArray<Result<?>> results;
+        private final long started = System.nanoTime();
+        private volatile Response response;
+        
+        private BatchFuture(List<RiakCommand<?,?>> commands)
+        {
+            this.commands = commands;
+            this.results = new AtomicReferenceArray<Result<?>>(commands.size());
+        }
+        
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning)
+        {
+            return false;
+        }
+
+        @Override
+        public Response get() throws InterruptedException
+        {
+            latch.await();
+            return response;
+        }
+
+        @Override
+        public Response get(long timeout, TimeUnit unit) throws InterruptedException
+        {
+            latch.await(timeout, unit);
+            return response;
+        }
+
+        @Override
+        public boolean isCancelled()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean isDone()
+        {
+            return latch.getCount() != 1;
+        }
+
+        @Override
+        public void await() throws InterruptedException
+        {
+            latch.await();
+        }
+
+        @Override
+        public void await(long timeout, TimeUnit unit) throws InterruptedException
+        {
+            latch.await(timeout, unit);
+        }
+
+        @Override
+        public boolean isSuccess()
+        {
+            return isDone();
+        }
+
+        @Override
+        public List<RiakCommand<?,?>> getQueryInfo()
+        {
+            return commands;
+        }
+        
+        @Override
+        public Throwable cause()
+        {
+            return null;
+        }
+        
+        private void setResult(int index, Result<?> result)
+        {
+            results.set(index, result);
+        }
+        
+        private void setCompleted()
+        {
+            List<Result<?>> list = new ArrayList<Result<?>>(results.length());
+            for (int i = 0; i < results.length(); i++)
+            {
+                list.add(results.get(i));
+            }
+            response = new Response(list, System.nanoTime() - started);
+            latch.countDown();
+            notifyListeners();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.operations;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A RiakFuture that is complete when created.
+ * <p>
+ * Returned by streaming commands, whose response is available immediately
+ * and delivers its results as they arrive.
+ * </p>
+ * @since 2.0
+ * @param <T> The response type.
+ * @param <S> The query info type.
+ */
+public class CompletedFuture<T,S> extends ListenableFuture<T,S>
+{
+    private final T response;
+    private final S queryInfo;
+    
+    public CompletedFuture(T response, S queryInfo)
+    {
+        this.response = response;
+        this.queryInfo = queryInfo;
+    }
+    
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning)
+    {
+        return false;
+    }
+
+    @Override
+    public T get()
+    {
+        return response;
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit)
+    {
+        return response;
+    }
+
+    @Override
+    public boolean isCancelled()
+    {
+        return false;
+    }
+
+    @Override
+    public boolean isDone()
+    {
+        return true;
+    }
+
+    @Override
+    public void await()
+    {
+        // no-op, already complete
+    }
+
+    @Override
+    public void await(long timeout, TimeUnit unit)
+    {
+        // no-op, already complete
+    }
+
+    @Override
+    public boolean isSuccess()
+    {
+        return true;
+    }
+
+    @Override
+    public Throwable cause()
+    {
+        return null;
+    }
+
+    @Override
+    public S getQueryInfo()
+    {
+        return queryInfo;
+    }
+}
@@ -16,6 +16,8 @@
 
 package com.basho.riak.client.operations;
 
+import com.basho.riak.client.core.FutureOperation;
+import com.basho.riak.client.core.RequestTracer;
 import com.basho.riak.client.core.RiakFuture;
 import com.basho.riak.client.core.RiakFutureListener;
 import java.util.concurrent.TimeUnit;
@@ -32,6 +34,8 @@ import java.util.concurrent.TimeUnit;
 public abstract class CoreFutureAdapter<T2,S2,T,S> extends ListenableFuture<T2,S2> implements RiakFutureListener<T,S>
 {
     private final RiakFuture<T,S> coreFuture;
+    private boolean isConverted;
+    private T2 convertedResponse;
     
     public CoreFutureAdapter(RiakFuture<T,S> coreFuture)
     {
@@ -48,28 +52,31 @@ public abstract class CoreFutureAdapter<T2,S2,T,S> extends ListenableFuture<T2,S
     public T2 get() throws InterruptedException
     {
         T response = coreFuture.get();
-        if (response != null)
-        {
-            return convertResponse(coreFuture.get());
-        }
-        else 
-        {
-            return null;
-        }
+        return response == null ? null : converted(response);
     }
 
     @Override
     public T2 get(long timeout, TimeUnit unit) throws InterruptedException
     {
         T response = coreFuture.get(timeout, unit);
-        if (response != null)
-        {
-            return convertResponse(coreFuture.get(timeout, unit));
-        }
-        else
+        return response == null ? null : converted(response);
+    }
+    
+    /**
+     * Convert the core response the first time it is retrieved.
+     */
+    private synchronized T2 converted(T response)
+    {
+        if (!isConverted)
         {
-            return null;
+            convertedResponse = convertResponse(response);
+            isConverted = true;
+            if (coreFuture instanceof FutureOperation)
+            {
+                ((FutureOperation) coreFuture).trace(RequestTracer.Stage.CONVERTED);
+            }
         }
+        return convertedResponse;
     }
 
     @Override
@@ -39,7 +39,7 @@ public final class FetchCounter extends FetchDatatype<RiakCounter, FetchCounter.
     protected final RiakFuture<FetchCounter.Response, Location> executeAsync(RiakCluster cluster)
     {
         RiakFuture<DtFetchOperation.Response, Location> coreFuture =
-            cluster.execute(buildCoreOperation());
+            cluster.execute(buildCoreOperation(), getSchedulingTag());
         
         CoreFutureAdapter<FetchCounter.Response, Location, DtFetchOperation.Response, Location> future =
             new CoreFutureAdapter<FetchCounter.Response, Location, DtFetchOperation.Response, Location>(coreFuture) {
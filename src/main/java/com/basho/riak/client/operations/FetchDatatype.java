@@ -17,6 +17,7 @@ package com.basho.riak.client.operations;
 
 import com.basho.riak.client.RiakCommand;
 import com.basho.riak.client.cap.Quorum;
+import com.basho.riak.client.core.SchedulingTag;
 import com.basho.riak.client.core.operations.DtFetchOperation;
 import com.basho.riak.client.operations.datatypes.Context;
 
@@ -39,6 +40,7 @@ public abstract class FetchDatatype<T extends RiakDatatype,S,U> extends RiakComm
 	@SuppressWarnings("unchecked")
     protected FetchDatatype(Builder builder)
     {
+        super(builder.schedulingTag);
         this.location = builder.location;
 	    this.options.putAll(builder.options);
     }
@@ -121,6 +123,7 @@ public abstract class FetchDatatype<T extends RiakDatatype,S,U> extends RiakComm
 
 		private final Location location;
 		private final Map<Option<?>, Object> options = new HashMap<Option<?>, Object>();
+		private SchedulingTag schedulingTag;
 
 		protected Builder(Location location)
 		{
@@ -152,6 +155,21 @@ public abstract class FetchDatatype<T extends RiakDatatype,S,U> extends RiakComm
 			return self();
 		}
 
+		/**
+		 * Set the scheduling class used when this command is executed.
+		 * <p>
+		 * Only meaningful when the cluster has been built with an admission limit;
+		 * see {@link SchedulingTag}.
+		 * </p>
+		 * @param tag the priority and tenant of this command.
+		 * @return a reference to this object.
+		 */
+		public T withSchedulingTag(SchedulingTag tag)
+		{
+			this.schedulingTag = tag;
+			return self();
+		}
+
 		protected abstract T self();
 
 	}
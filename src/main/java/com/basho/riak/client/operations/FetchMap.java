@@ -45,7 +45,7 @@ public final class FetchMap extends FetchDatatype<RiakMap, FetchMap.Response, Lo
     protected final RiakFuture<FetchMap.Response, Location> executeAsync(RiakCluster cluster)
     {
         RiakFuture<DtFetchOperation.Response, Location> coreFuture =
-            cluster.execute(buildCoreOperation());
+            cluster.execute(buildCoreOperation(), getSchedulingTag());
         
         CoreFutureAdapter<FetchMap.Response, Location, DtFetchOperation.Response, Location> future =
             new CoreFutureAdapter<FetchMap.Response, Location, DtFetchOperation.Response, Location>(coreFuture) {
@@ -39,7 +39,7 @@ public final class FetchSet extends FetchDatatype<RiakSet, FetchSet.Response, Lo
     protected final RiakFuture<FetchSet.Response, Location> executeAsync(RiakCluster cluster)
     {
         RiakFuture<DtFetchOperation.Response, Location> coreFuture =
-            cluster.execute(buildCoreOperation());
+            cluster.execute(buildCoreOperation(), getSchedulingTag());
         
         CoreFutureAdapter<FetchSet.Response, Location, DtFetchOperation.Response, Location> future =
             new CoreFutureAdapter<FetchSet.Response, Location, DtFetchOperation.Response, Location>(coreFuture) {
@@ -18,10 +18,13 @@ package com.basho.riak.client.operations;
 import com.basho.riak.client.RiakCommand;
 import com.basho.riak.client.core.RiakCluster;
 import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.SchedulingTag;
+import com.basho.riak.client.core.StreamingIterator;
 import com.basho.riak.client.core.operations.ListBucketsOperation;
 import com.basho.riak.client.query.Location;
 import com.basho.riak.client.util.BinaryValue;
 
+import java.io.Closeable;
 import java.util.Iterator;
 import java.util.List;
 
@@ -33,18 +36,30 @@ public final class ListBuckets extends RiakCommand<ListBuckets.Response, BinaryV
 {
     private final int timeout;
     private final BinaryValue type;
+    private final boolean streaming;
+    private final int maxBufferedChunks;
 
     ListBuckets(Builder builder)
     {
+		super(builder.schedulingTag);
 		this.timeout = builder.timeout;
 	    this.type = builder.type;
+	    this.streaming = builder.streaming;
+	    this.maxBufferedChunks = builder.maxBufferedChunks;
     }
 
     @Override
     protected RiakFuture<Response, BinaryValue> executeAsync(RiakCluster cluster)
     {
+        ListBucketsOperation operation = buildCoreOperation();
         RiakFuture<ListBucketsOperation.Response, BinaryValue> coreFuture =
-            cluster.execute(buildCoreOperation());
+            cluster.execute(operation, getSchedulingTag());
+        
+        if (streaming)
+        {
+            return new CompletedFuture<Response, BinaryValue>(
+                new Response(type, operation.iterator()), type);
+        }
         
         CoreFutureAdapter<ListBuckets.Response, BinaryValue, ListBucketsOperation.Response, BinaryValue> future =
             new CoreFutureAdapter<ListBuckets.Response, BinaryValue, ListBucketsOperation.Response, BinaryValue>(coreFuture)
@@ -67,29 +82,85 @@ public final class ListBuckets extends RiakCommand<ListBuckets.Response, BinaryV
 
     private ListBucketsOperation buildCoreOperation()
     {
-        ListBucketsOperation.Builder builder = new ListBucketsOperation.Builder();
+        ListBucketsOperation.Builder builder = 
+            new ListBucketsOperation.Builder().withBucketType(type);
         if (timeout > 0)
         {
             builder.withTimeout(timeout);
         }
+        if (streaming)
+        {
+            builder.withStreaming(true)
+                .withMaxBufferedChunks(maxBufferedChunks);
+        }
         return builder.build();
     }
 
-    public static class Response implements Iterable<Location> {
+    /**
+     * The response from a ListBuckets command.
+     * <p>
+     * When streaming, the bucket names are fetched from Riak as they are 
+     * iterated and can only be iterated once. Closing the response stops 
+     * the listing if it hasn't finished.
+     * </p>
+     */
+    public static class Response implements Iterable<Location>, Closeable {
 
         private final BinaryValue type;
         private final List<BinaryValue> buckets;
+        private final StreamingIterator<BinaryValue> streamed;
 
         public Response(BinaryValue type, List<BinaryValue> buckets)
         {
             this.type = type;
             this.buckets = buckets;
+            this.streamed = null;
+        }
+        
+        Response(BinaryValue type, StreamingIterator<BinaryValue> streamed)
+        {
+            this.type = type;
+            this.buckets = null;
+            this.streamed = streamed;
+        }
+        
+        /**
+         * Determine if this response streams its bucket names.
+         * @return true if the buckets are delivered as they are iterated.
+         */
+        public boolean isStreaming()
+        {
+            return streamed != null;
         }
 
+        /**
+         * {@inheritDoc}
+         * <p>
+         * When streaming, {@code hasNext()} blocks until bucket names arrive
+         * and throws a {@link com.basho.riak.client.core.StreamingException}
+         * if the operation fails.
+         * </p>
+         */
         @Override
         public Iterator<Location> iterator()
         {
-            return new Itr(buckets.iterator(), type);
+            return new Itr(streamed != null ? streamed : buckets.iterator(), type);
+        }
+        
+        /**
+         * Stop streaming bucket names.
+         * <p>
+         * Cancels the listing if Riak is still sending bucket names. Does 
+         * nothing when not streaming.
+         * </p>
+         */
+        @Override
+        public void close()
+        {
+            if (streamed != null)
+            {
+                streamed.close();
+            }
         }
     }
 
@@ -114,7 +185,7 @@ public final class ListBuckets extends RiakCommand<ListBuckets.Response, BinaryV
         public Location next()
         {
             BinaryValue bucket = iterator.next();
-            return new Location(type).setBucketType(bucket);
+            return new Location(bucket).setBucketType(type);
         }
 
         @Override
@@ -126,8 +197,11 @@ public final class ListBuckets extends RiakCommand<ListBuckets.Response, BinaryV
 
 	public static class Builder
 	{
+		private SchedulingTag schedulingTag;
 		private int timeout;
 		private final BinaryValue type;
+		private boolean streaming;
+		private int maxBufferedChunks = ListBucketsOperation.DEFAULT_MAX_BUFFERED_CHUNKS;
 
 		public Builder(String type)
 		{
@@ -145,6 +219,55 @@ public final class ListBuckets extends RiakCommand<ListBuckets.Response, BinaryV
 			return this;
 		}
 
+		/**
+		 * Stream bucket names as they are received from Riak.
+		 * <p>
+		 * When streaming, the response is available immediately and bucket
+		 * names are delivered to its iterator as Riak sends them rather than
+		 * all being held in memory. If the consumer falls behind, reading 
+		 * from Riak is paused once {@link #withMaxBufferedChunks(int)} chunks
+		 * are buffered.
+		 * </p>
+		 * @param streaming true to stream bucket names.
+		 * @return a reference to this object.
+		 */
+		public Builder withStreaming(boolean streaming)
+		{
+			this.streaming = streaming;
+			return this;
+		}
+
+		/**
+		 * Set the number of chunks of bucket names buffered when streaming 
+		 * before reading from Riak is paused.
+		 * @param maxBufferedChunks the max number of buffered chunks.
+		 * @return a reference to this object.
+		 */
+		public Builder withMaxBufferedChunks(int maxBufferedChunks)
+		{
+			if (maxBufferedChunks < 1)
+			{
+				throw new IllegalArgumentException("maxBufferedChunks must be at least 1");
+			}
+			this.maxBufferedChunks = maxBufferedChunks;
+			return this;
+		}
+
+		/**
+		 * Set the scheduling class used when this command is executed.
+		 * <p>
+		 * Only meaningful when the cluster has been built with an admission limit;
+		 * see {@link SchedulingTag}.
+		 * </p>
+		 * @param tag the priority and tenant of this command.
+		 * @return a reference to this object.
+		 */
+		public Builder withSchedulingTag(SchedulingTag tag)
+		{
+			this.schedulingTag = tag;
+			return this;
+		}
+
 		public ListBuckets build()
 		{
 			return new ListBuckets(this);
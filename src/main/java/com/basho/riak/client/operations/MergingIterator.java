@@ -0,0 +1,306 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.operations;
+
+import com.basho.riak.client.core.StreamingException;
+import com.basho.riak.client.core.StreamingIterator;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Merges a sequence of streams into one, draining several of them 
+ * concurrently.
+ * <p>
+ * Each of {@code workers} daemon threads takes the next stream from the
+ * {@link Source} and copies its elements into a shared bounded buffer until
+ * the source is exhausted. When the buffer is full the workers wait, and 
+ * streaming operations they are reading from in turn pause reading from 
+ * Riak. Elements are returned in the order they arrive. 
+ * </p>
+ * <p>
+ * If any stream fails the failure is thrown from {@code hasNext()} wrapped
+ * in a {@link StreamingException}; the source and the other streams being
+ * drained are closed. 
+ * </p>
+ * <p>
+ * Closing the iterator likewise closes the source and every stream being 
+ * drained. Workers never wait on the buffer indefinitely, so they exit 
+ * once the merge is closed even if nothing is consumed.
+ * </p>
+ * @param <T> the type of the elements.
+ * @since 2.0
+ */
+public class MergingIterator<T> implements StreamingIterator<T>
+{
+    /**
+     * Supplies the streams to be merged.
+     * <p>
+     * Calls to {@code next()} are serialized, so implementations need not be
+     * thread safe.
+     * </p>
+     * @param <T> the type of the elements.
+     */
+    public interface Source<T>
+    {
+        /**
+         * Start the next stream.
+         * @return the next stream, or null if there are no more.
+         */
+        StreamingIterator<T> next();
+        
+        /**
+         * Stop supplying streams.
+         * <p>
+         * Called once when the merge is closed, possibly while a worker is 
+         * in {@code next()}; a source waiting on a stream of its own should 
+         * close it. 
+         * </p>
+         */
+        void close();
+    }
+    
+    // How long a worker waits for buffer space before checking for close
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+    
+    private final Object end = new Object();
+    private final Source<T> source;
+    private final BlockingQueue<Object> buffer;
+    private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    private final AtomicInteger running;
+    private final Set<StreamingIterator<T>> active = new HashSet<StreamingIterator<T>>();
+    // Set when the merge is closed or a stream fails; workers then stop
+    private volatile boolean stopped;
+    private volatile boolean closed;
+    private Object next;
+    private boolean finished;
+    
+    /**
+     * @param source supplies the streams to merge.
+     * @param workers the max number of streams drained concurrently.
+     * @param bufferSize the number of elements buffered before workers block.
+     */
+    public MergingIterator(Source<T> source, int workers, int bufferSize)
+    {
+        if (workers < 1)
+        {
+            throw new IllegalArgumentException("workers must be at least 1");
+        }
+        this.source = source;
+        this.buffer = new ArrayBlockingQueue<Object>(bufferSize);
+        this.running = new AtomicInteger(workers);
+        for (int i = 0; i < workers; i++)
+        {
+            Thread t = new Thread(new Worker());
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+    
+    private StreamingIterator<T> nextStream()
+    {
+        StreamingIterator<T> stream;
+        synchronized (source)
+        {
+            stream = !stopped ? source.next() : null;
+        }
+        if (stream != null)
+        {
+            synchronized (active)
+            {
+                if (!stopped)
+                {
+                    active.add(stream);
+                    return stream;
+                }
+            }
+            stream.close();
+        }
+        return null;
+    }
+    
+    private void streamFinished(StreamingIterator<T> stream)
+    {
+        synchronized (active)
+        {
+            active.remove(stream);
+        }
+    }
+    
+    @Override
+    public boolean hasNext()
+    {
+        if (closed)
+        {
+            return false;
+        }
+        if (next == null && !finished)
+        {
+            try
+            {
+                next = buffer.take();
+            }
+            catch (InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+                throw new StreamingException(ex);
+            }
+            if (next == end)
+            {
+                next = null;
+                finished = true;
+                stop();
+                Throwable cause = failure.get();
+                if (cause != null)
+                {
+                    throw cause instanceof StreamingException 
+                        ? (StreamingException) cause : new StreamingException(cause);
+                }
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next()
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+        T element = (T) next;
+        next = null;
+        return element;
+    }
+
+    @Override
+    public void remove()
+    {
+        throw new UnsupportedOperationException();
+    }
+    
+    @Override
+    public void close()
+    {
+        if (closed)
+        {
+            return;
+        }
+        closed = true;
+        stop();
+        buffer.clear();
+    }
+    
+    /**
+     * Stop starting streams and close those in progress.
+     */
+    private void stop()
+    {
+        Set<StreamingIterator<T>> streams;
+        synchronized (active)
+        {
+            if (stopped)
+            {
+                return;
+            }
+            stopped = true;
+            streams = new HashSet<StreamingIterator<T>>(active);
+            active.clear();
+        }
+        source.close();
+        for (StreamingIterator<T> stream : streams)
+        {
+            stream.close();
+        }
+    }
+    
+    /**
+     * Add to the buffer, waiting for space until the merge is closed.
+     * @return false if the merge was closed first.
+     */
+    private boolean offer(Object element) throws InterruptedException
+    {
+        while (!closed)
+        {
+            if (buffer.offer(element, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private class Worker implements Runnable
+    {
+        @Override
+        public void run()
+        {
+            try
+            {
+                StreamingIterator<T> stream;
+                while ((stream = nextStream()) != null)
+                {
+                    while (!stopped && stream.hasNext())
+                    {
+                        if (!offer(stream.next()))
+                        {
+                            break;
+                        }
+                    }
+                    streamFinished(stream);
+                }
+            }
+            catch (InterruptedException ex)
+            {
+                fail(ex);
+            }
+            catch (RuntimeException ex)
+            {
+                fail(ex);
+            }
+            finally
+            {
+                if (running.decrementAndGet() == 0 || failure.get() != null)
+                {
+                    try
+                    {
+                        offer(end);
+                    }
+                    catch (InterruptedException ex)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }
+        
+        private void fail(Throwable cause)
+        {
+            // A stream closed by stop() ends quietly, so the first failure 
+            // is the cause
+            if (failure.compareAndSet(null, cause))
+            {
+                stop();
+            }
+        }
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.operations;
+
+import com.basho.riak.client.RiakCommand;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.SchedulingTag;
+import com.basho.riak.client.core.StreamingFutureOperation;
+import com.basho.riak.client.core.StreamingIterator;
+import com.basho.riak.client.core.operations.ListBucketsOperation;
+import com.basho.riak.client.core.operations.ListKeysOperation;
+import com.basho.riak.client.query.Location;
+import com.basho.riak.client.util.BinaryValue;
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Command used to enumerate every key in every bucket of a bucket type.
+ * <p>
+ * The buckets in the type are streamed from Riak and the keys of up to 
+ * {@code maxConcurrency} of them are listed concurrently, each listing 
+ * dispatched separately so they are spread across the cluster's nodes. 
+ * Keys are returned as they arrive, in no particular order, through a 
+ * bounded buffer; if the consumer falls behind the listings pause reading 
+ * from Riak. 
+ * </p>
+ * <pre>
+ * {@code
+ * ScanBucketType scan = new ScanBucketType.Builder("my_type")
+ *                          .withMaxConcurrency(4)
+ *                          .build();
+ * for (Location location : client.execute(scan))
+ * {
+ *     ...
+ * }
+ * }
+ * </pre>
+ * <p>
+ * Listing buckets and keys both require a full scan of the keys in the 
+ * cluster and are expensive operations; this is not intended for use in
+ * production request paths.
+ * </p>
+ * @since 2.0
+ */
+public final class ScanBucketType extends RiakCommand<ScanBucketType.Response, BinaryValue>
+{
+    public static final int DEFAULT_MAX_CONCURRENCY = 4;
+    // Capacity, in keys, of the buffer shared by the concurrent listings
+    static final int BUFFER_SIZE = 1024;
+    
+    private final BinaryValue type;
+    private final int timeout;
+    private final int maxConcurrency;
+    private final int maxBufferedChunks;
+    
+    private ScanBucketType(Builder builder)
+    {
+        super(builder.schedulingTag);
+        this.type = builder.type;
+        this.timeout = builder.timeout;
+        this.maxConcurrency = builder.maxConcurrency;
+        this.maxBufferedChunks = builder.maxBufferedChunks;
+    }
+    
+    @Override
+    protected RiakFuture<Response, BinaryValue> executeAsync(RiakCluster cluster)
+    {
+        ListBucketsOperation.Builder builder = 
+            new ListBucketsOperation.Builder()
+                .withBucketType(type)
+                .withStreaming(true)
+                .withMaxBufferedChunks(maxBufferedChunks);
+        if (timeout > 0)
+        {
+            builder.withTimeout(timeout);
+        }
+        ListBucketsOperation operation = builder.build();
+        cluster.execute(operation, getSchedulingTag());
+        
+        StreamingIterator<Location> keys = 
+            new MergingIterator<Location>(new BucketSource(cluster, operation.iterator()), 
+                                          maxConcurrency, BUFFER_SIZE);
+        return new CompletedFuture<Response, BinaryValue>(new Response(keys), type);
+    }
+    
+    /**
+     * Starts a key listing for each bucket as its name arrives.
+     */
+    private class BucketSource implements MergingIterator.Source<Location>
+    {
+        private final RiakCluster cluster;
+        private final StreamingIterator<BinaryValue> buckets;
+        
+        BucketSource(RiakCluster cluster, StreamingIterator<BinaryValue> buckets)
+        {
+            this.cluster = cluster;
+            this.buckets = buckets;
+        }
+        
+        @Override
+        public StreamingIterator<Location> next()
+        {
+            if (!buckets.hasNext())
+            {
+                return null;
+            }
+            Location bucket = new Location(buckets.next()).setBucketType(type);
+            ListKeysOperation.Builder builder = 
+                new ListKeysOperation.Builder(bucket)
+                    .withStreaming(true)
+                    .withMaxBufferedChunks(maxBufferedChunks);
+            if (timeout > 0)
+            {
+                builder.withTimeout(timeout);
+            }
+            ListKeysOperation operation = builder.build();
+            cluster.execute(operation, getSchedulingTag());
+            return new KeyItr(bucket, operation.iterator());
+        }
+        
+        @Override
+        public void close()
+        {
+            buckets.close();
+        }
+    }
+    
+    private static class KeyItr implements StreamingIterator<Location>
+    {
+        private final Location bucket;
+        private final StreamingIterator<BinaryValue> keys;
+        
+        KeyItr(Location bucket, StreamingIterator<BinaryValue> keys)
+        {
+            this.bucket = bucket;
+            this.keys = keys;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return keys.hasNext();
+        }
+
+        @Override
+        public Location next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            return new Location(bucket.getBucketName())
+                .setBucketType(bucket.getBucketType())
+                .setKey(keys.next());
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public void close()
+        {
+            keys.close();
+        }
+    }
+    
+    /**
+     * The response from a ScanBucketType command. 
+     * <p>
+     * The keys are fetched from Riak as they are iterated and can only be 
+     * iterated once. {@code hasNext()} blocks until keys arrive and throws a
+     * {@link com.basho.riak.client.core.StreamingException} if any listing
+     * fails. Closing the response cancels the listings still in progress.
+     * </p>
+     */
+    public static class Response implements Iterable<Location>, Closeable
+    {
+        private final StreamingIterator<Location> keys;
+        private boolean iterated;
+        
+        Response(StreamingIterator<Location> keys)
+        {
+            this.keys = keys;
+        }
+        
+        /**
+         * Stop streaming keys.
+         * <p>
+         * Cancels the bucket listing and any key listings in progress.
+         * </p>
+         */
+        @Override
+        public void close()
+        {
+            keys.close();
+        }
+        
+        @Override
+        public synchronized Iterator<Location> iterator()
+        {
+            if (iterated)
+            {
+                throw new IllegalStateException("Response has already been iterated");
+            }
+            iterated = true;
+            return keys;
+        }
+    }
+    
+    /**
+     * Used to construct a ScanBucketType command.
+     */
+    public static class Builder
+    {
+        private final BinaryValue type;
+        private SchedulingTag schedulingTag;
+        private int timeout;
+        private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+        private int maxBufferedChunks = StreamingFutureOperation.DEFAULT_MAX_BUFFERED_CHUNKS;
+        
+        public Builder(String type)
+        {
+            this(BinaryValue.create(type));
+        }
+        
+        public Builder(BinaryValue type)
+        {
+            if (null == type || type.length() == 0)
+            {
+                throw new IllegalArgumentException("Bucket type can not be null or zero length");
+            }
+            this.type = type;
+        }
+        
+        /**
+         * Set the timeout for listing the buckets and the keys of each bucket.
+         * @param timeout the timeout in milliseconds.
+         * @return a reference to this object.
+         */
+        public Builder withTimeout(int timeout)
+        {
+            this.timeout = timeout;
+            return this;
+        }
+        
+        /**
+         * Set the maximum number of buckets whose keys are listed at once.
+         * @param maxConcurrency the max number of concurrent key listings.
+         * @return a reference to this object.
+         */
+        public Builder withMaxConcurrency(int maxConcurrency)
+        {
+            if (maxConcurrency < 1)
+            {
+                throw new IllegalArgumentException("maxConcurrency must be at least 1");
+            }
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+        
+        /**
+         * Set the number of chunks buffered by each listing before reading 
+         * from Riak is paused.
+         * @param maxBufferedChunks the max number of buffered chunks.
+         * @return a reference to this object.
+         */
+        public Builder withMaxBufferedChunks(int maxBufferedChunks)
+        {
+            if (maxBufferedChunks < 1)
+            {
+                throw new IllegalArgumentException("maxBufferedChunks must be at least 1");
+            }
+            this.maxBufferedChunks = maxBufferedChunks;
+            return this;
+        }
+        
+        /**
+         * Set the scheduling class used when this command is executed.
+         * <p>
+         * Only meaningful when the cluster has been built with an admission limit;
+         * see {@link SchedulingTag}.
+         * </p>
+         * @param tag the priority and tenant of this command.
+         * @return a reference to this object.
+         */
+        public Builder withSchedulingTag(SchedulingTag tag)
+        {
+            this.schedulingTag = tag;
+            return this;
+        }
+        
+        public ScanBucketType build()
+        {
+            return new ScanBucketType(this);
+        }
+    }
+}
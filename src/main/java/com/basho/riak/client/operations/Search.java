@@ -18,6 +18,7 @@ package com.basho.riak.client.operations;
 import com.basho.riak.client.RiakCommand;
 import com.basho.riak.client.core.RiakCluster;
 import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.SchedulingTag;
 import com.basho.riak.client.core.operations.SearchOperation;
 import com.basho.riak.client.util.BinaryValue;
 
@@ -55,6 +56,7 @@ public final class Search extends RiakCommand<SearchOperation.Response, BinaryVa
 
     public Search(Builder builder)
     {
+        super(builder.schedulingTag);
         this.index = builder.index;
         this.query = builder.query;
         this.start = builder.start;
@@ -71,7 +73,7 @@ public final class Search extends RiakCommand<SearchOperation.Response, BinaryVa
     protected RiakFuture<SearchOperation.Response, BinaryValue> executeAsync(RiakCluster cluster)
     {
         RiakFuture<SearchOperation.Response, BinaryValue> coreFuture =
-            cluster.execute(buildCoreOperation());
+            cluster.execute(buildCoreOperation(), getSchedulingTag());
         
         CoreFutureAdapter<SearchOperation.Response, BinaryValue, SearchOperation.Response, BinaryValue> future =
             new CoreFutureAdapter<SearchOperation.Response, BinaryValue, SearchOperation.Response, BinaryValue>(coreFuture)
@@ -174,6 +176,7 @@ public final class Search extends RiakCommand<SearchOperation.Response, BinaryVa
     
 	public static class Builder
 	{
+		private SchedulingTag schedulingTag;
 		private final String index;
 		private final String query;
 		private int start;
@@ -242,6 +245,21 @@ public final class Search extends RiakCommand<SearchOperation.Response, BinaryVa
 			return this;
 		}
 
+		/**
+		 * Set the scheduling class used when this command is executed.
+		 * <p>
+		 * Only meaningful when the cluster has been built with an admission limit;
+		 * see {@link SchedulingTag}.
+		 * </p>
+		 * @param tag the priority and tenant of this command.
+		 * @return a reference to this object.
+		 */
+		public Builder withSchedulingTag(SchedulingTag tag)
+		{
+			this.schedulingTag = tag;
+			return this;
+		}
+
 		public Search build()
 		{
 			return new Search(this);
@@ -0,0 +1,494 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.operations;
+
+import com.basho.riak.client.RiakCommand;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.SchedulingTag;
+import com.basho.riak.client.core.StreamingException;
+import com.basho.riak.client.core.StreamingIterator;
+import com.basho.riak.client.core.operations.SearchOperation;
+import com.basho.riak.client.query.search.SearchResult;
+import com.basho.riak.client.util.BinaryValue;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Command used to export every document matching a search query.
+ * <p>
+ * Paging through a large result set with {@code start}/{@code rows} gets 
+ * slower with every page, as Solr must collect and skip all the preceding 
+ * results. SearchExport instead sorts on a field with a unique value per 
+ * document ({@code _yz_id} by default) and fetches each page with a filter 
+ * on that field starting after the last value of the previous page, so 
+ * every page costs the same. (The protocol buffers search request has no 
+ * way to pass a Solr {@code cursorMark}, so this is done with range 
+ * filters.) The next page is requested as soon as the current one arrives.
+ * </p>
+ * <p>
+ * The query can also be divided into slices, each a filter query selecting 
+ * a disjoint subset of the results, that are paged concurrently. 
+ * {@link Builder#withPartitionSlices(int, int)} divides the results by 
+ * Yokozuna logical partition. Slices are returned in no particular order.
+ * </p>
+ * <pre>
+ * {@code
+ * SearchExport export = new SearchExport.Builder("my_index", "name_s:*")
+ *                          .withReturnFields("_yz_rk", "name_s")
+ *                          .withPageSize(1000)
+ *                          .build();
+ * for (SearchResult.Document doc : client.execute(export))
+ * {
+ *     String key = doc.get("_yz_rk");
+ *     ...
+ * }
+ * }
+ * </pre>
+ * @since 2.0
+ */
+public final class SearchExport extends RiakCommand<SearchExport.Response, BinaryValue>
+{
+    public static final String DEFAULT_SORT_FIELD = "_yz_id";
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+    // Capacity, in documents, of the buffer shared by concurrent slices
+    static final int SLICE_BUFFER_SIZE = 1024;
+    
+    private final String index;
+    private final String query;
+    private final String filterQuery;
+    private final String sortField;
+    private final List<String> returnFields;
+    private final int pageSize;
+    private final List<String> slices;
+    private final int maxConcurrency;
+    
+    private SearchExport(Builder builder)
+    {
+        super(builder.schedulingTag);
+        this.index = builder.index;
+        this.query = builder.query;
+        this.filterQuery = builder.filterQuery;
+        this.sortField = builder.sortField;
+        this.pageSize = builder.pageSize;
+        this.slices = new ArrayList<String>(builder.slices);
+        this.maxConcurrency = builder.maxConcurrency > 0 ? builder.maxConcurrency : Math.max(1, slices.size());
+        if (builder.returnFields != null && !builder.returnFields.contains(sortField))
+        {
+            // The sort field is needed to request the following page
+            this.returnFields = new ArrayList<String>(builder.returnFields);
+            this.returnFields.add(sortField);
+        }
+        else
+        {
+            this.returnFields = builder.returnFields;
+        }
+    }
+    
+    @Override
+    protected RiakFuture<Response, BinaryValue> executeAsync(RiakCluster cluster)
+    {
+        StreamingIterator<SearchResult.Document> docs;
+        if (slices.isEmpty())
+        {
+            docs = new Pager(cluster, null);
+        }
+        else
+        {
+            docs = new MergingIterator<SearchResult.Document>(new SliceSource(cluster), 
+                                                                Math.min(maxConcurrency, slices.size()), 
+                                                                SLICE_BUFFER_SIZE);
+        }
+        return new CompletedFuture<Response, BinaryValue>(new Response(docs), 
+                                                          BinaryValue.create(index + ": " + query));
+    }
+    
+    /**
+     * Escape a value for use as a quoted term in a Solr query.
+     */
+    static String quote(String value)
+    {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+    
+    private SearchOperation executePage(RiakCluster cluster, String slice, String after)
+    {
+        SearchOperation.Builder builder = 
+            new SearchOperation.Builder(BinaryValue.create(index), query)
+                .withNumRows(pageSize)
+                .withSortField(sortField + " asc");
+        
+        StringBuilder filter = new StringBuilder();
+        for (String f : Arrays.asList(filterQuery, slice, 
+                                      after == null ? null : sortField + ":{" + quote(after) + " TO *]"))
+        {
+            if (f != null)
+            {
+                if (filter.length() > 0)
+                {
+                    filter.append(" AND ");
+                }
+                filter.append('(').append(f).append(')');
+            }
+        }
+        if (filter.length() > 0)
+        {
+            builder.withFilterQuery(filter.toString());
+        }
+        if (returnFields != null)
+        {
+            builder.withReturnFields(returnFields);
+        }
+        
+        SearchOperation operation = builder.build();
+        cluster.execute(operation, getSchedulingTag());
+        return operation;
+    }
+    
+    /**
+     * Pages through the results of the query, or one slice of them.
+     * <p>
+     * Search pages are not streamed, so closing a Pager can't stop a page 
+     * already requested; it stops any further page being requested.
+     * </p>
+     */
+    private class Pager implements StreamingIterator<SearchResult.Document>
+    {
+        private final RiakCluster cluster;
+        private final String slice;
+        private SearchOperation current;
+        private SearchOperation next;
+        private Iterator<SearchResult.Document> docs;
+        private volatile boolean closed;
+        
+        Pager(RiakCluster cluster, String slice)
+        {
+            this.cluster = cluster;
+            this.slice = slice;
+            this.current = executePage(cluster, slice, null);
+        }
+        
+        @Override
+        public boolean hasNext()
+        {
+            while (!closed)
+            {
+                if (docs == null)
+                {
+                    List<SearchResult.Document> page = await(current);
+                    if (closed)
+                    {
+                        break;
+                    }
+                    docs = page.iterator();
+                    if (page.size() == pageSize)
+                    {
+                        String last = page.get(page.size() - 1).get(sortField);
+                        if (last == null)
+                        {
+                            throw new StreamingException(
+                                new IllegalStateException("Documents do not have sort field " + sortField));
+                        }
+                        next = executePage(cluster, slice, last);
+                    }
+                }
+                if (docs.hasNext())
+                {
+                    return true;
+                }
+                if (next == null)
+                {
+                    return false;
+                }
+                current = next;
+                next = null;
+                docs = null;
+            }
+            return false;
+        }
+
+        @Override
+        public SearchResult.Document next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            return docs.next();
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public void close()
+        {
+            closed = true;
+        }
+        
+        private List<SearchResult.Document> await(SearchOperation operation)
+        {
+            SearchOperation.Response response;
+            try
+            {
+                response = operation.get();
+            }
+            catch (InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+                throw new StreamingException(ex);
+            }
+            if (!operation.isSuccess())
+            {
+                throw new StreamingException(operation.cause());
+            }
+            return response.getDocuments();
+        }
+    }
+    
+    private class SliceSource implements MergingIterator.Source<SearchResult.Document>
+    {
+        private final RiakCluster cluster;
+        private final Iterator<String> pending = slices.iterator();
+        
+        SliceSource(RiakCluster cluster)
+        {
+            this.cluster = cluster;
+        }
+        
+        @Override
+        public StreamingIterator<SearchResult.Document> next()
+        {
+            return pending.hasNext() ? new Pager(cluster, pending.next()) : null;
+        }
+        
+        @Override
+        public void close()
+        {
+            // Nothing is started until next() is called
+        }
+    }
+    
+    /**
+     * The response from a SearchExport command.
+     * <p>
+     * Documents are fetched from Riak as they are iterated and can only be 
+     * iterated once. {@code hasNext()} throws a {@link StreamingException} 
+     * if a page cannot be fetched. Closing the response stops any further 
+     * pages being requested.
+     * </p>
+     */
+    public static class Response implements Iterable<SearchResult.Document>, Closeable
+    {
+        private final StreamingIterator<SearchResult.Document> docs;
+        private boolean iterated;
+        
+        Response(StreamingIterator<SearchResult.Document> docs)
+        {
+            this.docs = docs;
+        }
+        
+        /**
+         * Stop exporting documents.
+         * <p>
+         * Pages already requested are discarded when they arrive.
+         * </p>
+         */
+        @Override
+        public void close()
+        {
+            docs.close();
+        }
+        
+        @Override
+        public synchronized Iterator<SearchResult.Document> iterator()
+        {
+            if (iterated)
+            {
+                throw new IllegalStateException("Response has already been iterated");
+            }
+            iterated = true;
+            return docs;
+        }
+    }
+    
+    /**
+     * Used to construct a SearchExport command.
+     */
+    public static class Builder
+    {
+        private final String index;
+        private final String query;
+        private final List<String> slices = new ArrayList<String>();
+        private SchedulingTag schedulingTag;
+        private String filterQuery;
+        private String sortField = DEFAULT_SORT_FIELD;
+        private List<String> returnFields;
+        private int pageSize = DEFAULT_PAGE_SIZE;
+        private int maxConcurrency;
+        
+        public Builder(String index, String query)
+        {
+            if (null == index || index.length() == 0)
+            {
+                throw new IllegalArgumentException("Index name cannot be null or zero length");
+            }
+            if (null == query || query.length() == 0)
+            {
+                throw new IllegalArgumentException("Query string cannot be null or zero length");
+            }
+            this.index = index;
+            this.query = query;
+        }
+        
+        /**
+         * Filter the results by an additional query.
+         * @param filterQuery the filter query.
+         * @return a reference to this object.
+         */
+        public Builder withFilterQuery(String filterQuery)
+        {
+            this.filterQuery = filterQuery;
+            return this;
+        }
+        
+        /**
+         * Set the field the results are sorted and paged on. 
+         * <p>
+         * Every document must have a single, unique value for the field. 
+         * Defaults to {@code _yz_id}.
+         * </p>
+         * @param sortField the name of the field.
+         * @return a reference to this object.
+         */
+        public Builder withSortField(String sortField)
+        {
+            if (null == sortField || sortField.length() == 0)
+            {
+                throw new IllegalArgumentException("Sort field cannot be null or zero length");
+            }
+            this.sortField = sortField;
+            return this;
+        }
+        
+        /**
+         * Only return the given fields. The sort field is always returned.
+         * @param fields the field names.
+         * @return a reference to this object.
+         */
+        public Builder withReturnFields(String... fields)
+        {
+            this.returnFields = new ArrayList<String>(Arrays.asList(fields));
+            return this;
+        }
+        
+        /**
+         * Set the number of documents requested per page.
+         * @param pageSize the number of documents per page.
+         * @return a reference to this object.
+         */
+        public Builder withPageSize(int pageSize)
+        {
+            if (pageSize < 1)
+            {
+                throw new IllegalArgumentException("pageSize must be at least 1");
+            }
+            this.pageSize = pageSize;
+            return this;
+        }
+        
+        /**
+         * Add a slice of the results to be paged concurrently.
+         * <p>
+         * Slices must be disjoint and together select every result.
+         * </p>
+         * @param filterQuery a filter query selecting the slice.
+         * @return a reference to this object.
+         */
+        public Builder addSlice(String filterQuery)
+        {
+            slices.add(filterQuery);
+            return this;
+        }
+        
+        /**
+         * Divide the results into slices by Yokozuna logical partition 
+         * number ({@code _yz_pn}), which ranges from 1 to the ring size.
+         * @param numSlices the number of slices.
+         * @param ringSize the ring size of the cluster.
+         * @return a reference to this object.
+         */
+        public Builder withPartitionSlices(int numSlices, int ringSize)
+        {
+            if (numSlices < 1 || numSlices > ringSize)
+            {
+                throw new IllegalArgumentException("numSlices must be between 1 and ringSize");
+            }
+            for (int i = 0; i < numSlices; i++)
+            {
+                int low = 1 + (int) ((long) ringSize * i / numSlices);
+                int high = (int) ((long) ringSize * (i + 1) / numSlices);
+                slices.add("_yz_pn:[" + low + " TO " + high + "]");
+            }
+            return this;
+        }
+        
+        /**
+         * Set the maximum number of slices paged at once.
+         * <p>
+         * Defaults to the number of slices.
+         * </p>
+         * @param maxConcurrency the max number of concurrent slices.
+         * @return a reference to this object.
+         */
+        public Builder withMaxConcurrency(int maxConcurrency)
+        {
+            if (maxConcurrency < 1)
+            {
+                throw new IllegalArgumentException("maxConcurrency must be at least 1");
+            }
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+        
+        /**
+         * Set the scheduling class used when this command is executed.
+         * <p>
+         * Only meaningful when the cluster has been built with an admission limit;
+         * see {@link SchedulingTag}.
+         * </p>
+         * @param tag the priority and tenant of this command.
+         * @return a reference to this object.
+         */
+        public Builder withSchedulingTag(SchedulingTag tag)
+        {
+            this.schedulingTag = tag;
+            return this;
+        }
+        
+        public SearchExport build()
+        {
+            return new SearchExport(this);
+        }
+    }
+}
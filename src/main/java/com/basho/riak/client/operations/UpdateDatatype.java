@@ -20,6 +20,7 @@ import com.basho.riak.client.operations.datatypes.DatatypeUpdate;
 import com.basho.riak.client.operations.datatypes.Context;
 import com.basho.riak.client.RiakCommand;
 import com.basho.riak.client.cap.Quorum;
+import com.basho.riak.client.core.SchedulingTag;
 import com.basho.riak.client.core.operations.DtUpdateOperation;
 import com.basho.riak.client.query.Location;
 import com.basho.riak.client.query.crdt.types.RiakDatatype;
@@ -42,6 +43,7 @@ public abstract class UpdateDatatype<T extends RiakDatatype,S,U> extends RiakCom
     @SuppressWarnings("unchecked")
     UpdateDatatype(Builder builder)
     {
+        super(builder.schedulingTag);
         this.loc = builder.loc;
         this.ctx = builder.ctx;
 	    this.options.putAll(builder.options);
@@ -120,6 +122,7 @@ public abstract class UpdateDatatype<T extends RiakDatatype,S,U> extends RiakCom
 		private final Location loc;
 		private Context ctx;
 		private Map<Option<?>, Object> options = new HashMap<Option<?>, Object>();
+		private SchedulingTag schedulingTag;
 
 		Builder(Location location)
 		{
@@ -161,6 +164,21 @@ public abstract class UpdateDatatype<T extends RiakDatatype,S,U> extends RiakCom
             return self();
         }
         
+		/**
+		 * Set the scheduling class used when this command is executed.
+		 * <p>
+		 * Only meaningful when the cluster has been built with an admission limit;
+		 * see {@link SchedulingTag}.
+		 * </p>
+		 * @param tag the priority and tenant of this command.
+		 * @return a reference to this object.
+		 */
+		public T withSchedulingTag(SchedulingTag tag)
+		{
+			this.schedulingTag = tag;
+			return self();
+		}
+
         protected abstract T self();
         protected abstract UpdateDatatype build();
     }
@@ -45,7 +45,7 @@ public class UpdateMap extends UpdateDatatype<RiakMap, UpdateMap.Response, Locat
     protected RiakFuture<Response, Location> executeAsync(RiakCluster cluster)
     {
         RiakFuture<DtUpdateOperation.Response, Location> coreFuture = 
-            cluster.execute(buildCoreOperation(update));
+            cluster.execute(buildCoreOperation(update), getSchedulingTag());
         
         CoreFutureAdapter<Response, Location, DtUpdateOperation.Response, Location> future =
             new CoreFutureAdapter<Response, Location, DtUpdateOperation.Response, Location>(coreFuture)
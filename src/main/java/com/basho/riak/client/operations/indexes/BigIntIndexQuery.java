@@ -18,12 +18,15 @@ package com.basho.riak.client.operations.indexes;
 
 import com.basho.riak.client.core.RiakCluster;
 import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.StreamingIterator;
 import com.basho.riak.client.core.operations.SecondaryIndexQueryOperation;
+import com.basho.riak.client.operations.CompletedFuture;
 import com.basho.riak.client.operations.CoreFutureAdapter;
 import com.basho.riak.client.query.Location;
 import com.basho.riak.client.util.BinaryValue;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -49,7 +52,8 @@ public class BigIntIndexQuery extends SecondaryIndexQuery<BigInteger, BigIntInde
             public BigInteger convert(BinaryValue input)
             {
                 // Riak. US_ASCII string instead of integer
-                return new BigInteger(input.toStringUtf8());
+                Long value = parseDecimal(input);
+                return value != null ? BigInteger.valueOf(value) : new BigInteger(input.toStringUtf8());
             }
 
             @Override
@@ -63,6 +67,12 @@ public class BigIntIndexQuery extends SecondaryIndexQuery<BigInteger, BigIntInde
     @Override
     protected RiakFuture<Response, BigIntIndexQuery> executeAsync(RiakCluster cluster)
     {
+        if (streaming)
+        {
+            return new CompletedFuture<Response, BigIntIndexQuery>(
+                createStreamingResponse(executeStreamingAsync(cluster)), this);
+        }
+        
         RiakFuture<SecondaryIndexQueryOperation.Response, SecondaryIndexQueryOperation.Query> coreFuture =
             executeCoreAsync(cluster);
         
@@ -72,6 +82,12 @@ public class BigIntIndexQuery extends SecondaryIndexQuery<BigInteger, BigIntInde
             
     }
     
+    @Override
+    protected Response createStreamingResponse(StreamingIterator<SecondaryIndexQueryOperation.Response.Entry> entries)
+    {
+        return new Response(location, entries, converter);
+    }
+
     protected final class BigIntQueryFuture extends CoreFutureAdapter<Response, BigIntIndexQuery, SecondaryIndexQueryOperation.Response, SecondaryIndexQueryOperation.Query>
     {
         public BigIntQueryFuture(RiakFuture<SecondaryIndexQueryOperation.Response, SecondaryIndexQueryOperation.Query> coreFuture)
@@ -137,22 +153,45 @@ public class BigIntIndexQuery extends SecondaryIndexQuery<BigInteger, BigIntInde
         }
     }
     
-    public static class Response extends SecondaryIndexQuery.Response<BigInteger>
+    public static class Response extends SecondaryIndexQuery.Response<BigInteger> implements Iterable<Response.Entry>
     {
         protected Response(Location queryLocation, SecondaryIndexQueryOperation.Response coreResponse, IndexConverter<BigInteger> converter)
         {
             super(queryLocation, coreResponse, converter);
         }
         
+        protected Response(Location queryLocation, StreamingIterator<SecondaryIndexQueryOperation.Response.Entry> streamed, IndexConverter<BigInteger> converter)
+        {
+            super(queryLocation, streamed, converter);
+        }
+        
+        /**
+         * Returns an iterator over the entries in this response.
+         * <p>
+         * If the query is streaming, this can only be called once.
+         * </p>
+         * @return an iterator over the entries.
+         */
+        @Override
+        public Iterator<Entry> iterator()
+        {
+            return new EntryIterator<Entry>()
+            {
+                @Override
+                protected Entry convert(SecondaryIndexQueryOperation.Response.Entry e)
+                {
+                    return new Entry(queryLocation, e, converter);
+                }
+            };
+        }
+        
         @Override
         public List<Entry> getEntries()
         {
-            List<Entry> convertedList = new ArrayList<Entry>();
-            for (SecondaryIndexQueryOperation.Response.Entry e : coreResponse.getEntryList())
+            List<Entry> convertedList = new ArrayList<Entry>(coreEntryList().size());
+            for (SecondaryIndexQueryOperation.Response.Entry e : coreEntryList())
             {
-                Location loc = getLocationFromCoreEntry(e);
-                Entry ce = new Entry(loc, e.getIndexKey(), converter);
-                convertedList.add(ce);
+                convertedList.add(new Entry(queryLocation, e, converter));
             }
             return convertedList;
         }
@@ -164,6 +203,11 @@ public class BigIntIndexQuery extends SecondaryIndexQuery<BigInteger, BigIntInde
                 super(riakObjectLocation, indexKey, converter);
             }
 
+            protected Entry(Location queryLocation, SecondaryIndexQueryOperation.Response.Entry coreEntry, IndexConverter<BigInteger> converter)
+            {
+                super(queryLocation, coreEntry, converter);
+            }
+
         }
     }
 }
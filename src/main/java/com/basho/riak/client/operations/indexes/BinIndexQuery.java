@@ -18,13 +18,16 @@ package com.basho.riak.client.operations.indexes;
 
 import com.basho.riak.client.core.RiakCluster;
 import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.StreamingIterator;
 import com.basho.riak.client.core.operations.SecondaryIndexQueryOperation;
+import com.basho.riak.client.operations.CompletedFuture;
 import com.basho.riak.client.operations.CoreFutureAdapter;
 import com.basho.riak.client.operations.indexes.SecondaryIndexQuery.IndexConverter;
 import com.basho.riak.client.query.Location;
 import com.basho.riak.client.util.BinaryValue;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -65,6 +68,12 @@ public class BinIndexQuery extends SecondaryIndexQuery<String, BinIndexQuery.Res
     @Override
     protected RiakFuture<Response, BinIndexQuery> executeAsync(RiakCluster cluster)
     {
+        if (streaming)
+        {
+            return new CompletedFuture<Response, BinIndexQuery>(
+                createStreamingResponse(executeStreamingAsync(cluster)), this);
+        }
+        
         RiakFuture<SecondaryIndexQueryOperation.Response, SecondaryIndexQueryOperation.Query> coreFuture =
             executeCoreAsync(cluster);
         
@@ -73,6 +82,12 @@ public class BinIndexQuery extends SecondaryIndexQuery<String, BinIndexQuery.Res
         return future;
     }
 
+    @Override
+    protected Response createStreamingResponse(StreamingIterator<SecondaryIndexQueryOperation.Response.Entry> entries)
+    {
+        return new Response(location, entries, converter);
+    }
+
     protected final class BinQueryFuture extends CoreFutureAdapter<Response, BinIndexQuery, SecondaryIndexQueryOperation.Response, SecondaryIndexQueryOperation.Query>
     {
         public BinQueryFuture(RiakFuture<SecondaryIndexQueryOperation.Response, SecondaryIndexQueryOperation.Query> coreFuture)
@@ -141,22 +156,45 @@ public class BinIndexQuery extends SecondaryIndexQuery<String, BinIndexQuery.Res
 
     }
     
-    public static class Response extends SecondaryIndexQuery.Response<String>
+    public static class Response extends SecondaryIndexQuery.Response<String> implements Iterable<Response.Entry>
     {
         protected Response(Location queryLocation, SecondaryIndexQueryOperation.Response coreResponse, IndexConverter<String> converter)
         {
             super(queryLocation, coreResponse, converter);
         }
         
+        protected Response(Location queryLocation, StreamingIterator<SecondaryIndexQueryOperation.Response.Entry> streamed, IndexConverter<String> converter)
+        {
+            super(queryLocation, streamed, converter);
+        }
+        
+        /**
+         * Returns an iterator over the entries in this response.
+         * <p>
+         * If the query is streaming, this can only be called once.
+         * </p>
+         * @return an iterator over the entries.
+         */
+        @Override
+        public Iterator<Entry> iterator()
+        {
+            return new EntryIterator<Entry>()
+            {
+                @Override
+                protected Entry convert(SecondaryIndexQueryOperation.Response.Entry e)
+                {
+                    return new Entry(queryLocation, e, converter);
+                }
+            };
+        }
+        
         @Override
         public List<Entry> getEntries()
         {
-            List<Entry> convertedList = new ArrayList<Entry>();
-            for (SecondaryIndexQueryOperation.Response.Entry e : coreResponse.getEntryList())
+            List<Entry> convertedList = new ArrayList<Entry>(coreEntryList().size());
+            for (SecondaryIndexQueryOperation.Response.Entry e : coreEntryList())
             {
-                Location loc = getLocationFromCoreEntry(e);
-                Entry ce = new Entry(loc, e.getIndexKey(), converter);
-                convertedList.add(ce);
+                convertedList.add(new Entry(queryLocation, e, converter));
             }
             return convertedList;
         }
@@ -168,6 +206,11 @@ public class BinIndexQuery extends SecondaryIndexQuery<String, BinIndexQuery.Res
                 super(riakObjectLocation, indexKey, converter);
             }
 
+            protected Entry(Location queryLocation, SecondaryIndexQueryOperation.Response.Entry coreEntry, IndexConverter<String> converter)
+            {
+                super(queryLocation, coreEntry, converter);
+            }
+
         }
     }
 }
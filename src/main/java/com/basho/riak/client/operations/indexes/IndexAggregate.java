@@ -0,0 +1,673 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.operations.indexes;
+
+import com.basho.riak.client.RiakClient;
+import com.basho.riak.client.RiakCommand;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.RiakFutureListener;
+import com.basho.riak.client.core.StreamingIterator;
+import com.basho.riak.client.core.operations.SecondaryIndexQueryOperation;
+import com.basho.riak.client.operations.ListenableFuture;
+import com.basho.riak.client.operations.mapreduce.IndexMapReduce;
+import com.basho.riak.client.operations.mapreduce.MapReduce;
+import com.basho.riak.client.query.functions.Function;
+import com.basho.riak.client.util.BinaryValue;
+import com.basho.riak.client.util.HyperLogLog;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command used to compute aggregates over the results of a 2i query without 
+ * materialising them.
+ * <p>
+ * The query is streamed, following continuations, and each entry is folded 
+ * into the requested aggregates as it arrives; only the aggregates are kept
+ * in memory. The entry count is always computed. Optionally:
+ * </p>
+ * <ul>
+ * <li>the number of distinct object keys and/or terms, estimated with a 
+ * {@link HyperLogLog}</li>
+ * <li>the minimum and maximum term</li>
+ * <li>a histogram of terms, optionally grouped into bins</li>
+ * </ul>
+ * <p>
+ * Aggregates over terms require a query that returns them 
+ * ({@code withKeyAndIndex(true)}). Terms are ordered numerically for 
+ * {@code _int} queries and by unsigned byte value for {@link BinaryValue}s.
+ * </p>
+ * <p>
+ * If only the count is needed it can instead be computed by Riak using a 
+ * MapReduce job over the index with a {@code riak_kv_mapreduce:reduce_count_inputs}
+ * reduce phase, see {@link Builder#withMapReduce(boolean)}; the objects 
+ * themselves are not fetched and only the count is returned to the client.
+ * </p>
+ * <pre>
+ * {@code
+ * IntIndexQuery query = new IntIndexQuery.Builder(location, "age", 18L, 65L)
+ *                          .withKeyAndIndex(true)
+ *                          .build();
+ * IndexAggregate<Long> agg = new IndexAggregate.Builder<Long>(query)
+ *                                .withMinMax(true)
+ *                                .withHistogram(IndexAggregate.linearBins(10))
+ *                                .build();
+ * IndexAggregate.Response<Long> resp = client.execute(agg);
+ * }
+ * </pre>
+ * @param <T> the type of the index terms.
+ * @since 2.0
+ */
+public final class IndexAggregate<T> extends RiakCommand<IndexAggregate.Response<T>, IndexAggregate<T>>
+{
+    private final SecondaryIndexQuery<T, ?, ?> query;
+    private final boolean distinctKeys;
+    private final boolean distinctTerms;
+    private final int precision;
+    private final boolean minMax;
+    private final Binner<T> binner;
+    private final boolean mapReduce;
+    
+    private IndexAggregate(Builder<T> builder)
+    {
+        super(builder.query.getSchedulingTag());
+        this.query = builder.query;
+        this.distinctKeys = builder.distinctKeys;
+        this.distinctTerms = builder.distinctTerms;
+        this.precision = builder.precision;
+        this.minMax = builder.minMax;
+        this.binner = builder.binner;
+        this.mapReduce = builder.mapReduce;
+    }
+    
+    /**
+     * Get the query being aggregated.
+     * @return the query.
+     */
+    public SecondaryIndexQuery<T, ?, ?> getQuery()
+    {
+        return query;
+    }
+    
+    @Override
+    protected RiakFuture<Response<T>, IndexAggregate<T>> executeAsync(RiakCluster cluster)
+    {
+        final AggregateFuture future = new AggregateFuture();
+        if (mapReduce)
+        {
+            executeMapReduce(cluster, future);
+        }
+        else
+        {
+            final StreamingIterator<SecondaryIndexQueryOperation.Response.Entry> entries = 
+                query.executeStreamingAsync(cluster);
+            future.entries = entries;
+            Thread reducer = new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        future.complete(reduce(entries, future), null);
+                    }
+                    catch (RuntimeException e)
+                    {
+                        entries.close();
+                        future.complete(null, e);
+                    }
+                }
+            }, "riak-index-aggregate");
+            reducer.setDaemon(true);
+            reducer.start();
+        }
+        return future;
+    }
+    
+    private Response<T> reduce(Iterator<SecondaryIndexQueryOperation.Response.Entry> entries, 
+                               AggregateFuture future)
+    {
+        SecondaryIndexQuery.IndexConverter<T> converter = query.getConverter();
+        Comparator<T> comparator = termComparator();
+        Response<T> response = new Response<T>(distinctKeys ? new HyperLogLog(precision) : null,
+                                               distinctTerms ? new HyperLogLog(precision) : null,
+                                               binner != null ? new TreeMap<T, Long>(comparator) : null);
+        boolean needTerm = minMax || binner != null;
+        while (!future.isCancelled() && entries.hasNext())
+        {
+            SecondaryIndexQueryOperation.Response.Entry entry = entries.next();
+            response.count++;
+            if (response.distinctKeys != null)
+            {
+                response.distinctKeys.add(entry.getObjectKey());
+            }
+            if (response.distinctTerms != null)
+            {
+                response.distinctTerms.add(entry.getIndexKey());
+            }
+            if (needTerm)
+            {
+                T term = converter.convert(entry.getIndexKey());
+                if (minMax)
+                {
+                    if (response.min == null || comparator.compare(term, response.min) < 0)
+                    {
+                        response.min = term;
+                    }
+                    if (response.max == null || comparator.compare(term, response.max) > 0)
+                    {
+                        response.max = term;
+                    }
+                }
+                if (binner != null)
+                {
+                    T bin = binner.bin(term);
+                    Long count = response.histogram.get(bin);
+                    response.histogram.put(bin, count == null ? 1L : count + 1);
+                }
+            }
+        }
+        return response;
+    }
+    
+    private void executeMapReduce(RiakCluster cluster, final AggregateFuture future)
+    {
+        SecondaryIndexQuery.IndexConverter<T> converter = query.getConverter();
+        boolean numeric = query.getIndexName().endsWith(SecondaryIndexQuery.Type._INT.toString());
+        // Terms travel as JSON strings, which Riak decodes as UTF-8
+        IndexMapReduce.Builder builder = new IndexMapReduce.Builder()
+            .withLocation(query.getLocation())
+            .withIndex(query.getIndexName())
+            .withReducePhase(Function.newErlangFunction("riak_kv_mapreduce", "reduce_count_inputs"), true)
+            .withSchedulingTag(getSchedulingTag());
+        if (query.getMatchValue() != null)
+        {
+            String match = converter.convert(query.getMatchValue()).toStringUtf8();
+            if (numeric)
+            {
+                builder.withMatchValue(Long.parseLong(match));
+            }
+            else
+            {
+                builder.withMatchValue(match);
+            }
+        }
+        else
+        {
+            String start = converter.convert(query.getRangeStart()).toStringUtf8();
+            String end = converter.convert(query.getRangeEnd()).toStringUtf8();
+            if (numeric)
+            {
+                builder.withRange(Long.parseLong(start), Long.parseLong(end));
+            }
+            else
+            {
+                builder.withRange(start, end);
+            }
+        }
+        if (query.getTimeout() != null)
+        {
+            builder.timeout(query.getTimeout());
+        }
+        
+        RiakFuture<MapReduce.Response, BinaryValue> mrFuture = 
+            new RiakClient(cluster).executeAsync(builder.build());
+        mrFuture.addListener(new RiakFutureListener<MapReduce.Response, BinaryValue>()
+        {
+            @Override
+            public void handle(RiakFuture<MapReduce.Response, BinaryValue> f)
+            {
+                if (!f.isSuccess())
+                {
+                    future.complete(null, f.cause());
+                    return;
+                }
+                try
+                {
+                    Response<T> response = new Response<T>(null, null, null);
+                    MapReduce.Response mrResponse = f.get();
+                    if (mrResponse.hasResultForPhase(0))
+                    {
+                        ArrayNode result = mrResponse.getResultForPhase(0);
+                        for (int i = 0; i < result.size(); i++)
+                        {
+                            response.count += result.get(i).asLong();
+                        }
+                    }
+                    future.complete(response, null);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    future.complete(null, e);
+                }
+                catch (RuntimeException e)
+                {
+                    future.complete(null, e);
+                }
+            }
+        });
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Comparator<T> termComparator()
+    {
+        return (Comparator<T>) TERM_ORDER;
+    }
+    
+    private static final Comparator<Object> TERM_ORDER = new Comparator<Object>()
+    {
+        @Override
+        @SuppressWarnings("unchecked")
+        public int compare(Object o1, Object o2)
+        {
+            if (o1 instanceof BinaryValue)
+            {
+                byte[] a = ((BinaryValue) o1).unsafeGetValue();
+                byte[] b = ((BinaryValue) o2).unsafeGetValue();
+                int length = Math.min(a.length, b.length);
+                for (int i = 0; i < length; i++)
+                {
+                    int diff = (a[i] & 0xff) - (b[i] & 0xff);
+                    if (diff != 0)
+                    {
+                        return diff;
+                    }
+                }
+                return a.length - b.length;
+            }
+            return ((Comparable<Object>) o1).compareTo(o2);
+        }
+    };
+    
+    /**
+     * Maps a term to the histogram bin it is counted in.
+     * @param <T> the type of the index terms.
+     */
+    public interface Binner<T>
+    {
+        /**
+         * Return the bin for a term.
+         * @param term the term.
+         * @return the (lowest term of the) bin.
+         */
+        T bin(T term);
+    }
+    
+    /**
+     * Returns a Binner that groups {@code _int} terms into bins of a fixed
+     * width, each identified by its lowest value.
+     * @param width the width of each bin.
+     * @return a Binner for Long terms.
+     */
+    public static Binner<Long> linearBins(final long width)
+    {
+        if (width < 1)
+        {
+            throw new IllegalArgumentException("width must be at least 1");
+        }
+        return new Binner<Long>()
+        {
+            @Override
+            public Long bin(Long term)
+            {
+                long t = term;
+                long bin = t / width * width;
+                // Integer division truncates towards zero
+                return bin > t ? bin - width : bin;
+            }
+        };
+    }
+    
+    private class AggregateFuture extends ListenableFuture<Response<T>, IndexAggregate<T>>
+    {
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile Response<T> response;
+        private volatile Throwable cause;
+        private volatile boolean cancelled;
+        // The streamed entries being reduced, closed on cancel
+        private volatile StreamingIterator<?> entries;
+        
+        void complete(Response<T> response, Throwable cause)
+        {
+            if (latch.getCount() == 0)
+            {
+                return;
+            }
+            this.response = response;
+            this.cause = cause;
+            latch.countDown();
+            notifyListeners();
+        }
+        
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning)
+        {
+            if (isDone())
+            {
+                return false;
+            }
+            cancelled = true;
+            StreamingIterator<?> e = entries;
+            if (e != null)
+            {
+                e.close();
+            }
+            complete(null, new CancellationException());
+            return true;
+        }
+
+        @Override
+        public Response<T> get() throws InterruptedException
+        {
+            latch.await();
+            return response;
+        }
+
+        @Override
+        public Response<T> get(long timeout, TimeUnit unit) throws InterruptedException
+        {
+            latch.await(timeout, unit);
+            return response;
+        }
+
+        @Override
+        public boolean isCancelled()
+        {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone()
+        {
+            return latch.getCount() == 0;
+        }
+
+        @Override
+        public void await() throws InterruptedException
+        {
+            latch.await();
+        }
+
+        @Override
+        public void await(long timeout, TimeUnit unit) throws InterruptedException
+        {
+            latch.await(timeout, unit);
+        }
+
+        @Override
+        public boolean isSuccess()
+        {
+            return isDone() && cause == null;
+        }
+
+        @Override
+        public Throwable cause()
+        {
+            return cause;
+        }
+
+        @Override
+        public IndexAggregate<T> getQueryInfo()
+        {
+            return IndexAggregate.this;
+        }
+    }
+    
+    /**
+     * The aggregates computed over a 2i query.
+     * @param <T> the type of the index terms.
+     */
+    public static class Response<T>
+    {
+        private long count;
+        private final HyperLogLog distinctKeys;
+        private final HyperLogLog distinctTerms;
+        private T min;
+        private T max;
+        private final SortedMap<T, Long> histogram;
+        
+        Response(HyperLogLog distinctKeys, HyperLogLog distinctTerms, SortedMap<T, Long> histogram)
+        {
+            this.distinctKeys = distinctKeys;
+            this.distinctTerms = distinctTerms;
+            this.histogram = histogram;
+        }
+        
+        /**
+         * Returns the number of entries the query returned.
+         * @return the count.
+         */
+        public long getCount()
+        {
+            return count;
+        }
+        
+        /**
+         * Returns the estimated number of distinct object keys.
+         * @return the estimate, or null if not requested.
+         */
+        public Long getDistinctKeys()
+        {
+            return distinctKeys == null ? null : distinctKeys.estimate();
+        }
+        
+        /**
+         * Returns the estimated number of distinct terms.
+         * @return the estimate, or null if not requested.
+         */
+        public Long getDistinctTerms()
+        {
+            return distinctTerms == null ? null : distinctTerms.estimate();
+        }
+        
+        /**
+         * Returns the smallest term.
+         * @return the term, or null if not requested or there were no entries.
+         */
+        public T getMinTerm()
+        {
+            return min;
+        }
+        
+        /**
+         * Returns the largest term.
+         * @return the term, or null if not requested or there were no entries.
+         */
+        public T getMaxTerm()
+        {
+            return max;
+        }
+        
+        /**
+         * Returns the number of entries in each bin, in term order.
+         * @return an unmodifiable histogram, or null if not requested.
+         */
+        public SortedMap<T, Long> getHistogram()
+        {
+            return histogram == null ? null : Collections.unmodifiableSortedMap(histogram);
+        }
+    }
+    
+    /**
+     * Used to construct an IndexAggregate.
+     * @param <T> the type of the index terms.
+     */
+    public static class Builder<T>
+    {
+        private final SecondaryIndexQuery<T, ?, ?> query;
+        private boolean distinctKeys;
+        private boolean distinctTerms;
+        private int precision = HyperLogLog.DEFAULT_PRECISION;
+        private boolean minMax;
+        private Binner<T> binner;
+        private boolean mapReduce;
+        
+        /**
+         * Construct a builder for the given query.
+         * @param query the query whose results are aggregated.
+         * @throws IllegalArgumentException if the query has a continuation.
+         */
+        public Builder(SecondaryIndexQuery<T, ?, ?> query)
+        {
+            if (query.getContinuation() != null)
+            {
+                throw new IllegalArgumentException("Cannot aggregate a query with a continuation");
+            }
+            this.query = query;
+        }
+        
+        /**
+         * Estimate the number of distinct object keys.
+         * <p>
+         * Useful when an object has several values in a range query's index.
+         * </p>
+         * @param distinctKeys true to estimate distinct keys.
+         * @return a reference to this object.
+         */
+        public Builder<T> withDistinctKeys(boolean distinctKeys)
+        {
+            this.distinctKeys = distinctKeys;
+            return this;
+        }
+        
+        /**
+         * Estimate the number of distinct terms.
+         * @param distinctTerms true to estimate distinct terms.
+         * @return a reference to this object.
+         */
+        public Builder<T> withDistinctTerms(boolean distinctTerms)
+        {
+            this.distinctTerms = distinctTerms;
+            return this;
+        }
+        
+        /**
+         * Set the precision of the distinct count estimates.
+         * <p>
+         * Defaults to {@link HyperLogLog#DEFAULT_PRECISION}.
+         * </p>
+         * @param precision the HyperLogLog precision.
+         * @return a reference to this object.
+         */
+        public Builder<T> withPrecision(int precision)
+        {
+            if (precision < HyperLogLog.MIN_PRECISION || precision > HyperLogLog.MAX_PRECISION)
+            {
+                throw new IllegalArgumentException("precision must be between " 
+                    + HyperLogLog.MIN_PRECISION + " and " + HyperLogLog.MAX_PRECISION);
+            }
+            this.precision = precision;
+            return this;
+        }
+        
+        /**
+         * Compute the minimum and maximum term.
+         * @param minMax true to compute min and max.
+         * @return a reference to this object.
+         */
+        public Builder<T> withMinMax(boolean minMax)
+        {
+            this.minMax = minMax;
+            return this;
+        }
+        
+        /**
+         * Count the entries for each distinct term.
+         * <p>
+         * The histogram holds one count per distinct term; use 
+         * {@link #withHistogram(Binner)} for indexes with many terms.
+         * </p>
+         * @return a reference to this object.
+         */
+        public Builder<T> withHistogram()
+        {
+            return withHistogram(new Binner<T>()
+            {
+                @Override
+                public T bin(T term)
+                {
+                    return term;
+                }
+            });
+        }
+        
+        /**
+         * Count the entries in each bin of terms.
+         * @param binner maps each term to its bin.
+         * @return a reference to this object.
+         */
+        public Builder<T> withHistogram(Binner<T> binner)
+        {
+            if (binner == null)
+            {
+                throw new IllegalArgumentException("binner cannot be null");
+            }
+            this.binner = binner;
+            return this;
+        }
+        
+        /**
+         * Compute the count in Riak using MapReduce.
+         * <p>
+         * The query's index and range (or match) are used as the MapReduce 
+         * input with a single {@code reduce_count_inputs} phase. Only the 
+         * count can be computed this way, and not for a {@link BigIntIndexQuery}
+         * since MapReduce index inputs are limited to long values.
+         * </p>
+         * @param mapReduce true to count using MapReduce.
+         * @return a reference to this object.
+         */
+        public Builder<T> withMapReduce(boolean mapReduce)
+        {
+            this.mapReduce = mapReduce;
+            return this;
+        }
+        
+        /**
+         * Construct the IndexAggregate.
+         * @return a new IndexAggregate
+         * @throws IllegalStateException if the requested aggregates need 
+         * terms the query doesn't return, or can't be computed by MapReduce.
+         * @throws IllegalArgumentException if MapReduce is requested for a 
+         * {@link BigIntIndexQuery}.
+         */
+        public IndexAggregate<T> build()
+        {
+            boolean needTerms = distinctTerms || minMax || binner != null;
+            if (mapReduce && (needTerms || distinctKeys))
+            {
+                throw new IllegalStateException("Only the count can be computed using MapReduce");
+            }
+            if (mapReduce && query instanceof BigIntIndexQuery)
+            {
+                throw new IllegalArgumentException("BigInt index queries can not be counted using MapReduce");
+            }
+            if (needTerms && !query.getReturnKeyAndIndex())
+            {
+                throw new IllegalStateException("Aggregating terms requires a query with withKeyAndIndex(true)");
+            }
+            return new IndexAggregate<T>(this);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.operations.indexes;
+
+import com.basho.riak.client.util.BinaryValue;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Splits a 2i range into contiguous, non-overlapping, inclusive sub-ranges.
+ * 
+ * @since 2.0
+ */
+final class IndexRangeSplitter
+{
+    // Split points are computed over at most this many leading bytes
+    private static final int MAX_SPLIT_KEY_LENGTH = 16;
+    
+    private IndexRangeSplitter() {}
+    
+    /**
+     * Split a range of decimal integers evenly.
+     * @param start the inclusive start of the range.
+     * @param end the inclusive end of the range.
+     * @param splits the number of sub-ranges wanted.
+     * @return the sub-ranges, in order.
+     */
+    static List<Range> splitNumeric(BinaryValue start, BinaryValue end, int splits)
+    {
+        BigInteger low = new BigInteger(start.toString());
+        BigInteger high = new BigInteger(end.toString());
+        BigInteger width = high.subtract(low).add(BigInteger.ONE);
+        
+        if (splits < 2 || width.compareTo(BigInteger.valueOf(2)) < 0)
+        {
+            return Collections.singletonList(new Range(start, end));
+        }
+        
+        int n = width.min(BigInteger.valueOf(splits)).intValue();
+        BigInteger parts = BigInteger.valueOf(n);
+        List<Range> ranges = new ArrayList<Range>(n);
+        BigInteger rangeStart = low;
+        for (int i = 1; i <= n; i++)
+        {
+            BigInteger next = low.add(width.multiply(BigInteger.valueOf(i)).divide(parts));
+            ranges.add(new Range(BinaryValue.create(rangeStart.toString()),
+                                 BinaryValue.create(next.subtract(BigInteger.ONE).toString())));
+            rangeStart = next;
+        }
+        return ranges;
+    }
+    
+    /**
+     * Split a range of byte strings by interpolating between the start and 
+     * end as big-endian numbers.
+     * <p>
+     * Each sub-range after the first starts at the immediate lexicographic 
+     * successor of the previous split point (the split point followed by a
+     * zero byte) so every key in the original range falls in exactly one 
+     * sub-range. 
+     * </p>
+     * @param start the inclusive start of the range.
+     * @param end the inclusive end of the range.
+     * @param splits the number of sub-ranges wanted.
+     * @return the sub-ranges, in order.
+     */
+    static List<Range> splitLexicographic(BinaryValue start, BinaryValue end, int splits)
+    {
+        int length = Math.min(MAX_SPLIT_KEY_LENGTH, Math.max(start.length(), end.length()));
+        // Padding the start with zeros can only increase it, truncating the 
+        // end can only decrease it, so every split point lies within the range
+        BigInteger low = new BigInteger(1, Arrays.copyOf(start.unsafeGetValue(), length));
+        BigInteger high = new BigInteger(1, Arrays.copyOf(end.unsafeGetValue(), length));
+        
+        if (splits < 2 || high.compareTo(low) <= 0)
+        {
+            return Collections.singletonList(new Range(start, end));
+        }
+        
+        BigInteger width = high.subtract(low);
+        BigInteger parts = BigInteger.valueOf(splits);
+        List<Range> ranges = new ArrayList<Range>(splits);
+        BinaryValue rangeStart = start;
+        BigInteger previous = null;
+        for (int i = 1; i < splits; i++)
+        {
+            BigInteger point = low.add(width.multiply(BigInteger.valueOf(i)).divide(parts));
+            if (point.equals(previous) || point.equals(low) || point.equals(high))
+            {
+                continue;
+            }
+            previous = point;
+            byte[] splitKey = toBytes(point, length);
+            ranges.add(new Range(rangeStart, BinaryValue.unsafeCreate(splitKey)));
+            rangeStart = BinaryValue.unsafeCreate(Arrays.copyOf(splitKey, length + 1));
+        }
+        ranges.add(new Range(rangeStart, end));
+        return ranges;
+    }
+    
+    private static byte[] toBytes(BigInteger value, int length)
+    {
+        byte[] bytes = value.toByteArray();
+        byte[] fixed = new byte[length];
+        // toByteArray() may have a leading sign byte or be shorter than length
+        int copy = Math.min(bytes.length, length);
+        System.arraycopy(bytes, bytes.length - copy, fixed, length - copy, copy);
+        return fixed;
+    }
+    
+    /**
+     * An inclusive range of index keys.
+     */
+    static final class Range
+    {
+        private final BinaryValue start;
+        private final BinaryValue end;
+        
+        Range(BinaryValue start, BinaryValue end)
+        {
+            this.start = start;
+            this.end = end;
+        }
+        
+        BinaryValue getStart()
+        {
+            return start;
+        }
+        
+        BinaryValue getEnd()
+        {
+            return end;
+        }
+        
+        @Override
+        public String toString()
+        {
+            return "[" + start + ", " + end + "]";
+        }
+    }
+}
@@ -18,11 +18,14 @@ package com.basho.riak.client.operations.indexes;
 
 import com.basho.riak.client.core.RiakCluster;
 import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.StreamingIterator;
 import com.basho.riak.client.core.operations.SecondaryIndexQueryOperation;
+import com.basho.riak.client.operations.CompletedFuture;
 import com.basho.riak.client.operations.CoreFutureAdapter;
 import com.basho.riak.client.query.Location;
 import com.basho.riak.client.util.BinaryValue;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -49,7 +52,8 @@ public class IntIndexQuery extends SecondaryIndexQuery<Long, IntIndexQuery.Respo
             public Long convert(BinaryValue input)
             {
                 // Riak. US_ASCII string instead of integer
-                return Long.valueOf(input.toStringUtf8());
+                Long value = parseDecimal(input);
+                return value != null ? value : Long.valueOf(input.toStringUtf8());
             }
 
             @Override
@@ -65,6 +69,12 @@ public class IntIndexQuery extends SecondaryIndexQuery<Long, IntIndexQuery.Respo
     @Override
     protected RiakFuture<Response, IntIndexQuery> executeAsync(RiakCluster cluster)
     {
+        if (streaming)
+        {
+            return new CompletedFuture<Response, IntIndexQuery>(
+                createStreamingResponse(executeStreamingAsync(cluster)), this);
+        }
+        
         RiakFuture<SecondaryIndexQueryOperation.Response, SecondaryIndexQueryOperation.Query> coreFuture =
             executeCoreAsync(cluster);
         
@@ -74,6 +84,12 @@ public class IntIndexQuery extends SecondaryIndexQuery<Long, IntIndexQuery.Respo
             
     }
 
+    @Override
+    protected Response createStreamingResponse(StreamingIterator<SecondaryIndexQueryOperation.Response.Entry> entries)
+    {
+        return new Response(location, entries, converter);
+    }
+
     protected final class IntQueryFuture extends CoreFutureAdapter<Response, IntIndexQuery, SecondaryIndexQueryOperation.Response, SecondaryIndexQueryOperation.Query>
     {
         public IntQueryFuture(RiakFuture<SecondaryIndexQueryOperation.Response, SecondaryIndexQueryOperation.Query> coreFuture)
@@ -139,22 +155,45 @@ public class IntIndexQuery extends SecondaryIndexQuery<Long, IntIndexQuery.Respo
         }
     }
     
-    public static class Response extends SecondaryIndexQuery.Response<Long>
+    public static class Response extends SecondaryIndexQuery.Response<Long> implements Iterable<Response.Entry>
     {
         protected Response(Location queryLocation, SecondaryIndexQueryOperation.Response coreResponse, IndexConverter<Long> converter)
         {
             super(queryLocation, coreResponse, converter);
         }
         
+        protected Response(Location queryLocation, StreamingIterator<SecondaryIndexQueryOperation.Response.Entry> streamed, IndexConverter<Long> converter)
+        {
+            super(queryLocation, streamed, converter);
+        }
+        
+        /**
+         * Returns an iterator over the entries in this response.
+         * <p>
+         * If the query is streaming, this can only be called once.
+         * </p>
+         * @return an iterator over the entries.
+         */
+        @Override
+        public Iterator<Entry> iterator()
+        {
+            return new EntryIterator<Entry>()
+            {
+                @Override
+                protected Entry convert(SecondaryIndexQueryOperation.Response.Entry e)
+                {
+                    return new Entry(queryLocation, e, converter);
+                }
+            };
+        }
+        
         @Override
         public List<Entry> getEntries()
         {
-            List<Entry> convertedList = new ArrayList<Entry>();
-            for (SecondaryIndexQueryOperation.Response.Entry e : coreResponse.getEntryList())
+            List<Entry> convertedList = new ArrayList<Entry>(coreEntryList().size());
+            for (SecondaryIndexQueryOperation.Response.Entry e : coreEntryList())
             {
-                Location loc = getLocationFromCoreEntry(e);
-                Entry ce = new Entry(loc, e.getIndexKey(), converter);
-                convertedList.add(ce);
+                convertedList.add(new Entry(queryLocation, e, converter));
             }
             return convertedList;
         }
@@ -166,6 +205,11 @@ public class IntIndexQuery extends SecondaryIndexQuery<Long, IntIndexQuery.Respo
                 super(riakObjectLocation, indexKey, converter);
             }
 
+            protected Entry(Location queryLocation, SecondaryIndexQueryOperation.Response.Entry coreEntry, IndexConverter<Long> converter)
+            {
+                super(queryLocation, coreEntry, converter);
+            }
+
         }
     }
 }
@@ -0,0 +1,315 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.operations.indexes;
+
+import com.basho.riak.client.RiakCommand;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.StreamingIterator;
+import com.basho.riak.client.core.operations.SecondaryIndexQueryOperation;
+import com.basho.riak.client.operations.CompletedFuture;
+import com.basho.riak.client.operations.MergingIterator;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Command used to execute a 2i range query as a set of concurrent sub-range 
+ * queries.
+ * <p>
+ * A single 2i range query is coordinated by one node and its results 
+ * returned over one connection. ParallelIndexQuery splits the range of an 
+ * {@link IntIndexQuery}, {@link BigIntIndexQuery} or {@link BinIndexQuery} 
+ * into contiguous sub-ranges ({@code _int} indexes numerically, {@code _bin}
+ * indexes lexicographically) and streams each of them, keeping up to 
+ * {@code maxConcurrency} in progress at once. Each is dispatched separately 
+ * so they are spread across the cluster's nodes. 
+ * </p>
+ * <p>
+ * The result is a streaming response of the same type the original query 
+ * returns. If ordered (the default) the entries of each sub-range are 
+ * returned in turn, so results are in the same order a single query would 
+ * return them; later sub-ranges are fetched concurrently but only buffered 
+ * up to the query's {@code maxBufferedChunks}. If unordered, entries are 
+ * returned as soon as any sub-range delivers them.
+ * </p>
+ * <pre>
+ * {@code
+ * BinIndexQuery query = new BinIndexQuery.Builder(location, "email", "a", "z")
+ *                          .withMaxResults(1000)
+ *                          .withPaginationSort(true)
+ *                          .build();
+ * ParallelIndexQuery<BinIndexQuery.Response> pq = 
+ *     new ParallelIndexQuery.Builder<BinIndexQuery.Response>(query)
+ *         .withSplits(8)
+ *         .withMaxConcurrency(4)
+ *         .build();
+ * for (BinIndexQuery.Response.Entry e : client.execute(pq))
+ * {
+ *     ...
+ * }
+ * }
+ * </pre>
+ * <p>
+ * If the original query has a {@code maxResults} it applies to each page of 
+ * each sub-range; the continuations are followed automatically.
+ * </p>
+ * @param <S> the response type of the split query.
+ * @since 2.0
+ */
+public final class ParallelIndexQuery<S> extends RiakCommand<S, ParallelIndexQuery<S>>
+{
+    // Capacity, in entries, of the merge buffer used when unordered
+    static final int UNORDERED_BUFFER_SIZE = 1024;
+    
+    private final SecondaryIndexQuery<?, S, ?> query;
+    private final int splits;
+    private final int maxConcurrency;
+    private final boolean ordered;
+    
+    private ParallelIndexQuery(Builder<S> builder)
+    {
+        super(builder.query.getSchedulingTag());
+        this.query = builder.query;
+        this.splits = builder.splits;
+        this.maxConcurrency = builder.maxConcurrency;
+        this.ordered = builder.ordered;
+    }
+    
+    /**
+     * Get the query being split.
+     * @return the original query.
+     */
+    public SecondaryIndexQuery<?, S, ?> getQuery()
+    {
+        return query;
+    }
+    
+    @Override
+    protected RiakFuture<S, ParallelIndexQuery<S>> executeAsync(RiakCluster cluster)
+    {
+        int nodes = Math.max(1, cluster.getNodes().size());
+        int numSplits = splits > 0 ? splits : nodes;
+        int concurrency = maxConcurrency > 0 ? maxConcurrency : Math.min(numSplits, nodes);
+        
+        List<IndexRangeSplitter.Range> ranges = query.splitRange(numSplits);
+        StreamingIterator<SecondaryIndexQueryOperation.Response.Entry> entries;
+        if (ordered)
+        {
+            entries = new OrderedIterator(cluster, ranges, concurrency);
+        }
+        else
+        {
+            entries = new MergingIterator<SecondaryIndexQueryOperation.Response.Entry>(
+                new RangeSource(cluster, ranges), Math.min(concurrency, ranges.size()), UNORDERED_BUFFER_SIZE);
+        }
+        return new CompletedFuture<S, ParallelIndexQuery<S>>(query.createStreamingResponse(entries), this);
+    }
+    
+    /**
+     * Used to construct a ParallelIndexQuery.
+     * @param <S> the response type of the split query.
+     */
+    public static class Builder<S>
+    {
+        private final SecondaryIndexQuery<?, S, ?> query;
+        private int splits;
+        private int maxConcurrency;
+        private boolean ordered = true;
+        
+        /**
+         * Construct a builder for the given range query.
+         * @param query the query to split.
+         * @throws IllegalArgumentException if the query is not a range query 
+         * or has a continuation.
+         */
+        public Builder(SecondaryIndexQuery<?, S, ?> query)
+        {
+            if (query.getMatchValue() != null)
+            {
+                throw new IllegalArgumentException("Only range queries can be split");
+            }
+            if (query.getContinuation() != null)
+            {
+                throw new IllegalArgumentException("Cannot split a query with a continuation");
+            }
+            this.query = query;
+        }
+        
+        /**
+         * Set the number of sub-ranges to split the query into.
+         * <p>
+         * Defaults to the number of nodes in the cluster. Narrow ranges may be
+         * split into fewer sub-ranges.
+         * </p>
+         * @param splits the number of sub-ranges.
+         * @return a reference to this object.
+         */
+        public Builder<S> withSplits(int splits)
+        {
+            if (splits < 1)
+            {
+                throw new IllegalArgumentException("splits must be at least 1");
+            }
+            this.splits = splits;
+            return this;
+        }
+        
+        /**
+         * Set the maximum number of sub-range queries in progress at once.
+         * <p>
+         * Defaults to the lesser of the number of splits and the number of 
+         * nodes in the cluster.
+         * </p>
+         * @param maxConcurrency the max number of concurrent sub-range queries.
+         * @return a reference to this object.
+         */
+        public Builder<S> withMaxConcurrency(int maxConcurrency)
+        {
+            if (maxConcurrency < 1)
+            {
+                throw new IllegalArgumentException("maxConcurrency must be at least 1");
+            }
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+        
+        /**
+         * Set whether results are returned in range order.
+         * <p>
+         * Defaults to true. Unordered results are returned as soon as any 
+         * sub-range delivers them, so a slow node does not hold up the rest.
+         * </p>
+         * @param ordered false to return results as they arrive.
+         * @return a reference to this object.
+         */
+        public Builder<S> withOrdered(boolean ordered)
+        {
+            this.ordered = ordered;
+            return this;
+        }
+        
+        /**
+         * Construct the ParallelIndexQuery.
+         * @return a new ParallelIndexQuery.
+         */
+        public ParallelIndexQuery<S> build()
+        {
+            return new ParallelIndexQuery<S>(this);
+        }
+    }
+    
+    /**
+     * Returns the entries of each sub-range in turn, keeping the following 
+     * sub-ranges in progress up to the concurrency limit.
+     */
+    private class OrderedIterator implements StreamingIterator<SecondaryIndexQueryOperation.Response.Entry>
+    {
+        private final RiakCluster cluster;
+        private final Iterator<IndexRangeSplitter.Range> pending;
+        private final LinkedList<StreamingIterator<SecondaryIndexQueryOperation.Response.Entry>> inProgress =
+            new LinkedList<StreamingIterator<SecondaryIndexQueryOperation.Response.Entry>>();
+        private volatile boolean closed;
+        
+        OrderedIterator(RiakCluster cluster, List<IndexRangeSplitter.Range> ranges, int concurrency)
+        {
+            this.cluster = cluster;
+            this.pending = ranges.iterator();
+            while (inProgress.size() < concurrency && pending.hasNext())
+            {
+                inProgress.add(query.executeStreamingAsync(cluster, pending.next()));
+            }
+        }
+        
+        @Override
+        public boolean hasNext()
+        {
+            while (!closed && !inProgress.isEmpty())
+            {
+                if (inProgress.getFirst().hasNext())
+                {
+                    return true;
+                }
+                synchronized (inProgress)
+                {
+                    inProgress.removeFirst();
+                    if (!closed && pending.hasNext())
+                    {
+                        inProgress.add(query.executeStreamingAsync(cluster, pending.next()));
+                    }
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public SecondaryIndexQueryOperation.Response.Entry next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            return inProgress.getFirst().next();
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public void close()
+        {
+            synchronized (inProgress)
+            {
+                closed = true;
+                for (StreamingIterator<SecondaryIndexQueryOperation.Response.Entry> i : inProgress)
+                {
+                    i.close();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Starts the query for each sub-range in turn.
+     */
+    private class RangeSource implements MergingIterator.Source<SecondaryIndexQueryOperation.Response.Entry>
+    {
+        private final RiakCluster cluster;
+        private final Iterator<IndexRangeSplitter.Range> ranges;
+        
+        RangeSource(RiakCluster cluster, List<IndexRangeSplitter.Range> ranges)
+        {
+            this.cluster = cluster;
+            this.ranges = ranges.iterator();
+        }
+        
+        @Override
+        public StreamingIterator<SecondaryIndexQueryOperation.Response.Entry> next()
+        {
+            return ranges.hasNext() ? query.executeStreamingAsync(cluster, ranges.next()) : null;
+        }
+        
+        @Override
+        public void close()
+        {
+            // Nothing is started until next() is called
+        }
+    }
+}
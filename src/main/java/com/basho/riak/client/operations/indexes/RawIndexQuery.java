@@ -18,11 +18,14 @@ package com.basho.riak.client.operations.indexes;
 
 import com.basho.riak.client.core.RiakCluster;
 import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.StreamingIterator;
 import com.basho.riak.client.core.operations.SecondaryIndexQueryOperation;
+import com.basho.riak.client.operations.CompletedFuture;
 import com.basho.riak.client.operations.CoreFutureAdapter;
 import com.basho.riak.client.query.Location;
 import com.basho.riak.client.util.BinaryValue;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -55,6 +58,12 @@ public class RawIndexQuery extends SecondaryIndexQuery<BinaryValue, RawIndexQuer
     @Override
     protected RiakFuture<Response, RawIndexQuery> executeAsync(RiakCluster cluster)
     {
+        if (streaming)
+        {
+            return new CompletedFuture<Response, RawIndexQuery>(
+                createStreamingResponse(executeStreamingAsync(cluster)), this);
+        }
+        
         RiakFuture<SecondaryIndexQueryOperation.Response, SecondaryIndexQueryOperation.Query> coreFuture =
             executeCoreAsync(cluster);
         
@@ -63,6 +72,12 @@ public class RawIndexQuery extends SecondaryIndexQuery<BinaryValue, RawIndexQuer
         return future;
     }
 
+    @Override
+    protected Response createStreamingResponse(StreamingIterator<SecondaryIndexQueryOperation.Response.Entry> entries)
+    {
+        return new Response(location, entries, converter);
+    }
+
     protected final class RawQueryFuture extends CoreFutureAdapter<Response, RawIndexQuery, SecondaryIndexQueryOperation.Response, SecondaryIndexQueryOperation.Query>
     {
         public RawQueryFuture(RiakFuture<SecondaryIndexQueryOperation.Response, SecondaryIndexQueryOperation.Query> coreFuture)
@@ -109,22 +124,45 @@ public class RawIndexQuery extends SecondaryIndexQuery<BinaryValue, RawIndexQuer
         }
     }
     
-    public static class Response extends SecondaryIndexQuery.Response<BinaryValue>
+    public static class Response extends SecondaryIndexQuery.Response<BinaryValue> implements Iterable<Response.Entry>
     {
         protected Response(Location queryLocation, SecondaryIndexQueryOperation.Response coreResponse, IndexConverter<BinaryValue> converter)
         {
             super(queryLocation, coreResponse, converter);
         }
         
+        protected Response(Location queryLocation, StreamingIterator<SecondaryIndexQueryOperation.Response.Entry> streamed, IndexConverter<BinaryValue> converter)
+        {
+            super(queryLocation, streamed, converter);
+        }
+        
+        /**
+         * Returns an iterator over the entries in this response.
+         * <p>
+         * If the query is streaming, this can only be called once.
+         * </p>
+         * @return an iterator over the entries.
+         */
+        @Override
+        public Iterator<Entry> iterator()
+        {
+            return new EntryIterator<Entry>()
+            {
+                @Override
+                protected Entry convert(SecondaryIndexQueryOperation.Response.Entry e)
+                {
+                    return new Entry(queryLocation, e, converter);
+                }
+            };
+        }
+        
         @Override
         public List<Entry> getEntries()
         {
-            List<Entry> convertedList = new ArrayList<Entry>();
-            for (SecondaryIndexQueryOperation.Response.Entry e : coreResponse.getEntryList())
+            List<Entry> convertedList = new ArrayList<Entry>(coreEntryList().size());
+            for (SecondaryIndexQueryOperation.Response.Entry e : coreEntryList())
             {
-                Location loc = getLocationFromCoreEntry(e);
-                Entry ce = new Entry(loc, e.getIndexKey(), converter);
-                convertedList.add(ce);
+                convertedList.add(new Entry(queryLocation, e, converter));
             }
             return convertedList;
         }
@@ -136,6 +174,11 @@ public class RawIndexQuery extends SecondaryIndexQuery<BinaryValue, RawIndexQuer
                 super(riakObjectLocation, indexKey, converter);
             }
 
+            protected Entry(Location queryLocation, SecondaryIndexQueryOperation.Response.Entry coreEntry, IndexConverter<BinaryValue> converter)
+            {
+                super(queryLocation, coreEntry, converter);
+            }
+
         }
     }
     
@@ -19,10 +19,17 @@ package com.basho.riak.client.operations.indexes;
 import com.basho.riak.client.RiakCommand;
 import com.basho.riak.client.core.RiakCluster;
 import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.SchedulingTag;
+import com.basho.riak.client.core.StreamingException;
+import com.basho.riak.client.core.StreamingFutureOperation;
+import com.basho.riak.client.core.StreamingIterator;
 import com.basho.riak.client.core.operations.SecondaryIndexQueryOperation;
 import com.basho.riak.client.query.Location;
 import com.basho.riak.client.util.BinaryValue;
+import java.io.Closeable;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
      * A Secondary Index Query.
@@ -66,11 +73,21 @@ public abstract class SecondaryIndexQuery<T,S,U> extends RiakCommand<S, U>
     protected final boolean paginationSort;
     protected final String termFilter;
     protected Integer timeout;
+    protected final boolean streaming;
+    protected final int maxBufferedChunks;
 
     protected abstract IndexConverter<T> getConverter();
+    
+    /**
+     * Create a streaming response over the supplied entries.
+     * @param entries the streamed core entries.
+     * @return a streaming response of the appropriate type.
+     */
+    protected abstract S createStreamingResponse(StreamingIterator<SecondaryIndexQueryOperation.Response.Entry> entries);
 
     protected SecondaryIndexQuery(Init<T,?> builder)
     {
+        super(builder.schedulingTag);
         this.location = builder.location;
         this.indexName = builder.indexName;
         this.continuation = builder.continuation;
@@ -82,6 +99,8 @@ public abstract class SecondaryIndexQuery<T,S,U> extends RiakCommand<S, U>
         this.paginationSort = builder.paginationSort;
         this.termFilter = builder.termFilter;
         this.timeout = builder.timeout;
+        this.streaming = builder.streaming;
+        this.maxBufferedChunks = builder.maxBufferedChunks;
     }
 
     /**
@@ -183,7 +202,54 @@ public abstract class SecondaryIndexQuery<T,S,U> extends RiakCommand<S, U>
         return timeout;
     }
     
+    /**
+     * Determine if this query streams its results.
+     * @return true if entries are delivered as they arrive.
+     */
+    public boolean isStreaming()
+    {
+        return streaming;
+    }
+    
     protected final SecondaryIndexQueryOperation.Query createCoreQuery()
+    {
+        return createCoreQuery(continuation, null);
+    }
+    
+    /**
+     * Split the range of this query into contiguous, non-overlapping 
+     * sub-ranges. 
+     * <p>
+     * {@code _int} indexes are split numerically, {@code _bin} indexes 
+     * lexicographically by the bytes of the index key. Fewer sub-ranges 
+     * than requested are returned if the range is too narrow.
+     * </p>
+     * @param splits the number of sub-ranges wanted.
+     * @return the sub-ranges, in order.
+     * @throws IllegalStateException if this is not a range query.
+     */
+    final List<IndexRangeSplitter.Range> splitRange(int splits)
+    {
+        if (match != null)
+        {
+            throw new IllegalStateException("Only range queries can be split");
+        }
+        IndexConverter<T> converter = getConverter();
+        BinaryValue rangeStart = converter.convert(start);
+        BinaryValue rangeEnd = converter.convert(end);
+        
+        if (indexName.endsWith(Type._INT.toString()))
+        {
+            return IndexRangeSplitter.splitNumeric(rangeStart, rangeEnd, splits);
+        }
+        else
+        {
+            return IndexRangeSplitter.splitLexicographic(rangeStart, rangeEnd, splits);
+        }
+    }
+    
+    private SecondaryIndexQueryOperation.Query createCoreQuery(BinaryValue continuation, 
+                                                               IndexRangeSplitter.Range range)
     {
         IndexConverter<T> converter = getConverter();
 
@@ -202,6 +268,11 @@ public abstract class SecondaryIndexQuery<T,S,U> extends RiakCommand<S, U>
         {
             coreQueryBuilder.withIndexKey(converter.convert(match));
         }
+        else if (range != null)
+        {
+            coreQueryBuilder.withRangeStart(range.getStart())
+                            .withRangeEnd(range.getEnd());
+        }
         else
         {
             coreQueryBuilder.withRangeStart(converter.convert(start))
@@ -227,9 +298,184 @@ public abstract class SecondaryIndexQuery<T,S,U> extends RiakCommand<S, U>
         SecondaryIndexQueryOperation.Builder builder =
             new SecondaryIndexQueryOperation.Builder(this.createCoreQuery());
         
-        return cluster.execute(builder.build());
+        return cluster.execute(builder.build(), getSchedulingTag());
+    }
+    
+    /**
+     * Execute this query, streaming its results.
+     * <p>
+     * If the query has a {@code maxResults}, each subsequent page is requested
+     * using the continuation from the previous one until all results have 
+     * been returned. 
+     * </p>
+     * @param cluster the cluster to execute against.
+     * @return an iterator over the results of every page.
+     */
+    protected final StreamingIterator<SecondaryIndexQueryOperation.Response.Entry> executeStreamingAsync(RiakCluster cluster)
+    {
+        return new PagingIterator(cluster, null);
+    }
+    
+    /**
+     * Execute this query over a sub-range of its range, streaming the results.
+     * @param cluster the cluster to execute against.
+     * @param range the sub-range to query.
+     * @return an iterator over the results of every page.
+     */
+    final StreamingIterator<SecondaryIndexQueryOperation.Response.Entry> executeStreamingAsync(RiakCluster cluster, 
+                                                                                             IndexRangeSplitter.Range range)
+    {
+        return new PagingIterator(cluster, range);
+    }
+    
+    private SecondaryIndexQueryOperation executePage(RiakCluster cluster, BinaryValue continuation, 
+                                                     IndexRangeSplitter.Range range)
+    {
+        SecondaryIndexQueryOperation operation =
+            new SecondaryIndexQueryOperation.Builder(createCoreQuery(continuation, range))
+                .withStreaming(true)
+                .withMaxBufferedChunks(maxBufferedChunks)
+                .build();
+        cluster.execute(operation, getSchedulingTag());
+        return operation;
+    }
+    
+    /**
+     * Iterates over the streamed results of each page in turn. The next page
+     * is requested as soon as the current one has been received from Riak,
+     * so at most two pages are in progress at once. Closing it cancels both.
+     */
+    private class PagingIterator implements StreamingIterator<SecondaryIndexQueryOperation.Response.Entry>
+    {
+        private final RiakCluster cluster;
+        private final IndexRangeSplitter.Range range;
+        private volatile SecondaryIndexQueryOperation operation;
+        private StreamingIterator<SecondaryIndexQueryOperation.Response.Entry> current;
+        private volatile SecondaryIndexQueryOperation nextOperation;
+        private boolean checkedContinuation;
+        private volatile boolean closed;
+        
+        PagingIterator(RiakCluster cluster, IndexRangeSplitter.Range range)
+        {
+            this.cluster = cluster;
+            this.range = range;
+            this.operation = executePage(cluster, continuation, range);
+            this.current = operation.iterator();
+        }
+        
+        @Override
+        public boolean hasNext()
+        {
+            if (closed)
+            {
+                return false;
+            }
+            requestNextPage();
+            while (!current.hasNext())
+            {
+                // The operation is complete once its iterator is exhausted
+                requestNextPage();
+                if (nextOperation == null)
+                {
+                    return false;
+                }
+                operation = nextOperation;
+                current = operation.iterator();
+                nextOperation = null;
+                checkedContinuation = false;
+                if (closed)
+                {
+                    // Closed while switching pages
+                    operation.close();
+                    return false;
+                }
+                requestNextPage();
+            }
+            return true;
+        }
+
+        @Override
+        public SecondaryIndexQueryOperation.Response.Entry next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public void close()
+        {
+            closed = true;
+            operation.close();
+            SecondaryIndexQueryOperation pending = nextOperation;
+            if (pending != null)
+            {
+                pending.close();
+            }
+        }
+        
+        private void requestNextPage()
+        {
+            if (!closed && !checkedContinuation && operation.isDone())
+            {
+                checkedContinuation = true;
+                if (operation.isSuccess())
+                {
+                    SecondaryIndexQueryOperation.Response response;
+                    try
+                    {
+                        response = operation.get();
+                    }
+                    catch (InterruptedException ex)
+                    {
+                        Thread.currentThread().interrupt();
+                        throw new StreamingException(ex);
+                    }
+                    if (response.hasContinuation())
+                    {
+                        nextOperation = executePage(cluster, response.getContinuation(), range);
+                    }
+                }
+            }
+        }
     }
                         
+    /**
+     * Parses a plain ASCII decimal straight from its bytes.
+     * @param input the index key.
+     * @return the value, or null if the input isn't a decimal of at most 18 
+     * digits and must be parsed the slow way.
+     */
+    static Long parseDecimal(BinaryValue input)
+    {
+        byte[] bytes = input.unsafeGetValue();
+        int length = bytes.length;
+        int i = length > 1 && bytes[0] == '-' ? 1 : 0;
+        if (length == i || length - i > 18)
+        {
+            return null;
+        }
+        long result = 0;
+        for (int j = i; j < length; j++)
+        {
+            int digit = bytes[j] - '0';
+            if (digit < 0 || digit > 9)
+            {
+                return null;
+            }
+            result = result * 10 + digit;
+        }
+        return i == 1 ? -result : result;
+    }
+    
     protected interface IndexConverter<T>
     {
         T convert(BinaryValue input);
@@ -249,6 +495,9 @@ public abstract class SecondaryIndexQuery<T,S,U> extends RiakCommand<S, U>
         private volatile boolean paginationSort;
         private volatile String termFilter;
         private volatile Integer timeout;
+        private volatile SchedulingTag schedulingTag;
+        private volatile boolean streaming;
+        private volatile int maxBufferedChunks = StreamingFutureOperation.DEFAULT_MAX_BUFFERED_CHUNKS;
 
         protected abstract T self();
 
@@ -371,67 +620,258 @@ public abstract class SecondaryIndexQuery<T,S,U> extends RiakCommand<S, U>
             this.timeout = timeout;
             return self();
         }
+        
+        /**
+         * Stream results as they are received from Riak.
+         * <p>
+         * When streaming, the response is available immediately and its 
+         * entries are delivered as Riak sends them rather than all being 
+         * held in memory. If {@link #withMaxResults(java.lang.Integer)} is 
+         * also set, each page is fetched in turn using the continuation from 
+         * the previous one until the query is exhausted. If the consumer 
+         * falls behind, reading from Riak is paused once 
+         * {@link #withMaxBufferedChunks(int)} chunks are buffered.
+         * </p>
+         * @param streaming true to stream results.
+         * @return a reference to this object.
+         */
+        public T withStreaming(boolean streaming)
+        {
+            this.streaming = streaming;
+            return self();
+        }
+        
+        /**
+         * Set the number of chunks of results buffered when streaming before 
+         * reading from Riak is paused.
+         * @param maxBufferedChunks the max number of buffered chunks.
+         * @return a reference to this object.
+         */
+        public T withMaxBufferedChunks(int maxBufferedChunks)
+        {
+            if (maxBufferedChunks < 1)
+            {
+                throw new IllegalArgumentException("maxBufferedChunks must be at least 1");
+            }
+            this.maxBufferedChunks = maxBufferedChunks;
+            return self();
+        }
+        
+        /**
+         * Set the scheduling class used when this query is executed.
+         * <p>
+         * Only meaningful when the cluster has been built with an admission limit;
+         * see {@link SchedulingTag}.
+         * </p>
+         * @param tag the priority and tenant of this query.
+         * @return a reference to this object.
+         */
+        public T withSchedulingTag(SchedulingTag tag)
+        {
+            this.schedulingTag = tag;
+            return self();
+        }
     }
     
-    public abstract static class Response<T> 
+    /**
+     * The response from a 2i query.
+     * <p>
+     * When the query is streaming, entries are fetched from Riak as they are
+     * iterated and can only be iterated once; {@code getEntries()} is not 
+     * supported. The continuation is followed automatically, so a streaming
+     * response never has one. Closing a streaming response cancels the query 
+     * if it hasn't finished.
+     * </p>
+     * @param <T> the type of the index key.
+     */
+    public abstract static class Response<T> implements Closeable
     {
         final IndexConverter<T> converter;
         final SecondaryIndexQueryOperation.Response coreResponse;
         final Location queryLocation;
+        final StreamingIterator<SecondaryIndexQueryOperation.Response.Entry> streamed;
         
         protected Response(Location queryLocation, SecondaryIndexQueryOperation.Response coreResponse, IndexConverter<T> converter)
         {
             this.coreResponse = coreResponse;
             this.converter = converter;
             this.queryLocation = queryLocation;
+            this.streamed = null;
+        }
+        
+        protected Response(Location queryLocation, StreamingIterator<SecondaryIndexQueryOperation.Response.Entry> streamed, IndexConverter<T> converter)
+        {
+            this.coreResponse = null;
+            this.converter = converter;
+            this.queryLocation = queryLocation;
+            this.streamed = streamed;
+        }
+        
+        /**
+         * Determine if this response streams its entries.
+         * @return true if entries are delivered as they are iterated.
+         */
+        public boolean isStreaming()
+        {
+            return streamed != null;
+        }
+        
+        /**
+         * Stop streaming entries.
+         * <p>
+         * Cancels the query if Riak is still sending entries. Does nothing 
+         * when not streaming.
+         * </p>
+         */
+        @Override
+        public void close()
+        {
+            if (streamed != null)
+            {
+                streamed.close();
+            }
         }
         
         public boolean hasContinuation()
         {
-            return coreResponse.hasContinuation();
+            return coreResponse != null && coreResponse.hasContinuation();
         }
         
         public BinaryValue getContinuation()
         {
-            return coreResponse.getContinuation();
+            return coreResponse == null ? null : coreResponse.getContinuation();
         }
         
+        /**
+         * Determine if there are entries in this response.
+         * <p>
+         * When streaming this blocks until the first entry arrives or the 
+         * query completes.
+         * </p>
+         * @return true if there are entries.
+         */
         public boolean hasEntries()
         {
-            return !coreResponse.getEntryList().isEmpty();
+            return streamed != null ? streamed.hasNext() : !coreResponse.getEntryList().isEmpty();
+        }
+        
+        /**
+         * Returns the core entries of this response. 
+         * @return an iterator over the (streamed or received) core entries.
+         */
+        protected final Iterator<SecondaryIndexQueryOperation.Response.Entry> coreEntries()
+        {
+            return streamed != null ? streamed : coreResponse.getEntryList().iterator();
+        }
+        
+        protected final List<SecondaryIndexQueryOperation.Response.Entry> coreEntryList()
+        {
+            if (streamed != null)
+            {
+                throw new IllegalStateException("Streaming responses must be iterated");
+            }
+            return coreResponse.getEntryList();
         }
         
         protected final Location getLocationFromCoreEntry(SecondaryIndexQueryOperation.Response.Entry e)
         {
-            Location loc = new Location(queryLocation.getBucketName())
-                                .setBucketType(queryLocation.getBucketType())
-                                .setKey(e.getObjectKey());
-            return loc;
+            return objectLocation(queryLocation, e.getObjectKey());
         }
-                
+        
+        private static Location objectLocation(Location queryLocation, BinaryValue objectKey)
+        {
+            return new Location(queryLocation.getBucketName())
+                        .setBucketType(queryLocation.getBucketType())
+                        .setKey(objectKey);
+        }
+        
         protected abstract List<?> getEntries();
         
+        /**
+         * Converts core entries to typed entries as they are iterated.
+         */
+        protected abstract class EntryIterator<E> implements Iterator<E>
+        {
+            private final Iterator<SecondaryIndexQueryOperation.Response.Entry> coreIterator = coreEntries();
+            
+            protected abstract E convert(SecondaryIndexQueryOperation.Response.Entry e);
+            
+            @Override
+            public boolean hasNext()
+            {
+                return coreIterator.hasNext();
+            }
+
+            @Override
+            public E next()
+            {
+                return convert(coreIterator.next());
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        }
+        
+        /**
+         * A single 2i result.
+         * <p>
+         * Entries built from a core entry decode lazily; the object's 
+         * Location and the typed index key are only created when asked for.
+         * </p>
+         */
         protected abstract static class Entry<T>
         {
-            private final Location RiakObjectLocation;
+            private volatile Location riakObjectLocation;
+            private final Location queryLocation;
+            private final SecondaryIndexQueryOperation.Response.Entry coreEntry;
             private final BinaryValue indexKey;
             private final IndexConverter<T> converter;
             
             protected Entry(Location riakObjectLocation, BinaryValue indexKey, IndexConverter<T> converter)
             {
-                this.RiakObjectLocation = riakObjectLocation;
+                this.riakObjectLocation = riakObjectLocation;
+                this.queryLocation = null;
+                this.coreEntry = null;
                 this.indexKey = indexKey;
                 this.converter = converter;
             }
             
+            protected Entry(Location queryLocation, SecondaryIndexQueryOperation.Response.Entry coreEntry, IndexConverter<T> converter)
+            {
+                this.queryLocation = queryLocation;
+                this.coreEntry = coreEntry;
+                this.indexKey = null;
+                this.converter = converter;
+            }
+            
             public Location getRiakObjectLocation()
             {
-                return RiakObjectLocation;
+                Location loc = riakObjectLocation;
+                if (loc == null)
+                {
+                    loc = objectLocation(queryLocation, coreEntry.getObjectKey());
+                    riakObjectLocation = loc;
+                }
+                return loc;
+            }
+            
+            /**
+             * Returns the key of the object this entry refers to without 
+             * building its Location.
+             * @return the object key.
+             */
+            public BinaryValue getObjectKey()
+            {
+                return coreEntry != null ? coreEntry.getObjectKey() : riakObjectLocation.getKey();
             }
             
             public T getIndexKey()
             {
-                return converter.convert(indexKey);
+                BinaryValue key = coreEntry != null ? coreEntry.getIndexKey() : indexKey;
+                return converter.convert(key);
             }
             
         }
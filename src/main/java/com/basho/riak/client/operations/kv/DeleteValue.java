@@ -20,6 +20,7 @@ import com.basho.riak.client.cap.Quorum;
 import com.basho.riak.client.cap.VClock;
 import com.basho.riak.client.core.RiakCluster;
 import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.SchedulingTag;
 import com.basho.riak.client.core.operations.DeleteOperation;
 import com.basho.riak.client.operations.CoreFutureAdapter;
 import com.basho.riak.client.operations.RiakOption;
@@ -54,6 +55,7 @@ public final class DeleteValue extends RiakCommand<Void, Location>
 
     public DeleteValue(Builder builder)
     {
+        super(builder.schedulingTag);
         this.location = builder.location;
         this.options.putAll(builder.options);
         this.vClock = builder.vClock;
@@ -63,7 +65,7 @@ public final class DeleteValue extends RiakCommand<Void, Location>
     protected RiakFuture<Void, Location> executeAsync(RiakCluster cluster)
     {
         RiakFuture<Void, Location> coreFuture =
-            cluster.execute(buildCoreOperation());
+            cluster.execute(buildCoreOperation(), getSchedulingTag());
         
         CoreFutureAdapter<Void, Location, Void, Location> future =
             new CoreFutureAdapter<Void, Location, Void, Location>(coreFuture)
@@ -191,6 +193,7 @@ public final class DeleteValue extends RiakCommand<Void, Location>
      */
 	public static class Builder
 	{
+		private SchedulingTag schedulingTag;
 
 		private final Location location;
 		private final Map<Option<?>, Object> options =
@@ -247,6 +250,21 @@ public final class DeleteValue extends RiakCommand<Void, Location>
             return this;
         }
         
+		/**
+		 * Set the scheduling class used when this command is executed.
+		 * <p>
+		 * Only meaningful when the cluster has been built with an admission limit;
+		 * see {@link SchedulingTag}.
+		 * </p>
+		 * @param tag the priority and tenant of this command.
+		 * @return a reference to this object.
+		 */
+		public Builder withSchedulingTag(SchedulingTag tag)
+		{
+			this.schedulingTag = tag;
+			return this;
+		}
+
         /**
          * Construct a DeleteValue object.
          * @return a new DeleteValue instance.
@@ -21,6 +21,7 @@ import com.basho.riak.client.core.RiakCluster;
 import com.basho.riak.client.core.operations.FetchOperation;
 import com.basho.riak.client.RiakCommand;
 import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.SchedulingTag;
 import com.basho.riak.client.operations.CoreFutureAdapter;
 import com.basho.riak.client.operations.RiakOption;
 import com.basho.riak.client.query.Location;
@@ -75,18 +76,21 @@ public final class FetchValue extends RiakCommand<FetchValue.Response, Location>
 	private final Location location;
 	private final Map<Option<?>, Object> options =
 			new HashMap<Option<?>, Object>();
+	private final SiblingWriteBack writeBack;
 
 	FetchValue(Builder builder)
 	{
+		super(builder.schedulingTag);
 		this.location = builder.location;
 		this.options.putAll(builder.options);
+		this.writeBack = builder.writeBack;
 	}
 
 	@Override
     protected final RiakFuture<Response, Location> executeAsync(RiakCluster cluster)
     {
         RiakFuture<FetchOperation.Response, Location> coreFuture = 
-            cluster.execute(buildCoreOperation());
+            cluster.execute(buildCoreOperation(), getSchedulingTag());
         
         CoreFutureAdapter<Response, Location, FetchOperation.Response, Location> future = 
             new CoreFutureAdapter<Response, Location, FetchOperation.Response, Location>(coreFuture)
@@ -98,6 +102,7 @@ public final class FetchValue extends RiakCommand<FetchValue.Response, Location>
                                         .withUnchanged(coreResponse.isUnchanged())
                                         .withValues(coreResponse.getObjectList()) 
                                         .withLocation(location) // for ORM
+                                        .withWriteBack(writeBack)
                                         .build();
                 }
 
@@ -321,6 +326,8 @@ public final class FetchValue extends RiakCommand<FetchValue.Response, Location>
      */
 	public static class Builder
 	{
+		private SchedulingTag schedulingTag;
+		private SiblingWriteBack writeBack;
 
 		private final Location location;
 		private final Map<Option<?>, Object> options =
@@ -369,6 +376,38 @@ public final class FetchValue extends RiakCommand<FetchValue.Response, Location>
             return this;
         }
         
+		/**
+		 * Set the scheduling class used when this command is executed.
+		 * <p>
+		 * Only meaningful when the cluster has been built with an admission limit;
+		 * see {@link SchedulingTag}.
+		 * </p>
+		 * @param tag the priority and tenant of this command.
+		 * @return a reference to this object.
+		 */
+		public Builder withSchedulingTag(SchedulingTag tag)
+		{
+			this.schedulingTag = tag;
+			return this;
+		}
+
+		/**
+		 * Write the resolved value back to Riak when siblings are returned.
+		 * <p>
+		 * When the response contains siblings, the value returned by
+		 * {@link Response#getValue(Class)} is queued in the supplied 
+		 * {@link SiblingWriteBack} and stored with the fetched vector clock,
+		 * collapsing the siblings.
+		 * </p>
+		 * @param writeBack the write back queue to use.
+		 * @return a reference to this object.
+		 */
+		public Builder withSiblingWriteBack(SiblingWriteBack writeBack)
+		{
+			this.writeBack = writeBack;
+			return this;
+		}
+
 		/**
 		 * Build a {@link FetchValue} object
 		 *
@@ -18,16 +18,28 @@ package com.basho.riak.client.operations.kv;
 
 import com.basho.riak.client.cap.ConflictResolver;
 import com.basho.riak.client.cap.ConflictResolverFactory;
+import com.basho.riak.client.cap.SiblingMetadataMerger;
+import com.basho.riak.client.cap.SiblingSelector;
 import com.basho.riak.client.cap.UnresolvedConflictException;
 import com.basho.riak.client.cap.VClock;
 import com.basho.riak.client.convert.Converter;
 import com.basho.riak.client.convert.ConverterFactory;
+import com.basho.riak.client.convert.JsonProjection;
+import com.basho.riak.client.convert.ProjectionConverter;
 import com.basho.riak.client.convert.reflection.AnnotationUtil;
 import com.basho.riak.client.query.Location;
 import com.basho.riak.client.query.RiakObject;
+import com.basho.riak.client.query.UserMetadata.RiakUserMetadata;
+import com.basho.riak.client.query.indexes.RawIndex;
+import com.basho.riak.client.query.indexes.RiakIndex;
+import com.basho.riak.client.util.BinaryValue;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Base abstract class that KV responses extend.
@@ -39,12 +51,13 @@ abstract class KvResponseBase
 {
     private final Location location;
     private final List<RiakObject> values;
-    
+    private final SiblingWriteBack writeBack;
         
     protected KvResponseBase(Init<?> builder)
     {
         this.location = builder.location;
         this.values = builder.values;
+        this.writeBack = builder.writeBack;
     }
 
     /**
@@ -135,6 +148,11 @@ abstract class KvResponseBase
      * or no conversion at all if you pass in {@code RiakObject.class}. If there are multiple 
      * values present (siblings), they will then be resolved using the 
      * {@link com.basho.riak.client.cap.ConflictResolver} returned by the {@link com.basho.riak.client.cap.ConflictResolverFactory}.
+     * Siblings are passed to the resolver oldest first; if the resolver is a 
+     * {@link SiblingSelector} only the sibling it selects is converted. If the
+     * fetch was built with a {@link SiblingWriteBack}, the resolved value is 
+     * queued to be stored back to Riak with the fetched vector clock, along 
+     * with the siblings' indexes, links and user metadata.
      * </p>
      * @param clazz the class to be converted to.
      * @return the single, resolved value converted to the supplied class.
@@ -147,20 +165,10 @@ abstract class KvResponseBase
     public <T> T getValue(Class<T> clazz) throws UnresolvedConflictException
     {
         Converter<T> converter = ConverterFactory.getInstance().getConverter(clazz);
-        List<T> convertedValues = convertValues(converter);
-
         ConflictResolver<T> resolver = 
             ConflictResolverFactory.getInstance().getConflictResolver(clazz);
 
-        T resolved = resolver.resolve(convertedValues);
-        
-        if (hasValues() && resolved != null)
-        {
-            VClock vclock = values.get(0).getVClock();
-            AnnotationUtil.setVClock(resolved, vclock);
-        }
-        
-        return resolved;
+        return resolveValue(converter, resolver);
     }
 
     /**
@@ -172,6 +180,11 @@ abstract class KvResponseBase
      * or no conversion at all if you pass in {@code RiakObject.class}. If there are multiple 
      * values present (siblings), they will then be resolved using the 
      * {@link com.basho.riak.client.cap.ConflictResolver} returned by the {@link com.basho.riak.client.cap.ConflictResolverFactory}.
+     * Siblings are passed to the resolver oldest first; if the resolver is a 
+     * {@link SiblingSelector} only the sibling it selects is converted. If the
+     * fetch was built with a {@link SiblingWriteBack}, the resolved value is 
+     * queued to be stored back to Riak with the fetched vector clock, along 
+     * with the siblings' indexes, links and user metadata.
      * </p>
      * <p>
      * This version should only be used if you're converting to a parameterized 
@@ -192,19 +205,10 @@ abstract class KvResponseBase
     public <T> T getValue(TypeReference<T> typeReference) throws UnresolvedConflictException
     {
         Converter<T> converter = ConverterFactory.getInstance().getConverter(typeReference);
-        List<T> convertedValues = convertValues(converter);
-
         ConflictResolver<T> resolver = 
             ConflictResolverFactory.getInstance().getConflictResolver(typeReference);
 
-        T resolved = resolver.resolve(convertedValues);
-        if (hasValues() && resolved != null)
-        {
-            VClock vclock = values.get(0).getVClock();
-            AnnotationUtil.setVClock(resolved, vclock);
-        }
-        
-        return resolved;
+        return resolveValue(converter, resolver);
     }
 
     /** 
@@ -238,10 +242,51 @@ abstract class KvResponseBase
         return convertValues(converter);
     }
 
-    private <T> List<T> convertValues(Converter<T> converter)
+    /**
+     * Get a projection of each object returned in this response.
+     * <p>
+     * Only the properties declared by the projection class are bound; the 
+     * rest of each document is skipped while parsing. No conflict resolution
+     * is performed.
+     * </p>
+     * @param projectionClass the class to project to.
+     * @return a list of values, one per sibling, converted to the projection class.
+     * @see ProjectionConverter
+     */
+    public <T> List<T> getProjections(Class<T> projectionClass)
     {
-        List<T> convertedValues = new ArrayList<T>(values.size());
+        return convertValues(ProjectionConverter.forClass(projectionClass));
+    }
+    
+    /**
+     * Get a projection of each object returned in this response.
+     * <p>
+     * Only the values addressed by the projection's JSON pointers are read
+     * from each document. No conflict resolution is performed.
+     * </p>
+     * @param projection the projection to apply.
+     * @return a list of pointer to value maps, one per sibling.
+     * @see JsonProjection
+     */
+    public List<Map<String, JsonNode>> getProjections(JsonProjection projection)
+    {
+        List<Map<String, JsonNode>> projected = new ArrayList<Map<String, JsonNode>>(values.size());
         for (RiakObject ro : values)
+        {
+            projected.add(projection.apply(ro));
+        }
+        return projected;
+    }
+
+    private <T> List<T> convertValues(Converter<T> converter)
+    {
+        return convertValues(converter, values);
+    }
+    
+    private <T> List<T> convertValues(Converter<T> converter, List<RiakObject> objects)
+    {
+        List<T> convertedValues = new ArrayList<T>(objects.size());
+        for (RiakObject ro : objects)
         {
             convertedValues.add(converter.toDomain(ro, location));
         }
@@ -249,6 +294,140 @@ abstract class KvResponseBase
         return convertedValues;
     }
     
+    private <T> T resolveValue(Converter<T> converter, ConflictResolver<T> resolver) 
+        throws UnresolvedConflictException
+    {
+        boolean siblings = values.size() > 1;
+        List<T> convertedValues;
+        List<RiakObject> metadataSources;
+        
+        if (siblings && resolver instanceof SiblingSelector)
+        {
+            RiakObject selected = ((SiblingSelector)resolver).select(values);
+            convertedValues = selected == null 
+                ? Collections.<T>emptyList()
+                : Collections.singletonList(converter.toDomain(selected, location));
+            metadataSources = selected == null 
+                ? Collections.<RiakObject>emptyList()
+                : Collections.singletonList(selected);
+        }
+        else if (siblings)
+        {
+            List<RiakObject> oldestFirst = new ArrayList<RiakObject>(values);
+            Collections.sort(oldestFirst, LAST_MODIFIED_ORDER);
+            convertedValues = convertValues(converter, oldestFirst);
+            if (resolver instanceof SiblingMetadataMerger 
+                && ((SiblingMetadataMerger)resolver).isMergingMetadata())
+            {
+                metadataSources = oldestFirst;
+                Collections.reverse(metadataSources);
+            }
+            else
+            {
+                metadataSources = oldestFirst.subList(oldestFirst.size() - 1, oldestFirst.size());
+            }
+        }
+        else
+        {
+            convertedValues = convertValues(converter);
+            metadataSources = values;
+        }
+        
+        T resolved = resolver.resolve(convertedValues);
+        
+        if (hasValues() && resolved != null)
+        {
+            VClock vclock = values.get(0).getVClock();
+            AnnotationUtil.setVClock(resolved, vclock);
+            
+            if (siblings && writeBack != null)
+            {
+                writeBack.submit(location, toWriteBack(resolved, converter, metadataSources), vclock);
+            }
+        }
+        
+        return resolved;
+    }
+    
+    /**
+     * Build the object stored by a write back. 
+     * <p>
+     * A domain object only carries the metadata its class maps with 
+     * annotations, so the rest is taken from the given siblings, newest 
+     * first: the indexes the object doesn't set, its links if it has none, 
+     * and any user metadata it doesn't set. With more than one sibling (a 
+     * {@link SiblingMetadataMerger}) their indexes and links are merged.
+     * A resolved RiakObject is copied, as it is also returned to the caller.
+     * </p>
+     */
+    private <T> RiakObject toWriteBack(T resolved, Converter<T> converter, 
+                                       List<RiakObject> metadataSources)
+    {
+        if (resolved instanceof RiakObject)
+        {
+            RiakObject original = (RiakObject) resolved;
+            RiakObject copy = new RiakObject()
+                .setValue(original.getValue())
+                .setContentType(original.getContentType())
+                .setVTag(original.getVTag())
+                .setLastModified(original.getLastModified())
+                .setVClock(original.getVClock())
+                .setDeleted(original.isDeleted());
+            addMetadata(copy, original, true);
+            return copy;
+        }
+        
+        RiakObject ro = converter.fromDomain(resolved, location).getRiakObject();
+        boolean merge = metadataSources.size() > 1;
+        for (RiakObject sibling : metadataSources)
+        {
+            addMetadata(ro, sibling, merge);
+        }
+        return ro;
+    }
+    
+    private static void addMetadata(RiakObject ro, RiakObject sibling, boolean merge)
+    {
+        if (sibling.hasIndexes())
+        {
+            for (RiakIndex<?> index : sibling.getIndexes())
+            {
+                if (merge || !ro.getIndexes().hasIndex(RawIndex.named(index.getName(), index.getType())))
+                {
+                    ro.getIndexes().getIndex(RawIndex.named(index.getName(), index.getType()))
+                        .add(index.rawValues());
+                }
+            }
+        }
+        if (sibling.hasLinks() && (merge || !ro.hasLinks()))
+        {
+            ro.getLinks().addLinks(sibling.getLinks().getLinks());
+        }
+        if (sibling.hasUserMeta())
+        {
+            RiakUserMetadata userMeta = ro.getUserMeta();
+            for (Map.Entry<BinaryValue, BinaryValue> entry : sibling.getUserMeta().getUserMetadata())
+            {
+                if (userMeta.get(entry.getKey()) == null)
+                {
+                    userMeta.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+    
+    private static final Comparator<RiakObject> LAST_MODIFIED_ORDER = 
+        new Comparator<RiakObject>()
+        {
+            @Override
+            public int compare(RiakObject o1, RiakObject o2)
+            {
+                long l1 = o1.getLastModified();
+                long l2 = o2.getLastModified();
+                return l1 < l2 ? -1 : (l1 == l2 ? 0 : 1);
+            }
+        };
+    
 
     /**
      * @ExcludeFromJavadoc 
@@ -257,6 +436,7 @@ abstract class KvResponseBase
     {
         private Location location;
         private List<RiakObject> values = new ArrayList<RiakObject>();
+        private SiblingWriteBack writeBack;
 
         protected abstract T self();
         abstract KvResponseBase build();
@@ -272,5 +452,11 @@ abstract class KvResponseBase
             this.values.addAll(values);
             return self();
         }
+        
+        T withWriteBack(SiblingWriteBack writeBack)
+        {
+            this.writeBack = writeBack;
+            return self();
+        }
     }
 }
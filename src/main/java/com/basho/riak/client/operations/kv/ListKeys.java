@@ -18,11 +18,15 @@ package com.basho.riak.client.operations.kv;
 import com.basho.riak.client.RiakCommand;
 import com.basho.riak.client.core.RiakCluster;
 import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.SchedulingTag;
+import com.basho.riak.client.core.StreamingIterator;
 import com.basho.riak.client.core.operations.ListKeysOperation;
+import com.basho.riak.client.operations.CompletedFuture;
 import com.basho.riak.client.operations.CoreFutureAdapter;
 import com.basho.riak.client.query.Location;
 import com.basho.riak.client.util.BinaryValue;
 
+import java.io.Closeable;
 import java.util.Iterator;
 import java.util.List;
 
@@ -35,18 +39,30 @@ public final class ListKeys extends RiakCommand<ListKeys.Response, Location>
 
 	private final Location location;
 	private final int timeout;
+	private final boolean streaming;
+	private final int maxBufferedChunks;
 
 	ListKeys(Builder builder)
 	{
+		super(builder.schedulingTag);
 		this.location = builder.location;
 		this.timeout = builder.timeout;
+		this.streaming = builder.streaming;
+		this.maxBufferedChunks = builder.maxBufferedChunks;
 	}
 
 	@Override 
     protected final RiakFuture<ListKeys.Response, Location> executeAsync(RiakCluster cluster)
     {
+        ListKeysOperation operation = buildCoreOperation();
         RiakFuture<ListKeysOperation.Response, Location> coreFuture = 
-            cluster.execute(buildCoreOperation());
+            cluster.execute(operation, getSchedulingTag());
+        
+        if (streaming)
+        {
+            return new CompletedFuture<Response, Location>(
+                new Response(location.getBucketName(), operation.iterator()), location);
+        }
         
         CoreFutureAdapter<ListKeys.Response, Location, ListKeysOperation.Response, Location> future =
             new CoreFutureAdapter<ListKeys.Response, Location, ListKeysOperation.Response, Location>(coreFuture)
@@ -75,26 +91,82 @@ public final class ListKeys extends RiakCommand<ListKeys.Response, Location>
 		{
 			builder.withTimeout(timeout);
 		}
+		
+		if (streaming)
+		{
+			builder.withStreaming(true)
+				.withMaxBufferedChunks(maxBufferedChunks);
+		}
 
 		return builder.build(); 
     }
     
-	public static class Response implements Iterable<Location>
+	/**
+	 * The response from a ListKeys command.
+	 * <p>
+	 * When streaming, the keys are fetched from Riak as they are iterated 
+	 * and can only be iterated once. Closing the response stops the listing 
+	 * if it hasn't finished.
+	 * </p>
+	 */
+	public static class Response implements Iterable<Location>, Closeable
 	{
 
 		private final BinaryValue bucket;
 		private final List<BinaryValue> keys;
+		private final StreamingIterator<BinaryValue> streamed;
 
 		public Response(BinaryValue bucket, List<BinaryValue> keys)
 		{
 			this.bucket = bucket;
 			this.keys = keys;
+			this.streamed = null;
+		}
+		
+		Response(BinaryValue bucket, StreamingIterator<BinaryValue> streamed)
+		{
+			this.bucket = bucket;
+			this.keys = null;
+			this.streamed = streamed;
+		}
+		
+		/**
+		 * Determine if this response streams its keys.
+		 * @return true if the keys are delivered as they are iterated.
+		 */
+		public boolean isStreaming()
+		{
+			return streamed != null;
 		}
 
+		/**
+		 * {@inheritDoc}
+		 * <p>
+		 * When streaming, {@code hasNext()} blocks until keys arrive and throws
+		 * a {@link com.basho.riak.client.core.StreamingException} if the
+		 * operation fails.
+		 * </p>
+		 */
 		@Override
 		public Iterator<Location> iterator()
 		{
-			return new Itr(bucket, keys.iterator());
+			return new Itr(bucket, streamed != null ? streamed : keys.iterator());
+		}
+		
+		/**
+		 * Stop streaming keys.
+		 * <p>
+		 * Cancels the listing if Riak is still sending keys. Does nothing 
+		 * when not streaming.
+		 * </p>
+		 */
+		@Override
+		public void close()
+		{
+			if (streamed != null)
+			{
+				streamed.close();
+			}
 		}
 	}
 
@@ -131,8 +203,11 @@ public final class ListKeys extends RiakCommand<ListKeys.Response, Location>
 
 	public static class Builder
 	{
+		private SchedulingTag schedulingTag;
 		private final Location location;
 		private int timeout;
+		private boolean streaming;
+		private int maxBufferedChunks = ListKeysOperation.DEFAULT_MAX_BUFFERED_CHUNKS;
 
 		public Builder(Location location)
 		{
@@ -145,6 +220,55 @@ public final class ListKeys extends RiakCommand<ListKeys.Response, Location>
 			return this;
 		}
 
+		/**
+		 * Stream keys as they are received from Riak.
+		 * <p>
+		 * Listing every key in a bucket can return a very large number of keys.
+		 * When streaming, the response is available immediately and keys are
+		 * delivered to its iterator as Riak sends them rather than all being 
+		 * held in memory. If the consumer falls behind, reading from Riak is
+		 * paused once {@link #withMaxBufferedChunks(int)} chunks are buffered.
+		 * </p>
+		 * @param streaming true to stream keys.
+		 * @return a reference to this object.
+		 */
+		public Builder withStreaming(boolean streaming)
+		{
+			this.streaming = streaming;
+			return this;
+		}
+		
+		/**
+		 * Set the number of chunks of keys buffered when streaming before 
+		 * reading from Riak is paused.
+		 * @param maxBufferedChunks the max number of buffered chunks.
+		 * @return a reference to this object.
+		 */
+		public Builder withMaxBufferedChunks(int maxBufferedChunks)
+		{
+			if (maxBufferedChunks < 1)
+			{
+				throw new IllegalArgumentException("maxBufferedChunks must be at least 1");
+			}
+			this.maxBufferedChunks = maxBufferedChunks;
+			return this;
+		}
+
+		/**
+		 * Set the scheduling class used when this command is executed.
+		 * <p>
+		 * Only meaningful when the cluster has been built with an admission limit;
+		 * see {@link SchedulingTag}.
+		 * </p>
+		 * @param tag the priority and tenant of this command.
+		 * @return a reference to this object.
+		 */
+		public Builder withSchedulingTag(SchedulingTag tag)
+		{
+			this.schedulingTag = tag;
+			return this;
+		}
+
 		public ListKeys build()
 		{
 			return new ListKeys(this);
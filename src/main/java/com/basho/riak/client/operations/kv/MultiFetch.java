@@ -18,6 +18,7 @@ package com.basho.riak.client.operations.kv;
 import com.basho.riak.client.core.RiakCluster;
 import com.basho.riak.client.RiakCommand;
 import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.SchedulingTag;
 import com.basho.riak.client.core.RiakFutureListener;
 import com.basho.riak.client.operations.ListenableFuture;
 import com.basho.riak.client.operations.kv.FetchValue.Option;
@@ -93,6 +94,7 @@ public final class MultiFetch extends RiakCommand<MultiFetch.Response, List<Loca
 
 	private MultiFetch(Builder builder)
 	{
+		super(builder.schedulingTag);
 		this.locations.addAll(builder.keys);
 		this.options.putAll(builder.options);
         this.maxInFlight = builder.maxInFlight;
@@ -121,7 +123,8 @@ public final class MultiFetch extends RiakCommand<MultiFetch.Response, List<Loca
         
         for (Location location : locations)
 		{
-            FetchValue.Builder builder = new FetchValue.Builder(location);
+            FetchValue.Builder builder = new FetchValue.Builder(location)
+                                            .withSchedulingTag(getSchedulingTag());
 			
 			for (Option<?> option : options.keySet())
 			{
@@ -140,6 +143,7 @@ public final class MultiFetch extends RiakCommand<MultiFetch.Response, List<Loca
 	 */
 	public static class Builder
 	{
+		private SchedulingTag schedulingTag;
 		private ArrayList<Location> keys = new ArrayList<Location>();
 		private Map<Option<?>, Object> options = new HashMap<Option<?>, Object>();
         private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
@@ -231,6 +235,21 @@ public final class MultiFetch extends RiakCommand<MultiFetch.Response, List<Loca
             return this;
         }
         
+		/**
+		 * Set the scheduling class used when this command is executed.
+		 * <p>
+		 * Only meaningful when the cluster has been built with an admission limit;
+		 * see {@link SchedulingTag}.
+		 * </p>
+		 * @param tag the priority and tenant of this command.
+		 * @return a reference to this object.
+		 */
+		public Builder withSchedulingTag(SchedulingTag tag)
+		{
+			this.schedulingTag = tag;
+			return this;
+		}
+
 		/**
 		 * Build a {@link MultiFetch} operation from this builder
 		 *
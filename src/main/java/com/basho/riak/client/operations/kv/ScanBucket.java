@@ -0,0 +1,494 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.operations.kv;
+
+import com.basho.riak.client.RiakCommand;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.RiakFutureListener;
+import com.basho.riak.client.core.SchedulingTag;
+import com.basho.riak.client.core.StreamingException;
+import com.basho.riak.client.core.StreamingFutureOperation;
+import com.basho.riak.client.core.StreamingIterator;
+import com.basho.riak.client.core.operations.ListKeysOperation;
+import com.basho.riak.client.core.operations.SecondaryIndexQueryOperation;
+import com.basho.riak.client.operations.CompletedFuture;
+import com.basho.riak.client.operations.kv.FetchValue.Option;
+import com.basho.riak.client.query.Location;
+import com.basho.riak.client.util.BinaryValue;
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Command used to fetch every object in a bucket.
+ * <p>
+ * The keys of the bucket are streamed from Riak, either by listing keys or
+ * by querying the {@code $bucket} secondary index, and each is fetched as 
+ * it arrives, keeping up to {@code maxInFlight} fetches outstanding across 
+ * the cluster's nodes. Completed fetches are returned, in the order they 
+ * complete, through the response's iterator. 
+ * </p>
+ * <p>
+ * Flow control is end to end: a fetch is only started when fewer than
+ * {@code maxInFlight} fetches are outstanding or completed but not yet
+ * consumed. If the consumer falls behind, fetching stops, the key stream's
+ * buffer fills, and reading keys from Riak is paused. Memory use is 
+ * proportional to {@code maxInFlight}, not to the size of the bucket. 
+ * </p>
+ * <pre>
+ * {@code
+ * ScanBucket scan = new ScanBucket.Builder(new Location("my_bucket"))
+ *                      .withMaxInFlight(20)
+ *                      .build();
+ * for (RiakFuture<FetchValue.Response, Location> f : client.execute(scan))
+ * {
+ *     try
+ *     {
+ *         MyPojo pojo = f.get().getValue(MyPojo.class);
+ *     }
+ *     catch (ExecutionException e)
+ *     {
+ *         // log error, etc.
+ *     }
+ * }
+ * }
+ * </pre>
+ * <p>
+ * As with {@link MultiFetch}, the failure of an individual fetch is 
+ * reported through its future. If streaming the keys fails, the cause is 
+ * thrown from the iterator's {@code hasNext()} wrapped in a 
+ * {@link StreamingException} once the outstanding fetches have been 
+ * returned.
+ * </p>
+ * @since 2.0
+ */
+public final class ScanBucket extends RiakCommand<ScanBucket.Response, Location>
+{
+    public static final int DEFAULT_MAX_IN_FLIGHT = MultiFetch.DEFAULT_MAX_IN_FLIGHT;
+    
+    /**
+     * How the keys of the bucket are enumerated.
+     */
+    public enum KeySource
+    {
+        /**
+         * List the keys of the bucket. 
+         */
+        LIST_KEYS,
+        /**
+         * Query the {@code $bucket} index. Requires a 2i capable backend.
+         */
+        BUCKET_INDEX
+    }
+    
+    private final Location bucket;
+    private final KeySource keySource;
+    private final int maxInFlight;
+    private final int maxBufferedChunks;
+    private final Map<Option<?>, Object> options = new HashMap<Option<?>, Object>();
+    
+    private ScanBucket(Builder builder)
+    {
+        super(builder.schedulingTag);
+        this.bucket = builder.bucket;
+        this.keySource = builder.keySource;
+        this.maxInFlight = builder.maxInFlight;
+        this.maxBufferedChunks = builder.maxBufferedChunks;
+        this.options.putAll(builder.options);
+    }
+    
+    @Override
+    protected RiakFuture<Response, Location> executeAsync(RiakCluster cluster)
+    {
+        Response response = new Response(maxInFlight, streamKeys(cluster));
+        Submitter submitter = new Submitter(cluster, response);
+        Thread t = new Thread(submitter);
+        t.setDaemon(true);
+        t.start();
+        return new CompletedFuture<Response, Location>(response, bucket);
+    }
+    
+    private StreamingIterator<BinaryValue> streamKeys(RiakCluster cluster)
+    {
+        if (keySource == KeySource.LIST_KEYS)
+        {
+            ListKeysOperation operation = 
+                new ListKeysOperation.Builder(bucket)
+                    .withStreaming(true)
+                    .withMaxBufferedChunks(maxBufferedChunks)
+                    .build();
+            cluster.execute(operation, getSchedulingTag());
+            return operation.iterator();
+        }
+        
+        SecondaryIndexQueryOperation.Query query = 
+            new SecondaryIndexQueryOperation.Query.Builder(bucket, BinaryValue.create("$bucket"))
+                .withIndexKey(bucket.getBucketName())
+                .build();
+        SecondaryIndexQueryOperation operation = 
+            new SecondaryIndexQueryOperation.Builder(query)
+                .withStreaming(true)
+                .withMaxBufferedChunks(maxBufferedChunks)
+                .build();
+        cluster.execute(operation, getSchedulingTag());
+        final StreamingIterator<SecondaryIndexQueryOperation.Response.Entry> entries = operation.iterator();
+        return new StreamingIterator<BinaryValue>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return entries.hasNext();
+            }
+
+            @Override
+            public BinaryValue next()
+            {
+                return entries.next().getObjectKey();
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+            
+            @Override
+            public void close()
+            {
+                entries.close();
+            }
+        };
+    }
+    
+    @SuppressWarnings("unchecked")
+    private FetchValue buildFetch(BinaryValue key)
+    {
+        Location location = 
+            new Location(bucket.getBucketName())
+                .setBucketType(bucket.getBucketType())
+                .setKey(key);
+        FetchValue.Builder builder = 
+            new FetchValue.Builder(location).withSchedulingTag(getSchedulingTag());
+        for (Map.Entry<Option<?>, Object> option : options.entrySet())
+        {
+            builder.withOption((Option<Object>) option.getKey(), option.getValue());
+        }
+        return builder.build();
+    }
+    
+    /**
+     * The response from a ScanBucket command.
+     * <p>
+     * The iterator returns each fetch as it completes and can only be 
+     * obtained once. {@code hasNext()} blocks until a fetch completes or 
+     * every key has been fetched. Closing the response stops the scan.
+     * </p>
+     */
+    public static final class Response implements Iterable<RiakFuture<FetchValue.Response, Location>>, Closeable
+    {
+        private static final Object END = new Object();
+        
+        private final Semaphore window;
+        private final StreamingIterator<BinaryValue> keys;
+        private final LinkedBlockingQueue<Object> completed = new LinkedBlockingQueue<Object>();
+        private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        private volatile boolean closed;
+        private boolean iterated;
+        
+        Response(int maxInFlight, StreamingIterator<BinaryValue> keys)
+        {
+            this.window = new Semaphore(maxInFlight);
+            this.keys = keys;
+        }
+        
+        /**
+         * Stop the scan.
+         * <p>
+         * Cancels the key stream and starts no more fetches; fetches already
+         * started are discarded when they complete.
+         * </p>
+         */
+        @Override
+        public void close()
+        {
+            if (closed)
+            {
+                return;
+            }
+            closed = true;
+            keys.close();
+            // Wake the submitter if it is waiting for the window, and the 
+            // consumer if it is waiting for a fetch
+            window.release();
+            completed.add(END);
+        }
+        
+        @Override
+        public synchronized Iterator<RiakFuture<FetchValue.Response, Location>> iterator()
+        {
+            if (iterated)
+            {
+                throw new IllegalStateException("Response has already been iterated");
+            }
+            iterated = true;
+            return new Itr();
+        }
+        
+        private class Itr implements Iterator<RiakFuture<FetchValue.Response, Location>>
+        {
+            private Object next;
+            private boolean finished;
+            
+            @Override
+            public boolean hasNext()
+            {
+                if (closed)
+                {
+                    return false;
+                }
+                if (next == null && !finished)
+                {
+                    try
+                    {
+                        next = completed.take();
+                    }
+                    catch (InterruptedException ex)
+                    {
+                        Thread.currentThread().interrupt();
+                        throw new StreamingException(ex);
+                    }
+                    if (next == END)
+                    {
+                        next = null;
+                        finished = true;
+                        if (!closed && failure.get() != null)
+                        {
+                            throw new StreamingException(failure.get());
+                        }
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public RiakFuture<FetchValue.Response, Location> next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+                RiakFuture<FetchValue.Response, Location> f = (RiakFuture<FetchValue.Response, Location>) next;
+                next = null;
+                // The consumer has taken this result; allow another fetch
+                window.release();
+                return f;
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        }
+    }
+    
+    /**
+     * Reads keys from the stream and starts a fetch for each when the window
+     * allows.
+     */
+    private class Submitter implements Runnable, RiakFutureListener<FetchValue.Response, Location>
+    {
+        private final RiakCluster cluster;
+        private final Iterator<BinaryValue> keys;
+        private final Response response;
+        private int started;
+        private int finished;
+        private boolean submitted;
+        
+        Submitter(RiakCluster cluster, Response response)
+        {
+            this.cluster = cluster;
+            this.keys = response.keys;
+            this.response = response;
+        }
+        
+        @Override
+        public void run()
+        {
+            try
+            {
+                while (!response.closed && keys.hasNext())
+                {
+                    BinaryValue key = keys.next();
+                    response.window.acquire();
+                    if (response.closed)
+                    {
+                        break;
+                    }
+                    synchronized (this)
+                    {
+                        started++;
+                    }
+                    buildFetch(key).executeAsync(cluster).addListener(this);
+                }
+            }
+            catch (InterruptedException ex)
+            {
+                response.failure.compareAndSet(null, ex);
+            }
+            catch (RuntimeException ex)
+            {
+                response.failure.compareAndSet(null, ex);
+            }
+            
+            synchronized (this)
+            {
+                submitted = true;
+                if (finished == started)
+                {
+                    response.completed.add(Response.END);
+                }
+            }
+        }
+
+        @Override
+        public void handle(RiakFuture<FetchValue.Response, Location> f)
+        {
+            response.completed.add(f);
+            synchronized (this)
+            {
+                finished++;
+                if (submitted && finished == started)
+                {
+                    response.completed.add(Response.END);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Used to construct a ScanBucket command.
+     */
+    public static class Builder
+    {
+        private final Location bucket;
+        private final Map<Option<?>, Object> options = new HashMap<Option<?>, Object>();
+        private SchedulingTag schedulingTag;
+        private KeySource keySource = KeySource.LIST_KEYS;
+        private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+        private int maxBufferedChunks = StreamingFutureOperation.DEFAULT_MAX_BUFFERED_CHUNKS;
+        
+        /**
+         * Construct a Builder for a ScanBucket command.
+         * @param bucket the bucket (and bucket type) to scan.
+         */
+        public Builder(Location bucket)
+        {
+            if (bucket == null)
+            {
+                throw new IllegalArgumentException("Location cannot be null");
+            }
+            this.bucket = bucket;
+        }
+        
+        /**
+         * Set how the keys of the bucket are enumerated.
+         * <p>
+         * Defaults to {@link KeySource#LIST_KEYS}.
+         * </p>
+         * @param keySource the source of keys.
+         * @return a reference to this object.
+         */
+        public Builder withKeySource(KeySource keySource)
+        {
+            this.keySource = keySource;
+            return this;
+        }
+        
+        /**
+         * Set the maximum number of fetches outstanding or awaiting 
+         * consumption at once.
+         * @param maxInFlight the size of the fetch window.
+         * @return a reference to this object.
+         */
+        public Builder withMaxInFlight(int maxInFlight)
+        {
+            if (maxInFlight < 1)
+            {
+                throw new IllegalArgumentException("maxInFlight must be at least 1");
+            }
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+        
+        /**
+         * Set the number of chunks of keys buffered before reading keys from
+         * Riak is paused.
+         * @param maxBufferedChunks the max number of buffered chunks.
+         * @return a reference to this object.
+         */
+        public Builder withMaxBufferedChunks(int maxBufferedChunks)
+        {
+            if (maxBufferedChunks < 1)
+            {
+                throw new IllegalArgumentException("maxBufferedChunks must be at least 1");
+            }
+            this.maxBufferedChunks = maxBufferedChunks;
+            return this;
+        }
+        
+        /**
+         * A {@link Option} to use with each fetch operation
+         *
+         * @param option an option
+         * @param value  the option's associated value
+         * @param <U>    the type of the option's value
+         * @return a reference to this object.
+         */
+        public <U> Builder withOption(Option<U> option, U value)
+        {
+            this.options.put(option, value);
+            return this;
+        }
+        
+        /**
+         * Set the scheduling class used when this command is executed.
+         * <p>
+         * Only meaningful when the cluster has been built with an admission limit;
+         * see {@link SchedulingTag}.
+         * </p>
+         * @param tag the priority and tenant of this command.
+         * @return a reference to this object.
+         */
+        public Builder withSchedulingTag(SchedulingTag tag)
+        {
+            this.schedulingTag = tag;
+            return this;
+        }
+        
+        public ScanBucket build()
+        {
+            return new ScanBucket(this);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.operations.kv;
+
+import com.basho.riak.client.RiakClient;
+import com.basho.riak.client.cap.VClock;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.RiakFutureListener;
+import com.basho.riak.client.query.Location;
+import com.basho.riak.client.query.RiakObject;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes resolved values back to Riak.
+ * <p>
+ * When a {@link FetchValue} built with 
+ * {@link FetchValue.Builder#withSiblingWriteBack(SiblingWriteBack)} returns 
+ * siblings, the value produced by {@link FetchValue.Response#getValue(Class)}
+ * is queued here along with the fetched vector clock. Queued values are 
+ * stored asynchronously in batches, either every flush interval or as soon 
+ * as the maximum batch size is reached. Only the most recently resolved 
+ * value for a given {@code Location} is stored.
+ * </p>
+ * <p>
+ * The stored object carries the indexes and links of all the siblings and 
+ * their user metadata, so a domain class that doesn't map that metadata 
+ * with annotations doesn't remove it from the object.
+ * </p>
+ * <p>
+ * Storing the resolved value with the vector clock that was read collapses 
+ * the siblings, so the next fetch of the key only returns one value.
+ * </p>
+ * <pre>
+ * SiblingWriteBack writeBack = new SiblingWriteBack(client);
+ * FetchValue fv = new FetchValue.Builder(location)
+ *                     .withSiblingWriteBack(writeBack)
+ *                     .build();
+ * MyPojo pojo = client.execute(fv).getValue(MyPojo.class);
+ * </pre>
+ * @since 2.0
+ */
+public final class SiblingWriteBack
+{
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 100;
+    
+    private final Logger logger = LoggerFactory.getLogger(SiblingWriteBack.class);
+    
+    private final RiakClient client;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService executor;
+    private final Map<Location, Pending> pending = new LinkedHashMap<Location, Pending>();
+    private boolean shutdown;
+    
+    /**
+     * Create a SiblingWriteBack that flushes every 
+     * {@value #DEFAULT_FLUSH_INTERVAL_MILLIS}ms or every 
+     * {@value #DEFAULT_MAX_BATCH_SIZE} values.
+     * @param client the client used to store resolved values.
+     */
+    public SiblingWriteBack(RiakClient client)
+    {
+        this(client, DEFAULT_MAX_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Create a SiblingWriteBack.
+     * @param client the client used to store resolved values.
+     * @param maxBatchSize the number of queued values that triggers a flush.
+     * @param flushInterval the interval between flushes.
+     * @param unit the unit of the flush interval.
+     */
+    public SiblingWriteBack(RiakClient client, int maxBatchSize, long flushInterval, TimeUnit unit)
+    {
+        if (client == null)
+        {
+            throw new IllegalArgumentException("Client can not be null");
+        }
+        if (maxBatchSize < 1)
+        {
+            throw new IllegalArgumentException("Max batch size must be at least 1");
+        }
+        if (flushInterval <= 0)
+        {
+            throw new IllegalArgumentException("Flush interval must be positive");
+        }
+        this.client = client;
+        this.maxBatchSize = maxBatchSize;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+        {
+            @Override
+            public Thread newThread(Runnable r)
+            {
+                Thread t = new Thread(r, "riak-sibling-writeback");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        
+        executor.scheduleWithFixedDelay(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                flush();
+            }
+        }, flushInterval, flushInterval, unit);
+    }
+    
+    void submit(Location location, RiakObject value, VClock vclock)
+    {
+        boolean full;
+        synchronized (pending)
+        {
+            if (shutdown)
+            {
+                // The siblings remain and are resolved again on the next fetch
+                logger.debug("Sibling write back to {} dropped after shutdown", location);
+                return;
+            }
+            // Remove first so a re-queued location moves to the back
+            pending.remove(location);
+            pending.put(location, new Pending(location, value, vclock));
+            full = pending.size() >= maxBatchSize;
+        }
+        
+        if (full)
+        {
+            try
+            {
+                executor.execute(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        flush();
+                    }
+                });
+            }
+            catch (RejectedExecutionException e)
+            {
+                // Shut down since queueing; shutdown() flushes what was queued
+            }
+        }
+    }
+    
+    /**
+     * Return the number of values waiting to be stored.
+     * @return the number of queued values.
+     */
+    public int getPendingCount()
+    {
+        synchronized (pending)
+        {
+            return pending.size();
+        }
+    }
+    
+    /**
+     * Store all queued values now.
+     * <p>
+     * The stores are issued asynchronously; this method does not wait for 
+     * them to complete. Failed stores are logged and not retried; the 
+     * siblings remain and will be resolved again on the next fetch.
+     * </p>
+     * @return the number of stores issued.
+     */
+    public int flush()
+    {
+        List<Pending> batch;
+        synchronized (pending)
+        {
+            if (pending.isEmpty())
+            {
+                return 0;
+            }
+            batch = new ArrayList<Pending>(pending.values());
+            pending.clear();
+        }
+        
+        for (Pending p : batch)
+        {
+            StoreValue store = new StoreValue.Builder(p.value)
+                                      .withLocation(p.location)
+                                      .withVectorClock(p.vclock)
+                                      .build();
+            try
+            {
+                client.executeAsync(store).addListener(listener);
+            }
+            catch (RuntimeException e)
+            {
+                logger.warn("Sibling write back to {} failed", p.location, e);
+            }
+        }
+        
+        return batch.size();
+    }
+    
+    /**
+     * Flush any queued values and stop the background flush.
+     * <p>
+     * Values resolved after this are not written back.
+     * </p>
+     */
+    public void shutdown()
+    {
+        synchronized (pending)
+        {
+            shutdown = true;
+        }
+        executor.shutdown();
+        flush();
+    }
+    
+    private final RiakFutureListener<StoreValue.Response, Location> listener =
+        new RiakFutureListener<StoreValue.Response, Location>()
+        {
+            @Override
+            public void handle(RiakFuture<StoreValue.Response, Location> f)
+            {
+                if (!f.isSuccess())
+                {
+                    logger.warn("Sibling write back to {} failed", f.getQueryInfo(), f.cause());
+                }
+            }
+        };
+    
+    private static class Pending
+    {
+        private final Location location;
+        private final RiakObject value;
+        private final VClock vclock;
+        
+        Pending(Location location, RiakObject value, VClock vclock)
+        {
+            this.location = location;
+            this.value = value;
+            this.vclock = vclock;
+        }
+    }
+}
@@ -24,6 +24,7 @@ import com.basho.riak.client.core.RiakCluster;
 import com.basho.riak.client.core.operations.StoreOperation;
 import com.basho.riak.client.RiakCommand;
 import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.SchedulingTag;
 import com.basho.riak.client.operations.CoreFutureAdapter;
 import com.basho.riak.client.operations.RiakOption;
 import com.basho.riak.client.util.BinaryValue;
@@ -49,6 +50,7 @@ public final class StoreValue extends RiakCommand<StoreValue.Response, Location>
     
     StoreValue(Builder builder)
     {
+        super(builder.schedulingTag);
         this.options.putAll(builder.options);
         this.location = builder.location;
         this.value = builder.value;
@@ -82,7 +84,7 @@ public final class StoreValue extends RiakCommand<StoreValue.Response, Location>
         }
         
         RiakFuture<StoreOperation.Response, Location> coreFuture =
-            cluster.execute(buildCoreOperation(orm));
+            cluster.execute(buildCoreOperation(orm), getSchedulingTag());
         
         CoreFutureAdapter<Response, Location, StoreOperation.Response, Location> future = 
             new CoreFutureAdapter<Response, Location, StoreOperation.Response, Location>(coreFuture)
@@ -299,6 +301,7 @@ public final class StoreValue extends RiakCommand<StoreValue.Response, Location>
 
 	public static class Builder
 	{
+		private SchedulingTag schedulingTag;
 
 		private final Map<Option<?>, Object> options =
 			new HashMap<Option<?>, Object>();
@@ -363,6 +366,21 @@ public final class StoreValue extends RiakCommand<StoreValue.Response, Location>
             return this;
         }
         
+		/**
+		 * Set the scheduling class used when this command is executed.
+		 * <p>
+		 * Only meaningful when the cluster has been built with an admission limit;
+		 * see {@link SchedulingTag}.
+		 * </p>
+		 * @param tag the priority and tenant of this command.
+		 * @return a reference to this object.
+		 */
+		public Builder withSchedulingTag(SchedulingTag tag)
+		{
+			this.schedulingTag = tag;
+			return this;
+		}
+
 		public StoreValue build()
 		{
 			return new StoreValue(this);
@@ -22,6 +22,7 @@ import com.basho.riak.client.cap.VClock;
 import com.basho.riak.client.convert.ConversionException;
 import com.basho.riak.client.convert.reflection.AnnotationUtil;
 import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.SchedulingTag;
 import com.basho.riak.client.core.RiakFutureListener;
 import com.basho.riak.client.operations.ListenableFuture;
 import com.basho.riak.client.query.Location;
@@ -52,6 +53,7 @@ public final class UpdateValue extends RiakCommand<UpdateValue.Response, Locatio
 
     UpdateValue(Builder builder)
     {
+        super(builder.schedulingTag);
         this.location = builder.location;
         this.update = builder.update;
         this.typeReference = builder.typeReference;
@@ -65,7 +67,8 @@ public final class UpdateValue extends RiakCommand<UpdateValue.Response, Locatio
     {
         final UpdateValueFuture updateFuture = new UpdateValueFuture(location);
         
-        FetchValue.Builder fetchBuilder = new FetchValue.Builder(location);
+        FetchValue.Builder fetchBuilder = new FetchValue.Builder(location)
+                                            .withSchedulingTag(getSchedulingTag());
         for (Map.Entry<FetchValue.Option<?>, Object> optPair : fetchOptions.entrySet())
         {
             fetchBuilder.withOption((FetchValue.Option<Object>) optPair.getKey(), optPair.getValue());
@@ -124,7 +127,8 @@ public final class UpdateValue extends RiakCommand<UpdateValue.Response, Locatio
                                 StoreValue.Builder store = 
                                     new StoreValue.Builder(updated, typeReference)
                                         .withLocation(location)
-                                        .withVectorClock(vclock);
+                                        .withVectorClock(vclock)
+                                        .withSchedulingTag(getSchedulingTag());
 
                                 for (Map.Entry<StoreValue.Option<?>, Object> optPair : storeOptions.entrySet())
                                 {
@@ -314,6 +318,7 @@ public final class UpdateValue extends RiakCommand<UpdateValue.Response, Locatio
 
 	public static class Builder
 	{
+		private SchedulingTag schedulingTag;
 		private final Location location;
 		private Update<?> update;
         private TypeReference<?> typeReference;
@@ -425,6 +430,21 @@ public final class UpdateValue extends RiakCommand<UpdateValue.Response, Locatio
             return this;
         }
         
+		/**
+		 * Set the scheduling class used when this command is executed.
+		 * <p>
+		 * Only meaningful when the cluster has been built with an admission limit;
+		 * see {@link SchedulingTag}.
+		 * </p>
+		 * @param tag the priority and tenant of this command.
+		 * @return a reference to this object.
+		 */
+		public Builder withSchedulingTag(SchedulingTag tag)
+		{
+			this.schedulingTag = tag;
+			return this;
+		}
+
 		public UpdateValue build()
 		{
 			return new UpdateValue(this);
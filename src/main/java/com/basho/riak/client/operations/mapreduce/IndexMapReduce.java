@@ -47,6 +47,12 @@ public class IndexMapReduce extends MapReduce
 			return this;
 		}
 
+		public Builder withRange(final String start, final String end)
+		{
+			this.criteria = new IndexInput.RangeCriteria<String>(start, end);
+			return this;
+		}
+
 		public Builder withMatchValue(final long value)
 		{
 			this.criteria = new IndexInput.MatchCriteria<Long>(value);
@@ -59,6 +65,12 @@ public class IndexMapReduce extends MapReduce
 			return this;
 		}
 
+		public Builder withMatchValue(final String value)
+		{
+			this.criteria = new IndexInput.MatchCriteria<String>(value);
+			return this;
+		}
+
 		public IndexMapReduce build()
 		{
 
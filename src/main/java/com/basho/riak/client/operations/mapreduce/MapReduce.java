@@ -18,7 +18,11 @@ import com.basho.riak.client.RiakException;
 import com.basho.riak.client.convert.ConversionException;
 import com.basho.riak.client.core.RiakCluster;
 import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.SchedulingTag;
+import com.basho.riak.client.core.StreamingFutureOperation;
+import com.basho.riak.client.core.StreamingIterator;
 import com.basho.riak.client.core.operations.MapReduceOperation;
+import com.basho.riak.client.operations.CompletedFuture;
 import com.basho.riak.client.operations.CoreFutureAdapter;
 import com.basho.riak.client.query.functions.Function;
 import com.basho.riak.client.util.BinaryValue;
@@ -26,12 +30,14 @@ import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.util.*;
 
@@ -42,11 +48,18 @@ import java.util.*;
 public abstract class MapReduce extends RiakCommand<MapReduce.Response, BinaryValue>
 {
 	private final MapReduceSpec spec;
+	private final boolean streaming;
+	private final int maxBufferedChunks;
+	private final Map<Integer, Class<?>> phaseTypes;
 
     @SuppressWarnings("unchecked")
 	protected MapReduce(MapReduceInput input, Builder builder)
 	{
+		super(builder.schedulingTag);
 		this.spec = new MapReduceSpec(input, builder.phases, builder.timeout);
+		this.streaming = builder.streaming;
+		this.maxBufferedChunks = builder.maxBufferedChunks;
+		this.phaseTypes = new HashMap<Integer, Class<?>>(builder.phaseTypes);
 	}
 
 	@Override
@@ -58,15 +71,30 @@ public abstract class MapReduce extends RiakCommand<MapReduce.Response, BinaryVa
 		{
 			String spec = writeSpec();
             //System.out.println(spec);
-            jobSpec = BinaryValue.create(spec);
+            jobSpec = BinaryValue.createFromUtf8(spec);
 		} catch (RiakException e)
 		{
 			throw new RuntimeException(e);
 		}
 
+		if (streaming)
+		{
+			MapReduceOperation.Builder builder = 
+				new MapReduceOperation.Builder(jobSpec)
+					.withStreaming(true)
+					.withMaxBufferedChunks(maxBufferedChunks);
+			for (Map.Entry<Integer, Class<?>> entry : phaseTypes.entrySet())
+			{
+				builder.withPhaseType(entry.getKey(), entry.getValue());
+			}
+			MapReduceOperation operation = builder.build();
+			cluster.execute(operation, getSchedulingTag());
+			return new CompletedFuture<Response, BinaryValue>(new Response(operation.iterator()), jobSpec);
+		}
+
 		MapReduceOperation operation = new MapReduceOperation.Builder(jobSpec).build();
 
-		final RiakFuture<MapReduceOperation.Response, BinaryValue> coreFuture = cluster.execute(operation);
+		final RiakFuture<MapReduceOperation.Response, BinaryValue> coreFuture = cluster.execute(operation, getSchedulingTag());
 
 		CoreFutureAdapter<Response, BinaryValue, MapReduceOperation.Response, BinaryValue> future =
 				new CoreFutureAdapter<Response, BinaryValue, MapReduceOperation.Response, BinaryValue>(coreFuture)
@@ -140,6 +168,10 @@ public abstract class MapReduce extends RiakCommand<MapReduce.Response, BinaryVa
 
 		protected final List<MapReducePhase> phases = new LinkedList<MapReducePhase>();
 		protected Long timeout;
+		protected SchedulingTag schedulingTag;
+		protected boolean streaming;
+		protected int maxBufferedChunks = StreamingFutureOperation.DEFAULT_MAX_BUFFERED_CHUNKS;
+		protected final Map<Integer, Class<?>> phaseTypes = new HashMap<Integer, Class<?>>();
 
 		/**
 		 * Set the operations timeout
@@ -325,28 +357,169 @@ public abstract class MapReduce extends RiakCommand<MapReduce.Response, BinaryVa
 			return self();
 		}
 
+		/**
+		 * Set the scheduling class used when this job is executed.
+		 * <p>
+		 * Only meaningful when the cluster has been built with an admission limit;
+		 * see {@link SchedulingTag}.
+		 * </p>
+		 * @param tag the priority and tenant of this job.
+		 * @return a reference to this object.
+		 */
+		public T withSchedulingTag(SchedulingTag tag)
+		{
+			this.schedulingTag = tag;
+			return self();
+		}
+
+		/**
+		 * Stream the results of the job as they are received from Riak.
+		 * <p>
+		 * When streaming, the response is available immediately and the 
+		 * results of each phase are delivered through 
+		 * {@link Response#iterator()} as Riak sends them rather than all
+		 * being held in memory. If the consumer falls behind, reading from 
+		 * Riak is paused once {@link #withMaxBufferedChunks(int)} chunks are
+		 * buffered.
+		 * </p>
+		 * @param streaming true to stream results.
+		 * @return a reference to this object.
+		 */
+		public T withStreaming(boolean streaming)
+		{
+			this.streaming = streaming;
+			return self();
+		}
+
+		/**
+		 * Set the number of chunks of results buffered when streaming before 
+		 * reading from Riak is paused.
+		 * @param maxBufferedChunks the max number of buffered chunks.
+		 * @return a reference to this object.
+		 */
+		public T withMaxBufferedChunks(int maxBufferedChunks)
+		{
+			if (maxBufferedChunks < 1)
+			{
+				throw new IllegalArgumentException("maxBufferedChunks must be at least 1");
+			}
+			this.maxBufferedChunks = maxBufferedChunks;
+			return self();
+		}
+
+		/**
+		 * Bind the streamed results of a phase to the given type.
+		 * <p>
+		 * Only applies when streaming; results of phases without a type are
+		 * returned as {@link JsonNode}s. Each result is bound when it is first
+		 * read; one that can't be bound throws a {@link ConversionException} 
+		 * from {@link MapReduceOperation.PhaseResult#getResult()} without 
+		 * failing the job.
+		 * </p>
+		 * @param phase the phase number.
+		 * @param type the type each result of the phase is bound to.
+		 * @return a reference to this object.
+		 */
+		public T withPhaseType(int phase, Class<?> type)
+		{
+			phaseTypes.put(phase, type);
+			return self();
+		}
+
 		protected abstract T self();
 
 	}
 
-	public static class Response
+	/**
+	 * The response from a MapReduce job.
+	 * <p>
+	 * When the job is streaming, the results are delivered through 
+	 * {@link #iterator()} as they arrive and can only be iterated once; the 
+	 * other accessors are not supported. Closing the response cancels the 
+	 * job's delivery if it hasn't finished.
+	 * </p>
+	 */
+	public static class Response implements Iterable<MapReduceOperation.PhaseResult>, Closeable
 	{
+		// ObjectMapper is thread safe once configured
+		private static final ObjectMapper MAPPER = new ObjectMapper();
 
 		private final Map<Integer, ArrayNode> results;
+		private final StreamingIterator<MapReduceOperation.PhaseResult> streamed;
 
 		public Response(Map<Integer, ArrayNode> results)
 		{
 			this.results = results;
+			this.streamed = null;
+		}
+
+		Response(StreamingIterator<MapReduceOperation.PhaseResult> streamed)
+		{
+			this.results = null;
+			this.streamed = streamed;
+		}
+
+		/**
+		 * Determine if this response streams its results.
+		 * @return true if results are delivered as they are iterated.
+		 */
+		public boolean isStreaming()
+		{
+			return streamed != null;
+		}
+
+		/**
+		 * Returns an iterator over the results of every phase.
+		 * <p>
+		 * When streaming, results are returned in the order Riak sends them
+		 * and this can only be called once. Otherwise the results are grouped 
+		 * by phase.
+		 * </p>
+		 * @return an iterator over the results.
+		 */
+		@Override
+		public Iterator<MapReduceOperation.PhaseResult> iterator()
+		{
+			if (streamed != null)
+			{
+				return streamed;
+			}
+
+			List<MapReduceOperation.PhaseResult> all = new ArrayList<MapReduceOperation.PhaseResult>();
+			for (Map.Entry<Integer, ArrayNode> entry : results.entrySet())
+			{
+				for (JsonNode node : entry.getValue())
+				{
+					all.add(new MapReduceOperation.PhaseResult(entry.getKey(), node));
+				}
+			}
+			return all.iterator();
+		}
+
+		/**
+		 * Stop streaming results.
+		 * <p>
+		 * Riak is no longer read from if it is still sending results. Does 
+		 * nothing when not streaming.
+		 * </p>
+		 */
+		@Override
+		public void close()
+		{
+			if (streamed != null)
+			{
+				streamed.close();
+			}
 		}
 
         public boolean hasResultForPhase(int i)
         {
-            return results.containsKey(i);
+            return results().containsKey(i);
         }
         
         public ArrayNode getResultForPhase(int i)
         {
-            return results.get(i);
+            return results().get(i);
         }
         
         public ArrayNode getResultsFromAllPhases()
@@ -357,10 +530,9 @@ public abstract class MapReduce extends RiakCommand<MapReduce.Response, BinaryVa
         public <T> Collection<T> getResultsFromAllPhases(Class<T> resultType)
         {
             ArrayNode flat = flattenResults();
-            ObjectMapper mapper = new ObjectMapper();
             try
             {
-                return mapper.readValue(flat.toString(), mapper.getTypeFactory().constructCollectionType(Collection.class, resultType));
+                return MAPPER.readValue(MAPPER.treeAsTokens(flat), MAPPER.getTypeFactory().constructCollectionType(Collection.class, resultType));
             }
             catch (IOException ex)
             {
@@ -372,12 +544,21 @@ public abstract class MapReduce extends RiakCommand<MapReduce.Response, BinaryVa
         {
             final JsonNodeFactory factory = JsonNodeFactory.instance;
             ArrayNode flatArray = factory.arrayNode();
-            for (Map.Entry<Integer,ArrayNode> entry : results.entrySet())
+            for (Map.Entry<Integer,ArrayNode> entry : results().entrySet())
             {
                 flatArray.addAll(entry.getValue());
             }
             return flatArray;
         }
+        
+        private Map<Integer, ArrayNode> results()
+        {
+            if (streamed != null)
+            {
+                throw new IllegalStateException("Streaming responses must be iterated");
+            }
+            return results;
+        }
 		
 	}
-}
\ No newline at end of file
+}
@@ -65,6 +65,8 @@ public final class RiakObject
     private volatile RiakIndexes riakIndexes;
     private volatile RiakLinks links;
     private volatile RiakUserMetadata userMeta;
+    // Source of metadata not yet decoded into the containers above
+    private volatile LazyMetadata lazyMetadata;
     
     // All immutable types
     private volatile String contentType = DEFAULT_CONTENT_TYPE;
@@ -282,7 +284,19 @@ public final class RiakObject
      */
     public boolean hasIndexes()
     {
-        return (riakIndexes != null && !riakIndexes.isEmpty());
+        RiakIndexes indexes = riakIndexes;
+        if (indexes == null)
+        {
+            LazyMetadata lazy = lazyMetadata;
+            if (lazy != null)
+            {
+                return lazy.hasIndexes();
+            }
+            // Decoded (and the source released) since we looked
+            indexes = riakIndexes;
+            return indexes != null && !indexes.isEmpty();
+        }
+        return !indexes.isEmpty();
     }
     
     /**
@@ -301,7 +315,13 @@ public final class RiakObject
         // Lazy initialization of the internal container.
         if (null == riakIndexes)
         {
-            riakIndexes = new RiakIndexes();
+            RiakIndexes indexes = new RiakIndexes();
+            if (lazyMetadata != null && lazyMetadata.hasIndexes())
+            {
+                lazyMetadata.decodeIndexes(indexes);
+            }
+            riakIndexes = indexes;
+            releaseLazyMetadata();
         }
         return riakIndexes;
     }
@@ -313,7 +333,19 @@ public final class RiakObject
      */
     public boolean hasLinks()
     {
-        return (links != null && !links.isEmpty());
+        RiakLinks riakLinks = links;
+        if (riakLinks == null)
+        {
+            LazyMetadata lazy = lazyMetadata;
+            if (lazy != null)
+            {
+                return lazy.hasLinks();
+            }
+            // Decoded (and the source released) since we looked
+            riakLinks = links;
+            return riakLinks != null && !riakLinks.isEmpty();
+        }
+        return !riakLinks.isEmpty();
     }
     
     /**
@@ -328,7 +360,13 @@ public final class RiakObject
         // Lazy initialization of comtainer
         if (null == links)
         {
-            links = new RiakLinks();
+            RiakLinks riakLinks = new RiakLinks();
+            if (lazyMetadata != null && lazyMetadata.hasLinks())
+            {
+                lazyMetadata.decodeLinks(riakLinks);
+            }
+            links = riakLinks;
+            releaseLazyMetadata();
         }
         
         return links;
@@ -342,7 +380,19 @@ public final class RiakObject
      */
     public boolean hasUserMeta()
     {
-        return userMeta != null && !userMeta.isEmpty();
+        RiakUserMetadata meta = userMeta;
+        if (meta == null)
+        {
+            LazyMetadata lazy = lazyMetadata;
+            if (lazy != null)
+            {
+                return lazy.hasUserMeta();
+            }
+            // Decoded (and the source released) since we looked
+            meta = userMeta;
+            return meta != null && !meta.isEmpty();
+        }
+        return !meta.isEmpty();
     }
     
     /**
@@ -357,7 +407,13 @@ public final class RiakObject
         // Lazy initialization of container. 
         if (null == userMeta)
         {
-            userMeta = new RiakUserMetadata();
+            RiakUserMetadata meta = new RiakUserMetadata();
+            if (lazyMetadata != null && lazyMetadata.hasUserMeta())
+            {
+                lazyMetadata.decodeUserMeta(meta);
+            }
+            userMeta = meta;
+            releaseLazyMetadata();
         }
         
         return userMeta;
@@ -383,4 +439,46 @@ public final class RiakObject
     {
         return isDeleted;
     }
+    
+    /**
+     * Supply indexes, links and user meta to be decoded on first access.
+     * <p>
+     * Used when converting responses from Riak so metadata the caller never 
+     * looks at is never decoded. Containers that have already been accessed
+     * are not affected.
+     * </p>
+     * @param lazyMetadata the source of the metadata.
+     * @return a reference to this object
+     * @ExcludeFromJavadoc
+     */
+    public synchronized RiakObject setLazyMetadata(LazyMetadata lazyMetadata)
+    {
+        this.lazyMetadata = lazyMetadata;
+        return this;
+    }
+    
+    /**
+     * Drop the lazy metadata once every container has been decoded from it.
+     */
+    private void releaseLazyMetadata()
+    {
+        if (riakIndexes != null && links != null && userMeta != null)
+        {
+            lazyMetadata = null;
+        }
+    }
+    
+    /**
+     * Metadata that is decoded into a RiakObject's containers on first access.
+     * @ExcludeFromJavadoc
+     */
+    public interface LazyMetadata
+    {
+        boolean hasIndexes();
+        boolean hasLinks();
+        boolean hasUserMeta();
+        void decodeIndexes(RiakIndexes indexes);
+        void decodeLinks(RiakLinks links);
+        void decodeUserMeta(RiakUserMetadata userMeta);
+    }
 }
@@ -15,12 +15,13 @@
  */
 package com.basho.riak.client.query.UserMetadata;
 
+import com.basho.riak.client.util.ArrayMap;
 import com.basho.riak.client.util.BinaryValue;
 import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A threadsafe container for user metadata.
@@ -41,8 +42,8 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class RiakUserMetadata
 {
-    private final ConcurrentHashMap<BinaryValue, BinaryValue> meta =
-        new ConcurrentHashMap<BinaryValue, BinaryValue>();
+    private final ConcurrentMap<BinaryValue, BinaryValue> meta =
+        new ArrayMap<BinaryValue, BinaryValue>();
     
     /**
      * Determine if usermeta is present.
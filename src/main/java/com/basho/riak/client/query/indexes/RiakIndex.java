@@ -15,14 +15,16 @@
  */
 package com.basho.riak.client.query.indexes;
 
+import com.basho.riak.client.util.ArraySet;
 import com.basho.riak.client.util.BinaryValue;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Abstract base class for modeling a Riak Secondary Index (2i).
@@ -71,7 +73,7 @@ public abstract class RiakIndex<T> implements Iterable<T>
         }
         else
         {
-            this.values = Collections.newSetFromMap(new ConcurrentHashMap<BinaryValue, Boolean>());
+            this.values = new ArraySet<BinaryValue>();
         }
     }
 
@@ -95,11 +97,12 @@ public abstract class RiakIndex<T> implements Iterable<T>
      */
     public final RiakIndex<T> add(Collection<T> values)
     {
+        List<BinaryValue> converted = new ArrayList<BinaryValue>(values.size());
         for (T value : values)
         {
-            add(value);
+            converted.add(convert(value));
         }
-
+        this.values.addAll(converted);
         return this;
     }
 
@@ -432,11 +435,7 @@ public abstract class RiakIndex<T> implements Iterable<T>
          */
         final Name<T> copyFrom(RiakIndex<?> otherIndex)
         {
-            values = Collections.newSetFromMap(new ConcurrentHashMap<BinaryValue, Boolean>());
-            for (BinaryValue baw : otherIndex.values)
-            {
-                values.add(baw);
-            }
+            values = new ArraySet<BinaryValue>(otherIndex.values);
             return this;
         }
 
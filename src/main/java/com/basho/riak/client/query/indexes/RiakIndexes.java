@@ -16,10 +16,11 @@
 package com.basho.riak.client.query.indexes;
 
 import com.basho.riak.client.query.RiakObject;
+import com.basho.riak.client.util.ArrayMap;
 
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Container used to instantiate and Manage {@code RiakIndex} objects to be used with a {@code RiakObject}.
@@ -94,8 +95,8 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class RiakIndexes implements Iterable<RiakIndex<?>>
 {
-    private final ConcurrentHashMap<String, RiakIndex<?>> indexes = 
-        new ConcurrentHashMap<String, RiakIndex<? extends Object>>(); 
+    private final ConcurrentMap<String, RiakIndex<?>> indexes = 
+        new ArrayMap<String, RiakIndex<? extends Object>>(); 
     
     /**
      * Instantiates a new RiakIndexes object containing no RiakIndex objects
@@ -15,12 +15,11 @@
  */
 package com.basho.riak.client.query.links;
 
+import com.basho.riak.client.util.ArraySet;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A thread safe container for {@link RiakLink} objects.
@@ -32,8 +31,7 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class RiakLinks implements Iterable<RiakLink>
 {
-    private final Set<RiakLink> links = 
-         Collections.newSetFromMap(new ConcurrentHashMap<RiakLink, Boolean>());
+    private final Set<RiakLink> links = new ArraySet<RiakLink>();
     
     /**
      * Reports if there are any {@code RiakLink} objects present
@@ -0,0 +1,427 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.query.search;
+
+import com.google.protobuf.ByteString;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The documents returned by a search, held in a compact columnar form.
+ * <p>
+ * Field names are interned in a dictionary shared by every document in the
+ * result, and the fields of all documents are stored in flat parallel 
+ * arrays. Values are held as the UTF-8 bytes received from Riak and only 
+ * decoded to Strings when first accessed. Each {@link Document} is a 
+ * lightweight view onto these arrays; {@link Document#asMap()} provides a
+ * read-only {@code Map} view for code that expects one.
+ * </p>
+ * <p>
+ * A SearchResult is immutable once built and is safe to share between 
+ * threads.
+ * </p>
+ * @since 2.0
+ */
+public final class SearchResult extends AbstractList<SearchResult.Document>
+{
+    private final String[] dictionary;
+    // docStart[i] is the index of the first field of document i
+    private final int[] docStart;
+    private final int[] fieldNames;
+    private final ByteString[] rawValues;
+    private final String[] values;
+    
+    private SearchResult(Builder builder)
+    {
+        this.dictionary = builder.dictionary.toArray(new String[builder.dictionary.size()]);
+        this.docStart = Arrays.copyOf(builder.docStart, builder.numDocs + 1);
+        this.docStart[builder.numDocs] = builder.numFields;
+        this.fieldNames = Arrays.copyOf(builder.fieldNames, builder.numFields);
+        this.rawValues = Arrays.copyOf(builder.rawValues, builder.numFields);
+        this.values = new String[builder.numFields];
+    }
+    
+    @Override
+    public Document get(int index)
+    {
+        if (index < 0 || index >= size())
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        return new Document(index);
+    }
+
+    @Override
+    public int size()
+    {
+        return docStart.length - 1;
+    }
+    
+    /**
+     * Returns the distinct field names in this result.
+     * @return the field names, in the order first seen.
+     */
+    public List<String> getFieldNames()
+    {
+        return Arrays.asList(dictionary);
+    }
+    
+    private String value(int field)
+    {
+        String value = values[field];
+        if (value == null)
+        {
+            // Decoding is idempotent, so racing threads may both decode
+            value = rawValues[field].toStringUtf8();
+            values[field] = value;
+        }
+        return value;
+    }
+    
+    /**
+     * A single document in a search result. Multi-valued fields appear once
+     * per value, in the order Riak returned them.
+     */
+    public final class Document
+    {
+        private final int start;
+        private final int end;
+        
+        private Document(int index)
+        {
+            this.start = docStart[index];
+            this.end = docStart[index + 1];
+        }
+        
+        /**
+         * Returns the number of fields in this document.
+         * @return the number of field values.
+         */
+        public int size()
+        {
+            return end - start;
+        }
+        
+        /**
+         * Returns the name of a field.
+         * @param index the index of the field.
+         * @return the field name.
+         */
+        public String getFieldName(int index)
+        {
+            return dictionary[fieldNames[checkIndex(index)]];
+        }
+        
+        /**
+         * Returns the value of a field.
+         * @param index the index of the field.
+         * @return the field value.
+         */
+        public String getFieldValue(int index)
+        {
+            return value(checkIndex(index));
+        }
+        
+        /**
+         * Returns the first value of the named field.
+         * @param name the field name.
+         * @return the value, or null if the document doesn't have the field.
+         */
+        public String get(String name)
+        {
+            int field = find(name);
+            return field < 0 ? null : value(field);
+        }
+        
+        /**
+         * Returns the first value of the named field as a long.
+         * <p>
+         * Plain decimal values are parsed directly from the UTF-8 bytes 
+         * without decoding a String.
+         * </p>
+         * @param name the field name.
+         * @return the value, or null if the document doesn't have the field.
+         * @throws NumberFormatException if the value is not an integer.
+         */
+        public Long getLong(String name)
+        {
+            int field = find(name);
+            if (field < 0)
+            {
+                return null;
+            }
+            ByteString raw = rawValues[field];
+            int length = raw.size();
+            // Up to 18 digits can't overflow
+            if (length == 0 || length > 18)
+            {
+                return Long.parseLong(value(field));
+            }
+            int i = 0;
+            boolean negative = raw.byteAt(0) == '-';
+            if (negative && length > 1)
+            {
+                i = 1;
+            }
+            long result = 0;
+            for (; i < length; i++)
+            {
+                int digit = raw.byteAt(i) - '0';
+                if (digit < 0 || digit > 9)
+                {
+                    return Long.parseLong(value(field));
+                }
+                result = result * 10 + digit;
+            }
+            return negative ? -result : result;
+        }
+        
+        /**
+         * Returns the first value of the named field as a double.
+         * @param name the field name.
+         * @return the value, or null if the document doesn't have the field.
+         * @throws NumberFormatException if the value is not a number.
+         */
+        public Double getDouble(String name)
+        {
+            int field = find(name);
+            return field < 0 ? null : Double.valueOf(value(field));
+        }
+        
+        /**
+         * Returns a read-only {@code Map} view of this document. 
+         * <p>
+         * As with a {@code Map} populated field by field, the last value of
+         * a multi-valued field is the one returned.
+         * </p>
+         * @return a Map of field name to value.
+         */
+        public Map<String, String> asMap()
+        {
+            return new MapView();
+        }
+        
+        @Override
+        public String toString()
+        {
+            return asMap().toString();
+        }
+        
+        private int checkIndex(int index)
+        {
+            if (index < 0 || index >= size())
+            {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            return start + index;
+        }
+        
+        private int find(String name)
+        {
+            for (int i = start; i < end; i++)
+            {
+                if (dictionary[fieldNames[i]].equals(name))
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        
+        private int findLast(Object name)
+        {
+            for (int i = end - 1; i >= start; i--)
+            {
+                if (dictionary[fieldNames[i]].equals(name))
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        
+        // The fields holding the last value of each name, in document order
+        private int[] lastFields()
+        {
+            BitSet seen = new BitSet();
+            int[] fields = new int[end - start];
+            int count = fields.length;
+            for (int i = end - 1; i >= start; i--)
+            {
+                if (!seen.get(fieldNames[i]))
+                {
+                    seen.set(fieldNames[i]);
+                    fields[--count] = i;
+                }
+            }
+            return Arrays.copyOfRange(fields, count, fields.length);
+        }
+        
+        private class MapView extends AbstractMap<String, String>
+        {
+            private int[] entries;
+            
+            private int[] entries()
+            {
+                if (entries == null)
+                {
+                    entries = lastFields();
+                }
+                return entries;
+            }
+            
+            @Override
+            public String get(Object key)
+            {
+                int field = findLast(key);
+                return field < 0 ? null : value(field);
+            }
+            
+            @Override
+            public boolean containsKey(Object key)
+            {
+                return findLast(key) >= 0;
+            }
+            
+            @Override
+            public Set<Map.Entry<String, String>> entrySet()
+            {
+                return new AbstractSet<Map.Entry<String, String>>()
+                {
+                    @Override
+                    public Iterator<Map.Entry<String, String>> iterator()
+                    {
+                        return new EntryIterator(entries());
+                    }
+
+                    @Override
+                    public int size()
+                    {
+                        return entries().length;
+                    }
+                };
+            }
+        }
+        
+        private class EntryIterator implements Iterator<Map.Entry<String, String>>
+        {
+            private final int[] fields;
+            private int next;
+            
+            private EntryIterator(int[] fields)
+            {
+                this.fields = fields;
+            }
+            
+            @Override
+            public boolean hasNext()
+            {
+                return next < fields.length;
+            }
+
+            @Override
+            public Map.Entry<String, String> next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+                int field = fields[next++];
+                return new AbstractMap.SimpleImmutableEntry<String, String>(dictionary[fieldNames[field]], 
+                                                                            value(field));
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        }
+    }
+    
+    /**
+     * Used to construct a SearchResult.
+     */
+    public static final class Builder
+    {
+        private final Map<ByteString, Integer> names = new HashMap<ByteString, Integer>();
+        private final List<String> dictionary = new ArrayList<String>();
+        private int[] docStart = new int[16];
+        private int[] fieldNames = new int[64];
+        private ByteString[] rawValues = new ByteString[64];
+        private int numDocs;
+        private int numFields;
+        
+        /**
+         * Begin a new document. Fields added after this belong to it.
+         * @return a reference to this object.
+         */
+        public Builder startDocument()
+        {
+            if (numDocs + 1 >= docStart.length)
+            {
+                docStart = Arrays.copyOf(docStart, docStart.length * 2);
+            }
+            docStart[numDocs++] = numFields;
+            return this;
+        }
+        
+        /**
+         * Add a field to the current document.
+         * @param name the UTF-8 field name.
+         * @param value the UTF-8 field value.
+         * @return a reference to this object.
+         */
+        public Builder addField(ByteString name, ByteString value)
+        {
+            if (numDocs == 0)
+            {
+                throw new IllegalStateException("startDocument() has not been called");
+            }
+            Integer id = names.get(name);
+            if (id == null)
+            {
+                id = dictionary.size();
+                dictionary.add(name.toStringUtf8());
+                names.put(name, id);
+            }
+            if (numFields == fieldNames.length)
+            {
+                fieldNames = Arrays.copyOf(fieldNames, numFields * 2);
+                rawValues = Arrays.copyOf(rawValues, numFields * 2);
+            }
+            fieldNames[numFields] = id;
+            rawValues[numFields] = value;
+            numFields++;
+            return this;
+        }
+        
+        public SearchResult build()
+        {
+            return new SearchResult(this);
+        }
+    }
+}
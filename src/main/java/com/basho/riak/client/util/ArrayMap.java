@@ -0,0 +1,365 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A compact, thread safe {@code ConcurrentMap} backed by an array.
+ * <p>
+ * The {@link ArraySet} counterpart for maps: up to 
+ * {@value ArraySet#HASH_THRESHOLD} entries, keys and values are held 
+ * alternately in a single array that is replaced on each change. Reads take
+ * no locks, iterators traverse a snapshot and support {@code remove()}, and
+ * changes are serialized. Larger maps switch to a {@code ConcurrentHashMap}.
+ * Entries are immutable.
+ * </p>
+ * <p>
+ * As with {@code ConcurrentHashMap}, null keys and values are not permitted.
+ * </p>
+ * @riak.threadsafety This class is thread safe.
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ * @since 2.0
+ */
+public final class ArrayMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>
+{
+    private static final Object[] EMPTY = new Object[0];
+    
+    // Either an Object[] or, once past the threshold, a ConcurrentMap<K,V>
+    private volatile Object state = EMPTY;
+    
+    @Override
+    public int size()
+    {
+        Object s = state;
+        return s instanceof Object[] ? ((Object[]) s).length / 2 : hashed(s).size();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        if (key == null)
+        {
+            return false;
+        }
+        Object s = state;
+        return s instanceof Object[] ? indexOf((Object[]) s, key) >= 0 : hashed(s).containsKey(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key)
+    {
+        if (key == null)
+        {
+            return null;
+        }
+        Object s = state;
+        if (!(s instanceof Object[]))
+        {
+            return hashed(s).get(key);
+        }
+        Object[] current = (Object[]) s;
+        int index = indexOf(current, key);
+        return index < 0 ? null : (V) current[index + 1];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized V put(K key, V value)
+    {
+        checkNotNull(key, value);
+        Object s = state;
+        if (!(s instanceof Object[]))
+        {
+            return hashed(s).put(key, value);
+        }
+        Object[] current = (Object[]) s;
+        int index = indexOf(current, key);
+        if (index >= 0)
+        {
+            V old = (V) current[index + 1];
+            Object[] updated = current.clone();
+            updated[index + 1] = value;
+            state = updated;
+            return old;
+        }
+        append(current, key, value);
+        return null;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized V putIfAbsent(K key, V value)
+    {
+        checkNotNull(key, value);
+        Object s = state;
+        if (!(s instanceof Object[]))
+        {
+            return hashed(s).putIfAbsent(key, value);
+        }
+        Object[] current = (Object[]) s;
+        int index = indexOf(current, key);
+        if (index >= 0)
+        {
+            return (V) current[index + 1];
+        }
+        append(current, key, value);
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized V remove(Object key)
+    {
+        if (key == null)
+        {
+            return null;
+        }
+        Object s = state;
+        if (!(s instanceof Object[]))
+        {
+            return hashed(s).remove(key);
+        }
+        Object[] current = (Object[]) s;
+        int index = indexOf(current, key);
+        if (index < 0)
+        {
+            return null;
+        }
+        delete(current, index);
+        return (V) current[index + 1];
+    }
+    
+    @Override
+    public synchronized boolean remove(Object key, Object value)
+    {
+        if (key == null || value == null)
+        {
+            return false;
+        }
+        Object s = state;
+        if (!(s instanceof Object[]))
+        {
+            return hashed(s).remove(key, value);
+        }
+        Object[] current = (Object[]) s;
+        int index = indexOf(current, key);
+        if (index < 0 || !value.equals(current[index + 1]))
+        {
+            return false;
+        }
+        delete(current, index);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean replace(K key, V oldValue, V newValue)
+    {
+        checkNotNull(key, oldValue);
+        checkNotNull(key, newValue);
+        Object s = state;
+        if (!(s instanceof Object[]))
+        {
+            return hashed(s).replace(key, oldValue, newValue);
+        }
+        Object[] current = (Object[]) s;
+        int index = indexOf(current, key);
+        if (index < 0 || !oldValue.equals(current[index + 1]))
+        {
+            return false;
+        }
+        Object[] updated = current.clone();
+        updated[index + 1] = newValue;
+        state = updated;
+        return true;
+    }
+
+    @Override
+    public synchronized V replace(K key, V value)
+    {
+        checkNotNull(key, value);
+        return containsKey(key) ? put(key, value) : null;
+    }
+
+    @Override
+    public synchronized void clear()
+    {
+        state = EMPTY;
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet()
+    {
+        return new AbstractSet<Map.Entry<K, V>>()
+        {
+            @Override
+            public int size()
+            {
+                return ArrayMap.this.size();
+            }
+
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator()
+            {
+                Object s = state;
+                if (!(s instanceof Object[]))
+                {
+                    return new HashedIterator(hashed(s).entrySet().iterator());
+                }
+                final Object[] snapshot = (Object[]) s;
+                return new Iterator<Map.Entry<K, V>>()
+                {
+                    private int next;
+                    private int last = -1;
+
+                    @Override
+                    public boolean hasNext()
+                    {
+                        return next < snapshot.length;
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Map.Entry<K, V> next()
+                    {
+                        if (next >= snapshot.length)
+                        {
+                            throw new NoSuchElementException();
+                        }
+                        last = next;
+                        next += 2;
+                        return new AbstractMap.SimpleImmutableEntry<K, V>(
+                            (K) snapshot[last], (V) snapshot[last + 1]);
+                    }
+
+                    @Override
+                    public void remove()
+                    {
+                        if (last < 0)
+                        {
+                            throw new IllegalStateException();
+                        }
+                        ArrayMap.this.remove(snapshot[last], snapshot[last + 1]);
+                        last = -1;
+                    }
+                };
+            }
+        };
+    }
+    
+    private class HashedIterator implements Iterator<Map.Entry<K, V>>
+    {
+        private final Iterator<Map.Entry<K, V>> iterator;
+        
+        HashedIterator(Iterator<Map.Entry<K, V>> iterator)
+        {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public Map.Entry<K, V> next()
+        {
+            return new AbstractMap.SimpleImmutableEntry<K, V>(iterator.next());
+        }
+
+        @Override
+        public void remove()
+        {
+            iterator.remove();
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private ConcurrentMap<K, V> hashed(Object s)
+    {
+        return (ConcurrentMap<K, V>) s;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void append(Object[] current, K key, V value)
+    {
+        if (current.length / 2 == ArraySet.HASH_THRESHOLD)
+        {
+            ConcurrentMap<K, V> map = new ConcurrentHashMap<K, V>();
+            for (int i = 0; i < current.length; i += 2)
+            {
+                map.put((K) current[i], (V) current[i + 1]);
+            }
+            map.put(key, value);
+            state = map;
+            return;
+        }
+        Object[] updated = new Object[current.length + 2];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = key;
+        updated[current.length + 1] = value;
+        state = updated;
+    }
+    
+    private void delete(Object[] current, int index)
+    {
+        if (current.length == 2)
+        {
+            state = EMPTY;
+            return;
+        }
+        Object[] updated = new Object[current.length - 2];
+        System.arraycopy(current, 0, updated, 0, index);
+        System.arraycopy(current, index + 2, updated, index, current.length - index - 2);
+        state = updated;
+    }
+    
+    private static void checkNotNull(Object key, Object value)
+    {
+        if (key == null || value == null)
+        {
+            throw new NullPointerException();
+        }
+    }
+    
+    private static int indexOf(Object[] table, Object key)
+    {
+        for (int i = 0; i < table.length; i += 2)
+        {
+            if (key.equals(table[i]))
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
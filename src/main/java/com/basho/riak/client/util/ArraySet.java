@@ -0,0 +1,295 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A compact, thread safe {@code Set} backed by an array.
+ * <p>
+ * Meant for the small sets of metadata attached to every object. Up to 
+ * {@value #HASH_THRESHOLD} elements are held in a single array that is 
+ * replaced on each change, so reads take no locks and iterators traverse a 
+ * snapshot of the set as it was when they were created. Once the set grows 
+ * past that it switches to a {@code ConcurrentHashMap} backed set, so large 
+ * sets are still built in linear time; iterators are then weakly consistent.
+ * </p>
+ * <p>
+ * Iterators never throw {@code ConcurrentModificationException} and 
+ * support {@code remove()}. Null elements are not permitted.
+ * </p>
+ * @riak.threadsafety This class is thread safe.
+ * @param <E> the type of elements in the set
+ * @since 2.0
+ */
+public final class ArraySet<E> extends AbstractSet<E>
+{
+    /**
+     * The size above which elements are kept in a hash set.
+     */
+    public static final int HASH_THRESHOLD = 16;
+    
+    private static final Object[] EMPTY = new Object[0];
+    
+    // Either an Object[] or, once past the threshold, a Set<E>
+    private volatile Object state = EMPTY;
+    
+    /**
+     * Create an empty ArraySet.
+     */
+    public ArraySet()
+    {
+    }
+    
+    /**
+     * Create an ArraySet containing the supplied elements.
+     * @param c the elements.
+     */
+    public ArraySet(Collection<? extends E> c)
+    {
+        addAll(c);
+    }
+
+    @Override
+    public int size()
+    {
+        Object s = state;
+        return s instanceof Object[] ? ((Object[]) s).length : hashed(s).size();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+    
+    @Override
+    public boolean contains(Object o)
+    {
+        if (o == null)
+        {
+            return false;
+        }
+        Object s = state;
+        return s instanceof Object[] ? indexOf((Object[]) s, o) >= 0 : hashed(s).contains(o);
+    }
+
+    @Override
+    public synchronized boolean add(E e)
+    {
+        if (e == null)
+        {
+            throw new NullPointerException();
+        }
+        Object s = state;
+        if (!(s instanceof Object[]))
+        {
+            return hashed(s).add(e);
+        }
+        Object[] current = (Object[]) s;
+        if (indexOf(current, e) >= 0)
+        {
+            return false;
+        }
+        if (current.length == HASH_THRESHOLD)
+        {
+            Set<E> set = toHashed(current);
+            set.add(e);
+            state = set;
+            return true;
+        }
+        Object[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = e;
+        state = updated;
+        return true;
+    }
+    
+    @Override
+    public synchronized boolean addAll(Collection<? extends E> c)
+    {
+        for (E e : c)
+        {
+            if (e == null)
+            {
+                throw new NullPointerException();
+            }
+        }
+        
+        Object s = state;
+        if (s instanceof Object[] && ((Object[]) s).length + c.size() > HASH_THRESHOLD)
+        {
+            s = toHashed((Object[]) s);
+            state = s;
+        }
+        if (!(s instanceof Object[]))
+        {
+            return hashed(s).addAll(c);
+        }
+        
+        Object[] current = (Object[]) s;
+        Object[] updated = Arrays.copyOf(current, current.length + c.size());
+        int size = current.length;
+        for (E e : c)
+        {
+            if (indexOf(updated, size, e) < 0)
+            {
+                updated[size++] = e;
+            }
+        }
+        if (size == current.length)
+        {
+            return false;
+        }
+        state = size == updated.length ? updated : Arrays.copyOf(updated, size);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean remove(Object o)
+    {
+        if (o == null)
+        {
+            return false;
+        }
+        Object s = state;
+        if (!(s instanceof Object[]))
+        {
+            return hashed(s).remove(o);
+        }
+        Object[] current = (Object[]) s;
+        int index = indexOf(current, o);
+        if (index < 0)
+        {
+            return false;
+        }
+        if (current.length == 1)
+        {
+            state = EMPTY;
+        }
+        else
+        {
+            Object[] updated = new Object[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+            state = updated;
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized void clear()
+    {
+        state = EMPTY;
+    }
+    
+    @Override
+    public Object[] toArray()
+    {
+        Object s = state;
+        if (s instanceof Object[])
+        {
+            Object[] current = (Object[]) s;
+            return Arrays.copyOf(current, current.length);
+        }
+        return hashed(s).toArray();
+    }
+
+    @Override
+    public Iterator<E> iterator()
+    {
+        Object s = state;
+        if (!(s instanceof Object[]))
+        {
+            return hashed(s).iterator();
+        }
+        final Object[] snapshot = (Object[]) s;
+        return new Iterator<E>()
+        {
+            private int next;
+            private int last = -1;
+            
+            @Override
+            public boolean hasNext()
+            {
+                return next < snapshot.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next()
+            {
+                if (next >= snapshot.length)
+                {
+                    throw new NoSuchElementException();
+                }
+                last = next++;
+                return (E) snapshot[last];
+            }
+
+            @Override
+            public void remove()
+            {
+                if (last < 0)
+                {
+                    throw new IllegalStateException();
+                }
+                ArraySet.this.remove(snapshot[last]);
+                last = -1;
+            }
+        };
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Set<E> hashed(Object s)
+    {
+        return (Set<E>) s;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Set<E> toHashed(Object[] current)
+    {
+        Set<E> set = Collections.newSetFromMap(new ConcurrentHashMap<E, Boolean>());
+        for (Object o : current)
+        {
+            set.add((E) o);
+        }
+        return set;
+    }
+    
+    private static int indexOf(Object[] array, Object o)
+    {
+        return indexOf(array, array.length, o);
+    }
+    
+    private static int indexOf(Object[] array, int length, Object o)
+    {
+        for (int i = 0; i < length; i++)
+        {
+            if (o.equals(array[i]))
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
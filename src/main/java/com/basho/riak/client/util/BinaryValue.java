@@ -15,6 +15,9 @@
  */
 package com.basho.riak.client.util;
 
+import com.google.protobuf.ByteString;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 
@@ -35,17 +38,29 @@ import java.util.Arrays;
  * <code>unsafeGetValue()</code> will lead to undefined behavior in regard to thread
  * safety and visibility.
  * <p>
+ * A BinaryValue created from a protocol buffers {@code ByteString} uses it 
+ * directly; the {@code byte[]} is only created if it is asked for. Values 
+ * read with {@link #openStream()} or sent back to Riak via {@link #toByteString()} 
+ * are never copied into one.
+ * </p>
  * 
  * @author Brian Roach <roach at basho dot com>
  * @since 2.0
  */
 public final class BinaryValue
 {
-    private final byte[] data;
+    private volatile byte[] data;
+    private final ByteString source;
     
     private BinaryValue(byte[] data)
     {
         this.data = data;
+        this.source = null;
+    }
+    
+    private BinaryValue(ByteString source)
+    {
+        this.source = source;
     }
     
     /**
@@ -125,6 +140,23 @@ public final class BinaryValue
         return new BinaryValue(data);
     }
     
+    /**
+     * Create a BinaryValue backed by the supplied {@code ByteString}
+     * <p>
+     * As a {@code ByteString} is immutable it is not copied.
+     * </p>
+     * @param data the {@code ByteString} to wrap
+     * @return a new {@code BinaryValue}
+     */
+    public static BinaryValue create(ByteString data)
+    {
+        if (data == null)
+        {
+            return new BinaryValue((byte[]) null);
+        }
+        return new BinaryValue(data);
+    }
+    
     /**
      * Return a copy of the wrapped {@code byte[]}
      * <p>
@@ -134,6 +166,7 @@ public final class BinaryValue
      */
     public byte[] getValue()
     {
+        byte[] data = bytes();
         if (data != null)
         {
             return Arrays.copyOf(data, data.length);
@@ -153,7 +186,48 @@ public final class BinaryValue
      */
     public byte[] unsafeGetValue()
     {
-        return data;
+        return bytes();
+    }
+    
+    /**
+     * Return an {@code InputStream} over the wrapped bytes.
+     * <p>
+     * The bytes are not copied.
+     * </p>
+     * @return a new {@code InputStream}
+     */
+    public InputStream openStream()
+    {
+        byte[] data = this.data;
+        if (data == null && source != null)
+        {
+            return source.newInput();
+        }
+        return new ByteArrayInputStream(data);
+    }
+    
+    /**
+     * Return the wrapped bytes as a {@code ByteString}
+     * <p>
+     * If this BinaryValue was created from a {@code ByteString} it is returned, 
+     * otherwise the bytes are copied.
+     * </p>
+     * @return a {@code ByteString}
+     */
+    public ByteString toByteString()
+    {
+        return source != null ? source : ByteString.copyFrom(data);
+    }
+    
+    private byte[] bytes()
+    {
+        byte[] b = data;
+        if (b == null && source != null)
+        {
+            b = source.toByteArray();
+            data = b;
+        }
+        return b;
     }
         
     @Override
@@ -165,14 +239,14 @@ public final class BinaryValue
         }
         else 
         {
-            return Arrays.equals(data, ((BinaryValue)other).data);
+            return Arrays.equals(bytes(), ((BinaryValue)other).bytes());
         }
     }
 
     @Override
     public int hashCode()
     {
-        return Arrays.hashCode(data);
+        return Arrays.hashCode(bytes());
     }
     
     /**
@@ -208,6 +282,7 @@ public final class BinaryValue
      */
     public String toString(Charset charset)
     {
+        byte[] data = bytes();
         if (data != null) 
         {
             return new String(data, charset);
@@ -224,6 +299,7 @@ public final class BinaryValue
      */
     public int length()
     {
-        return data.length;
+        byte[] data = this.data;
+        return data == null && source != null ? source.size() : data.length;
     }
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.util;
+
+import java.util.Arrays;
+
+/**
+ * A HyperLogLog sketch for estimating the number of distinct values in a 
+ * stream.
+ * <p>
+ * The sketch uses {@code 2^precision} one-byte registers regardless of how
+ * many values are added; at the default precision of 14 that is 16KB with a
+ * typical error of about 0.8%. Values are hashed to 64 bits, so no large 
+ * range correction is needed, and small cardinalities are estimated by 
+ * linear counting.
+ * </p>
+ * <p>
+ * This class is not thread safe.
+ * </p>
+ * @since 2.0
+ */
+public final class HyperLogLog
+{
+    public static final int DEFAULT_PRECISION = 14;
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 18;
+    
+    private final int precision;
+    private final byte[] registers;
+    
+    /**
+     * Construct a sketch with the default precision.
+     */
+    public HyperLogLog()
+    {
+        this(DEFAULT_PRECISION);
+    }
+    
+    /**
+     * Construct a sketch.
+     * @param precision the number of bits used to select a register.
+     */
+    public HyperLogLog(int precision)
+    {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION)
+        {
+            throw new IllegalArgumentException("precision must be between " 
+                + MIN_PRECISION + " and " + MAX_PRECISION);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+    
+    public int getPrecision()
+    {
+        return precision;
+    }
+    
+    /**
+     * Add a value to the sketch.
+     * @param value the value.
+     */
+    public void add(BinaryValue value)
+    {
+        add(value.unsafeGetValue());
+    }
+    
+    /**
+     * Add a value to the sketch.
+     * @param value the bytes of the value.
+     */
+    public void add(byte[] value)
+    {
+        addHash(hash(value));
+    }
+    
+    private void addHash(long hash)
+    {
+        int index = (int) (hash >>> (64 - precision));
+        // A sentinel bit stops the count running past the hash
+        long rest = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > registers[index])
+        {
+            registers[index] = rank;
+        }
+    }
+    
+    /**
+     * Merge another sketch of the same precision into this one.
+     * @param other the sketch to merge.
+     */
+    public void merge(HyperLogLog other)
+    {
+        if (other.precision != precision)
+        {
+            throw new IllegalArgumentException("Cannot merge sketches of different precision");
+        }
+        for (int i = 0; i < registers.length; i++)
+        {
+            if (other.registers[i] > registers[i])
+            {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+    
+    /**
+     * Estimate the number of distinct values added.
+     * @return the estimated cardinality.
+     */
+    public long estimate()
+    {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte r : registers)
+        {
+            sum += 1.0 / (1L << r);
+            if (r == 0)
+            {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0)
+        {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+    
+    private static double alpha(int m)
+    {
+        switch (m)
+        {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+    
+    // 64 bit FNV-1a followed by the MurmurHash3 finalizer to spread the bits
+    static long hash(byte[] value)
+    {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value)
+        {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "HyperLogLog{precision=" + precision + ", estimate=" + estimate() + "}";
+    }
+    
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (!(obj instanceof HyperLogLog))
+        {
+            return false;
+        }
+        return Arrays.equals(registers, ((HyperLogLog) obj).registers);
+    }
+    
+    @Override
+    public int hashCode()
+    {
+        return Arrays.hashCode(registers);
+    }
+}
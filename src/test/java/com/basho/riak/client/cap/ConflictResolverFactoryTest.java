@@ -16,6 +16,8 @@
 
 package com.basho.riak.client.cap;
 
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.Arrays;
 import java.util.List;
 import static org.junit.Assert.*;
@@ -63,6 +65,20 @@ public class ConflictResolverFactoryTest
     
     
     
+    @Test
+    @SuppressWarnings("unchecked")
+    public void foreignClassesAreResolved() throws Exception
+    {
+        URL classes = Pojo.class.getProtectionDomain().getCodeSource().getLocation();
+        ClassLoader isolated = new URLClassLoader(new URL[] { classes }, null);
+        Class<Object> foreign = (Class<Object>) isolated.loadClass(Pojo.class.getName());
+        
+        ConflictResolverFactory factory = ConflictResolverFactory.getInstance();
+        ConflictResolver<Object> resolver = factory.getConflictResolver(foreign);
+        assertTrue(resolver instanceof DefaultResolver);
+        assertSame(resolver, factory.getConflictResolver(foreign));
+    }
+    
     public static class Pojo
     {
         public Pojo(){}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.cap;
+
+import com.basho.riak.client.annotations.RiakMerge;
+import com.basho.riak.client.query.RiakObject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @since 2.0
+ */
+public class MergeResolverTest
+{
+    @Test
+    public void lastWriteWinsSelectsNewest() throws UnresolvedConflictException
+    {
+        RiakObject older = new RiakObject().setLastModified(1000).setVTag("b");
+        RiakObject newest = new RiakObject().setLastModified(3000).setVTag("a");
+        RiakObject middle = new RiakObject().setLastModified(2000).setVTag("c");
+        
+        LastWriteWinsResolver<RiakObject> resolver = new LastWriteWinsResolver<RiakObject>();
+        assertSame(newest, resolver.select(Arrays.asList(older, newest, middle)));
+        assertNull(resolver.select(new ArrayList<RiakObject>()));
+    }
+    
+    @Test
+    public void lastWriteWinsBreaksTiesByVTag() throws UnresolvedConflictException
+    {
+        RiakObject a = new RiakObject().setLastModified(1000).setVTag("a");
+        RiakObject b = new RiakObject().setLastModified(1000).setVTag("b");
+        
+        LastWriteWinsResolver<RiakObject> resolver = new LastWriteWinsResolver<RiakObject>();
+        assertSame(resolver.select(Arrays.asList(a, b)), resolver.select(Arrays.asList(b, a)));
+    }
+    
+    @Test
+    public void jsonMergeUnionsCollectionsAndNewestScalarWins() throws UnresolvedConflictException
+    {
+        Cart older = new Cart("alice", "old note", "apple", "pear");
+        Cart newer = new Cart("alice", "new note", "apple", "plum");
+        Cart newest = new Cart("alice", null, "fig");
+        
+        JsonMergeResolver<Cart> resolver = new JsonMergeResolver<Cart>();
+        Cart merged = resolver.resolve(Arrays.asList(older, newer, newest));
+        
+        assertEquals("alice", merged.owner);
+        assertEquals("new note", merged.note);
+        assertEquals(new HashSet<String>(Arrays.asList("apple", "pear", "plum", "fig")), 
+                     new HashSet<String>(merged.items));
+        assertEquals(4, merged.items.size());
+    }
+    
+    @Test
+    public void jsonMergeSingleValue() throws UnresolvedConflictException
+    {
+        Cart cart = new Cart("bob", null);
+        assertSame(cart, new JsonMergeResolver<Cart>().resolve(Arrays.asList(cart)));
+    }
+    
+    @Test
+    public void annotatedStaticMerge() throws UnresolvedConflictException
+    {
+        ConflictResolver<Counter> resolver = 
+            ConflictResolverFactory.getInstance().getConflictResolver(Counter.class);
+        
+        assertTrue(resolver instanceof AnnotatedMergeResolver);
+        Counter merged = resolver.resolve(Arrays.asList(new Counter(3), new Counter(7), new Counter(5)));
+        assertEquals(7, merged.value);
+    }
+    
+    @Test
+    public void annotatedInstanceMerge() throws UnresolvedConflictException
+    {
+        ConflictResolver<Tags> resolver = 
+            ConflictResolverFactory.getInstance().getConflictResolver(Tags.class);
+        
+        Tags merged = resolver.resolve(Arrays.asList(new Tags("a"), new Tags("b"), new Tags("a", "c")));
+        assertEquals(new HashSet<String>(Arrays.asList("a", "b", "c")), merged.tags);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void annotatedMergeWithBadSignature()
+    {
+        AnnotatedMergeResolver.forClass(BadMerge.class);
+    }
+    
+    @Test
+    public void noAnnotatedMerge()
+    {
+        assertNull(AnnotatedMergeResolver.forClass(Cart.class));
+    }
+    
+    public static class Cart
+    {
+        public String owner;
+        public String note;
+        public List<String> items = new ArrayList<String>();
+        
+        public Cart() {}
+        
+        Cart(String owner, String note, String... items)
+        {
+            this.owner = owner;
+            this.note = note;
+            this.items.addAll(Arrays.asList(items));
+        }
+    }
+    
+    public static class Counter
+    {
+        int value;
+        
+        Counter(int value)
+        {
+            this.value = value;
+        }
+        
+        @RiakMerge
+        static Counter max(List<Counter> siblings)
+        {
+            Counter max = siblings.get(0);
+            for (Counter c : siblings)
+            {
+                if (c.value > max.value)
+                {
+                    max = c;
+                }
+            }
+            return max;
+        }
+    }
+    
+    public static class Tags
+    {
+        Set<String> tags = new HashSet<String>();
+        
+        Tags(String... tags)
+        {
+            this.tags.addAll(Arrays.asList(tags));
+        }
+        
+        @RiakMerge
+        Tags merge(Tags other)
+        {
+            Tags merged = new Tags();
+            merged.tags.addAll(tags);
+            merged.tags.addAll(other.tags);
+            return merged;
+        }
+    }
+    
+    public static class BadMerge
+    {
+        @RiakMerge
+        String merge(String a, String b)
+        {
+            return a;
+        }
+    }
+}
@@ -25,6 +25,10 @@ import com.basho.riak.client.query.RiakObject;
 import com.basho.riak.client.util.BinaryValue;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.type.TypeReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import static org.junit.Assert.*;
 import org.junit.Before;
 import org.junit.Test;
@@ -125,6 +129,59 @@ public class ConverterFactoryTest
         
     }
     
+    @Test
+    public void defaultConvertersAreCached()
+    {
+        ConverterFactory factory = ConverterFactory.getInstance();
+        assertSame(factory.getConverter(Pojo.class), factory.getConverter(Pojo.class));
+        
+        TypeReference<List<Pojo>> tr = new TypeReference<List<Pojo>>(){};
+        Converter<List<Pojo>> converter = factory.getConverter(tr);
+        assertSame(converter, factory.getConverter(tr));
+        
+        Pojo pojo = new Pojo();
+        pojo.foo = "foo_value";
+        List<Pojo> list = converter.toDomain(BinaryValue.create("[{\"foo\":\"foo_value\"}]"), null);
+        assertEquals(pojo.foo, list.get(0).foo);
+    }
+    
+    @Test
+    public void foreignClassesAreNotPinned() throws Exception
+    {
+        assertTrue(ConverterFactory.isCacheSafe(Pojo.class));
+        assertTrue(ConverterFactory.isCacheSafe(new TypeReference<List<Pojo>>(){}.getType()));
+        
+        URL classes = Pojo.class.getProtectionDomain().getCodeSource().getLocation();
+        ClassLoader isolated = new URLClassLoader(new URL[] { classes }, null);
+        Class<?> foreign = isolated.loadClass(Pojo.class.getName());
+        assertFalse(ConverterFactory.isCacheSafe(foreign));
+        
+        ConverterFactory factory = ConverterFactory.getInstance();
+        Converter<?> converter = factory.getConverter(foreign);
+        assertTrue(converter instanceof JSONConverter);
+        assertSame(converter, factory.getConverter(foreign));
+    }
+    
+    @Test
+    public void preloadCachesConverters()
+    {
+        ConverterFactory factory = ConverterFactory.getInstance();
+        PreloadReport report = factory.preload(Pojo.class, String.class);
+        
+        assertEquals(2, report.getClasses().size());
+        assertTrue(report.getClasses().contains(Pojo.class));
+        assertTrue(report.getTime(Pojo.class, PreloadReport.Step.ANNOTATIONS, TimeUnit.NANOSECONDS) > 0);
+        assertTrue(report.getTime(Pojo.class, PreloadReport.Step.JACKSON, TimeUnit.NANOSECONDS) > 0);
+        assertEquals(0, report.getTime(String.class, PreloadReport.Step.JACKSON, TimeUnit.NANOSECONDS));
+        assertEquals(0, report.getTime(List.class, PreloadReport.Step.CONVERTER, TimeUnit.NANOSECONDS));
+        assertTrue(report.getTotalTime(TimeUnit.NANOSECONDS) 
+            >= report.getTime(PreloadReport.Step.ANNOTATIONS, TimeUnit.NANOSECONDS));
+        
+        Converter<Pojo> converter = factory.getConverter(Pojo.class);
+        assertTrue(converter instanceof JSONConverter);
+        assertSame(converter, factory.getConverter(Pojo.class));
+    }
+    
     public static class MyConverter extends Converter<Pojo>
     {
 
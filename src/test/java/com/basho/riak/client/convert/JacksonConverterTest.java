@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.convert;
+
+import com.basho.riak.client.query.Location;
+import com.basho.riak.client.query.RiakObject;
+import com.basho.riak.client.util.BinaryValue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import org.junit.After;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @since 2.0
+ */
+public class JacksonConverterTest
+{
+    private static final String TEST_CONTENT_TYPE = "application/x-test";
+    
+    @After
+    public void teardown()
+    {
+        ConverterFactory.getInstance().setDefaultFormat(JSONConverter.CONTENT_TYPE);
+        ConverterFactory.getInstance().unregisterFormat(TEST_CONTENT_TYPE);
+    }
+    
+    private ObjectMapper testMapper()
+    {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setPropertyNamingStrategy(PropertyNamingStrategy.CAMEL_CASE_TO_LOWER_CASE_WITH_UNDERSCORES);
+        return mapper;
+    }
+    
+    @Test
+    public void writesOwnContentType()
+    {
+        JacksonConverter<Pojo> converter = 
+            new JacksonConverter<Pojo>(Pojo.class, testMapper(), TEST_CONTENT_TYPE);
+        Pojo pojo = new Pojo();
+        pojo.fooBar = "value";
+        
+        RiakObject ro = converter.fromDomain(pojo, new Location("bucket")).getRiakObject();
+        assertEquals(TEST_CONTENT_TYPE, ro.getContentType());
+        assertEquals("{\"foo_bar\":\"value\"}", ro.getValue().toString());
+        assertEquals("value", converter.toDomain(ro.getValue(), ro.getContentType()).fooBar);
+    }
+    
+    @Test
+    public void readsRegisteredFormats()
+    {
+        ConverterFactory factory = ConverterFactory.getInstance();
+        factory.registerFormat(TEST_CONTENT_TYPE, testMapper());
+        
+        Converter<Pojo> converter = new JSONConverter<Pojo>(Pojo.class);
+        BinaryValue json = BinaryValue.create("{\"fooBar\":\"json\"}");
+        BinaryValue test = BinaryValue.create("{\"foo_bar\":\"test\"}");
+        
+        assertEquals("json", converter.toDomain(json, JSONConverter.CONTENT_TYPE).fooBar);
+        assertEquals("json", converter.toDomain(json, null).fooBar);
+        assertEquals("test", converter.toDomain(test, TEST_CONTENT_TYPE).fooBar);
+        assertEquals("test", converter.toDomain(test, "Application/X-Test; charset=UTF-8").fooBar);
+        
+        factory.unregisterFormat(TEST_CONTENT_TYPE);
+        try
+        {
+            converter.toDomain(test, TEST_CONTENT_TYPE);
+            fail("Expected ConversionException");
+        }
+        catch (ConversionException ex)
+        {
+            // no-op
+        }
+    }
+    
+    @Test
+    public void defaultFormat()
+    {
+        ConverterFactory factory = ConverterFactory.getInstance();
+        try
+        {
+            factory.setDefaultFormat(TEST_CONTENT_TYPE);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException ex)
+        {
+            // no-op
+        }
+        
+        factory.registerFormat(TEST_CONTENT_TYPE, testMapper());
+        factory.setDefaultFormat(TEST_CONTENT_TYPE);
+        Converter<Pojo> converter = factory.getConverter(Pojo.class);
+        assertFalse(converter instanceof JSONConverter);
+        
+        Pojo pojo = new Pojo();
+        pojo.fooBar = "value";
+        assertEquals(TEST_CONTENT_TYPE, converter.fromDomain(pojo, new Location("bucket")).getRiakObject().getContentType());
+        
+        factory.setDefaultFormat(JSONConverter.CONTENT_TYPE);
+        assertTrue(factory.getConverter(Pojo.class) instanceof JSONConverter);
+    }
+    
+    public static class Pojo
+    {
+        public String fooBar;
+    }
+}
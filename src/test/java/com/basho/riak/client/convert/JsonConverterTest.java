@@ -20,17 +20,23 @@ import com.basho.riak.client.annotations.*;
 import com.basho.riak.client.cap.BasicVClock;
 import com.basho.riak.client.cap.VClock;
 import com.basho.riak.client.convert.Converter.OrmExtracted;
+import com.basho.riak.client.query.Location;
 import com.basho.riak.client.query.RiakObject;
 import com.basho.riak.client.query.links.RiakLink;
+import com.basho.riak.client.util.BinaryValue;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import static org.junit.Assert.*;
@@ -142,6 +148,39 @@ public class JsonConverterTest
 
     }
     
+    @Test
+    public void reconfiguringHeldMapperRebindsConverters()
+    {
+        ObjectMapper shared = JSONConverter.getObjectMapper();
+        JSONConverter<List<String>> jc = 
+            new JSONConverter<List<String>>(new TypeReference<List<String>>(){});
+        
+        List<String> list = Arrays.asList("a");
+        assertEquals("[\"a\"]", toJson(jc, list));
+        
+        try
+        {
+            shared.enable(SerializationFeature.INDENT_OUTPUT);
+            shared.enable(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY);
+            
+            assertEquals("[ \"a\" ]", toJson(jc, list));
+            assertEquals(list, jc.toDomain(BinaryValue.create("\"a\""), null));
+        }
+        finally
+        {
+            shared.disable(SerializationFeature.INDENT_OUTPUT);
+            shared.disable(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY);
+        }
+        
+        assertEquals("[\"a\"]", toJson(jc, list));
+    }
+    
+    private static String toJson(JSONConverter<List<String>> jc, List<String> list)
+    {
+        return jc.fromDomain(list, new Location("bucket").setKey("key"))
+                 .getRiakObject().getValue().toString();
+    }
+    
     @Test
     public void convertBackAndForth()
     {
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.convert;
+
+import com.basho.riak.client.annotations.RiakKey;
+import com.basho.riak.client.query.Location;
+import com.basho.riak.client.query.RiakObject;
+import com.basho.riak.client.util.BinaryValue;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.Map;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @since 2.0
+ */
+public class JsonProjectionTest
+{
+    private static final String DOC = 
+        "{\"name\":\"bob\",\"big\":{\"deep\":[1,2,{\"x\":[3]}]},"
+        + "\"address\":{\"city\":\"Boston\",\"zip\":\"02110\"},"
+        + "\"tags\":[\"a\",\"b\",\"c\"],\"a/b\":1,\"m~n\":2}";
+    
+    private Map<String, JsonNode> apply(JsonProjection projection, String json)
+    {
+        return projection.apply(BinaryValue.create(json), null);
+    }
+    
+    @Test
+    public void extractsPointers()
+    {
+        JsonProjection projection = 
+            JsonProjection.of("/name", "/address/city", "/tags/1", "/a~1b", "/m~0n", "/missing", "/tags/9");
+        Map<String, JsonNode> found = apply(projection, DOC);
+        
+        assertEquals(5, found.size());
+        assertEquals("bob", found.get("/name").asText());
+        assertEquals("Boston", found.get("/address/city").asText());
+        assertEquals("b", found.get("/tags/1").asText());
+        assertEquals(1, found.get("/a~1b").asInt());
+        assertEquals(2, found.get("/m~0n").asInt());
+        assertFalse(found.containsKey("/missing"));
+    }
+    
+    @Test
+    public void nestedPointers()
+    {
+        Map<String, JsonNode> found = 
+            apply(JsonProjection.of("/address", "/address/zip", "/big/deep/2/x/0"), DOC);
+        assertEquals("Boston", found.get("/address").get("city").asText());
+        assertEquals("02110", found.get("/address/zip").asText());
+        assertEquals(3, found.get("/big/deep/2/x/0").asInt());
+        
+        assertEquals(DOC.length(), apply(JsonProjection.of(""), DOC).get("").toString().length());
+    }
+    
+    @Test
+    public void stopsWhenAllFound()
+    {
+        // Anything after the projected fields is never parsed
+        Map<String, JsonNode> found = apply(JsonProjection.of("/name"), "{\"name\":\"bob\",\"rest\": not json");
+        assertEquals("bob", found.get("/name").asText());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidPointer()
+    {
+        JsonProjection.of("name");
+    }
+    
+    @Test
+    public void projectionClass()
+    {
+        RiakObject ro = new RiakObject()
+            .setContentType("application/json")
+            .setValue(BinaryValue.create(DOC));
+        
+        ProjectionConverter<Summary> converter = ProjectionConverter.forClass(Summary.class);
+        assertSame(converter, ProjectionConverter.forClass(Summary.class));
+        assertNotSame(converter, ConverterFactory.getInstance().getConverter(Summary.class));
+        
+        Summary summary = converter.toDomain(ro, new Location("bucket").setKey("key"));
+        assertEquals("bob", summary.name);
+        assertEquals("Boston", summary.address.city);
+        assertEquals("key", summary.key);
+    }
+    
+    public static class Summary
+    {
+        @RiakKey
+        public String key;
+        public String name;
+        public Address address;
+    }
+    
+    public static class Address
+    {
+        public String city;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.convert.reflection;
+
+import com.basho.riak.client.cap.BasicVClock;
+import com.basho.riak.client.query.Location;
+import com.basho.riak.client.query.RiakObject;
+import com.basho.riak.client.query.indexes.StringBinIndex;
+
+/**
+ * Compares injecting metadata into an annotated POJO through the 
+ * per-member {@link AnnotationUtil} calls with a single 
+ * {@link RiakMetadataBinder#bind} call.
+ * <p>
+ * Not run as part of the test suite; run with 
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test 
+ * -Dexec.mainClass=com.basho.riak.client.convert.reflection.RiakMetadataBinderBenchmark}
+ * </p>
+ */
+public class RiakMetadataBinderBenchmark
+{
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+    private static final int ITERATIONS = 1000000;
+    
+    public static void main(String[] args)
+    {
+        final RiakObject riakObject = new RiakObject()
+            .setContentType("application/json")
+            .setVClock(new BasicVClock("vclock".getBytes()))
+            .setLastModified(1234L);
+        riakObject.getIndexes().getIndex(StringBinIndex.named("email")).add("bob@example.com");
+        riakObject.getUserMeta().put("colour", "blue");
+        final Location location = new Location("bucket").setKey("key");
+        
+        Runnable reflective = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                for (int i = 0; i < ITERATIONS; i++)
+                {
+                    RiakMetadataBinderTest.Pojo pojo = new RiakMetadataBinderTest.Pojo();
+                    AnnotationUtil.populateIndexes(riakObject.getIndexes(), pojo);
+                    AnnotationUtil.populateLinks(riakObject.getLinks(), pojo);
+                    AnnotationUtil.populateUsermeta(riakObject.getUserMeta(), pojo);
+                    AnnotationUtil.setContentType(pojo, riakObject.getContentType());
+                    AnnotationUtil.setVTag(pojo, riakObject.getVTag());
+                    AnnotationUtil.setKey(pojo, location.getKey());
+                    AnnotationUtil.setBucketName(pojo, location.getBucketName());
+                    AnnotationUtil.setBucketType(pojo, location.getBucketType());
+                    AnnotationUtil.setVClock(pojo, riakObject.getVClock());
+                    AnnotationUtil.setTombstone(pojo, riakObject.isDeleted());
+                    AnnotationUtil.setLastModified(pojo, riakObject.getLastModified());
+                }
+            }
+        };
+        
+        Runnable binder = new Runnable()
+        {
+            private final RiakMetadataBinder binder = 
+                RiakMetadataBinder.forClass(RiakMetadataBinderTest.Pojo.class);
+            
+            @Override
+            public void run()
+            {
+                for (int i = 0; i < ITERATIONS; i++)
+                {
+                    binder.bind(new RiakMetadataBinderTest.Pojo(), riakObject, location);
+                }
+            }
+        };
+        
+        for (int i = 0; i < WARMUP_ROUNDS; i++)
+        {
+            reflective.run();
+            binder.run();
+        }
+        System.out.printf("AnnotationUtil: %d ns/op%n", time(reflective));
+        System.out.printf("Binder:         %d ns/op%n", time(binder));
+    }
+    
+    private static long time(Runnable r)
+    {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++)
+        {
+            long start = System.nanoTime();
+            r.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / ITERATIONS;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.convert.reflection;
+
+import com.basho.riak.client.annotations.RiakBucketName;
+import com.basho.riak.client.annotations.RiakContentType;
+import com.basho.riak.client.annotations.RiakIndex;
+import com.basho.riak.client.annotations.RiakKey;
+import com.basho.riak.client.annotations.RiakLastModified;
+import com.basho.riak.client.annotations.RiakTombstone;
+import com.basho.riak.client.annotations.RiakUsermeta;
+import com.basho.riak.client.annotations.RiakVClock;
+import com.basho.riak.client.cap.BasicVClock;
+import com.basho.riak.client.cap.VClock;
+import com.basho.riak.client.convert.ConversionException;
+import com.basho.riak.client.query.Location;
+import com.basho.riak.client.query.RiakObject;
+import com.basho.riak.client.query.indexes.StringBinIndex;
+import com.basho.riak.client.util.BinaryValue;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class RiakMetadataBinderTest
+{
+    @Test
+    public void binderIsCreatedOncePerClass()
+    {
+        RiakMetadataBinder binder = RiakMetadataBinder.forClass(Pojo.class);
+        assertSame(binder, RiakMetadataBinder.forClass(Pojo.class));
+        assertEquals(Pojo.class, binder.getType());
+    }
+    
+    @Test
+    public void bindInjectsMetadata()
+    {
+        RiakObject riakObject = new RiakObject()
+            .setContentType("text/plain")
+            .setVClock(new BasicVClock("vclock".getBytes()))
+            .setLastModified(1234L);
+        riakObject.getIndexes().getIndex(StringBinIndex.named("email")).add("bob@example.com");
+        riakObject.getUserMeta().put("colour", "blue");
+        Location location = new Location("bucket").setKey("key");
+        
+        Pojo pojo = RiakMetadataBinder.forClass(Pojo.class).bind(new Pojo(), riakObject, location);
+        
+        assertEquals("key", pojo.key);
+        assertEquals("bucket", pojo.bucket);
+        assertEquals("text/plain", pojo.contentType);
+        assertEquals(riakObject.getVClock(), pojo.vclock);
+        assertEquals(Long.valueOf(1234), pojo.lastModified);
+        assertFalse(pojo.tombstone);
+        assertEquals("blue", pojo.colour);
+        assertTrue(pojo.emails.contains("bob@example.com"));
+    }
+    
+    @Test
+    public void extractPrefersAnnotatedMembers()
+    {
+        Pojo pojo = new Pojo();
+        pojo.key = "annotated";
+        pojo.vclock = new BasicVClock("vclock".getBytes());
+        pojo.colour = "red";
+        pojo.emails = new HashSet<String>();
+        pojo.emails.add("alice@example.com");
+        
+        RiakObject riakObject = new RiakObject();
+        Location location = RiakMetadataBinder.forClass(Pojo.class)
+            .extract(pojo, riakObject, new Location("bucket").setKey("ignored"));
+        
+        assertEquals("annotated", location.getKeyAsString());
+        assertEquals("bucket", location.getBucketNameAsString());
+        assertEquals(RiakObject.DEFAULT_CONTENT_TYPE, riakObject.getContentType());
+        assertEquals(pojo.vclock, riakObject.getVClock());
+        assertEquals("red", riakObject.getUserMeta().get("colour"));
+        assertTrue(riakObject.getIndexes().getIndex(StringBinIndex.named("email"))
+                    .hasValue("alice@example.com"));
+    }
+    
+    @Test(expected = ConversionException.class)
+    public void extractRequiresBucket()
+    {
+        RiakMetadataBinder.forClass(Pojo.class).extract(new Pojo(), new RiakObject(), null);
+    }
+    
+    @Test
+    public void unannotatedClassIsUntouched()
+    {
+        RiakObject riakObject = new RiakObject();
+        Location location = RiakMetadataBinder.forClass(String.class)
+            .extract("value", riakObject, new Location("bucket").setKey("key"));
+        assertEquals("key", location.getKeyAsString());
+        assertEquals(RiakObject.DEFAULT_CONTENT_TYPE, riakObject.getContentType());
+    }
+    
+    public static class Pojo
+    {
+        @RiakKey
+        public String key;
+        
+        @RiakBucketName
+        public String bucket;
+        
+        @RiakVClock
+        public VClock vclock;
+        
+        @RiakContentType
+        public String contentType;
+        
+        @RiakLastModified
+        public Long lastModified;
+        
+        @RiakTombstone
+        public boolean tombstone;
+        
+        @RiakUsermeta(key = "colour")
+        public String colour;
+        
+        @RiakIndex(name = "email")
+        public Set<String> emails;
+        
+        public String value = "value";
+    }
+}
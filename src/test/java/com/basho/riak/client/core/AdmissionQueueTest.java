@@ -0,0 +1,96 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.core;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class AdmissionQueueTest
+{
+    @Test
+    public void tenantsShareByWeight()
+    {
+        Map<String, Integer> weights = new HashMap<String, Integer>();
+        weights.put("a", 2);
+        AdmissionQueue queue = new AdmissionQueue(10, 0, weights);
+        SchedulingTag a = new SchedulingTag(Priority.BATCH, "a");
+        SchedulingTag b = new SchedulingTag(Priority.BATCH, "b");
+        
+        for (int i = 0; i < 3; i++)
+        {
+            assertTrue(queue.offer(mock(FutureOperation.class), a));
+            assertTrue(queue.offer(mock(FutureOperation.class), b));
+        }
+        assertEquals(6, queue.size());
+        assertEquals(3, queue.size(a));
+        
+        SchedulingTag[] expected = { a, a, b, a, b, b };
+        for (SchedulingTag tag : expected)
+        {
+            assertEquals(tag, queue.poll().tag);
+        }
+        assertNull(queue.poll());
+        assertEquals(0, queue.size());
+    }
+    
+    @Test
+    public void interactiveBeforeBatch()
+    {
+        AdmissionQueue queue = new AdmissionQueue(10, 0, new HashMap<String, Integer>());
+        SchedulingTag batch = new SchedulingTag(Priority.BATCH, "a");
+        SchedulingTag interactive = new SchedulingTag(Priority.INTERACTIVE, "b");
+        
+        queue.offer(mock(FutureOperation.class), batch);
+        queue.offer(mock(FutureOperation.class), interactive);
+        
+        assertEquals(interactive, queue.poll().tag);
+        assertEquals(batch, queue.poll().tag);
+    }
+    
+    @Test
+    public void rejectsWhenFull()
+    {
+        AdmissionQueue queue = new AdmissionQueue(1, 0, new HashMap<String, Integer>());
+        assertTrue(queue.offer(mock(FutureOperation.class), SchedulingTag.DEFAULT));
+        assertFalse(queue.offer(mock(FutureOperation.class), SchedulingTag.DEFAULT));
+    }
+    
+    @Test
+    public void emptyClassesAreDropped() throws InterruptedException
+    {
+        AdmissionQueue queue = new AdmissionQueue(10, 1000000, new HashMap<String, Integer>());
+        SchedulingTag a = new SchedulingTag(Priority.BATCH, "a");
+        SchedulingTag b = new SchedulingTag(Priority.BATCH, "b");
+        
+        queue.offer(mock(FutureOperation.class), a);
+        queue.offer(mock(FutureOperation.class), b);
+        assertEquals(2, queue.classCount());
+        
+        assertEquals(a, queue.poll().tag);
+        assertEquals(1, queue.classCount());
+        
+        Thread.sleep(5);
+        assertEquals(1, queue.removeExpired().size());
+        assertEquals(0, queue.classCount());
+        assertNull(queue.poll());
+        
+        queue.offer(mock(FutureOperation.class), b);
+        assertEquals(b, queue.poll().tag);
+    }
+}
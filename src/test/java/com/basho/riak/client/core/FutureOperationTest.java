@@ -15,6 +15,7 @@
  */
 package com.basho.riak.client.core;
 
+import com.basho.riak.client.operations.CoreFutureAdapter;
 import com.google.protobuf.Message;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -53,6 +54,76 @@ public class FutureOperationTest
         assertEquals(r, retrier);
     }
 
+    @Test
+    public void recordsStagesWhenTraced() throws Exception
+    {
+        FutureOperation operation = new FutureOperationImpl();
+        HistogramRequestTracer tracer = new HistogramRequestTracer();
+        assertFalse(operation.isTraced());
+        operation.trace(RequestTracer.Stage.EXECUTE);
+        assertEquals(0, operation.getStageTime(RequestTracer.Stage.EXECUTE));
+        
+        operation.setTracer(tracer);
+        operation.trace(RequestTracer.Stage.EXECUTE);
+        operation.trace(RequestTracer.Stage.CONNECTION_ACQUIRED);
+        operation.channelMessage();
+        operation.trace(RequestTracer.Stage.WRITTEN);
+        operation.trace(RequestTracer.Stage.FIRST_BYTE);
+        long firstByte = operation.getStageTime(RequestTracer.Stage.FIRST_BYTE);
+        operation.trace(RequestTracer.Stage.FIRST_BYTE);
+        operation.setResponse(mock(RiakMessage.class));
+        
+        assertTrue(operation.isDone());
+        assertEquals(firstByte, operation.getStageTime(RequestTracer.Stage.FIRST_BYTE));
+        assertTrue(operation.getStageTime(RequestTracer.Stage.DONE) >= 
+                   operation.getStageTime(RequestTracer.Stage.EXECUTE));
+        assertEquals(0, tracer.getSnapshot(RequestTracer.Stage.EXECUTE).getCount());
+        assertEquals(1, tracer.getSnapshot(RequestTracer.Stage.ENCODED).getCount());
+        assertEquals(1, tracer.getSnapshot(RequestTracer.Stage.FIRST_BYTE).getCount());
+        assertEquals(1, tracer.getSnapshot(RequestTracer.Stage.DONE).getCount());
+        assertEquals(0, tracer.getSnapshot(RequestTracer.Stage.CONVERTED).getCount());
+        
+        HistogramRequestTracer.Snapshot total = tracer.getTotalSnapshot();
+        assertEquals(1, total.getCount());
+        assertTrue(total.getPercentile(0.99, TimeUnit.NANOSECONDS) <= total.getMax(TimeUnit.NANOSECONDS));
+        
+        tracer.reset();
+        assertEquals(0, tracer.getTotalSnapshot().getCount());
+    }
+
+    @Test
+    public void convertedIsTracedOnce() throws Exception
+    {
+        FutureOperation<String, Message, Void> operation = new FutureOperationImpl();
+        HistogramRequestTracer tracer = new HistogramRequestTracer();
+        operation.setTracer(tracer);
+        operation.channelMessage();
+        operation.setResponse(mock(RiakMessage.class));
+        final AtomicInteger conversions = new AtomicInteger();
+        CoreFutureAdapter<StringBuilder, Void, String, Void> adapter = 
+            new CoreFutureAdapter<StringBuilder, Void, String, Void>(operation)
+            {
+                @Override
+                protected StringBuilder convertResponse(String coreResponse)
+                {
+                    conversions.incrementAndGet();
+                    return new StringBuilder(coreResponse);
+                }
+
+                @Override
+                protected Void convertQueryInfo(Void coreQueryInfo)
+                {
+                    return null;
+                }
+            };
+        
+        StringBuilder first = adapter.get();
+        assertSame(first, adapter.get());
+        assertSame(first, adapter.get(1, TimeUnit.SECONDS));
+        assertEquals(1, conversions.get());
+        assertEquals(1, tracer.getSnapshot(RequestTracer.Stage.CONVERTED).getCount());
+    }
+
     @Test
     public void notifiesRetrier()
     {
@@ -15,6 +15,9 @@
  */
 package com.basho.riak.client.core;
 
+import com.google.protobuf.Message;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.nio.NioEventLoopGroup;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.powermock.api.mockito.PowerMockito;
@@ -23,9 +26,13 @@ import org.powermock.modules.junit4.PowerMockRunner;
 import org.powermock.reflect.Whitebox;
 
 import java.net.UnknownHostException;
+import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
@@ -47,6 +54,46 @@ public class RiakClusterTest
         assertTrue(!cluster.getNodes().isEmpty());
     }
     
+    @Test
+    public void suppliedEventLoopGroupIsNotShutDown() throws UnknownHostException
+    {
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        RiakNode node = mock(RiakNode.class);
+        try
+        {
+            RiakCluster cluster = new RiakCluster.Builder(node)
+                                    .withNodeManager(mock(NodeManager.class))
+                                    .withEventLoopGroup(group)
+                                    .build();
+            Bootstrap bootstrap = Whitebox.getInternalState(cluster, "bootstrap");
+            assertSame(group, bootstrap.group());
+            
+            cluster.nodeStateChanged(node, RiakNode.State.SHUTDOWN);
+            assertFalse(group.isShuttingDown());
+        }
+        finally
+        {
+            group.shutdownGracefully();
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void bootstrapAndEventLoopGroupAreExclusive() throws UnknownHostException
+    {
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        try
+        {
+            new RiakCluster.Builder(mock(RiakNode.class))
+                .withBootstrap(new Bootstrap())
+                .withEventLoopGroup(group)
+                .build();
+        }
+        finally
+        {
+            group.shutdownGracefully();
+        }
+    }
+    
     @Test
     public void addNodeToCluster() throws UnknownHostException
     {
@@ -117,4 +164,95 @@ public class RiakClusterTest
         
         
     }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    public void admissionQueueDispatchesByPriority() throws UnknownHostException
+    {
+        NodeManager nodeManager = mock(NodeManager.class);
+        FutureOperation first = PowerMockito.mock(FutureOperation.class);
+        FutureOperation batch = PowerMockito.mock(FutureOperation.class);
+        FutureOperation interactive = PowerMockito.mock(FutureOperation.class);
+        FutureOperation rejected = PowerMockito.mock(FutureOperation.class);
+        RiakNode node = mock(RiakNode.class);
+        
+        RiakCluster cluster = new RiakCluster.Builder(node)
+                                .withNodeManager(nodeManager)
+                                .withMaxInFlight(1)
+                                .withMaxQueueSize(2)
+                                .build();
+        Whitebox.setInternalState(cluster, "state", RiakCluster.State.RUNNING);
+        
+        cluster.execute(first);
+        cluster.execute(batch, Priority.BATCH);
+        cluster.execute(interactive, Priority.INTERACTIVE);
+        cluster.execute(rejected);
+        
+        verify(nodeManager).executeOnNode(first, null);
+        verify(nodeManager, never()).executeOnNode(batch, null);
+        verify(nodeManager, never()).executeOnNode(interactive, null);
+        verify(rejected).setException(any(QueueFullException.class));
+        assertEquals(1, cluster.inFlightCount());
+        assertEquals(2, cluster.queuedCount());
+        
+        cluster.operationComplete(first, 2);
+        verify(nodeManager, timeout(1000)).executeOnNode(interactive, null);
+        verify(nodeManager, never()).executeOnNode(batch, null);
+        
+        cluster.operationComplete(interactive, 2);
+        verify(nodeManager, timeout(1000)).executeOnNode(batch, null);
+        assertEquals(0, cluster.queuedCount());
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    public void admissionQueueExpiresOperations() throws UnknownHostException, InterruptedException
+    {
+        NodeManager nodeManager = mock(NodeManager.class);
+        FutureOperation first = PowerMockito.mock(FutureOperation.class);
+        FutureOperation<String, Message, Void> waiting = new QueuedOperation();
+        RiakNode node = mock(RiakNode.class);
+        
+        RiakCluster cluster = new RiakCluster.Builder(node)
+                                .withNodeManager(nodeManager)
+                                .withMaxInFlight(1)
+                                .withMaxQueueWait(10, TimeUnit.MILLISECONDS)
+                                .build();
+        cluster.start();
+        
+        cluster.execute(first);
+        cluster.execute(waiting);
+        waiting.await(1, TimeUnit.SECONDS);
+        assertTrue(waiting.isDone());
+        assertTrue(waiting.cause() instanceof QueueTimeoutException);
+        assertEquals(0, cluster.queuedCount());
+        verify(nodeManager, never()).executeOnNode(waiting, null);
+    }
+    
+    private class QueuedOperation extends FutureOperation<String, Message, Void>
+    {
+        @Override
+        protected String convert(List<Message> rawResponse) 
+        {
+            return null;
+        }
+
+        @Override
+        protected RiakMessage createChannelMessage()
+        {
+            return null;
+        }
+
+        @Override
+        protected Message decode(RiakMessage rawMessage)
+        {
+            return null;
+        }
+
+        @Override
+        public Void getQueryInfo()
+        {
+            return null;
+        }
+    }
 }
@@ -22,14 +22,19 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 import org.powermock.reflect.Whitebox;
 
 import java.net.UnknownHostException;
+import java.util.Arrays;
 import java.util.Deque;
 import java.util.List;
 import java.util.Map;
@@ -330,6 +335,188 @@ public class RiakNodeTest
         verify(operation).isDone();
     }
 
+    @Test
+    public void nodePrefersConnectionOnCurrentEventLoop() throws InterruptedException, UnknownHostException
+    {
+        EventLoop currentLoop = mock(EventLoop.class);
+        EventLoop otherLoop = mock(EventLoop.class);
+        EventLoopGroup group = mock(EventLoopGroup.class);
+        Channel local = mock(Channel.class);
+        Channel remote = mock(Channel.class);
+        ChannelFuture localFuture = mock(ChannelFuture.class);
+        ChannelFuture remoteFuture = mock(ChannelFuture.class);
+        FutureOperation operation = PowerMockito.spy(new FutureOperationImpl());
+        Bootstrap bootstrap = PowerMockito.spy(new Bootstrap());
+
+        doReturn(true).when(currentLoop).inEventLoop();
+        doReturn(false).when(otherLoop).inEventLoop();
+        doReturn(Arrays.<EventExecutor>asList(currentLoop).iterator()).when(group).iterator();
+        for (ChannelFuture f : Arrays.asList(localFuture, remoteFuture))
+        {
+            doReturn(f).when(f).await();
+            doReturn(true).when(f).isSuccess();
+        }
+        doReturn(local).when(localFuture).channel();
+        doReturn(remote).when(remoteFuture).channel();
+        doReturn(currentLoop).when(local).eventLoop();
+        doReturn(otherLoop).when(remote).eventLoop();
+        for (Channel c : Arrays.asList(local, remote))
+        {
+            doReturn(mock(ChannelFuture.class)).when(c).closeFuture();
+            doReturn(true).when(c).isOpen();
+            doReturn(mock(ChannelFuture.class)).when(c).writeAndFlush(operation);
+        }
+        // The last connection made is at the head of the pool
+        doReturn(localFuture).doReturn(remoteFuture).when(bootstrap).connect();
+        doReturn(group).when(bootstrap).group();
+        doReturn(bootstrap).when(bootstrap).clone();
+
+        RiakNode node = new RiakNode.Builder()
+                            .withBootstrap(bootstrap)
+                            .withMinConnections(2)
+                            .build();
+        node.start();
+        assertTrue(node.execute(operation));
+        verify(local).writeAndFlush(operation);
+        verify(remote, never()).writeAndFlush(operation);
+    }
+
+    @Test
+    public void deferredExecuteReschedulesInsteadOfBlocking() throws InterruptedException, UnknownHostException
+    {
+        EventLoop currentLoop = mock(EventLoop.class);
+        EventLoopGroup group = mock(EventLoopGroup.class);
+        Channel channel = mock(Channel.class);
+        ChannelFuture future = mock(ChannelFuture.class);
+        ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+        FutureOperation first = PowerMockito.spy(new FutureOperationImpl());
+        FutureOperation second = PowerMockito.spy(new FutureOperationImpl());
+        Bootstrap bootstrap = PowerMockito.spy(new Bootstrap());
+
+        doReturn(true).when(currentLoop).inEventLoop();
+        doReturn(Arrays.<EventExecutor>asList(currentLoop).iterator()).when(group).iterator();
+        doReturn(future).when(future).await();
+        doReturn(true).when(future).isSuccess();
+        doReturn(channel).when(future).channel();
+        doReturn(currentLoop).when(channel).eventLoop();
+        doReturn(mock(ChannelFuture.class)).when(channel).closeFuture();
+        doReturn(true).when(channel).isOpen();
+        doReturn(mock(ChannelFuture.class)).when(channel).writeAndFlush(any());
+        doReturn(future).when(bootstrap).connect();
+        doReturn(group).when(bootstrap).group();
+        doReturn(bootstrap).when(bootstrap).clone();
+
+        RiakNode node = new RiakNode.Builder()
+                            .withBootstrap(bootstrap)
+                            .withExecutor(executor)
+                            .withMaxConnections(1)
+                            .withBlockOnMaxConnections(true)
+                            .build();
+        node.start();
+        assertTrue(node.execute(first));
+        assertTrue(node.execute(second));
+        
+        // The only connection is in use; the hand off must not wait for it
+        ArgumentCaptor<Runnable> deferred = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor).execute(deferred.capture());
+        deferred.getValue().run();
+        verify(executor).schedule(deferred.getValue(), 10, TimeUnit.MILLISECONDS);
+        assertFalse(second.isDone());
+        verify(channel, never()).writeAndFlush(second);
+    }
+
+    @Test
+    public void deferredExecuteConnectsWithoutWaiting() throws Exception
+    {
+        EventLoop currentLoop = mock(EventLoop.class);
+        EventLoopGroup group = mock(EventLoopGroup.class);
+        Channel channel = mock(Channel.class);
+        ChannelFuture future = mock(ChannelFuture.class);
+        ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+        FutureOperation operation = PowerMockito.spy(new FutureOperationImpl());
+        Bootstrap bootstrap = PowerMockito.spy(new Bootstrap());
+
+        doReturn(true).when(currentLoop).inEventLoop();
+        doReturn(Arrays.<EventExecutor>asList(currentLoop).iterator())
+            .doReturn(Arrays.<EventExecutor>asList(currentLoop).iterator())
+            .when(group).iterator();
+        doReturn(channel).when(future).channel();
+        doReturn(currentLoop).when(channel).eventLoop();
+        doReturn(mock(ChannelFuture.class)).when(channel).closeFuture();
+        doReturn(true).when(channel).isOpen();
+        doReturn(mock(ChannelFuture.class)).when(channel).writeAndFlush(any());
+        doReturn(future).when(bootstrap).connect();
+        doReturn(group).when(bootstrap).group();
+        doReturn(bootstrap).when(bootstrap).clone();
+
+        RiakNode node = new RiakNode.Builder()
+                            .withBootstrap(bootstrap)
+                            .withExecutor(executor)
+                            .withMinConnections(0)
+                            .withMaxConnections(1)
+                            .build();
+        node.start();
+        assertTrue(node.execute(operation));
+        
+        ArgumentCaptor<Runnable> deferred = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor).execute(deferred.capture());
+        deferred.getValue().run();
+        
+        // The operation is written from the connect listener
+        ArgumentCaptor<ChannelFutureListener> connected = 
+            ArgumentCaptor.forClass(ChannelFutureListener.class);
+        verify(future).addListener(connected.capture());
+        verify(future, never()).await();
+        verify(channel, never()).writeAndFlush(operation);
+        
+        doReturn(true).when(future).isSuccess();
+        connected.getValue().operationComplete(future);
+        verify(channel).writeAndFlush(operation);
+        assertEquals(0, node.availablePermits());
+    }
+
+    @Test
+    public void deferredConnectFailureReleasesPermit() throws Exception
+    {
+        EventLoop currentLoop = mock(EventLoop.class);
+        EventLoopGroup group = mock(EventLoopGroup.class);
+        ChannelFuture future = mock(ChannelFuture.class);
+        ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+        FutureOperation operation = PowerMockito.spy(new FutureOperationImpl());
+        Bootstrap bootstrap = PowerMockito.spy(new Bootstrap());
+        Exception cause = new Exception("refused");
+
+        doReturn(true).when(currentLoop).inEventLoop();
+        doReturn(Arrays.<EventExecutor>asList(currentLoop).iterator())
+            .doReturn(Arrays.<EventExecutor>asList(currentLoop).iterator())
+            .when(group).iterator();
+        doReturn(false).when(future).isSuccess();
+        doReturn(cause).when(future).cause();
+        doReturn(future).when(bootstrap).connect();
+        doReturn(group).when(bootstrap).group();
+        doReturn(bootstrap).when(bootstrap).clone();
+
+        RiakNode node = new RiakNode.Builder()
+                            .withBootstrap(bootstrap)
+                            .withExecutor(executor)
+                            .withMinConnections(0)
+                            .withMaxConnections(1)
+                            .build();
+        node.start();
+        assertTrue(node.execute(operation));
+        
+        ArgumentCaptor<Runnable> deferred = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor).execute(deferred.capture());
+        deferred.getValue().run();
+        
+        ArgumentCaptor<ChannelFutureListener> connected = 
+            ArgumentCaptor.forClass(ChannelFutureListener.class);
+        verify(future).addListener(connected.capture());
+        connected.getValue().operationComplete(future);
+        assertEquals(1, node.availablePermits());
+        verify(operation).setException(cause);
+    }
+
     @Test
     public void nodeFailsOperation() throws InterruptedException, UnknownHostException
     {
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.core;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.EventLoop;
+import io.netty.channel.local.LocalEventLoopGroup;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ *
+ * @since 2.0
+ */
+public class StreamingFutureOperationTest
+{
+    private LocalEventLoopGroup group;
+    private EventLoop loop;
+    private Channel channel;
+    private final AtomicBoolean autoRead = new AtomicBoolean(true);
+    
+    @Before
+    public void setUp()
+    {
+        group = new LocalEventLoopGroup(1);
+        loop = group.next();
+        channel = mock(Channel.class);
+        ChannelConfig config = mock(ChannelConfig.class);
+        when(channel.eventLoop()).thenReturn(loop);
+        when(channel.config()).thenReturn(config);
+        doAnswer(new Answer<ChannelConfig>()
+        {
+            @Override
+            public ChannelConfig answer(InvocationOnMock invocation) throws Throwable
+            {
+                autoRead.set((Boolean) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(config).setAutoRead(anyBoolean());
+    }
+    
+    @After
+    public void tearDown()
+    {
+        group.shutdownGracefully();
+    }
+    
+    @Test(timeout = 10000)
+    public void readsAreNeverLeftPausedWithSingleChunkBuffer()
+    {
+        final int count = 2000;
+        final IntegerStreamingOperation operation = new IntegerStreamingOperation(1);
+        operation.setChannel(channel);
+        Iterator<Integer> results = operation.iterator();
+        
+        // Delivers a message per event loop task while reads are enabled, 
+        // the way Netty does
+        loop.execute(new Runnable()
+        {
+            private int sent;
+            
+            @Override
+            public void run()
+            {
+                if (!autoRead.get())
+                {
+                    loop.schedule(this, 1, TimeUnit.MILLISECONDS);
+                }
+                else if (sent < count)
+                {
+                    operation.setResponse(message(sent++));
+                    loop.execute(this);
+                }
+                else
+                {
+                    operation.setResponse(message(-1));
+                }
+            }
+        });
+        
+        int expected = 0;
+        while (results.hasNext())
+        {
+            assertEquals(Integer.valueOf(expected++), results.next());
+        }
+        assertEquals(count, expected);
+        assertTrue(operation.isSuccess());
+    }
+    
+    @Test
+    public void readsArePausedAtHighWaterMark() throws InterruptedException
+    {
+        final IntegerStreamingOperation operation = new IntegerStreamingOperation(1);
+        operation.setChannel(channel);
+        Iterator<Integer> results = operation.iterator();
+        
+        loop.submit(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                operation.setResponse(message(0));
+            }
+        }).sync();
+        assertFalse(autoRead.get());
+        
+        assertEquals(Integer.valueOf(0), results.next());
+        loop.submit(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+            }
+        }).sync();
+        assertTrue(autoRead.get());
+    }
+    
+    @Test
+    public void closingIteratorClosesChannel()
+    {
+        IntegerStreamingOperation operation = new IntegerStreamingOperation(4);
+        operation.setChannel(channel);
+        StreamingIterator<Integer> results = operation.iterator();
+        operation.setResponse(message(0));
+        operation.setResponse(message(1));
+        
+        assertEquals(Integer.valueOf(0), results.next());
+        results.close();
+        
+        verify(channel).close();
+        assertFalse(results.hasNext());
+        results.close();
+        verify(channel).close();
+    }
+    
+    @Test
+    public void closingBeforeWriteClosesChannelOnceSet()
+    {
+        IntegerStreamingOperation operation = new IntegerStreamingOperation(4);
+        StreamingIterator<Integer> results = operation.iterator();
+        operation.close();
+        
+        assertFalse(results.hasNext());
+        operation.setChannel(channel);
+        verify(channel).close();
+    }
+    
+    private static RiakMessage message(int value)
+    {
+        return new RiakMessage((byte) 0, new byte[] { (byte) (value >> 24), (byte) (value >> 16), 
+                                                      (byte) (value >> 8), (byte) value });
+    }
+    
+    private static class IntegerStreamingOperation 
+        extends StreamingFutureOperation<Integer, Integer, Void, Integer>
+    {
+        IntegerStreamingOperation(int maxBufferedChunks)
+        {
+            super(true, maxBufferedChunks);
+        }
+        
+        @Override
+        protected List<Integer> processStreamingChunk(Integer message)
+        {
+            return message < 0 ? Collections.<Integer>emptyList() : Collections.singletonList(message);
+        }
+        
+        @Override
+        protected boolean done(Integer message)
+        {
+            return message < 0;
+        }
+        
+        @Override
+        protected Integer convert(List<Integer> rawResponse)
+        {
+            return rawResponse.size();
+        }
+        
+        @Override
+        protected RiakMessage createChannelMessage()
+        {
+            return new RiakMessage((byte) 0, new byte[0]);
+        }
+        
+        @Override
+        protected Integer decode(RiakMessage rawMessage)
+        {
+            byte[] data = rawMessage.getData();
+            return ((data[0] & 0xff) << 24) | ((data[1] & 0xff) << 16) 
+                | ((data[2] & 0xff) << 8) | (data[3] & 0xff);
+        }
+        
+        @Override
+        public Void getQueryInfo()
+        {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.core.converters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @since 2.0
+ */
+public class DeflateValueCodecTest
+{
+    static byte[] document(int id)
+    {
+        return ("{\"id\":" + id + ",\"name\":\"user" + id + "\",\"email\":\"user" + id 
+            + "@example.com\",\"active\":true,\"roles\":[\"reader\",\"writer\"]}").getBytes();
+    }
+    
+    @Test
+    public void roundTrip()
+    {
+        DeflateValueCodec codec = new DeflateValueCodec();
+        byte[] value = new byte[100000];
+        for (int i = 0; i < value.length; i++)
+        {
+            value[i] = (byte) ('a' + i % 7);
+        }
+        
+        byte[] encoded = codec.encode(value);
+        assertTrue(encoded.length < value.length / 10);
+        assertArrayEquals(value, codec.decode(encoded));
+        
+        // Incompressible and empty values
+        byte[] random = new byte[5000];
+        new Random(1).nextBytes(random);
+        assertArrayEquals(random, codec.decode(codec.encode(random)));
+        assertArrayEquals(new byte[0], codec.decode(codec.encode(new byte[0])));
+    }
+    
+    @Test
+    public void interoperatesWithZlib() throws Exception
+    {
+        byte[] value = document(1);
+        byte[] encoded = new DeflateValueCodec().encode(value);
+        
+        Inflater inflater = new Inflater();
+        inflater.setInput(encoded);
+        byte[] decoded = new byte[value.length];
+        assertEquals(value.length, inflater.inflate(decoded));
+        assertArrayEquals(value, decoded);
+    }
+    
+    @Test
+    public void dictionaryImprovesSmallValues()
+    {
+        List<byte[]> samples = new ArrayList<byte[]>();
+        for (int i = 0; i < 100; i++)
+        {
+            samples.add(document(i));
+        }
+        byte[] dict = DeflateValueCodec.trainDictionary(samples, 1024);
+        assertTrue(dict.length > 0 && dict.length <= 1024);
+        
+        DeflateValueCodec plain = new DeflateValueCodec();
+        DeflateValueCodec trained = 
+            new DeflateValueCodec("deflate-test", Deflater.DEFAULT_COMPRESSION, dict);
+        
+        byte[] value = document(12345);
+        byte[] encoded = trained.encode(value);
+        assertTrue(encoded.length < plain.encode(value).length);
+        assertArrayEquals(value, trained.decode(encoded));
+        
+        try
+        {
+            plain.decode(encoded);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException ex)
+        {
+            // no-op
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void corruptValue()
+    {
+        DeflateValueCodec codec = new DeflateValueCodec();
+        byte[] encoded = codec.encode(document(1));
+        codec.decode(Arrays.copyOf(encoded, encoded.length / 2));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void decodedSizeIsLimited()
+    {
+        DeflateValueCodec codec = 
+            new DeflateValueCodec(DeflateValueCodec.ENCODING, Deflater.DEFAULT_COMPRESSION, null, 1000);
+        codec.decode(codec.encode(new byte[1001]));
+    }
+    
+    @Test
+    public void decodeUpToLimit()
+    {
+        DeflateValueCodec codec = 
+            new DeflateValueCodec(DeflateValueCodec.ENCODING, Deflater.DEFAULT_COMPRESSION, null, 1000);
+        assertEquals(1000, codec.decode(codec.encode(new byte[1000])).length);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.core.converters;
+
+import com.basho.riak.client.query.RiakObject;
+import com.basho.riak.protobuf.RiakKvPB.RpbContent;
+import com.google.protobuf.ByteString;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reports the bytes allocated per fetched object by 
+ * {@link RiakObjectConverter#convert(List, ByteString)} for an object with
+ * 5 indexes, 3 user meta entries and a link, when only the value is used and
+ * when all the metadata is accessed.
+ * <p>
+ * Requires a HotSpot JVM. Not run as part of the test suite; run with 
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test 
+ * -Dexec.mainClass=com.basho.riak.client.core.converters.RiakObjectConverterBenchmark}
+ * </p>
+ */
+public class RiakObjectConverterBenchmark
+{
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ITERATIONS = 200000;
+    
+    public static void main(String[] args)
+    {
+        final List<RpbContent> contents = Arrays.asList(RiakObjectConverterTest.contentWithMetadata());
+        final ByteString vclock = ByteString.copyFromUtf8("vclock");
+        
+        Runnable valueOnly = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                for (int i = 0; i < ITERATIONS; i++)
+                {
+                    RiakObject ro = RiakObjectConverter.convert(contents, vclock).get(0);
+                    ro.getValue().length();
+                }
+            }
+        };
+        
+        Runnable allMetadata = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                for (int i = 0; i < ITERATIONS; i++)
+                {
+                    RiakObject ro = RiakObjectConverter.convert(contents, vclock).get(0);
+                    ro.getValue().length();
+                    ro.getIndexes();
+                    ro.getLinks();
+                    ro.getUserMeta();
+                }
+            }
+        };
+        
+        for (int i = 0; i < WARMUP_ROUNDS; i++)
+        {
+            valueOnly.run();
+            allMetadata.run();
+        }
+        System.out.printf("Value only:   %d bytes/op%n", allocated(valueOnly));
+        System.out.printf("All metadata: %d bytes/op%n", allocated(allMetadata));
+    }
+    
+    private static long allocated(Runnable r)
+    {
+        com.sun.management.ThreadMXBean bean = 
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+        long start = bean.getThreadAllocatedBytes(id);
+        r.run();
+        return (bean.getThreadAllocatedBytes(id) - start) / ITERATIONS;
+    }
+}
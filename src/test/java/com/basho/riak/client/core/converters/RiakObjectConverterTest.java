@@ -0,0 +1,189 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.core.converters;
+
+import com.basho.riak.client.query.RiakObject;
+import com.basho.riak.client.query.indexes.StringBinIndex;
+import com.basho.riak.client.util.BinaryValue;
+import com.basho.riak.protobuf.RiakKvPB.RpbContent;
+import com.basho.riak.protobuf.RiakKvPB.RpbLink;
+import com.basho.riak.protobuf.RiakPB.RpbPair;
+import com.google.protobuf.ByteString;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.internal.util.reflection.Whitebox;
+
+/**
+ *
+ * @since 2.0
+ */
+public class RiakObjectConverterTest
+{
+    @After
+    public void teardown()
+    {
+        ValueCodecFactory.getInstance().disableCompression();
+    }
+    
+    private RiakObject roundTrip(RpbContent content)
+    {
+        List<RiakObject> objects = 
+            RiakObjectConverter.convert(Arrays.asList(content), ByteString.copyFromUtf8("vclock"));
+        return objects.get(0);
+    }
+    
+    @Test
+    public void compressionIsOffByDefault()
+    {
+        RiakObject ro = new RiakObject().setValue(BinaryValue.create(new byte[4096]));
+        RpbContent content = RiakObjectConverter.convert(ro);
+        assertFalse(content.hasContentEncoding());
+        assertEquals(4096, content.getValue().size());
+    }
+    
+    @Test
+    public void compressesAboveThreshold()
+    {
+        ValueCodecFactory.getInstance().setCompression(new DeflateValueCodec(), 1024);
+        
+        RiakObject small = new RiakObject().setValue(BinaryValue.create(new byte[1023]));
+        assertFalse(RiakObjectConverter.convert(small).hasContentEncoding());
+        
+        RiakObject large = new RiakObject()
+            .setContentType("application/json")
+            .setValue(BinaryValue.create(new byte[4096]));
+        RpbContent content = RiakObjectConverter.convert(large);
+        assertEquals(DeflateValueCodec.ENCODING, content.getContentEncoding().toStringUtf8());
+        assertTrue(content.getValue().size() < 4096);
+        assertEquals("application/json", content.getContentType().toStringUtf8());
+        
+        RiakObject fetched = roundTrip(content);
+        assertEquals(large.getValue(), fetched.getValue());
+        
+        // Decoding doesn't depend on compression being enabled
+        ValueCodecFactory.getInstance().disableCompression();
+        assertEquals(large.getValue(), roundTrip(content).getValue());
+    }
+    
+    @Test
+    public void valuesAreNotCopied()
+    {
+        ByteString bs = ByteString.copyFromUtf8("{\"foo\":\"bar\"}");
+        RpbContent content = RpbContent.newBuilder().setValue(bs).build();
+        RiakObject ro = roundTrip(content);
+        assertSame(bs, ro.getValue().toByteString());
+        assertSame(bs, RiakObjectConverter.convert(ro).getValue());
+    }
+    
+    static RpbContent contentWithMetadata()
+    {
+        RpbContent.Builder builder = RpbContent.newBuilder()
+            .setValue(ByteString.copyFromUtf8("{\"foo\":\"bar\"}"))
+            .setContentType(ByteString.copyFromUtf8("application/json"))
+            .setVtag(ByteString.copyFromUtf8("vtag"));
+        for (int i = 0; i < 5; i++)
+        {
+            builder.addIndexes(RpbPair.newBuilder()
+                .setKey(ByteString.copyFromUtf8("index" + i + "_bin"))
+                .setValue(ByteString.copyFromUtf8("value" + i)));
+        }
+        for (int i = 0; i < 3; i++)
+        {
+            builder.addUsermeta(RpbPair.newBuilder()
+                .setKey(ByteString.copyFromUtf8("meta" + i))
+                .setValue(ByteString.copyFromUtf8("value" + i)));
+        }
+        builder.addLinks(RpbLink.newBuilder()
+            .setBucket(ByteString.copyFromUtf8("bucket"))
+            .setKey(ByteString.copyFromUtf8("key"))
+            .setTag(ByteString.copyFromUtf8("tag")));
+        return builder.build();
+    }
+    
+    @Test
+    public void metadataIsDecodedOnAccess()
+    {
+        RiakObject ro = roundTrip(contentWithMetadata());
+        
+        assertTrue(ro.hasIndexes());
+        assertTrue(ro.hasLinks());
+        assertTrue(ro.hasUserMeta());
+        assertEquals(5, ro.getIndexes().size());
+        assertEquals("value3", 
+            ro.getIndexes().getIndex(StringBinIndex.named("index3")).iterator().next());
+        assertEquals("value1", ro.getUserMeta().get("meta1"));
+        assertEquals("tag", ro.getLinks().iterator().next().getTag());
+        
+        // Changes to the decoded containers are kept
+        ro.getUserMeta().put("meta3", "value3");
+        assertEquals(4, RiakObjectConverter.convert(ro).getUsermetaCount());
+        ro.getIndexes().removeAllIndexes();
+        assertFalse(ro.hasIndexes());
+        assertEquals(0, RiakObjectConverter.convert(ro).getIndexesCount());
+        assertEquals(1, RiakObjectConverter.convert(ro).getLinksCount());
+    }
+    
+    @Test
+    public void decodedMetadataIsReleased()
+    {
+        RiakObject ro = roundTrip(contentWithMetadata());
+        
+        ro.getIndexes();
+        ro.getLinks();
+        assertNotNull(Whitebox.getInternalState(ro, "lazyMetadata"));
+        assertTrue(ro.hasUserMeta());
+        ro.getUserMeta();
+        assertNull(Whitebox.getInternalState(ro, "lazyMetadata"));
+        assertTrue(ro.hasIndexes());
+        assertTrue(ro.hasLinks());
+        assertTrue(ro.hasUserMeta());
+    }
+    
+    @Test
+    public void noMetadata()
+    {
+        RiakObject ro = roundTrip(RpbContent.newBuilder().setValue(ByteString.copyFromUtf8("v")).build());
+        assertFalse(ro.hasIndexes());
+        assertFalse(ro.hasLinks());
+        assertFalse(ro.hasUserMeta());
+        assertTrue(ro.getUserMeta().isEmpty());
+    }
+    
+    @Test
+    public void unknownEncodingIsLeftAlone()
+    {
+        RpbContent content = RpbContent.newBuilder()
+            .setValue(ByteString.copyFromUtf8("value"))
+            .setContentEncoding(ByteString.copyFromUtf8("x-unknown"))
+            .build();
+        assertEquals("value", roundTrip(content).getValue().toString());
+    }
+    
+    @Test
+    public void undecodableValueIsReturnedAsStored()
+    {
+        // Raw deflate, without the zlib header the codec expects
+        RpbContent content = RpbContent.newBuilder()
+            .setValue(ByteString.copyFrom(new byte[] { 0x4b, 0x4c, 0x4a, 0x06, 0x00 }))
+            .setContentEncoding(ByteString.copyFromUtf8(DeflateValueCodec.ENCODING))
+            .build();
+        assertArrayEquals(new byte[] { 0x4b, 0x4c, 0x4a, 0x06, 0x00 }, 
+                          roundTrip(content).getValue().getValue());
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.core.converters;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Reports compression ratio and encode / decode throughput of 
+ * {@link DeflateValueCodec} at several levels, with and without a trained
+ * dictionary, for small and large JSON values.
+ * <p>
+ * Not run as part of the test suite; run with 
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test 
+ * -Dexec.mainClass=com.basho.riak.client.core.converters.ValueCodecBenchmark}
+ * </p>
+ */
+public class ValueCodecBenchmark
+{
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int ROUNDS = 3;
+    private static final int BYTES_PER_ROUND = 4 * 1024 * 1024;
+    
+    public static void main(String[] args)
+    {
+        List<byte[]> samples = new ArrayList<byte[]>();
+        for (int i = 0; i < 1000; i++)
+        {
+            samples.add(DeflateValueCodecTest.document(i));
+        }
+        byte[] dict = DeflateValueCodec.trainDictionary(samples, 4096);
+        
+        byte[] small = DeflateValueCodecTest.document(123456);
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 500; i++)
+        {
+            sb.append(i == 0 ? "" : ",").append(new String(DeflateValueCodecTest.document(i * 7919)));
+        }
+        byte[] large = sb.append(']').toString().getBytes();
+        
+        System.out.printf("%-24s %8s %8s %12s %12s%n", "codec", "size", "ratio", "enc MB/s", "dec MB/s");
+        for (int level : new int[] { Deflater.BEST_SPEED, Deflater.DEFAULT_COMPRESSION, Deflater.BEST_COMPRESSION })
+        {
+            run("level " + level + " small", new DeflateValueCodec(level), small);
+            run("level " + level + " small+dict", new DeflateValueCodec("d", level, dict), small);
+            run("level " + level + " large", new DeflateValueCodec(level), large);
+        }
+    }
+    
+    private static void run(String name, final ValueCodec codec, final byte[] value)
+    {
+        final byte[] encoded = codec.encode(value);
+        final int iterations = Math.max(1, BYTES_PER_ROUND / value.length);
+        
+        Runnable encode = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                for (int i = 0; i < iterations; i++)
+                {
+                    codec.encode(value);
+                }
+            }
+        };
+        Runnable decode = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                for (int i = 0; i < iterations; i++)
+                {
+                    codec.decode(encoded);
+                }
+            }
+        };
+        for (int i = 0; i < WARMUP_ROUNDS; i++)
+        {
+            encode.run();
+            decode.run();
+        }
+        double mb = (double) iterations * value.length / (1024 * 1024);
+        System.out.printf("%-24s %8d %8.2f %12.1f %12.1f%n", name, value.length, 
+            (double) value.length / encoded.length, mb / seconds(encode), mb / seconds(decode));
+    }
+    
+    private static double seconds(Runnable r)
+    {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++)
+        {
+            long start = System.nanoTime();
+            r.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e9;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.core.operations;
+
+import com.basho.riak.client.core.RiakMessage;
+import com.basho.riak.client.core.StreamingException;
+import com.basho.riak.client.query.Location;
+import com.basho.riak.client.util.BinaryValue;
+import com.basho.riak.protobuf.RiakKvPB;
+import com.basho.riak.protobuf.RiakMessageCodes;
+import com.google.protobuf.ByteString;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.EventLoop;
+import java.util.Iterator;
+import org.junit.Before;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class ListKeysOperationTest
+{
+    private final Location location = new Location("bucket");
+    private Channel channel;
+    private ChannelConfig config;
+    
+    @Before
+    public void setUp()
+    {
+        channel = mock(Channel.class);
+        config = mock(ChannelConfig.class);
+        when(channel.config()).thenReturn(config);
+        EventLoop loop = mock(EventLoop.class);
+        when(loop.inEventLoop()).thenReturn(true);
+        when(channel.eventLoop()).thenReturn(loop);
+    }
+    
+    private RiakMessage chunk(boolean done, String... keys)
+    {
+        RiakKvPB.RpbListKeysResp.Builder builder = RiakKvPB.RpbListKeysResp.newBuilder();
+        for (String key : keys)
+        {
+            builder.addKeys(ByteString.copyFromUtf8(key));
+        }
+        if (done)
+        {
+            builder.setDone(true);
+        }
+        return new RiakMessage(RiakMessageCodes.MSG_ListKeysResp, builder.build().toByteArray());
+    }
+    
+    @Test
+    public void accumulatesWhenNotStreaming() throws InterruptedException
+    {
+        ListKeysOperation operation = new ListKeysOperation.Builder(location).build();
+        operation.setResponse(chunk(false, "k1", "k2"));
+        operation.setResponse(chunk(true, "k3"));
+        
+        assertTrue(operation.isDone());
+        assertEquals(3, operation.get().getKeys().size());
+    }
+    
+    @Test
+    public void streamsWithBackpressure() throws InterruptedException
+    {
+        ListKeysOperation operation = 
+            new ListKeysOperation.Builder(location)
+                .withStreaming(true)
+                .withMaxBufferedChunks(2)
+                .build();
+        Whitebox.setInternalState(operation, "channel", channel);
+        Iterator<BinaryValue> keys = operation.iterator();
+        
+        operation.setResponse(chunk(false, "k1", "k2"));
+        verify(config, never()).setAutoRead(false);
+        operation.setResponse(chunk(false, "k3"));
+        verify(config).setAutoRead(false);
+        
+        assertEquals("k1", keys.next().toString());
+        verify(config).setAutoRead(true);
+        assertEquals("k2", keys.next().toString());
+        assertEquals("k3", keys.next().toString());
+        
+        operation.setResponse(chunk(true));
+        assertFalse(keys.hasNext());
+        assertTrue(operation.isDone());
+        assertTrue(operation.get().getKeys().isEmpty());
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void iteratorOnlyOnce()
+    {
+        ListKeysOperation operation = 
+            new ListKeysOperation.Builder(location).withStreaming(true).build();
+        operation.iterator();
+        operation.iterator();
+    }
+}
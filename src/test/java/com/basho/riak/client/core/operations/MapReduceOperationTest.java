@@ -0,0 +1,125 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.core.operations;
+
+import com.basho.riak.client.convert.ConversionException;
+import com.basho.riak.client.core.RiakMessage;
+import com.basho.riak.client.util.BinaryValue;
+import com.basho.riak.protobuf.RiakKvPB;
+import com.basho.riak.protobuf.RiakMessageCodes;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.protobuf.ByteString;
+import java.util.Iterator;
+import java.util.Map;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MapReduceOperationTest
+{
+    private final BinaryValue job = BinaryValue.create("{\"inputs\":\"bucket\"}");
+    
+    public static class Count
+    {
+        public String word;
+        public int count;
+    }
+    
+    private RiakMessage phase(int phase, String json)
+    {
+        RiakKvPB.RpbMapRedResp resp = 
+            RiakKvPB.RpbMapRedResp.newBuilder()
+                .setPhase(phase)
+                .setResponse(ByteString.copyFromUtf8(json))
+                .build();
+        return new RiakMessage(RiakMessageCodes.MSG_MapRedResp, resp.toByteArray());
+    }
+    
+    private RiakMessage done()
+    {
+        return new RiakMessage(RiakMessageCodes.MSG_MapRedResp, 
+                               RiakKvPB.RpbMapRedResp.newBuilder().setDone(true).build().toByteArray());
+    }
+    
+    @Test
+    public void collectsResultsByPhase() throws InterruptedException
+    {
+        MapReduceOperation operation = new MapReduceOperation.Builder(job).build();
+        operation.setResponse(phase(0, "[1,2]"));
+        operation.setResponse(phase(1, "[\"a\"]"));
+        operation.setResponse(phase(0, "[3]"));
+        operation.setResponse(done());
+        
+        Map<Integer, ?> results = operation.get().getResults();
+        assertEquals("[1,2,3]", results.get(0).toString());
+        assertEquals("[\"a\"]", results.get(1).toString());
+    }
+    
+    @Test
+    public void streamsResultsWithPhaseBinding()
+    {
+        MapReduceOperation operation = 
+            new MapReduceOperation.Builder(job)
+                .withStreaming(true)
+                .withPhaseType(1, Count.class)
+                .build();
+        Iterator<MapReduceOperation.PhaseResult> results = operation.iterator();
+        
+        operation.setResponse(phase(0, "[{\"x\":1}]"));
+        operation.setResponse(phase(1, "[{\"word\":\"riak\",\"count\":3},{\"word\":\"java\",\"count\":1}]"));
+        
+        MapReduceOperation.PhaseResult r = results.next();
+        assertEquals(0, r.getPhase());
+        assertEquals(1, ((JsonNode) r.getResult()).get("x").asInt());
+        
+        r = results.next();
+        assertEquals(1, r.getPhase());
+        assertEquals("riak", ((Count) r.getResult()).word);
+        assertEquals(1, ((Count) results.next().getResult()).count);
+        
+        operation.setResponse(done());
+        assertFalse(results.hasNext());
+    }
+    
+    @Test
+    public void unboundResultDoesNotFailJob()
+    {
+        MapReduceOperation operation = 
+            new MapReduceOperation.Builder(job)
+                .withStreaming(true)
+                .withPhaseType(0, Count.class)
+                .build();
+        Iterator<MapReduceOperation.PhaseResult> results = operation.iterator();
+        
+        operation.setResponse(phase(0, "[{\"word\":\"riak\",\"count\":\"many\"},{\"word\":\"java\",\"count\":1}]"));
+        operation.setResponse(done());
+        
+        MapReduceOperation.PhaseResult r = results.next();
+        try
+        {
+            r.getResult();
+            fail("Expected ConversionException");
+        }
+        catch (ConversionException ex)
+        {
+            assertTrue(ex.getMessage().contains(Count.class.getName()));
+        }
+        assertEquals("many", r.getJson().get("count").asText());
+        assertEquals("java", results.next().getResult(Count.class).word);
+        assertFalse(results.hasNext());
+        assertTrue(operation.isSuccess());
+    }
+}
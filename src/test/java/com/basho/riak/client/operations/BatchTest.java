@@ -0,0 +1,140 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.operations;
+
+import com.basho.riak.client.RiakClient;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.RiakFutureListener;
+import com.basho.riak.client.core.SchedulingTag;
+import com.basho.riak.client.operations.kv.DeleteValue;
+import com.basho.riak.client.query.Location;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class BatchTest
+{
+    @Mock RiakCluster mockCluster;
+    @Mock RiakFuture succeeded;
+    @Mock RiakFuture failed;
+    RiakClient client;
+    
+    @Before
+    @SuppressWarnings("unchecked")
+    public void init() throws Exception
+    {
+        MockitoAnnotations.initMocks(this);
+        Answer<Void> notify = new Answer<Void>()
+        {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable
+            {
+                RiakFutureListener listener = (RiakFutureListener) invocation.getArguments()[0];
+                listener.handle((RiakFuture) invocation.getMock());
+                return null;
+            }
+        };
+        when(succeeded.isDone()).thenReturn(true);
+        when(succeeded.isSuccess()).thenReturn(true);
+        doAnswer(notify).when(succeeded).addListener(any(RiakFutureListener.class));
+        when(failed.isDone()).thenReturn(true);
+        when(failed.isSuccess()).thenReturn(false);
+        when(failed.cause()).thenReturn(new IllegalStateException("failed"));
+        doAnswer(notify).when(failed).addListener(any(RiakFutureListener.class));
+        doReturn(succeeded).doReturn(failed).doReturn(succeeded)
+            .when(mockCluster).execute(MockClusters.anyOperation(), any(SchedulingTag.class));
+        client = new RiakClient(mockCluster);
+    }
+    
+    @Test
+    public void resultsInOrder() throws Exception
+    {
+        DeleteValue second = new DeleteValue.Builder(new Location("bucket").setKey("k2")).build();
+        Batch batch = new Batch.Builder()
+                        .add(new DeleteValue.Builder(new Location("bucket").setKey("k1")).build())
+                        .add(second)
+                        .add(new DeleteValue.Builder(new Location("bucket").setKey("k3")).build())
+                        .withMaxInFlight(1)
+                        .build();
+        
+        Batch.Response response = client.execute(batch);
+        
+        verify(mockCluster, times(3)).execute(MockClusters.anyOperation(), any(SchedulingTag.class));
+        assertEquals(3, response.getResults().size());
+        assertEquals(2, response.getSuccessCount());
+        assertEquals(1, response.getFailureCount());
+        assertTrue(response.getResults().get(0).isSuccess());
+        assertFalse(response.getResults().get(1).isSuccess());
+        assertTrue(response.getResults().get(1).getCause() instanceof IllegalStateException);
+        assertTrue(response.getResults().get(2).isSuccess());
+        assertSame(second, response.getResults().get(1).getCommand());
+        assertTrue(response.getElapsedTime(TimeUnit.NANOSECONDS) >= response.getMaxServiceTime(TimeUnit.NANOSECONDS));
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    public void nextCommandIsSubmittedOnCompletion() throws Exception
+    {
+        RiakFuture pending = mock(RiakFuture.class);
+        final List<RiakFutureListener> listeners = new ArrayList<RiakFutureListener>();
+        doAnswer(new Answer<Void>()
+        {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable
+            {
+                listeners.add((RiakFutureListener) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(pending).addListener(any(RiakFutureListener.class));
+        doReturn(pending).when(mockCluster).execute(MockClusters.anyOperation(), any(SchedulingTag.class));
+        Batch batch = new Batch.Builder()
+                        .add(new DeleteValue.Builder(new Location("bucket").setKey("k1")).build())
+                        .add(new DeleteValue.Builder(new Location("bucket").setKey("k2")).build())
+                        .add(new DeleteValue.Builder(new Location("bucket").setKey("k3")).build())
+                        .withMaxInFlight(2)
+                        .build();
+        
+        RiakFuture<Batch.Response, ?> future = client.executeAsync(batch);
+        verify(mockCluster, times(2)).execute(MockClusters.anyOperation(), any(SchedulingTag.class));
+        
+        when(pending.isSuccess()).thenReturn(true);
+        listeners.get(0).handle(pending);
+        verify(mockCluster, times(3)).execute(MockClusters.anyOperation(), any(SchedulingTag.class));
+        assertFalse(future.isDone());
+        
+        listeners.get(1).handle(pending);
+        listeners.get(2).handle(pending);
+        assertTrue(future.isDone());
+        assertEquals(3, future.get().getSuccessCount());
+    }
+    
+    @Test
+    public void emptyBatchCompletes() throws Exception
+    {
+        Batch.Response response = client.execute(new Batch.Builder().build());
+        assertTrue(response.getResults().isEmpty());
+    }
+}
@@ -24,6 +24,7 @@ import com.basho.riak.client.cap.VClock;
 import com.basho.riak.client.core.FutureOperation;
 import com.basho.riak.client.core.RiakCluster;
 import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.SchedulingTag;
 import com.basho.riak.client.core.operations.DeleteOperation;
 import com.basho.riak.client.query.Location;
 import com.basho.riak.protobuf.RiakKvPB;
@@ -59,7 +60,7 @@ public class DeleteValueTest
         when(mockFuture.isCancelled()).thenReturn(false);
         when(mockFuture.isDone()).thenReturn(true);
         when(mockFuture.isSuccess()).thenReturn(true);
-        when(mockCluster.<DeleteOperation, Location>execute(any(FutureOperation.class))).thenReturn(mockFuture);
+        when(mockCluster.<DeleteOperation, Location>execute(any(FutureOperation.class), any(SchedulingTag.class))).thenReturn(mockFuture);
         client = new RiakClient(mockCluster);
     }
 
@@ -84,7 +85,7 @@ public class DeleteValueTest
 
         ArgumentCaptor<DeleteOperation> captor =
             ArgumentCaptor.forClass(DeleteOperation.class);
-        verify(mockCluster).execute(captor.capture());
+        verify(mockCluster).execute(captor.capture(), any(SchedulingTag.class));
 
         DeleteOperation operation = captor.getValue();
         RiakKvPB.RpbDelReq.Builder builder =
@@ -19,7 +19,9 @@ import com.basho.riak.client.RiakClient;
 import com.basho.riak.client.cap.Quorum;
 import com.basho.riak.client.core.FutureOperation;
 import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.Priority;
 import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.SchedulingTag;
 import com.basho.riak.client.core.operations.DtFetchOperation;
 import com.basho.riak.client.operations.FetchDatatype.Option;
 import com.basho.riak.client.query.Location;
@@ -39,6 +41,7 @@ import java.util.concurrent.TimeUnit;
 import static junit.framework.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -50,6 +53,7 @@ public class FetchDatatypeTest
     @Mock DtFetchOperation.Response mockResponse;
 	Location key = new Location("bucket").setKey("key").setBucketType("type");
     RiakClient client;
+    SchedulingTag tag = new SchedulingTag(Priority.BATCH, "tenant");
 
     @Before
     @SuppressWarnings("unchecked")
@@ -63,7 +67,7 @@ public class FetchDatatypeTest
         when(mockFuture.isCancelled()).thenReturn(false);
         when(mockFuture.isDone()).thenReturn(true);
         when(mockFuture.isSuccess()).thenReturn(true);
-        when(mockCluster.execute(any(FutureOperation.class))).thenReturn(mockFuture);
+        when(mockCluster.execute(any(FutureOperation.class), any(SchedulingTag.class))).thenReturn(mockFuture);
         client = new RiakClient(mockCluster);
     }
 
@@ -80,13 +84,14 @@ public class FetchDatatypeTest
             .withOption(Option.R, new Quorum(1))
             .withOption(Option.SLOPPY_QUORUM, true)
             .withOption(Option.INCLUDE_CONTEXT, true)
+            .withSchedulingTag(tag)
 	        .build();
 
         client.execute(fetchValue);
 
         ArgumentCaptor<DtFetchOperation> captor =
             ArgumentCaptor.forClass(DtFetchOperation.class);
-        verify(mockCluster).execute(captor.capture());
+        verify(mockCluster).execute(captor.capture(), eq(tag));
 
         DtFetchOperation operation = captor.getValue();
         RiakDtPB.DtFetchReq.Builder builder =
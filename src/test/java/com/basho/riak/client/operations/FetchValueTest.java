@@ -24,6 +24,7 @@ import com.basho.riak.client.cap.VClock;
 import com.basho.riak.client.core.FutureOperation;
 import com.basho.riak.client.core.RiakCluster;
 import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.SchedulingTag;
 import com.basho.riak.client.core.operations.FetchOperation;
 import com.basho.riak.client.query.Location;
 import com.basho.riak.client.query.RiakObject;
@@ -64,7 +65,7 @@ public class FetchValueTest
         when(mockFuture.get(anyLong(), any(TimeUnit.class))).thenReturn(mockResponse);
         when(mockFuture.isCancelled()).thenReturn(false);
         when(mockFuture.isDone()).thenReturn(true);
-        when(mockCluster.execute(any(FutureOperation.class))).thenReturn(mockFuture);
+        when(mockCluster.execute(any(FutureOperation.class), any(SchedulingTag.class))).thenReturn(mockFuture);
         client = new RiakClient(mockCluster);
     }
 
@@ -88,7 +89,7 @@ public class FetchValueTest
 
         ArgumentCaptor<FetchOperation> captor =
             ArgumentCaptor.forClass(FetchOperation.class);
-        verify(mockCluster).execute(captor.capture());
+        verify(mockCluster).execute(captor.capture(), any(SchedulingTag.class));
 
         FetchOperation operation = captor.getValue();
         RiakKvPB.RpbGetReq.Builder builder =
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.operations;
+
+import com.basho.riak.client.core.StreamingException;
+import com.basho.riak.client.core.StreamingIterator;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @since 2.0
+ */
+public class MergingIteratorTest
+{
+    @Test
+    public void mergesEveryStream()
+    {
+        ListSource source = new ListSource(new EndlessStream(3), new EndlessStream(2));
+        MergingIterator<Integer> merged = new MergingIterator<Integer>(source, 2, 1);
+        
+        int count = 0;
+        while (merged.hasNext())
+        {
+            merged.next();
+            count++;
+        }
+        assertEquals(5, count);
+        assertTrue(source.closed);
+    }
+    
+    @Test(timeout = 10000)
+    public void closeStopsWorkersWaitingOnFullBuffer() throws InterruptedException
+    {
+        EndlessStream stream = new EndlessStream(-1);
+        ListSource source = new ListSource(stream);
+        MergingIterator<Integer> merged = new MergingIterator<Integer>(source, 1, 1);
+        
+        assertTrue(merged.hasNext());
+        merged.next();
+        merged.close();
+        
+        stream.closed.await();
+        assertTrue(source.closed);
+        assertFalse(merged.hasNext());
+        
+        // The worker has exited rather than waiting for buffer space
+        int produced = stream.produced.get();
+        Thread.sleep(300);
+        assertEquals(produced, stream.produced.get());
+    }
+    
+    @Test(timeout = 10000)
+    public void failureClosesOtherStreams() throws InterruptedException
+    {
+        EndlessStream blocked = new EndlessStream(0);
+        FailingStream failing = new FailingStream();
+        ListSource source = new ListSource(blocked, failing);
+        MergingIterator<Integer> merged = new MergingIterator<Integer>(source, 2, 1);
+        
+        try
+        {
+            while (merged.hasNext())
+            {
+                merged.next();
+            }
+            fail("Expected StreamingException");
+        }
+        catch (StreamingException ex)
+        {
+            assertEquals("failed", ex.getCause().getMessage());
+        }
+        blocked.closed.await();
+        assertTrue(source.closed);
+    }
+    
+    private static class ListSource implements MergingIterator.Source<Integer>
+    {
+        private final Iterator<IntegerStream> streams;
+        private volatile boolean closed;
+        
+        ListSource(IntegerStream... streams)
+        {
+            this.streams = Arrays.asList(streams).iterator();
+        }
+        
+        @Override
+        public StreamingIterator<Integer> next()
+        {
+            return streams.hasNext() ? streams.next() : null;
+        }
+
+        @Override
+        public void close()
+        {
+            closed = true;
+        }
+    }
+    
+    // Not generic, so ListSource can take them as varargs
+    private abstract static class IntegerStream implements StreamingIterator<Integer>
+    {
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+    
+    /**
+     * Returns {@code size} elements, endless if negative. With a size of 0 
+     * {@code hasNext()} waits until it is closed.
+     */
+    private static class EndlessStream extends IntegerStream
+    {
+        private final int size;
+        private final AtomicInteger produced = new AtomicInteger();
+        private final CountDownLatch closed = new CountDownLatch(1);
+        
+        EndlessStream(int size)
+        {
+            this.size = size;
+        }
+        
+        @Override
+        public boolean hasNext()
+        {
+            if (closed.getCount() == 0)
+            {
+                return false;
+            }
+            if (size == 0)
+            {
+                try
+                {
+                    closed.await();
+                }
+                catch (InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                return false;
+            }
+            return size < 0 || produced.get() < size;
+        }
+
+        @Override
+        public Integer next()
+        {
+            return produced.incrementAndGet();
+        }
+
+        @Override
+        public void close()
+        {
+            closed.countDown();
+        }
+    }
+    
+    private static class FailingStream extends IntegerStream
+    {
+        @Override
+        public boolean hasNext()
+        {
+            throw new StreamingException(new IllegalStateException("failed"));
+        }
+
+        @Override
+        public Integer next()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+}
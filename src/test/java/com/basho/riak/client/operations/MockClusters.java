@@ -0,0 +1,112 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.operations;
+
+import com.basho.riak.client.core.FutureOperation;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.SchedulingTag;
+import java.util.List;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Mocked {@link RiakCluster}s for testing commands.
+ * <p>
+ * A recording cluster doesn't run the operations it is given. It adds each
+ * one to a list and returns the operation itself as its future, so a test 
+ * can complete it by setting responses on it.
+ * </p>
+ * @since 2.0
+ */
+public final class MockClusters
+{
+    private MockClusters()
+    {
+    }
+    
+    /**
+     * Matches any operation passed to {@code RiakCluster.execute()}.
+     * @return null, as Mockito matchers do.
+     */
+    @SuppressWarnings("unchecked")
+    public static <V,S> FutureOperation<V,?,S> anyOperation()
+    {
+        return any(FutureOperation.class);
+    }
+    
+    /**
+     * Returns a mock cluster that records the operations it executes.
+     * @param executed the list the operations are added to.
+     * @return a mock RiakCluster.
+     */
+    public static <T extends FutureOperation<?,?,?>> RiakCluster recording(List<T> executed)
+    {
+        RiakCluster cluster = mock(RiakCluster.class);
+        record(cluster, executed);
+        return cluster;
+    }
+    
+    /**
+     * Makes a mock cluster record the operations it executes.
+     * <p>
+     * Operations are added to the list while holding its monitor, which is 
+     * then notified; see {@link #awaitOperation(java.util.List, int)}. The 
+     * operations aren't checked against the list's element type.
+     * </p>
+     * @param cluster the mock RiakCluster.
+     * @param executed the list the operations are added to.
+     */
+    public static <T extends FutureOperation<?,?,?>> void record(RiakCluster cluster, final List<T> executed)
+    {
+        doAnswer(new Answer<T>()
+        {
+            @Override
+            @SuppressWarnings("unchecked")
+            public T answer(InvocationOnMock invocation)
+            {
+                T op = (T) invocation.getArguments()[0];
+                synchronized (executed)
+                {
+                    executed.add(op);
+                    executed.notifyAll();
+                }
+                return op;
+            }
+        }).when(cluster).execute(MockClusters.<Object,Object>anyOperation(), any(SchedulingTag.class));
+    }
+    
+    /**
+     * Waits up to five seconds for a recording cluster to execute an operation.
+     * @param executed the list the cluster records operations in.
+     * @param index the index of the operation.
+     * @return the operation, or null if it wasn't executed in time.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public static <T> T awaitOperation(List<T> executed, int index) throws InterruptedException
+    {
+        synchronized (executed)
+        {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (executed.size() <= index && System.currentTimeMillis() < deadline)
+            {
+                executed.wait(100);
+            }
+            return executed.size() > index ? executed.get(index) : null;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.operations;
+
+import com.basho.riak.client.RiakClient;
+import com.basho.riak.client.core.FutureOperation;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.RiakMessage;
+import com.basho.riak.client.core.operations.FetchOperation;
+import com.basho.riak.client.core.operations.ListKeysOperation;
+import com.basho.riak.client.operations.kv.FetchValue;
+import com.basho.riak.client.operations.kv.ScanBucket;
+import com.basho.riak.client.query.Location;
+import com.basho.riak.protobuf.RiakKvPB;
+import com.basho.riak.protobuf.RiakMessageCodes;
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ScanBucketTest
+{
+    private final List<FutureOperation<?,?,?>> executed = new ArrayList<FutureOperation<?,?,?>>();
+    private RiakClient client;
+    
+    @Before
+    public void setUp()
+    {
+        RiakCluster cluster = MockClusters.recording(executed);
+        client = new RiakClient(cluster);
+    }
+    
+    private RiakMessage keys(boolean done, String... keys)
+    {
+        RiakKvPB.RpbListKeysResp.Builder builder = RiakKvPB.RpbListKeysResp.newBuilder();
+        for (String key : keys)
+        {
+            builder.addKeys(ByteString.copyFromUtf8(key));
+        }
+        builder.setDone(done);
+        return new RiakMessage(RiakMessageCodes.MSG_ListKeysResp, builder.build().toByteArray());
+    }
+    
+    private RiakMessage object(String value)
+    {
+        RiakKvPB.RpbGetResp resp = 
+            RiakKvPB.RpbGetResp.newBuilder()
+                .addContent(RiakKvPB.RpbContent.newBuilder().setValue(ByteString.copyFromUtf8(value)))
+                .setVclock(ByteString.copyFromUtf8("vclock"))
+                .build();
+        return new RiakMessage(RiakMessageCodes.MSG_GetResp, resp.toByteArray());
+    }
+    
+    @Test
+    public void fetchesEveryKeyWithinWindow() throws Exception
+    {
+        ScanBucket scan = new ScanBucket.Builder(new Location("bucket")).withMaxInFlight(1).build();
+        ScanBucket.Response response = client.executeAsync(scan).get();
+        
+        ListKeysOperation listKeys = (ListKeysOperation) MockClusters.awaitOperation(executed, 0);
+        listKeys.setResponse(keys(false, "k1", "k2"));
+        listKeys.setResponse(keys(true));
+        
+        FetchOperation first = (FetchOperation) MockClusters.awaitOperation(executed, 1);
+        assertEquals("k1", first.getQueryInfo().getKeyAsString());
+        first.setResponse(object("v1"));
+        
+        // The window is full until the consumer takes the first result
+        Thread.sleep(100);
+        assertEquals(2, executed.size());
+        
+        Iterator<RiakFuture<FetchValue.Response, Location>> results = response.iterator();
+        assertEquals("v1", results.next().get().getValue(String.class));
+        
+        FetchOperation second = (FetchOperation) MockClusters.awaitOperation(executed, 2);
+        assertEquals("k2", second.getQueryInfo().getKeyAsString());
+        second.setResponse(object("v2"));
+        assertEquals("v2", results.next().get().getValue(String.class));
+        assertFalse(results.hasNext());
+    }
+}
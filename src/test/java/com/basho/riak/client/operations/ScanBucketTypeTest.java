@@ -0,0 +1,117 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.operations;
+
+import com.basho.riak.client.RiakClient;
+import com.basho.riak.client.core.FutureOperation;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakMessage;
+import com.basho.riak.client.core.operations.ListBucketsOperation;
+import com.basho.riak.client.core.operations.ListKeysOperation;
+import com.basho.riak.client.query.Location;
+import com.basho.riak.client.util.BinaryValue;
+import com.basho.riak.protobuf.RiakKvPB;
+import com.basho.riak.protobuf.RiakMessageCodes;
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ScanBucketTypeTest
+{
+    private final List<FutureOperation<?,?,?>> executed = new ArrayList<FutureOperation<?,?,?>>();
+    private RiakClient client;
+    
+    @Before
+    public void setUp()
+    {
+        RiakCluster cluster = MockClusters.recording(executed);
+        client = new RiakClient(cluster);
+    }
+    
+    private RiakMessage buckets(boolean done, String... buckets)
+    {
+        RiakKvPB.RpbListBucketsResp.Builder builder = RiakKvPB.RpbListBucketsResp.newBuilder();
+        for (String bucket : buckets)
+        {
+            builder.addBuckets(ByteString.copyFromUtf8(bucket));
+        }
+        builder.setDone(done);
+        return new RiakMessage(RiakMessageCodes.MSG_ListBucketsResp, builder.build().toByteArray());
+    }
+    
+    private RiakMessage keys(String... keys)
+    {
+        RiakKvPB.RpbListKeysResp.Builder builder = RiakKvPB.RpbListKeysResp.newBuilder();
+        for (String key : keys)
+        {
+            builder.addKeys(ByteString.copyFromUtf8(key));
+        }
+        builder.setDone(true);
+        return new RiakMessage(RiakMessageCodes.MSG_ListKeysResp, builder.build().toByteArray());
+    }
+    
+    @Test
+    public void listBucketsReturnsBucketsInType() throws Exception
+    {
+        ListBuckets listBuckets = new ListBuckets.Builder("my_type").withStreaming(true).build();
+        ListBuckets.Response response = client.executeAsync(listBuckets).get();
+        
+        ListBucketsOperation op = (ListBucketsOperation) MockClusters.awaitOperation(executed, 0);
+        assertEquals(BinaryValue.create("my_type"), op.getQueryInfo());
+        op.setResponse(buckets(true, "b1"));
+        
+        Iterator<Location> locations = response.iterator();
+        Location location = locations.next();
+        assertEquals("b1", location.getBucketNameAsString());
+        assertEquals("my_type", location.getBucketTypeAsString());
+        assertFalse(locations.hasNext());
+    }
+    
+    @Test
+    public void scansKeysOfEveryBucket() throws Exception
+    {
+        ScanBucketType scan = new ScanBucketType.Builder("my_type").withMaxConcurrency(2).build();
+        ScanBucketType.Response response = client.executeAsync(scan).get();
+        
+        MockClusters.awaitOperation(executed, 0).setResponse(buckets(false, "b1", "b2"));
+        ((ListBucketsOperation) executed.get(0)).setResponse(buckets(true, "b3"));
+        
+        Set<String> found = new HashSet<String>();
+        Iterator<Location> locations = response.iterator();
+        for (int i = 1; i <= 3; i++)
+        {
+            ListKeysOperation op = (ListKeysOperation) MockClusters.awaitOperation(executed, i);
+            assertEquals("my_type", op.getQueryInfo().getBucketTypeAsString());
+            String bucket = op.getQueryInfo().getBucketNameAsString();
+            op.setResponse(keys("k"));
+            
+            Location location = locations.next();
+            assertEquals("my_type", location.getBucketTypeAsString());
+            found.add(location.getBucketNameAsString() + "/" + location.getKeyAsString());
+            assertTrue(found.contains(bucket + "/k"));
+        }
+        assertFalse(locations.hasNext());
+        assertEquals(new HashSet<String>(Arrays.asList("b1/k", "b2/k", "b3/k")), found);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.operations;
+
+import com.basho.riak.client.RiakClient;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakMessage;
+import com.basho.riak.client.core.operations.SearchOperation;
+import com.basho.riak.client.query.search.SearchResult;
+import com.basho.riak.protobuf.RiakMessageCodes;
+import com.basho.riak.protobuf.RiakPB.RpbPair;
+import com.basho.riak.protobuf.RiakSearchPB;
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+import static org.junit.Assert.*;
+
+public class SearchExportTest
+{
+    private final List<SearchOperation> executed = new ArrayList<SearchOperation>();
+    private RiakClient client;
+    
+    @Before
+    public void setUp()
+    {
+        RiakCluster cluster = MockClusters.recording(executed);
+        client = new RiakClient(cluster);
+    }
+    
+    private RiakSearchPB.RpbSearchQueryReq request(SearchOperation op)
+    {
+        RiakSearchPB.RpbSearchQueryReq.Builder builder = Whitebox.getInternalState(op, "reqBuilder");
+        return builder.build();
+    }
+    
+    private RiakMessage page(String... ids)
+    {
+        RiakSearchPB.RpbSearchQueryResp.Builder builder = RiakSearchPB.RpbSearchQueryResp.newBuilder();
+        for (String id : ids)
+        {
+            builder.addDocs(RiakSearchPB.RpbSearchDoc.newBuilder()
+                .addFields(RpbPair.newBuilder()
+                    .setKey(ByteString.copyFromUtf8("_yz_id"))
+                    .setValue(ByteString.copyFromUtf8(id))));
+        }
+        builder.setNumFound(ids.length);
+        return new RiakMessage(RiakMessageCodes.MSG_SearchQueryResp, builder.build().toByteArray());
+    }
+    
+    @Test
+    public void pagesOnSortFieldRange() throws Exception
+    {
+        SearchExport export = 
+            new SearchExport.Builder("index", "*:*")
+                .withFilterQuery("age:[1 TO 5]")
+                .withPageSize(2)
+                .build();
+        SearchExport.Response response = client.executeAsync(export).get();
+        
+        assertEquals(1, executed.size());
+        RiakSearchPB.RpbSearchQueryReq first = request(executed.get(0));
+        assertEquals("_yz_id asc", first.getSort().toStringUtf8());
+        assertEquals("(age:[1 TO 5])", first.getFilter().toStringUtf8());
+        assertEquals(2, first.getRows());
+        
+        executed.get(0).setResponse(page("a", "b\"c"));
+        Iterator<SearchResult.Document> docs = response.iterator();
+        assertEquals("a", docs.next().get("_yz_id"));
+        
+        assertEquals(2, executed.size());
+        assertEquals("(age:[1 TO 5]) AND (_yz_id:{\"b\\\"c\" TO *])", 
+                     request(executed.get(1)).getFilter().toStringUtf8());
+        assertEquals("b\"c", docs.next().get("_yz_id"));
+        
+        executed.get(1).setResponse(page("d"));
+        assertEquals("d", docs.next().get("_yz_id"));
+        assertFalse(docs.hasNext());
+        assertEquals(2, executed.size());
+    }
+    
+    @Test
+    public void partitionSlicesCoverRing()
+    {
+        SearchExport.Builder builder = new SearchExport.Builder("index", "*:*").withPartitionSlices(3, 64);
+        List<String> slices = Whitebox.getInternalState(builder, "slices");
+        assertEquals("_yz_pn:[1 TO 21]", slices.get(0));
+        assertEquals("_yz_pn:[22 TO 42]", slices.get(1));
+        assertEquals("_yz_pn:[43 TO 64]", slices.get(2));
+    }
+    
+    @Test
+    public void returnFieldsIncludeSortField() throws Exception
+    {
+        SearchExport export = 
+            new SearchExport.Builder("index", "*:*")
+                .withReturnFields("name_s")
+                .build();
+        client.executeAsync(export).get();
+        
+        List<ByteString> fields = request(executed.get(0)).getFlList();
+        assertEquals(2, fields.size());
+        assertEquals("_yz_id", fields.get(1).toStringUtf8());
+    }
+}
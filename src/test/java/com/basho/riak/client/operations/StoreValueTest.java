@@ -24,6 +24,7 @@ import com.basho.riak.client.cap.VClock;
 import com.basho.riak.client.core.FutureOperation;
 import com.basho.riak.client.core.RiakCluster;
 import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.SchedulingTag;
 import com.basho.riak.client.core.operations.StoreOperation;
 import com.basho.riak.client.query.Location;
 import com.basho.riak.client.query.RiakObject;
@@ -73,7 +74,7 @@ public class StoreValueTest
 		when(mockFuture.get(anyLong(), any(TimeUnit.class))).thenReturn(mockResponse);
 		when(mockFuture.isCancelled()).thenReturn(false);
 		when(mockFuture.isDone()).thenReturn(true);
-		when(mockCluster.execute(any(FutureOperation.class))).thenReturn(mockFuture);
+		when(mockCluster.execute(any(FutureOperation.class), any(SchedulingTag.class))).thenReturn(mockFuture);
 		client = new RiakClient(mockCluster);
 		riakObject = new RiakObject();
         riakObject.setVClock(vClock);
@@ -102,7 +103,7 @@ public class StoreValueTest
 
 		ArgumentCaptor<StoreOperation> captor =
 			ArgumentCaptor.forClass(StoreOperation.class);
-		verify(mockCluster).execute(captor.capture());
+		verify(mockCluster).execute(captor.capture(), any(SchedulingTag.class));
 
 		StoreOperation operation = captor.getValue();
 		RiakKvPB.RpbPutReq.Builder builder =
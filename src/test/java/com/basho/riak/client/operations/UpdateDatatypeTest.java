@@ -19,7 +19,9 @@ import com.basho.riak.client.RiakClient;
 import com.basho.riak.client.cap.Quorum;
 import com.basho.riak.client.core.FutureOperation;
 import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.Priority;
 import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.SchedulingTag;
 import com.basho.riak.client.core.operations.DtUpdateOperation;
 import com.basho.riak.client.operations.UpdateDatatype.Option;
 import com.basho.riak.client.operations.datatypes.Context;
@@ -42,6 +44,7 @@ import java.util.concurrent.TimeUnit;
 import static junit.framework.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -52,6 +55,7 @@ public class UpdateDatatypeTest
     @Mock DtUpdateOperation.Response mockResponse;
     @Mock Context context;
     RiakClient client;
+    SchedulingTag tag = new SchedulingTag(Priority.BATCH, "tenant");
 	Location key = new Location("bucket").setKey("key").setBucketType("type");
 
     @Before
@@ -66,7 +70,7 @@ public class UpdateDatatypeTest
         when(mockFuture.isCancelled()).thenReturn(false);
         when(mockFuture.isDone()).thenReturn(true);
         when(mockFuture.isSuccess()).thenReturn(true);
-        when(mockCluster.execute(any(FutureOperation.class))).thenReturn(mockFuture);
+        when(mockCluster.execute(any(FutureOperation.class), any(SchedulingTag.class))).thenReturn(mockFuture);
         when(context.getBytes()).thenReturn(new byte[] {'1'});
         client = new RiakClient(mockCluster);
     }
@@ -86,13 +90,14 @@ public class UpdateDatatypeTest
             .withOption(Option.SLOPPY_QUORUM, true)
             .withOption(Option.TIMEOUT, 1000)
             .withOption(Option.W, new Quorum(1))
+            .withSchedulingTag(tag)
 	        .build();
 
         client.execute(store);
 
         ArgumentCaptor<DtUpdateOperation> captor =
             ArgumentCaptor.forClass(DtUpdateOperation.class);
-        verify(mockCluster).execute(captor.capture());
+        verify(mockCluster).execute(captor.capture(), eq(tag));
 
         DtUpdateOperation operation = captor.getValue();
         RiakDtPB.DtUpdateReq.Builder builder =
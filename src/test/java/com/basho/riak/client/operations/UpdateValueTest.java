@@ -24,6 +24,7 @@ import com.basho.riak.client.convert.Converter;
 import com.basho.riak.client.convert.PassThroughConverter;
 import com.basho.riak.client.core.FutureOperation;
 import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.SchedulingTag;
 import com.basho.riak.client.core.operations.FetchOperation;
 import com.basho.riak.client.core.operations.StoreOperation;
 import com.basho.riak.client.query.Location;
@@ -68,7 +69,7 @@ public class UpdateValueTest
 		StoreOperation.Response storeResponse = mock(StoreOperation.Response.class);
 		when(storeResponse.getObjectList()).thenReturn(objects);
 
-		when(mockCluster.execute(any(FutureOperation.class)))
+		when(mockCluster.execute(any(FutureOperation.class), any(SchedulingTag.class)))
 			.thenReturn(new ImmediateRiakFuture<FetchOperation.Response, Location>(fetchResponse))
 			.thenReturn(new ImmediateRiakFuture<StoreOperation.Response, Location>(storeResponse));
 
@@ -93,7 +94,7 @@ public class UpdateValueTest
 
 		client.execute(update.build());
 
-		verify(mockCluster, times(2)).execute(any(FutureOperation.class));
+		verify(mockCluster, times(2)).execute(any(FutureOperation.class), any(SchedulingTag.class));
 		verify(spiedResolver, times(1)).resolve(anyList());
 		verify(spiedUpdate, times(1)).apply(any(RiakObject.class));
 		verify(spiedConverter, times(1)).fromDomain(any(RiakObject.class), any(Location.class));
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.operations.indexes;
+
+import com.basho.riak.client.core.FutureOperation;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.RiakMessage;
+import com.basho.riak.client.core.operations.MapReduceOperation;
+import com.basho.riak.client.operations.MockClusters;
+import com.basho.riak.client.query.Location;
+import com.basho.riak.protobuf.RiakKvPB;
+import com.basho.riak.protobuf.RiakMessageCodes;
+import com.basho.riak.protobuf.RiakPB;
+import com.google.protobuf.ByteString;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.internal.util.reflection.Whitebox;
+
+import static org.junit.Assert.*;
+
+public class IndexAggregateTest
+{
+    private final Location location = new Location("bucket");
+    private final List<FutureOperation<?, ?, ?>> executed = new ArrayList<FutureOperation<?, ?, ?>>();
+    private RiakCluster cluster;
+    
+    @Before
+    public void setUp()
+    {
+        cluster = MockClusters.recording(executed);
+    }
+    
+    private RiakMessage results(String... termsAndKeys)
+    {
+        RiakKvPB.RpbIndexResp.Builder builder = RiakKvPB.RpbIndexResp.newBuilder();
+        for (int i = 0; i < termsAndKeys.length; i += 2)
+        {
+            builder.addResults(RiakPB.RpbPair.newBuilder()
+                                .setKey(ByteString.copyFromUtf8(termsAndKeys[i]))
+                                .setValue(ByteString.copyFromUtf8(termsAndKeys[i + 1])));
+        }
+        builder.setDone(true);
+        return new RiakMessage(RiakMessageCodes.MSG_IndexResp, builder.build().toByteArray());
+    }
+    
+    @Test
+    public void aggregatesStreamedEntries() throws Exception
+    {
+        IntIndexQuery query = new IntIndexQuery.Builder(location, "age", 0L, 100L)
+                                .withKeyAndIndex(true)
+                                .build();
+        IndexAggregate<Long> agg = new IndexAggregate.Builder<Long>(query)
+                                    .withDistinctKeys(true)
+                                    .withDistinctTerms(true)
+                                    .withMinMax(true)
+                                    .withHistogram(IndexAggregate.linearBins(10))
+                                    .build();
+        
+        RiakFuture<IndexAggregate.Response<Long>, IndexAggregate<Long>> future = agg.executeAsync(cluster);
+        MockClusters.awaitOperation(executed, 0).setResponse(results("12", "k1", "15", "k1", "7", "k2", "42", "k3", "15", "k4"));
+        
+        IndexAggregate.Response<Long> response = future.get();
+        assertTrue(future.isSuccess());
+        assertEquals(5, response.getCount());
+        assertEquals(Long.valueOf(4), response.getDistinctKeys());
+        assertEquals(Long.valueOf(4), response.getDistinctTerms());
+        assertEquals(Long.valueOf(7), response.getMinTerm());
+        assertEquals(Long.valueOf(42), response.getMaxTerm());
+        
+        SortedMap<Long, Long> histogram = response.getHistogram();
+        assertEquals(3, histogram.size());
+        assertEquals(Long.valueOf(1), histogram.get(0L));
+        assertEquals(Long.valueOf(3), histogram.get(10L));
+        assertEquals(Long.valueOf(1), histogram.get(40L));
+    }
+    
+    @Test
+    public void cancelClosesStream() throws Exception
+    {
+        IntIndexQuery query = new IntIndexQuery.Builder(location, "age", 0L, 100L).build();
+        IndexAggregate<Long> agg = new IndexAggregate.Builder<Long>(query).build();
+        
+        RiakFuture<IndexAggregate.Response<Long>, IndexAggregate<Long>> future = agg.executeAsync(cluster);
+        FutureOperation<?, ?, ?> operation = MockClusters.awaitOperation(executed, 0);
+        
+        assertTrue(future.cancel(true));
+        assertTrue(future.isCancelled());
+        assertTrue((Boolean) Whitebox.getInternalState(operation, "closed"));
+    }
+    
+    @Test
+    public void countsWithMapReduce() throws Exception
+    {
+        BinIndexQuery query = new BinIndexQuery.Builder(location, "email", "a", "z").build();
+        IndexAggregate<String> agg = new IndexAggregate.Builder<String>(query)
+                                        .withMapReduce(true)
+                                        .build();
+        
+        RiakFuture<IndexAggregate.Response<String>, IndexAggregate<String>> future = agg.executeAsync(cluster);
+        MapReduceOperation op = (MapReduceOperation) MockClusters.awaitOperation(executed, 0);
+        op.setResponse(new RiakMessage(RiakMessageCodes.MSG_MapRedResp, 
+                                       RiakKvPB.RpbMapRedResp.newBuilder()
+                                            .setPhase(0)
+                                            .setResponse(ByteString.copyFromUtf8("[1234]"))
+                                            .build().toByteArray()));
+        op.setResponse(new RiakMessage(RiakMessageCodes.MSG_MapRedResp, 
+                                       RiakKvPB.RpbMapRedResp.newBuilder().setDone(true).build().toByteArray()));
+        
+        IndexAggregate.Response<String> response = future.get();
+        assertTrue(future.isSuccess());
+        assertEquals(1234, response.getCount());
+        assertNull(response.getMinTerm());
+    }
+    
+    @Test
+    public void mapReduceRangeIsSentAsUtf8() throws Exception
+    {
+        BinIndexQuery query = new BinIndexQuery.Builder(location, "name", "\u00e9a", "\u00e9z")
+                                .withCharacterSet(Charset.forName("UTF-8"))
+                                .build();
+        IndexAggregate<String> agg = new IndexAggregate.Builder<String>(query)
+                                        .withMapReduce(true)
+                                        .build();
+        
+        agg.executeAsync(cluster);
+        MapReduceOperation op = (MapReduceOperation) MockClusters.awaitOperation(executed, 0);
+        RiakKvPB.RpbMapRedReq.Builder req = 
+            (RiakKvPB.RpbMapRedReq.Builder) Whitebox.getInternalState(op, "reqBuilder");
+        String json = req.getRequest().toStringUtf8();
+        assertTrue(json, json.contains("\"\u00e9a\""));
+        assertTrue(json, json.contains("\"\u00e9z\""));
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void termAggregatesRequireTerms()
+    {
+        BinIndexQuery query = new BinIndexQuery.Builder(location, "email", "a", "z").build();
+        new IndexAggregate.Builder<String>(query).withMinMax(true).build();
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void bigIntQueriesCanNotUseMapReduce()
+    {
+        BigIntIndexQuery query = new BigIntIndexQuery.Builder(location, "big", 
+            BigInteger.ZERO, BigInteger.valueOf(Long.MAX_VALUE).shiftLeft(1)).build();
+        new IndexAggregate.Builder<BigInteger>(query).withMapReduce(true).build();
+    }
+    
+    @Test
+    public void linearBinsRoundDown()
+    {
+        IndexAggregate.Binner<Long> binner = IndexAggregate.linearBins(10);
+        assertEquals(Long.valueOf(-10), binner.bin(-1L));
+        assertEquals(Long.valueOf(-10), binner.bin(-10L));
+        assertEquals(Long.valueOf(0), binner.bin(9L));
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.operations.indexes;
+
+import com.basho.riak.client.RiakClient;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakMessage;
+import com.basho.riak.client.core.RiakNode;
+import com.basho.riak.client.core.operations.SecondaryIndexQueryOperation;
+import com.basho.riak.client.operations.MockClusters;
+import com.basho.riak.client.query.Location;
+import com.basho.riak.client.util.BinaryValue;
+import com.basho.riak.protobuf.RiakKvPB;
+import com.basho.riak.protobuf.RiakMessageCodes;
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class ParallelIndexQueryTest
+{
+    private final Location location = new Location("bucket");
+    private final List<SecondaryIndexQueryOperation> executed = new ArrayList<SecondaryIndexQueryOperation>();
+    private RiakCluster cluster;
+    
+    @Before
+    public void setUp()
+    {
+        cluster = mock(RiakCluster.class);
+        when(cluster.getNodes()).thenReturn(Arrays.asList(mock(RiakNode.class), mock(RiakNode.class)));
+        MockClusters.record(cluster, executed);
+    }
+    
+    private RiakMessage keys(String... keys)
+    {
+        RiakKvPB.RpbIndexResp.Builder builder = RiakKvPB.RpbIndexResp.newBuilder();
+        for (String key : keys)
+        {
+            builder.addKeys(ByteString.copyFromUtf8(key));
+        }
+        builder.setDone(true);
+        return new RiakMessage(RiakMessageCodes.MSG_IndexResp, builder.build().toByteArray());
+    }
+    
+    @Test
+    public void splitsNumericRangesEvenly()
+    {
+        List<IndexRangeSplitter.Range> ranges = 
+            IndexRangeSplitter.splitNumeric(BinaryValue.create("0"), BinaryValue.create("99"), 4);
+        
+        assertEquals(4, ranges.size());
+        assertEquals("0", ranges.get(0).getStart().toString());
+        assertEquals("24", ranges.get(0).getEnd().toString());
+        assertEquals("25", ranges.get(1).getStart().toString());
+        assertEquals("99", ranges.get(3).getEnd().toString());
+        
+        ranges = IndexRangeSplitter.splitNumeric(BinaryValue.create(String.valueOf(Long.MIN_VALUE)), 
+                                                 BinaryValue.create(String.valueOf(Long.MAX_VALUE)), 2);
+        assertEquals("-1", ranges.get(0).getEnd().toString());
+        assertEquals("0", ranges.get(1).getStart().toString());
+        
+        ranges = IndexRangeSplitter.splitNumeric(BinaryValue.create("5"), BinaryValue.create("6"), 10);
+        assertEquals(2, ranges.size());
+    }
+    
+    @Test
+    public void splitsLexicographicRangesWithoutGaps()
+    {
+        List<IndexRangeSplitter.Range> ranges = 
+            IndexRangeSplitter.splitLexicographic(BinaryValue.create("a"), BinaryValue.create("z"), 5);
+        
+        assertEquals(5, ranges.size());
+        assertEquals("a", ranges.get(0).getStart().toString());
+        assertEquals("z", ranges.get(4).getEnd().toString());
+        for (int i = 1; i < ranges.size(); i++)
+        {
+            byte[] previousEnd = ranges.get(i - 1).getEnd().getValue();
+            byte[] start = ranges.get(i).getStart().getValue();
+            // Each range starts at the immediate successor of the previous end
+            assertArrayEquals(previousEnd, Arrays.copyOf(start, start.length - 1));
+            assertEquals(0, start[start.length - 1]);
+        }
+        
+        ranges = IndexRangeSplitter.splitLexicographic(BinaryValue.create("m"), BinaryValue.create("m"), 5);
+        assertEquals(1, ranges.size());
+    }
+    
+    @Test
+    public void orderedResultsFollowRangeOrder() throws Exception
+    {
+        IntIndexQuery query = new IntIndexQuery.Builder(location, "age", 0L, 99L).build();
+        ParallelIndexQuery<IntIndexQuery.Response> pq = 
+            new ParallelIndexQuery.Builder<IntIndexQuery.Response>(query)
+                .withSplits(3)
+                .withMaxConcurrency(2)
+                .build();
+        
+        IntIndexQuery.Response response = new RiakClient(cluster).executeAsync(pq).get();
+        assertEquals(2, executed.size());
+        assertEquals("0", executed.get(0).getQueryInfo().getRangeStart().toString());
+        assertEquals("33", executed.get(1).getQueryInfo().getRangeStart().toString());
+        
+        executed.get(1).setResponse(keys("k2"));
+        executed.get(0).setResponse(keys("k1"));
+        
+        Iterator<IntIndexQuery.Response.Entry> entries = response.iterator();
+        assertEquals("k1", entries.next().getRiakObjectLocation().getKeyAsString());
+        assertEquals("k2", entries.next().getRiakObjectLocation().getKeyAsString());
+        assertEquals(3, executed.size());
+        assertEquals("66", executed.get(2).getQueryInfo().getRangeStart().toString());
+        
+        executed.get(2).setResponse(keys("k3"));
+        assertEquals("k3", entries.next().getRiakObjectLocation().getKeyAsString());
+        assertFalse(entries.hasNext());
+    }
+    
+    @Test
+    public void unorderedResultsIncludeEveryRange() throws Exception
+    {
+        BinIndexQuery query = new BinIndexQuery.Builder(location, "name", "a", "z").build();
+        ParallelIndexQuery<BinIndexQuery.Response> pq = 
+            new ParallelIndexQuery.Builder<BinIndexQuery.Response>(query)
+                .withSplits(4)
+                .withOrdered(false)
+                .build();
+        
+        BinIndexQuery.Response response = new RiakClient(cluster).executeAsync(pq).get();
+        
+        Set<String> keys = new HashSet<String>();
+        int answered = 0;
+        Iterator<BinIndexQuery.Response.Entry> entries = response.iterator();
+        while (answered < 4)
+        {
+            SecondaryIndexQueryOperation op = null;
+            synchronized (executed)
+            {
+                if (executed.size() > answered)
+                {
+                    op = executed.get(answered);
+                }
+            }
+            if (op == null)
+            {
+                Thread.sleep(10);
+                continue;
+            }
+            op.setResponse(keys("k" + answered));
+            answered++;
+            keys.add(entries.next().getRiakObjectLocation().getKeyAsString());
+        }
+        assertFalse(entries.hasNext());
+        assertEquals(new HashSet<String>(Arrays.asList("k0", "k1", "k2", "k3")), keys);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void matchQueriesCannotBeSplit()
+    {
+        IntIndexQuery query = new IntIndexQuery.Builder(location, "age", 5L).build();
+        new ParallelIndexQuery.Builder<IntIndexQuery.Response>(query);
+    }
+}
@@ -16,11 +16,21 @@
 
 package com.basho.riak.client.operations.indexes;
 
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.RiakMessage;
 import com.basho.riak.client.core.operations.SecondaryIndexQueryOperation;
+import com.basho.riak.client.operations.MockClusters;
 import com.basho.riak.client.query.Location;
 import com.basho.riak.client.util.BinaryValue;
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.fail;
+import com.basho.riak.protobuf.RiakKvPB;
+import com.basho.riak.protobuf.RiakMessageCodes;
+import com.basho.riak.protobuf.RiakPB;
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import static org.junit.Assert.*;
 import org.junit.Test;
 
 /**
@@ -162,4 +172,115 @@ public class SecondaryIndexQueryTest
         assertEquals(indexEnd, query.getRangeEnd());
         
     }
+    
+    private RiakMessage indexChunk(boolean done, String continuation, String... keys)
+    {
+        RiakKvPB.RpbIndexResp.Builder builder = RiakKvPB.RpbIndexResp.newBuilder();
+        for (String key : keys)
+        {
+            builder.addKeys(ByteString.copyFromUtf8(key));
+        }
+        if (continuation != null)
+        {
+            builder.setContinuation(ByteString.copyFromUtf8(continuation));
+        }
+        builder.setDone(done);
+        return new RiakMessage(RiakMessageCodes.MSG_IndexResp, builder.build().toByteArray());
+    }
+    
+    @Test
+    public void streamingQueryFollowsContinuation() throws Exception
+    {
+        final List<SecondaryIndexQueryOperation> executed = new ArrayList<SecondaryIndexQueryOperation>();
+        RiakCluster cluster = MockClusters.recording(executed);
+        
+        Location loc = new Location("bucket_name");
+        BinIndexQuery query = 
+            new BinIndexQuery.Builder(loc, "test_index", "a", "z")
+                .withMaxResults(2)
+                .withPaginationSort(true)
+                .withStreaming(true)
+                .build();
+        
+        BinIndexQuery.Response response = query.executeAsync(cluster).get();
+        assertTrue(response.isStreaming());
+        assertEquals(1, executed.size());
+        assertNull(executed.get(0).getQueryInfo().getContinuation());
+        
+        Iterator<BinIndexQuery.Response.Entry> entries = response.iterator();
+        executed.get(0).setResponse(indexChunk(false, null, "k1", "k2"));
+        executed.get(0).setResponse(indexChunk(true, "page2"));
+        
+        assertEquals("k1", entries.next().getRiakObjectLocation().getKeyAsString());
+        assertEquals(2, executed.size());
+        assertEquals(BinaryValue.create("page2"), executed.get(1).getQueryInfo().getContinuation());
+        assertEquals("k2", entries.next().getRiakObjectLocation().getKeyAsString());
+        
+        executed.get(1).setResponse(indexChunk(true, null, "k3"));
+        assertEquals("k3", entries.next().getRiakObjectLocation().getKeyAsString());
+        assertFalse(entries.hasNext());
+        assertEquals(2, executed.size());
+        assertFalse(response.hasContinuation());
+    }
+    
+    @Test
+    public void closingStreamingResponseStopsPaging() throws Exception
+    {
+        final List<SecondaryIndexQueryOperation> executed = new ArrayList<SecondaryIndexQueryOperation>();
+        RiakCluster cluster = MockClusters.recording(executed);
+        
+        BinIndexQuery query = 
+            new BinIndexQuery.Builder(new Location("bucket_name"), "test_index", "a", "z")
+                .withMaxResults(2)
+                .withPaginationSort(true)
+                .withStreaming(true)
+                .build();
+        
+        BinIndexQuery.Response response = query.executeAsync(cluster).get();
+        Iterator<BinIndexQuery.Response.Entry> entries = response.iterator();
+        executed.get(0).setResponse(indexChunk(false, null, "k1", "k2"));
+        assertEquals("k1", entries.next().getRiakObjectLocation().getKeyAsString());
+        
+        response.close();
+        assertFalse(entries.hasNext());
+        executed.get(0).setResponse(indexChunk(true, "page2"));
+        assertFalse(entries.hasNext());
+        assertEquals(1, executed.size());
+    }
+    
+    @Test
+    public void intQueryEntriesDecodeLazily() throws Exception
+    {
+        final List<SecondaryIndexQueryOperation> executed = new ArrayList<SecondaryIndexQueryOperation>();
+        RiakCluster cluster = MockClusters.recording(executed);
+        
+        Location loc = new Location("bucket_name").setBucketType("bucket_type");
+        IntIndexQuery query = 
+            new IntIndexQuery.Builder(loc, "test_index", Long.MIN_VALUE, Long.MAX_VALUE)
+                .withKeyAndIndex(true)
+                .build();
+        
+        RiakKvPB.RpbIndexResp.Builder builder = RiakKvPB.RpbIndexResp.newBuilder()
+            .addResults(RiakPB.RpbPair.newBuilder()
+                        .setKey(ByteString.copyFromUtf8("-42"))
+                        .setValue(ByteString.copyFromUtf8("k1")))
+            .addResults(RiakPB.RpbPair.newBuilder()
+                        .setKey(ByteString.copyFromUtf8(String.valueOf(Long.MIN_VALUE)))
+                        .setValue(ByteString.copyFromUtf8("k2")))
+            .setDone(true);
+        
+        RiakFuture<IntIndexQuery.Response, IntIndexQuery> future = query.executeAsync(cluster);
+        executed.get(0).setResponse(new RiakMessage(RiakMessageCodes.MSG_IndexResp, builder.build().toByteArray()));
+        
+        List<IntIndexQuery.Response.Entry> entries = future.get().getEntries();
+        assertEquals(2, entries.size());
+        assertEquals("k1", entries.get(0).getObjectKey().toString());
+        assertEquals(Long.valueOf(-42), entries.get(0).getIndexKey());
+        assertEquals(Long.valueOf(Long.MIN_VALUE), entries.get(1).getIndexKey());
+        
+        Location objLoc = entries.get(1).getRiakObjectLocation();
+        assertEquals("k2", objLoc.getKeyAsString());
+        assertEquals(loc.getBucketType(), objLoc.getBucketType());
+        assertSame(objLoc, entries.get(1).getRiakObjectLocation());
+    }
 }
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.operations.kv;
+
+import com.basho.riak.client.RiakClient;
+import com.basho.riak.client.annotations.RiakMerge;
+import com.basho.riak.client.cap.BasicVClock;
+import com.basho.riak.client.cap.ConflictResolverFactory;
+import com.basho.riak.client.cap.LastWriteWinsResolver;
+import com.basho.riak.client.cap.UnresolvedConflictException;
+import com.basho.riak.client.cap.VClock;
+import com.basho.riak.client.core.FutureOperation;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.operations.StoreOperation;
+import com.basho.riak.client.operations.MockClusters;
+import com.basho.riak.client.query.Location;
+import com.basho.riak.client.query.RiakObject;
+import com.basho.riak.client.query.indexes.StringBinIndex;
+import com.basho.riak.client.query.links.RiakLink;
+import com.basho.riak.protobuf.RiakKvPB;
+import com.basho.riak.protobuf.RiakPB;
+import com.basho.riak.client.util.BinaryValue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.internal.util.reflection.Whitebox;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @since 2.0
+ */
+public class SiblingWriteBackTest
+{
+    private final Location location = new Location("bucket").setKey("key");
+    private final VClock vclock = new BasicVClock(new byte[] { 1, 2, 3 });
+    private final List<FutureOperation<?,?,?>> executed = 
+        Collections.synchronizedList(new ArrayList<FutureOperation<?,?,?>>());
+    private RiakCluster cluster;
+    private SiblingWriteBack writeBack;
+    
+    @Before
+    public void setUp()
+    {
+        cluster = MockClusters.recording(executed);
+        writeBack = new SiblingWriteBack(new RiakClient(cluster), 100, 1, TimeUnit.HOURS);
+    }
+    
+    @After
+    public void tearDown()
+    {
+        writeBack.shutdown();
+        ConflictResolverFactory.getInstance().unregisterConflictResolver(RiakObject.class);
+    }
+    
+    @Test
+    public void resolvedSiblingsAreWrittenBackOncePerLocation() throws UnresolvedConflictException
+    {
+        Counter first = response(siblings()).getValue(Counter.class);
+        Counter second = response(siblings()).getValue(Counter.class);
+        
+        assertEquals(2, first.value);
+        assertEquals(2, second.value);
+        assertEquals(1, writeBack.getPendingCount());
+        
+        assertEquals(1, writeBack.flush());
+        assertEquals(0, writeBack.getPendingCount());
+        assertEquals(1, executed.size());
+        assertTrue(executed.get(0) instanceof StoreOperation);
+        assertEquals(location, ((StoreOperation)executed.get(0)).getQueryInfo());
+    }
+    
+    @Test
+    public void singleValueIsNotWrittenBack() throws UnresolvedConflictException
+    {
+        response(siblings().subList(0, 1)).getValue(Counter.class);
+        
+        assertEquals(0, writeBack.getPendingCount());
+        assertEquals(0, writeBack.flush());
+        assertTrue(executed.isEmpty());
+    }
+    
+    @Test
+    public void selectedSiblingIsWrittenBack() throws UnresolvedConflictException
+    {
+        ConflictResolverFactory.getInstance()
+            .registerConflictResolver(RiakObject.class, new LastWriteWinsResolver<RiakObject>());
+        
+        RiakObject resolved = response(siblings()).getValue(RiakObject.class);
+        
+        assertEquals("{\"value\":2}", resolved.getValue().toString());
+        assertEquals(vclock, resolved.getVClock());
+        assertEquals(1, writeBack.flush());
+    }
+    
+    @Test
+    public void fullBatchIsFlushed() throws Exception
+    {
+        writeBack.shutdown();
+        writeBack = new SiblingWriteBack(new RiakClient(cluster), 2, 1, TimeUnit.HOURS);
+        
+        response(siblings()).getValue(Counter.class);
+        response(siblings(), new Location("bucket").setKey("key2")).getValue(Counter.class);
+        
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executed.size() < 2 && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10);
+        }
+        assertEquals(0, writeBack.getPendingCount());
+        assertEquals(2, executed.size());
+    }
+    
+    @Test
+    public void newestSiblingMetadataIsWrittenBack() throws UnresolvedConflictException
+    {
+        List<RiakObject> siblings = metadataSiblings();
+        
+        response(siblings).getValue(Counter.class);
+        assertEquals(1, writeBack.flush());
+        
+        RiakKvPB.RpbContent content = writtenContent();
+        assertEquals(1, content.getIndexesCount());
+        assertEquals("a@example.com", content.getIndexes(0).getValue().toStringUtf8());
+        assertEquals(0, content.getLinksCount());
+        assertEquals(1, content.getUsermetaCount());
+        assertEquals("newest", content.getUsermeta(0).getValue().toStringUtf8());
+    }
+    
+    @Test
+    public void siblingMetadataIsMergedWhenRequested() throws UnresolvedConflictException
+    {
+        List<RiakObject> siblings = metadataSiblings();
+        
+        response(siblings).getValue(MergingCounter.class);
+        assertEquals(1, writeBack.flush());
+        
+        RiakKvPB.RpbContent content = writtenContent();
+        assertEquals(2, content.getIndexesCount());
+        assertEquals(1, content.getLinksCount());
+        assertEquals(2, content.getUsermetaCount());
+        for (RiakPB.RpbPair pair : content.getUsermetaList())
+        {
+            if (pair.getKey().toStringUtf8().equals("owner"))
+            {
+                assertEquals("newest", pair.getValue().toStringUtf8());
+            }
+        }
+    }
+    
+    @Test
+    public void removedMetadataIsNotResurrectedBySelector() throws UnresolvedConflictException
+    {
+        ConflictResolverFactory.getInstance()
+            .registerConflictResolver(RiakObject.class, new LastWriteWinsResolver<RiakObject>());
+        List<RiakObject> siblings = metadataSiblings();
+        
+        RiakObject resolved = response(siblings).getValue(RiakObject.class);
+        resolved.getUserMeta().put("owner", "caller");
+        assertEquals(1, writeBack.flush());
+        
+        RiakKvPB.RpbContent content = writtenContent();
+        assertEquals(1, content.getIndexesCount());
+        assertEquals("a@example.com", content.getIndexes(0).getValue().toStringUtf8());
+        assertEquals(0, content.getLinksCount());
+        assertEquals(1, content.getUsermetaCount());
+        assertEquals("newest", content.getUsermeta(0).getValue().toStringUtf8());
+    }
+    
+    @Test
+    public void nothingIsQueuedAfterShutdown() throws UnresolvedConflictException
+    {
+        writeBack.shutdown();
+        
+        Counter resolved = response(siblings()).getValue(Counter.class);
+        
+        assertEquals(2, resolved.value);
+        assertEquals(0, writeBack.getPendingCount());
+        assertEquals(0, writeBack.flush());
+        assertTrue(executed.isEmpty());
+    }
+    
+    private RiakKvPB.RpbContent writtenContent()
+    {
+        RiakKvPB.RpbPutReq.Builder req = 
+            (RiakKvPB.RpbPutReq.Builder) Whitebox.getInternalState(executed.get(0), "reqBuilder");
+        return req.getContent();
+    }
+    
+    private FetchValue.Response response(List<RiakObject> values)
+    {
+        return response(values, location);
+    }
+    
+    private FetchValue.Response response(List<RiakObject> values, Location location)
+    {
+        return new FetchValue.Response.Builder()
+                    .withLocation(location)
+                    .withValues(values)
+                    .withWriteBack(writeBack)
+                    .build();
+    }
+    
+    // Newest last by modification time, but not in that order
+    private List<RiakObject> siblings()
+    {
+        return Arrays.asList(sibling(2, 3000), sibling(1, 1000), sibling(3, 2000));
+    }
+    
+    // The older siblings have an index, link and user metadata the newest lacks
+    private List<RiakObject> metadataSiblings()
+    {
+        List<RiakObject> siblings = siblings();
+        siblings.get(0).getIndexes().getIndex(StringBinIndex.named("email")).add("a@example.com");
+        siblings.get(1).getIndexes().getIndex(StringBinIndex.named("email")).add("b@example.com");
+        siblings.get(1).getLinks().addLink(new RiakLink("bucket", "other", "tag"));
+        siblings.get(0).getUserMeta().put("owner", "newest");
+        siblings.get(2).getUserMeta().put("owner", "oldest");
+        siblings.get(2).getUserMeta().put("color", "blue");
+        return siblings;
+    }
+    
+    private RiakObject sibling(int value, long lastModified)
+    {
+        return new RiakObject()
+                .setContentType("application/json")
+                .setValue(BinaryValue.create("{\"value\":" + value + "}"))
+                .setLastModified(lastModified)
+                .setVTag("tag" + value)
+                .setVClock(vclock);
+    }
+    
+    public static class Counter
+    {
+        public int value;
+        
+        // Siblings are passed oldest first, so the last one is the newest
+        @RiakMerge
+        static Counter newest(List<Counter> siblings)
+        {
+            return siblings.get(siblings.size() - 1);
+        }
+    }
+    
+    public static class MergingCounter
+    {
+        public int value;
+        
+        @RiakMerge(mergeMetadata = true)
+        static MergingCounter newest(List<MergingCounter> siblings)
+        {
+            return siblings.get(siblings.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.query;
+
+import com.basho.riak.client.query.indexes.LongIntIndex;
+import com.basho.riak.client.query.indexes.StringBinIndex;
+import com.basho.riak.client.query.links.RiakLink;
+import com.basho.riak.client.util.BinaryValue;
+
+/**
+ * Reports the retained heap of a RiakObject with 5 indexes, 3 user meta 
+ * entries and 2 links.
+ * <p>
+ * Not run as part of the test suite; run with 
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test 
+ * -Dexec.mainClass=com.basho.riak.client.query.RiakObjectFootprintBenchmark}
+ * </p>
+ */
+public class RiakObjectFootprintBenchmark
+{
+    private static final int OBJECTS = 100000;
+    
+    public static void main(String[] args) throws InterruptedException
+    {
+        BinaryValue value = BinaryValue.create("{\"foo\":\"bar\"}");
+        
+        long before = usedHeap();
+        RiakObject[] objects = new RiakObject[OBJECTS];
+        for (int i = 0; i < OBJECTS; i++)
+        {
+            RiakObject ro = new RiakObject().setValue(value);
+            for (int j = 0; j < 4; j++)
+            {
+                ro.getIndexes().getIndex(StringBinIndex.named("index" + j)).add("value" + j);
+            }
+            ro.getIndexes().getIndex(LongIntIndex.named("number")).add((long) i);
+            for (int j = 0; j < 3; j++)
+            {
+                ro.getUserMeta().put("meta" + j, "value" + j);
+            }
+            ro.getLinks().addLink(new RiakLink("bucket", "key1", "tag"));
+            ro.getLinks().addLink(new RiakLink("bucket", "key2", "tag"));
+            objects[i] = ro;
+        }
+        long after = usedHeap();
+        
+        System.out.printf("%d bytes/object%n", (after - before) / OBJECTS);
+        System.out.println(objects.length);
+    }
+    
+    private static long usedHeap() throws InterruptedException
+    {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+        {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
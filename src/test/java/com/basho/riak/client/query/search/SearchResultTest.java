@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.query.search;
+
+import com.google.protobuf.ByteString;
+import java.util.HashMap;
+import java.util.Map;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class SearchResultTest
+{
+    private static ByteString utf8(String s)
+    {
+        return ByteString.copyFromUtf8(s);
+    }
+    
+    private SearchResult twoDocs()
+    {
+        return new SearchResult.Builder()
+            .startDocument()
+            .addField(utf8("_yz_id"), utf8("1"))
+            .addField(utf8("tag_ss"), utf8("a"))
+            .addField(utf8("tag_ss"), utf8("b"))
+            .addField(utf8("age_i"), utf8("-42"))
+            .startDocument()
+            .addField(utf8("_yz_id"), utf8("2"))
+            .addField(utf8("score_f"), utf8("1.5"))
+            .addField(utf8("big_l"), utf8("9223372036854775807"))
+            .build();
+    }
+    
+    @Test
+    public void fieldNamesAreShared()
+    {
+        SearchResult result = twoDocs();
+        assertEquals(2, result.size());
+        assertEquals(5, result.getFieldNames().size());
+        assertSame(result.get(0).getFieldName(0), result.get(1).getFieldName(0));
+        assertEquals(4, result.get(0).size());
+        assertEquals("b", result.get(0).getFieldValue(2));
+        assertEquals("a", result.get(0).get("tag_ss"));
+        assertNull(result.get(1).get("tag_ss"));
+    }
+    
+    @Test
+    public void typedAccessors()
+    {
+        SearchResult result = twoDocs();
+        assertEquals(Long.valueOf(-42), result.get(0).getLong("age_i"));
+        assertEquals(Long.valueOf(Long.MAX_VALUE), result.get(1).getLong("big_l"));
+        assertEquals(Double.valueOf(1.5), result.get(1).getDouble("score_f"));
+        assertNull(result.get(0).getLong("score_f"));
+    }
+    
+    @Test(expected = NumberFormatException.class)
+    public void nonNumericLongFails()
+    {
+        twoDocs().get(1).getLong("score_f");
+    }
+    
+    @Test
+    public void mapViewUsesLastValue()
+    {
+        Map<String, String> map = twoDocs().get(0).asMap();
+        assertEquals(3, map.size());
+        assertEquals("b", map.get("tag_ss"));
+        assertTrue(map.containsKey("age_i"));
+        assertEquals(3, map.entrySet().size());
+        String[] keys = { "_yz_id", "tag_ss", "age_i" };
+        int count = 0;
+        for (Map.Entry<String, String> e : map.entrySet())
+        {
+            assertEquals(keys[count], e.getKey());
+            assertEquals(map.get(e.getKey()), e.getValue());
+            count++;
+        }
+        assertEquals(3, count);
+        assertEquals(map, new HashMap<String, String>(map));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.util;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @since 2.0
+ */
+public class ArrayMapTest
+{
+    @Test
+    public void mapSemantics()
+    {
+        ArrayMap<String, Integer> map = new ArrayMap<String, Integer>();
+        assertNull(map.put("a", 1));
+        assertNull(map.putIfAbsent("b", 2));
+        assertEquals(Integer.valueOf(2), map.putIfAbsent("b", 3));
+        assertEquals(Integer.valueOf(1), map.put("a", 4));
+        assertEquals(Integer.valueOf(4), map.get("a"));
+        assertEquals(2, map.size());
+        
+        assertFalse(map.replace("a", 1, 5));
+        assertTrue(map.replace("a", 4, 5));
+        assertFalse(map.remove("b", 3));
+        assertTrue(map.remove("b", 2));
+        assertNull(map.replace("b", 6));
+        
+        Map<String, Integer> expected = new HashMap<String, Integer>();
+        expected.put("a", 5);
+        assertEquals(expected, map);
+        assertEquals(Integer.valueOf(5), map.remove("a"));
+        assertTrue(map.isEmpty());
+    }
+    
+    @Test
+    public void entryIteratorIsSnapshot()
+    {
+        ArrayMap<String, Integer> map = new ArrayMap<String, Integer>();
+        map.put("a", 1);
+        map.put("b", 2);
+        Iterator<Map.Entry<String, Integer>> i = map.entrySet().iterator();
+        map.put("c", 3);
+        
+        int count = 0;
+        while (i.hasNext())
+        {
+            if (i.next().getKey().equals("a"))
+            {
+                i.remove();
+            }
+            count++;
+        }
+        assertEquals(2, count);
+        assertFalse(map.containsKey("a"));
+        assertEquals(2, map.size());
+    }
+    
+    @Test
+    public void largeMapsAreHashed()
+    {
+        ArrayMap<Integer, Integer> map = new ArrayMap<Integer, Integer>();
+        Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+        for (int i = 0; i < 1000; i++)
+        {
+            assertNull(map.put(i, i));
+            expected.put(i, i);
+        }
+        assertEquals(expected, map);
+        assertEquals(Integer.valueOf(7), map.putIfAbsent(7, 8));
+        assertTrue(map.replace(7, 7, 8));
+        assertEquals(Integer.valueOf(8), map.remove(7));
+        assertFalse(map.containsKey(7));
+        
+        Iterator<Map.Entry<Integer, Integer>> i = map.entrySet().iterator();
+        i.next();
+        i.remove();
+        assertEquals(998, map.size());
+    }
+    
+    @Test(expected = NullPointerException.class)
+    public void nullValuesAreRejected()
+    {
+        new ArrayMap<String, String>().put("a", null);
+    }
+    
+    @Test(expected = NullPointerException.class)
+    public void nullKeysAreRejected()
+    {
+        new ArrayMap<String, String>().putIfAbsent(null, "a");
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @since 2.0
+ */
+public class ArraySetTest
+{
+    @Test
+    public void setSemantics()
+    {
+        ArraySet<String> set = new ArraySet<String>();
+        assertTrue(set.isEmpty());
+        assertTrue(set.add("a"));
+        assertFalse(set.add("a"));
+        assertTrue(set.addAll(Arrays.asList("b", "c", "b", "a")));
+        assertEquals(3, set.size());
+        assertTrue(set.contains("c"));
+        assertTrue(set.remove("b"));
+        assertFalse(set.remove("b"));
+        assertEquals(new java.util.HashSet<String>(Arrays.asList("a", "c")), set);
+        set.clear();
+        assertTrue(set.isEmpty());
+    }
+    
+    @Test
+    public void iteratorIsSnapshot()
+    {
+        ArraySet<String> set = new ArraySet<String>(Arrays.asList("a", "b", "c"));
+        Iterator<String> i = set.iterator();
+        set.add("d");
+        
+        int count = 0;
+        while (i.hasNext())
+        {
+            if (i.next().equals("b"))
+            {
+                i.remove();
+            }
+            count++;
+        }
+        assertEquals(3, count);
+        assertEquals(3, set.size());
+        assertFalse(set.contains("b"));
+        assertTrue(set.contains("d"));
+    }
+    
+    @Test
+    public void largeSetsAreHashed()
+    {
+        ArraySet<Integer> set = new ArraySet<Integer>();
+        for (int i = 0; i < 1000; i++)
+        {
+            assertTrue(set.add(i));
+            assertFalse(set.add(i));
+        }
+        assertEquals(1000, set.size());
+        assertTrue(set.contains(999));
+        assertTrue(set.remove(500));
+        assertFalse(set.contains(500));
+        
+        Iterator<Integer> i = set.iterator();
+        i.next();
+        i.remove();
+        assertEquals(998, set.size());
+        
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertTrue(set.addAll(Arrays.asList(1, 2)));
+        assertEquals(2, set.size());
+    }
+    
+    @Test
+    public void bulkAddPastThreshold()
+    {
+        ArraySet<Integer> set = new ArraySet<Integer>(Arrays.asList(1, 2, 3));
+        Integer[] more = new Integer[ArraySet.HASH_THRESHOLD * 2];
+        for (int i = 0; i < more.length; i++)
+        {
+            more[i] = i;
+        }
+        assertTrue(set.addAll(Arrays.asList(more)));
+        assertEquals(more.length, set.size());
+        assertEquals(new java.util.HashSet<Integer>(Arrays.asList(more)), set);
+    }
+    
+    @Test(expected = NullPointerException.class)
+    public void nullsAreRejected()
+    {
+        new ArraySet<String>().add(null);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.util;
+
+import com.google.protobuf.ByteString;
+import java.io.InputStream;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @since 2.0
+ */
+public class BinaryValueTest
+{
+    @Test
+    public void byteStringIsNotCopied() throws Exception
+    {
+        ByteString bs = ByteString.copyFromUtf8("some value");
+        BinaryValue value = BinaryValue.create(bs);
+        
+        assertSame(bs, value.toByteString());
+        assertEquals(bs.size(), value.length());
+        
+        InputStream in = value.openStream();
+        byte[] read = new byte[bs.size()];
+        assertEquals(read.length, in.read(read));
+        assertEquals(-1, in.read());
+        assertArrayEquals(bs.toByteArray(), read);
+    }
+    
+    @Test
+    public void byteStringBackedEqualsArrayBacked()
+    {
+        BinaryValue fromArray = BinaryValue.createFromUtf8("some value");
+        BinaryValue fromByteString = BinaryValue.create(ByteString.copyFromUtf8("some value"));
+        
+        assertEquals(fromArray, fromByteString);
+        assertEquals(fromByteString, fromArray);
+        assertEquals(fromArray.hashCode(), fromByteString.hashCode());
+        assertEquals("some value", fromByteString.toStringUtf8());
+        assertArrayEquals(fromArray.unsafeGetValue(), fromByteString.unsafeGetValue());
+        assertEquals(fromArray.toByteString(), fromByteString.toByteString());
+    }
+}
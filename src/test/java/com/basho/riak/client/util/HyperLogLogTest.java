@@ -0,0 +1,69 @@
+/*
+ * Copyright 2014 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HyperLogLogTest
+{
+    @Test
+    public void smallCardinalitiesAreExact()
+    {
+        HyperLogLog hll = new HyperLogLog();
+        assertEquals(0, hll.estimate());
+        for (int i = 0; i < 100; i++)
+        {
+            hll.add(BinaryValue.create("key" + (i % 50)));
+        }
+        assertEquals(50, hll.estimate());
+    }
+    
+    @Test
+    public void largeCardinalitiesAreClose()
+    {
+        HyperLogLog hll = new HyperLogLog();
+        int n = 200000;
+        for (int i = 0; i < n; i++)
+        {
+            hll.add(BinaryValue.create("key" + i));
+        }
+        assertEquals(n, hll.estimate(), n * 0.03);
+    }
+    
+    @Test
+    public void mergeIsUnion()
+    {
+        HyperLogLog a = new HyperLogLog(10);
+        HyperLogLog b = new HyperLogLog(10);
+        for (int i = 0; i < 300; i++)
+        {
+            a.add(BinaryValue.create("a" + i));
+            b.add(BinaryValue.create("b" + i));
+        }
+        long before = a.estimate();
+        a.merge(b);
+        assertEquals(600, a.estimate(), 600 * 0.1);
+        assertTrue(a.estimate() > before);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void mergeRequiresSamePrecision()
+    {
+        new HyperLogLog(10).merge(new HyperLogLog(12));
+    }
+}